@@ -0,0 +1,132 @@
+package com.devops.pfe.cache;
+
+import com.devops.pfe.entity.CollectionVersion;
+import com.devops.pfe.repository.CollectionVersionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongConsumer;
+
+/**
+ * Compteurs de modifications des collections, dont l'étiquette sert d'ETag.
+ *
+ * Les compteurs sont en base ({@link CollectionVersion}) : toutes les instances
+ * voient la même étiquette, qui change avec le commit des données. L'incrément
+ * est différé juste avant le commit, une fois par transaction et par collection,
+ * pour ne garder le verrou de la ligne que le temps du commit. Les valeurs
+ * réservées ({@link #reserve}) sont attribuées sous ce verrou : elles croissent
+ * dans l'ordre des commits, quelle que soit l'instance. Chaque compteur part de
+ * l'instant de création de sa ligne : une base recréée ne rejoue pas d'anciennes
+ * étiquettes.
+ */
+@Component
+@Slf4j
+public class ChangeCounter implements SmartInitializingSingleton {
+
+    public static final String ORDERS = "orders";
+    public static final String PRODUCTS = "products";
+
+    private static final List<String> COLLECTIONS = List.of(ORDERS, PRODUCTS);
+
+    private final CollectionVersionRepository repository;
+    private final TransactionTemplate writeTemplate;
+
+    public ChangeCounter(CollectionVersionRepository repository, PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Crée les compteurs absents ; une instance concurrente peut les avoir créés entre-temps.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String collection : COLLECTIONS) {
+            try {
+                writeTemplate.executeWithoutResult(status -> {
+                    if (!repository.existsById(collection)) {
+                        repository.saveAndFlush(new CollectionVersion(collection, System.currentTimeMillis()));
+                    }
+                });
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Compteur {} déjà créé par une autre instance", collection);
+            }
+        }
+    }
+
+    /**
+     * Fait avancer le compteur avec la transaction courante, ou dans sa propre
+     * transaction en l'absence de transaction (ou après sa fin).
+     */
+    public void increment(String collection) {
+        register(collection, null);
+    }
+
+    /**
+     * Réserve une valeur du compteur, attribuée à {@code reserved} juste avant le commit
+     * de la transaction courante ; {@code reserved} s'exécute dans cette transaction.
+     */
+    public void reserve(String collection, LongConsumer reserved) {
+        register(collection, reserved);
+    }
+
+    private void register(String collection, LongConsumer reserved) {
+        List<LongConsumer> reservations = reserved == null ? List.of() : List.of(reserved);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            writeTemplate.executeWithoutResult(status -> advance(collection, reservations));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, List<LongConsumer>> pending = (Map<String, List<LongConsumer>>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            // Ordre fixe des lignes : deux transactions ne s'interbloquent pas sur les compteurs
+            Map<String, List<LongConsumer>> collections = new TreeMap<>();
+            TransactionSynchronizationManager.bindResource(this, collections);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    collections.forEach(ChangeCounter.this::advance);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ChangeCounter.this);
+                }
+            });
+            pending = collections;
+        }
+        pending.computeIfAbsent(collection, key -> new ArrayList<>()).addAll(reservations);
+    }
+
+    private void advance(String collection, List<LongConsumer> reservations) {
+        repository.increment(collection, Math.max(1, reservations.size()));
+        if (reservations.isEmpty()) {
+            return;
+        }
+        long next = repository.findVersion(collection)
+                .orElseThrow(() -> new IllegalStateException("Compteur de modifications absent: " + collection))
+                - reservations.size() + 1;
+        for (LongConsumer reservation : reservations) {
+            reservation.accept(next++);
+        }
+    }
+
+    public String tag(String collection) {
+        return repository.findVersion(collection)
+                .map(version -> Long.toString(version, 36))
+                .orElse("0");
+    }
+}
@@ -0,0 +1,157 @@
+package com.devops.pfe.cache;
+
+import com.devops.pfe.dto.ProductDTO;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Cache read-through des produits, indexé par ID et par SKU.
+ *
+ * La taille et la durée de vie des entrées sont bornées par la configuration
+ * du CacheManager. Les absences ne sont jamais mises en cache : seule une
+ * mutation du produit (via {@link #evict(Long, String)}) invalide une entrée.
+ *
+ * Chaque invalidation fait avancer un compteur par tranche de clés : une
+ * valeur chargée avant une invalidation de sa clé n'est pas mise en cache,
+ * même si elle arrive après. Le cache garde des copies et rend des copies :
+ * modifier un produit obtenu ne touche pas l'entrée.
+ *
+ * Le cache est propre à l'instance : une écriture faite par une autre instance
+ * n'en évince pas les entrées, servies jusqu'à leur expiration
+ * ({@code spring.cache.caffeine.spec}).
+ */
+@Component
+public class ProductCache {
+
+    public static final String BY_ID = "products";
+    public static final String BY_SKU = "productsBySku";
+
+    private static final int STRIPES = 1024;
+
+    private final Cache byId;
+    private final Cache bySku;
+    private final AtomicLongArray evictions = new AtomicLongArray(STRIPES);
+
+    public ProductCache(CacheManager cacheManager) {
+        this.byId = requireCache(cacheManager, BY_ID);
+        this.bySku = requireCache(cacheManager, BY_SKU);
+    }
+
+    public ProductDTO getById(Long id, Function<Long, ProductDTO> loader) {
+        ProductDTO cached = peekById(id);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = evictionStamp(id);
+        ProductDTO loaded = loader.apply(id);
+        put(loaded, id, stamp);
+        return loaded;
+    }
+
+    public ProductDTO getBySku(String sku, Function<String, ProductDTO> loader) {
+        ProductDTO cached = peekBySku(sku);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = evictionStamp(sku);
+        ProductDTO loaded = loader.apply(sku);
+        put(loaded, sku, stamp);
+        return loaded;
+    }
+
+    /**
+     * @return une copie de l'entrée en cache, ou null, sans déclencher de chargement
+     */
+    public ProductDTO peekById(Long id) {
+        return copy(byId.get(id, ProductDTO.class));
+    }
+
+    public ProductDTO peekBySku(String sku) {
+        return copy(bySku.get(sku, ProductDTO.class));
+    }
+
+    /**
+     * À relever avant de charger un produit par {@code key} (ID ou SKU), pour {@link #put}.
+     */
+    public long evictionStamp(Object key) {
+        return evictions.get(stripe(key));
+    }
+
+    /**
+     * Met en cache un produit chargé par {@code key}, sauf si la clé a été invalidée
+     * depuis {@code stamp} : le produit chargé peut être antérieur à l'écriture.
+     */
+    public void put(ProductDTO product, Object key, long stamp) {
+        if (product == null || product.getId() == null || evictionStamp(key) != stamp) {
+            return;
+        }
+        ProductDTO entry = copy(product);
+        byId.put(entry.getId(), entry);
+        if (entry.getSku() != null) {
+            bySku.put(entry.getSku(), entry);
+        }
+        // Invalidation survenue pendant l'écriture : l'entrée ne doit pas lui survivre
+        if (evictionStamp(key) != stamp) {
+            remove(entry.getId(), entry.getSku());
+        }
+    }
+
+    /**
+     * Invalide les entrées d'un produit. L'invalidation est rejouée à la fin de
+     * la transaction courante afin qu'une lecture concurrente ayant rechargé
+     * l'état antérieur (avant commit) ou un rollback ne laisse pas d'entrée périmée.
+     */
+    public void evict(Long id, String sku) {
+        evictNow(id, sku);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(id, sku);
+                }
+            });
+        }
+    }
+
+    // Compteurs avancés avant la suppression : un chargement en cours ne peut plus écrire
+    private void evictNow(Long id, String sku) {
+        if (id != null) {
+            evictions.incrementAndGet(stripe(id));
+        }
+        if (sku != null) {
+            evictions.incrementAndGet(stripe(sku));
+        }
+        remove(id, sku);
+    }
+
+    private void remove(Long id, String sku) {
+        if (id != null) {
+            byId.evict(id);
+        }
+        if (sku != null) {
+            bySku.evict(sku);
+        }
+    }
+
+    private static int stripe(Object key) {
+        return Math.floorMod(key.hashCode() * 0x9E3779B9, STRIPES);
+    }
+
+    private static ProductDTO copy(ProductDTO product) {
+        return product == null ? null : product.toBuilder().build();
+    }
+
+    private static Cache requireCache(CacheManager cacheManager, String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            throw new IllegalStateException("Cache '" + name + "' non configuré");
+        }
+        return cache;
+    }
+}
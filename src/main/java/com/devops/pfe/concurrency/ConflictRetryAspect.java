@@ -0,0 +1,98 @@
+package com.devops.pfe.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Rejoue les méthodes {@link RetryOnConflict} sur conflit de version optimiste.
+ *
+ * Le nombre de tentatives est borné ({@code concurrency.retry.max-attempts}) ;
+ * l'attente avant chaque reprise double à partir de {@code concurrency.retry.backoff},
+ * plafonnée à {@code concurrency.retry.max-backoff}, et est tirée au hasard en
+ * dessous de ce plafond pour désynchroniser les écrivains concurrents.
+ *
+ * L'aspect s'exécute avant l'intercepteur transactionnel : chaque tentative a sa
+ * propre transaction. Appelée dans une transaction déjà ouverte, la méthode n'est
+ * pas rejouée, le conflit remonte à l'appelant qui la possède.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@Slf4j
+public class ConflictRetryAspect {
+
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+    private final MeterRegistry meterRegistry;
+
+    public ConflictRetryAspect(@Value("${concurrency.retry.max-attempts:3}") int maxAttempts,
+                               @Value("${concurrency.retry.backoff:PT0.02S}") Duration backoff,
+                               @Value("${concurrency.retry.max-backoff:PT0.5S}") Duration maxBackoff,
+                               MeterRegistry meterRegistry) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("concurrency.retry.max-attempts doit être au moins 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(com.devops.pfe.concurrency.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        String operation = joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                counter("concurrency.conflicts", "Conflits de version optimiste", operation).increment();
+                if (attempt >= maxAttempts) {
+                    counter("concurrency.retries.exhausted", "Opérations abandonnées après conflits répétés", operation).increment();
+                    log.warn("Conflit de version persistant sur {} après {} tentatives", operation, attempt);
+                    throw e;
+                }
+                counter("concurrency.retries", "Reprises après conflit de version", operation).increment();
+                log.debug("Conflit de version sur {} (tentative {}/{}), reprise", operation, attempt, maxAttempts);
+                pause(attempt, e);
+            }
+        }
+    }
+
+    private void pause(int attempt, OptimisticLockingFailureException conflict) {
+        long ceiling = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+
+    private Counter counter(String name, String description, String operation) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
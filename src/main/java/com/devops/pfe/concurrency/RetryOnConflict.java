@@ -0,0 +1,20 @@
+package com.devops.pfe.concurrency;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Rejoue la méthode, dans une nouvelle transaction, quand elle échoue sur un
+ * conflit de version (@Version). La politique est celle de {@link ConflictRetryAspect}.
+ *
+ * La méthode est rejouée en entier : elle doit relire l'état qu'elle modifie et
+ * n'avoir aucun effet hors transaction avant le conflit.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryOnConflict {
+}
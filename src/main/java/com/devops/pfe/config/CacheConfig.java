@@ -0,0 +1,13 @@
+package com.devops.pfe.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Active l'auto-configuration du CacheManager (Caffeine).
+ * Les caches sont déclarés dans application.yml (spring.cache.*).
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
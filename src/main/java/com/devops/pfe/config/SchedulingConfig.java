@@ -0,0 +1,16 @@
+package com.devops.pfe.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Active les tâches planifiées : report du registre de stock, balayage des
+ * réservations, réconciliation de la valorisation, compactage du journal,
+ * purge des clés d'idempotence.
+ * Le pool du planificateur ({@code spring.task.scheduling.pool.size}) prévoit
+ * un thread par tâche.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
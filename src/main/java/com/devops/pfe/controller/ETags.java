@@ -0,0 +1,45 @@
+package com.devops.pfe.controller;
+
+/**
+ * ETag des ressources produit et commande.
+ *
+ * Une entité est étiquetée par sa version (@Version), une collection par le
+ * compteur de modifications de sa table, ce qui permet de répondre 304 sans
+ * relire ni sérialiser la collection.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String entity(String type, Object id, Long version) {
+        return "\"" + type + "-" + id + "-v" + version + "\"";
+    }
+
+    static String collection(String type, String changeTag) {
+        return "\"" + type + "-" + changeTag + "\"";
+    }
+
+    /**
+     * Version attendue par le client : celle de l'ETag d'entité présenté dans If-Match,
+     * sinon {@code fallback} (version portée par la requête).
+     */
+    static Long expectedVersion(String type, Object id, String ifMatch, Long fallback) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return fallback;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        String prefix = "\"" + type + "-" + id + "-v";
+        if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+            try {
+                return Long.valueOf(tag.substring(prefix.length(), tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // Traité comme un ETag étranger à la ressource
+            }
+        }
+        throw new IllegalArgumentException("En-tête If-Match invalide pour " + type + " " + id + ": " + ifMatch);
+    }
+}
@@ -2,13 +2,18 @@ package com.devops.pfe.controller;
 
 import com.devops.pfe.dto.OrderDTO;
 import com.devops.pfe.entity.OrderStatus;
+import com.devops.pfe.order.IdempotentOrders;
+import com.devops.pfe.service.BulkFormat;
 import com.devops.pfe.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -20,35 +25,58 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final IdempotentOrders idempotentOrders;
 
     // ==================== CRUD Operations ====================
 
     @PostMapping
-    public ResponseEntity<OrderDTO> createOrder(@Valid @RequestBody OrderDTO orderDTO) {
-        OrderDTO createdOrder = orderService.createOrder(orderDTO);
-        return new ResponseEntity<>(createdOrder, HttpStatus.CREATED);
+    public ResponseEntity<OrderDTO> createOrder(@Valid @RequestBody OrderDTO orderDTO,
+                                                @RequestHeader(value = IdempotentOrders.HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            OrderDTO createdOrder = orderService.createOrder(orderDTO);
+            return new ResponseEntity<>(createdOrder, HttpStatus.CREATED);
+        }
+        // Un doublon reçoit la commande déjà créée, marquée comme rejouée
+        IdempotentOrders.Result result = idempotentOrders.execute(idempotencyKey, orderDTO,
+                () -> orderService.createOrder(orderDTO));
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(IdempotentOrders.REPLAYED_HEADER, Boolean.toString(result.replayed()))
+                .body(result.order());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<OrderDTO> getOrderById(@PathVariable Long id) {
+    public ResponseEntity<OrderDTO> getOrderById(@PathVariable Long id, WebRequest request) {
+        // La version seule suffit pour répondre 304, sans charger ni convertir la commande
+        if (request.checkNotModified(ETags.entity("order", id, orderService.getOrderVersion(id)))) {
+            return null;
+        }
         OrderDTO order = orderService.getOrderById(id);
-        return ResponseEntity.ok(order);
+        return ResponseEntity.ok().eTag(ETags.entity("order", id, order.getVersion())).body(order);
     }
 
     @GetMapping("/number/{orderNumber}")
-    public ResponseEntity<OrderDTO> getOrderByNumber(@PathVariable String orderNumber) {
+    public ResponseEntity<OrderDTO> getOrderByNumber(@PathVariable String orderNumber, WebRequest request) {
+        if (request.checkNotModified(ETags.entity("order", orderNumber, orderService.getOrderVersionByNumber(orderNumber)))) {
+            return null;
+        }
         OrderDTO order = orderService.getOrderByNumber(orderNumber);
-        return ResponseEntity.ok(order);
+        return ResponseEntity.ok().eTag(ETags.entity("order", orderNumber, order.getVersion())).body(order);
     }
 
     @GetMapping
-    public ResponseEntity<List<OrderDTO>> getAllOrders() {
+    public ResponseEntity<List<OrderDTO>> getAllOrders(WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
         List<OrderDTO> orders = orderService.getAllOrders();
         return ResponseEntity.ok(orders);
     }
 
     @GetMapping("/customer")
-    public ResponseEntity<List<OrderDTO>> getOrdersByCustomerEmail(@RequestParam String email) {
+    public ResponseEntity<List<OrderDTO>> getOrdersByCustomerEmail(@RequestParam String email, WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
         List<OrderDTO> orders = orderService.getOrdersByCustomerEmail(email);
         return ResponseEntity.ok(orders);
     }
@@ -61,16 +89,25 @@ public class OrderController {
 
     // ==================== Status Management ====================
 
+    /**
+     * La version lue par le client est facultative : en-tête If-Match (ETag de la commande)
+     * ou paramètre {@code version}. Une version dépassée est refusée (412).
+     */
     @PatchMapping("/{id}/status")
     public ResponseEntity<OrderDTO> updateOrderStatus(
             @PathVariable Long id,
-            @RequestParam OrderStatus status) {
-        OrderDTO order = orderService.updateOrderStatus(id, status);
+            @RequestParam OrderStatus status,
+            @RequestParam(required = false) Long version,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        OrderDTO order = orderService.updateOrderStatus(id, status, ETags.expectedVersion("order", id, ifMatch, version));
         return ResponseEntity.ok(order);
     }
 
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<OrderDTO>> getOrdersByStatus(@PathVariable OrderStatus status) {
+    public ResponseEntity<List<OrderDTO>> getOrdersByStatus(@PathVariable OrderStatus status, WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
         List<OrderDTO> orders = orderService.getOrdersByStatus(status);
         return ResponseEntity.ok(orders);
     }
@@ -80,7 +117,11 @@ public class OrderController {
     @GetMapping("/date-range")
     public ResponseEntity<List<OrderDTO>> getOrdersByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
         List<OrderDTO> orders = orderService.getOrdersByDateRange(start, end);
         return ResponseEntity.ok(orders);
     }
@@ -96,4 +137,26 @@ public class OrderController {
         Long count = orderService.countOrdersByStatus(status);
         return ResponseEntity.ok(count);
     }
+
+    /**
+     * Exporte les commandes en CSV ou NDJSON, une ligne par article commandé.
+     *
+     * Exemple curl:
+     * curl --compressed "http://localhost:8080/api/v1/orders/export?format=csv" -o commandes.csv
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        BulkFormat bulkFormat = BulkFormat.fromName(format);
+        return StreamingDownloads.attachment("orders", bulkFormat, acceptEncoding,
+                output -> orderService.exportOrders(output, bulkFormat));
+    }
+
+    /**
+     * Répond 304 si aucune commande n'a changé depuis l'ETag présenté par le client.
+     */
+    private boolean notModified(WebRequest request) {
+        return request.checkNotModified(ETags.collection("orders", orderService.getOrdersChangeTag()));
+    }
 }
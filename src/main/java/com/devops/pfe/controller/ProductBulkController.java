@@ -0,0 +1,76 @@
+package com.devops.pfe.controller;
+
+import com.devops.pfe.dto.ImportReportDTO;
+import com.devops.pfe.dto.StockAdjustmentDTO;
+import com.devops.pfe.dto.StockAdjustmentReportDTO;
+import com.devops.pfe.service.BulkFormat;
+import com.devops.pfe.service.ProductBulkService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Contrôleur REST des opérations en masse sur le catalogue produits.
+ *
+ * Endpoints:
+ * - POST /api/v1/products/import → Import CSV ou NDJSON en flux, création ou mise à jour par SKU
+ * - POST /api/v1/products/stock/adjustments → Ajustement du stock de plusieurs produits en une transaction
+ * - GET  /api/v1/products/export → Export CSV ou NDJSON en flux du catalogue
+ */
+@RestController
+@RequestMapping("/api/v1/products")
+@RequiredArgsConstructor
+public class ProductBulkController {
+
+    private final ProductBulkService productBulkService;
+
+    /**
+     * Importe un catalogue. Le corps est lu au fil de l'eau, sans être chargé en mémoire.
+     *
+     * Exemple curl:
+     * curl -X POST http://localhost:8080/api/v1/products/import \
+     *      -H "Content-Type: text/csv" --data-binary @catalogue.csv
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ImportReportDTO> importProducts(HttpServletRequest request) throws IOException {
+        BulkFormat format = BulkFormat.fromMediaType(request.getContentType());
+        ImportReportDTO report = productBulkService.importProducts(request.getInputStream(), format);
+        return ResponseEntity.ok(report);
+    }
+
+    /**
+     * Ajuste le stock de plusieurs produits, par delta ({@code delta}) ou quantité
+     * absolue ({@code quantity}), identifiés par {@code productId} ou {@code sku}.
+     *
+     * Exemple curl:
+     * curl -X POST http://localhost:8080/api/v1/products/stock/adjustments \
+     *      -H "Content-Type: application/json" \
+     *      -d '[{"sku":"SKU-001","delta":-2},{"productId":42,"quantity":10}]'
+     */
+    @PostMapping("/stock/adjustments")
+    public ResponseEntity<StockAdjustmentReportDTO> adjustStock(@RequestBody List<StockAdjustmentDTO> adjustments) {
+        return ResponseEntity.ok(productBulkService.adjustStock(adjustments));
+    }
+
+    /**
+     * Exporte le catalogue, dans le format attendu par l'import.
+     * La réponse est compressée à la volée si le client accepte gzip.
+     *
+     * Exemple curl:
+     * curl --compressed "http://localhost:8080/api/v1/products/export?format=csv" -o catalogue.csv
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        BulkFormat bulkFormat = BulkFormat.fromName(format);
+        return StreamingDownloads.attachment("products", bulkFormat, acceptEncoding,
+                output -> productBulkService.exportProducts(output, bulkFormat));
+    }
+}
@@ -1,15 +1,33 @@
 package com.devops.pfe.controller;
 
+import com.devops.pfe.dto.ChangeFeedDTO;
+import com.devops.pfe.dto.CursorPageDTO;
+import com.devops.pfe.dto.ProductBatchDTO;
+import com.devops.pfe.dto.ProductBatchRequestDTO;
 import com.devops.pfe.dto.ProductDTO;
+import com.devops.pfe.dto.ProductFacetsDTO;
+import com.devops.pfe.dto.ProductSuggestionDTO;
 import com.devops.pfe.service.ProductService;
+import com.devops.pfe.service.ProductService.ProductFilter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/products")
@@ -17,6 +35,7 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final ObjectMapper objectMapper;
 
     // ==================== CRUD Operations ====================
 
@@ -29,29 +48,65 @@ public class ProductController {
     @GetMapping("/{id}")
     public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id) {
         ProductDTO product = productService.getProductById(id);
-        return ResponseEntity.ok(product);
+        return ResponseEntity.ok().eTag(ETags.entity("product", product.getId(), product.getVersion())).body(product);
     }
 
     @GetMapping("/sku/{sku}")
     public ResponseEntity<ProductDTO> getProductBySku(@PathVariable String sku) {
         ProductDTO product = productService.getProductBySku(sku);
-        return ResponseEntity.ok(product);
+        return ResponseEntity.ok().eTag(ETags.entity("product", product.getId(), product.getVersion())).body(product);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<ProductBatchDTO> getProductsBatch(@RequestBody ProductBatchRequestDTO request) {
+        ProductBatchDTO batch = productService.getProductsBatch(request.getIds(), request.getSkus());
+        return ResponseEntity.ok(batch);
     }
 
     @GetMapping
-    public ResponseEntity<List<ProductDTO>> getAllProducts() {
-        List<ProductDTO> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+    public void getAllProducts(WebRequest request, HttpServletResponse response) throws IOException {
+        streamProducts(ProductFilter.all(), request, response);
+    }
+
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> getProductsPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        CursorPageDTO<ProductDTO> page = productService.getProductsPage(ProductFilter.all(), cursor, limit);
+        return ResponseEntity.ok(page);
     }
 
     @GetMapping("/active")
-    public ResponseEntity<List<ProductDTO>> getActiveProducts() {
-        List<ProductDTO> products = productService.getActiveProducts();
-        return ResponseEntity.ok(products);
+    public void getActiveProducts(WebRequest request, HttpServletResponse response) throws IOException {
+        streamProducts(ProductFilter.active(), request, response);
+    }
+
+    @GetMapping(value = "/active", params = "limit")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> getActiveProductsPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        CursorPageDTO<ProductDTO> page = productService.getProductsPage(ProductFilter.active(), cursor, limit);
+        return ResponseEntity.ok(page);
     }
 
+    /**
+     * La version lue par le client est facultative : en-tête If-Match (ETag du produit)
+     * ou champ {@code version}. Une version dépassée est refusée (412).
+     */
     @PutMapping("/{id}")
-    public ResponseEntity<ProductDTO> updateProduct(@PathVariable Long id, @Valid @RequestBody ProductDTO productDTO) {
+    public ResponseEntity<ProductDTO> updateProduct(
+            @PathVariable Long id,
+            @Valid @RequestBody ProductDTO productDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        productDTO.setVersion(ETags.expectedVersion("product", id, ifMatch, productDTO.getVersion()));
         ProductDTO updatedProduct = productService.updateProduct(id, productDTO);
         return ResponseEntity.ok(updatedProduct);
     }
@@ -65,38 +120,133 @@ public class ProductController {
     // ==================== Search & Filter Operations ====================
 
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<ProductDTO>> getProductsByCategory(@PathVariable String category) {
-        List<ProductDTO> products = productService.getProductsByCategory(category);
-        return ResponseEntity.ok(products);
+    public void getProductsByCategory(@PathVariable String category, WebRequest request,
+                                      HttpServletResponse response) throws IOException {
+        streamProducts(ProductFilter.byCategory(category), request, response);
+    }
+
+    @GetMapping(value = "/category/{category}", params = "limit")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> getProductsByCategoryPage(
+            @PathVariable String category,
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        CursorPageDTO<ProductDTO> page = productService.getProductsPage(ProductFilter.byCategory(category), cursor, limit);
+        return ResponseEntity.ok(page);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<ProductDTO>> searchProducts(@RequestParam String keyword) {
-        List<ProductDTO> products = productService.searchProducts(keyword);
+    public ResponseEntity<List<ProductDTO>> searchProducts(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        List<ProductDTO> products = productService.searchProducts(keyword, limit, fuzzy);
         return ResponseEntity.ok(products);
     }
 
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<ProductSuggestionDTO>> autocomplete(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit,
+            WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        List<ProductSuggestionDTO> suggestions = productService.autocomplete(prefix, limit);
+        return ResponseEntity.ok(suggestions);
+    }
+
+    // Sans limite, toute la fourchette est rendue
     @GetMapping("/price-range")
     public ResponseEntity<List<ProductDTO>> getProductsByPriceRange(
             @RequestParam BigDecimal minPrice,
-            @RequestParam BigDecimal maxPrice) {
-        List<ProductDTO> products = productService.getProductsByPriceRange(minPrice, maxPrice);
+            @RequestParam BigDecimal maxPrice,
+            @RequestParam(defaultValue = "asc") String sort,
+            WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        List<ProductDTO> products = productService.getProductsByPriceRange(minPrice, maxPrice, Sort.Direction.fromString(sort));
         return ResponseEntity.ok(products);
     }
 
-    @GetMapping("/low-stock")
-    public ResponseEntity<List<ProductDTO>> getLowStockProducts(
-            @RequestParam(defaultValue = "10") Integer threshold) {
-        List<ProductDTO> products = productService.getLowStockProducts(threshold);
+    @GetMapping(value = "/price-range", params = "limit")
+    public ResponseEntity<List<ProductDTO>> getProductsByPriceRangeLimited(
+            @RequestParam BigDecimal minPrice,
+            @RequestParam BigDecimal maxPrice,
+            @RequestParam(defaultValue = "asc") String sort,
+            @RequestParam int limit,
+            WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        List<ProductDTO> products = productService.getProductsByPriceRange(minPrice, maxPrice, Sort.Direction.fromString(sort), limit);
         return ResponseEntity.ok(products);
     }
 
+    @GetMapping("/low-stock")
+    public void getLowStockProducts(
+            @RequestParam(defaultValue = "10") Integer threshold,
+            WebRequest request,
+            HttpServletResponse response) throws IOException {
+        streamProducts(ProductFilter.lowStock(threshold), request, response);
+    }
+
+    @GetMapping(value = "/low-stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStockAlerts(@RequestParam(defaultValue = "10") int threshold) {
+        return productService.subscribeToStockAlerts(threshold);
+    }
+
+    @GetMapping(value = "/low-stock", params = "limit")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> getLowStockProductsPage(
+            @RequestParam(defaultValue = "10") Integer threshold,
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        CursorPageDTO<ProductDTO> page = productService.getProductsPage(ProductFilter.lowStock(threshold), cursor, limit);
+        return ResponseEntity.ok(page);
+    }
+
     @GetMapping("/categories")
-    public ResponseEntity<List<String>> getAllCategories() {
+    public ResponseEntity<List<String>> getAllCategories(WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
         List<String> categories = productService.getAllCategories();
         return ResponseEntity.ok(categories);
     }
 
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacetsDTO> getFacets(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String priceBucket,
+            @RequestParam(required = false) Boolean inStock,
+            WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        ProductFacetsDTO facets = productService.getFacets(category, priceBucket, inStock);
+        return ResponseEntity.ok(facets);
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<ChangeFeedDTO> getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "100") int limit) {
+        ChangeFeedDTO feed = productService.getChanges(since, limit);
+        return ResponseEntity.ok(feed);
+    }
+
     // ==================== Stock Management ====================
 
     @PatchMapping("/{id}/stock")
@@ -160,4 +310,38 @@ public class ProductController {
         BigDecimal totalValue = productService.calculateTotalValue();
         return ResponseEntity.ok(totalValue);
     }
+
+    @GetMapping("/total-value/by-category")
+    public ResponseEntity<Map<String, BigDecimal>> calculateValueByCategory() {
+        Map<String, BigDecimal> valueByCategory = productService.calculateValueByCategory();
+        return ResponseEntity.ok(valueByCategory);
+    }
+
+    /**
+     * Répond 304 si le catalogue n'a pas changé depuis l'ETag présenté par le client.
+     */
+    private boolean notModified(WebRequest request) {
+        return request.checkNotModified(ETags.collection("products", productService.getCatalogChangeTag()));
+    }
+
+    /**
+     * Écrit le tableau JSON au fil de la lecture du curseur base : un seul produit en mémoire à la fois.
+     */
+    private void streamProducts(ProductFilter filter, WebRequest request, HttpServletResponse response) throws IOException {
+        if (notModified(request)) {
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            productService.streamProducts(filter, product -> {
+                try {
+                    generator.writeObject(product);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        }
+    }
 }
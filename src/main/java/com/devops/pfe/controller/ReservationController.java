@@ -0,0 +1,50 @@
+package com.devops.pfe.controller;
+
+import com.devops.pfe.dto.OrderDTO;
+import com.devops.pfe.dto.ReservationDTO;
+import com.devops.pfe.dto.ReservationRequestDTO;
+import com.devops.pfe.dto.StockAvailabilityDTO;
+import com.devops.pfe.service.OrderService;
+import com.devops.pfe.service.ReservationService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/reservations")
+@RequiredArgsConstructor
+public class ReservationController {
+
+    private final ReservationService reservationService;
+    private final OrderService orderService;
+
+    @PostMapping
+    public ResponseEntity<ReservationDTO> createReservation(@Valid @RequestBody ReservationRequestDTO request) {
+        ReservationDTO reservation = reservationService.createReservation(request);
+        return new ResponseEntity<>(reservation, HttpStatus.CREATED);
+    }
+
+    @GetMapping("/{token}")
+    public ResponseEntity<ReservationDTO> getReservation(@PathVariable String token) {
+        return ResponseEntity.ok(reservationService.getReservation(token));
+    }
+
+    @DeleteMapping("/{token}")
+    public ResponseEntity<Void> releaseReservation(@PathVariable String token) {
+        reservationService.releaseReservation(token);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/{token}/order")
+    public ResponseEntity<OrderDTO> createOrderFromReservation(@PathVariable String token) {
+        OrderDTO order = orderService.createOrderFromReservation(token);
+        return new ResponseEntity<>(order, HttpStatus.CREATED);
+    }
+
+    @GetMapping("/products/{productId}")
+    public ResponseEntity<StockAvailabilityDTO> getStockAvailability(@PathVariable Long productId) {
+        return ResponseEntity.ok(reservationService.getStockAvailability(productId));
+    }
+}
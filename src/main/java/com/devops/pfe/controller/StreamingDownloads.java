@@ -0,0 +1,42 @@
+package com.devops.pfe.controller;
+
+import com.devops.pfe.service.BulkFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Réponses de téléchargement en flux (exports), compressées à la volée si le client accepte gzip.
+ */
+final class StreamingDownloads {
+
+    private StreamingDownloads() {
+    }
+
+    static ResponseEntity<StreamingResponseBody> attachment(String name, BulkFormat format,
+                                                            String acceptEncoding, StreamingResponseBody body) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.parseMediaType(format.mediaType()), StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + "." + format.extension())
+                        .build()
+                        .toString())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null || !acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip")) {
+            return response.body(body);
+        }
+        return response
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(output -> {
+                    GZIPOutputStream gzip = new GZIPOutputStream(output, 8192);
+                    body.writeTo(gzip);
+                    gzip.finish();
+                });
+    }
+}
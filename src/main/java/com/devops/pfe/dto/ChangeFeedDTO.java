@@ -0,0 +1,20 @@
+package com.devops.pfe.dto;
+
+import lombok.*;
+import java.util.List;
+
+/**
+ * Page du flux de modifications. Le client repart de nextSince à l'appel suivant.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChangeFeedDTO {
+
+    private List<ProductChangeDTO> changes;
+
+    private long nextSince;
+
+    private boolean hasMore;
+}
@@ -0,0 +1,19 @@
+package com.devops.pfe.dto;
+
+import lombok.*;
+import java.util.List;
+
+/**
+ * Page de résultats paginée par curseur (keyset).
+ * nextCursor est opaque pour le client et vaut null sur la dernière page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPageDTO<T> {
+
+    private List<T> items;
+
+    private String nextCursor;
+}
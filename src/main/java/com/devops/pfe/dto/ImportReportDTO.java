@@ -0,0 +1,39 @@
+package com.devops.pfe.dto;
+
+import lombok.*;
+import java.util.List;
+
+/**
+ * Bilan d'un import en masse : les lignes en erreur sont rejetées individuellement,
+ * sans interrompre le chargement. Seules les premières erreurs sont détaillées.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportReportDTO {
+
+    private long processed;
+
+    private long imported;
+
+    private long failed;
+
+    private long durationMs;
+
+    private List<RowError> errors;
+
+    private boolean errorsTruncated;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+
+        private long line;
+
+        private String sku;
+
+        private String message;
+    }
+}
@@ -25,4 +25,7 @@ public class OrderDTO {
 
     @NotEmpty(message = "La commande doit contenir au moins un article")
     private List<OrderItemDTO> items;
+
+    // Attribuée par le serveur, ignorée en création
+    private Long version;
 }
@@ -0,0 +1,21 @@
+package com.devops.pfe.dto;
+
+import lombok.*;
+import java.util.List;
+
+/**
+ * Résultat d'une recherche groupée : les produits trouvés dans l'ordre de la
+ * requête (identifiants puis SKU, sans doublon) et les clés introuvables.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductBatchDTO {
+
+    private List<ProductDTO> products;
+
+    private List<Long> missingIds;
+
+    private List<String> missingSkus;
+}
@@ -0,0 +1,18 @@
+package com.devops.pfe.dto;
+
+import lombok.*;
+import java.util.List;
+
+/**
+ * Clés d'une recherche groupée de produits : identifiants et/ou SKU.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductBatchRequestDTO {
+
+    private List<Long> ids;
+
+    private List<String> skus;
+}
@@ -0,0 +1,24 @@
+package com.devops.pfe.dto;
+
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Modification du catalogue. {@code product} porte l'état après modification, null pour une suppression.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductChangeDTO {
+
+    private long sequence;
+
+    private String type;
+
+    private Long productId;
+
+    private LocalDateTime changedAt;
+
+    private ProductDTO product;
+}
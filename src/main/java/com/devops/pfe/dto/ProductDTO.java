@@ -7,7 +7,7 @@ import java.math.BigDecimal;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class ProductDTO {
 
     private Long id;
@@ -33,4 +33,7 @@ public class ProductDTO {
     private String sku;
 
     private Boolean active;
+
+    // Attribuée par le serveur, ignorée en création ; version lue par le client, vérifiée en mise à jour si présente
+    private Long version;
 }
@@ -0,0 +1,25 @@
+package com.devops.pfe.dto;
+
+import lombok.*;
+import java.util.Map;
+
+/**
+ * Comptes de facettes des produits actifs pour une combinaison de filtres.
+ * Les comptes d'une facette ignorent le filtre posé sur cette facette.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductFacetsDTO {
+
+    private long total;
+
+    private Map<String, Long> categories;
+
+    private Map<String, Long> priceBuckets;
+
+    private long inStock;
+
+    private long outOfStock;
+}
@@ -0,0 +1,19 @@
+package com.devops.pfe.dto;
+
+import lombok.*;
+
+/**
+ * Suggestion d'autocomplétion : de quoi afficher la liste et ouvrir la fiche produit.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductSuggestionDTO {
+
+    private Long id;
+
+    private String name;
+
+    private String sku;
+}
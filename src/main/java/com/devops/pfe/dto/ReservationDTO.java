@@ -0,0 +1,27 @@
+package com.devops.pfe.dto;
+
+import lombok.*;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReservationDTO {
+
+    private String token;
+
+    private String customerName;
+
+    private String customerEmail;
+
+    private String status;
+
+    private LocalDateTime expiresAt;
+
+    private List<OrderItemDTO> items;
+
+    // Renseigné une fois la réservation convertie
+    private String orderNumber;
+}
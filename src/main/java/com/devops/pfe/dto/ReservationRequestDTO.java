@@ -0,0 +1,30 @@
+package com.devops.pfe.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import lombok.*;
+import java.util.List;
+
+/**
+ * Pose d'une réservation : client, articles et durée de validité (défaut de
+ * configuration si absente).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReservationRequestDTO {
+
+    @NotBlank(message = "Le nom du client est obligatoire")
+    private String customerName;
+
+    @Email(message = "L'email doit être valide")
+    @NotBlank(message = "L'email est obligatoire")
+    private String customerEmail;
+
+    @NotEmpty(message = "La réservation doit contenir au moins un article")
+    private List<@Valid OrderItemDTO> items;
+
+    @Positive(message = "La durée de validité doit être positive")
+    private Long ttlSeconds;
+}
@@ -0,0 +1,22 @@
+package com.devops.pfe.dto;
+
+import lombok.*;
+
+/**
+ * Ligne d'ajustement de stock : un produit (identifiant ou SKU) et soit un
+ * delta signé, soit une quantité absolue.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockAdjustmentDTO {
+
+    private Long productId;
+
+    private String sku;
+
+    private Integer delta;
+
+    private Integer quantity;
+}
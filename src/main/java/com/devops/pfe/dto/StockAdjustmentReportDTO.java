@@ -0,0 +1,47 @@
+package com.devops.pfe.dto;
+
+import lombok.*;
+import java.util.List;
+
+/**
+ * Bilan d'un ajustement de stock en masse, avec un résultat par ligne dans
+ * l'ordre de la requête. Les lignes refusées n'empêchent pas l'application des
+ * autres, validées ensemble en une transaction.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockAdjustmentReportDTO {
+
+    public enum Outcome { APPLIED, NOT_FOUND, INSUFFICIENT_STOCK, INVALID }
+
+    private long processed;
+
+    private long applied;
+
+    private long failed;
+
+    private long durationMs;
+
+    private List<LineResult> results;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineResult {
+
+        private long line;
+
+        private Long productId;
+
+        private String sku;
+
+        private Outcome outcome;
+
+        // Stock du produit après application de tout le lot
+        private Integer stockQuantity;
+
+        private String message;
+    }
+}
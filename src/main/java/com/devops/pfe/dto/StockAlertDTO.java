@@ -0,0 +1,29 @@
+package com.devops.pfe.dto;
+
+import lombok.*;
+
+/**
+ * Franchissement d'un seuil de stock, poussé aux abonnés du flux SSE.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockAlertDTO {
+
+    public enum Direction { BELOW, RECOVERED }
+
+    private Long productId;
+
+    private String name;
+
+    private String sku;
+
+    private Integer previousStock;
+
+    private Integer stockQuantity;
+
+    private Integer threshold;
+
+    private Direction direction;
+}
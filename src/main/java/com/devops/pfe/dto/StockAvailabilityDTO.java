@@ -0,0 +1,20 @@
+package com.devops.pfe.dto;
+
+import lombok.*;
+
+/**
+ * Stock d'un produit : quantité disponible à la vente (stock moins les
+ * quantités bloquées) et quantité bloquée par des réservations en cours.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockAvailabilityDTO {
+
+    private Long productId;
+
+    private Integer available;
+
+    private Long reserved;
+}
@@ -0,0 +1,25 @@
+package com.devops.pfe.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Compteur de modifications d'une collection (produits, commandes), incrémenté
+ * dans la transaction qui la modifie. Sa valeur sert d'ETag à la collection,
+ * commune à toutes les instances.
+ */
+@Entity
+@Table(name = "collection_versions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CollectionVersion {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private Long version;
+}
@@ -0,0 +1,33 @@
+package com.devops.pfe.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Clé d'idempotence d'une création de commande, écrite dans la transaction de
+ * la commande. La clé primaire interdit à deux instances de valider la même clé.
+ */
+@Entity
+@Table(name = "order_idempotency_keys", indexes = @Index(name = "idx_order_idempotency_created", columnList = "created_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderIdempotencyKey {
+
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String idempotencyKey;
+
+    // SHA-256 du corps de la requête, en hexadécimal
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
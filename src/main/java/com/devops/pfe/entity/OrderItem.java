@@ -13,8 +13,10 @@ import java.math.BigDecimal;
 @Builder
 public class OrderItem {
 
+    // Séquence par blocs : les identifiants sont connus avant l'insertion, les articles partent en un lot JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -3,11 +3,16 @@ package com.devops.pfe.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "products")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -47,6 +52,18 @@ public class Product {
     @Column(nullable = false)
     private Boolean active = true;
 
+    // Quantité bloquée par les réservations en cours, incluse dans stockQuantity.
+    // Écrite seulement par des UPDATE conditionnels (ProductStockRepository), jamais par l'entité.
+    @ColumnDefault("0")
+    @Column(name = "reserved_quantity", nullable = false, insertable = false, updatable = false)
+    @Builder.Default
+    private Integer reservedQuantity = 0;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -0,0 +1,53 @@
+package com.devops.pfe.entity;
+
+import com.devops.pfe.index.ProductChangeType;
+import jakarta.persistence.*;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Entrée du journal des modifications du catalogue.
+ * Porte l'état du produit après la modification, ou seulement son identité pour une suppression.
+ * La séquence est attribuée au commit par le compteur du catalogue ({@code ChangeCounter}).
+ */
+@Entity
+@Table(name = "product_changes", indexes = @Index(name = "idx_product_changes_product", columnList = "product_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductChange {
+
+    @Id
+    @Column(name = "seq")
+    private Long sequence;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private ProductChangeType type;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    private String sku;
+
+    private String name;
+
+    @Column(length = 500)
+    private String description;
+
+    @Column(precision = 12, scale = 2)
+    private BigDecimal price;
+
+    private Integer stockQuantity;
+
+    private String category;
+
+    private Boolean active;
+
+    private Long version;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,8 @@
+package com.devops.pfe.entity;
+
+public enum ReservationStatus {
+    HELD,
+    CONVERTED,
+    RELEASED,
+    EXPIRED
+}
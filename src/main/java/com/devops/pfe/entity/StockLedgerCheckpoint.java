@@ -0,0 +1,29 @@
+package com.devops.pfe.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Dernier segment du journal de stock reporté en base, validé avec les deltas
+ * de ce segment : un segment au plus égal n'est jamais rejoué.
+ */
+@Entity
+@Table(name = "stock_ledger_checkpoint")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockLedgerCheckpoint {
+
+    public static final Long SINGLETON_ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long segment;
+
+    @Column(name = "flushed_at", nullable = false)
+    private LocalDateTime flushedAt;
+}
@@ -0,0 +1,9 @@
+package com.devops.pfe.exception;
+
+public class StaleVersionException extends BusinessException {
+
+    public StaleVersionException(String resourceName, Object id, Long expected, Long actual) {
+        super(String.format("%s %s modifié entre-temps. Version attendue: %d, actuelle: %d",
+            resourceName, id, expected, actual), "VERSION_MISMATCH");
+    }
+}
@@ -0,0 +1,113 @@
+package com.devops.pfe.feed;
+
+import com.devops.pfe.cache.ChangeCounter;
+import com.devops.pfe.entity.ProductChange;
+import com.devops.pfe.index.ProductChangeType;
+import com.devops.pfe.index.ProductChangedEvent;
+import com.devops.pfe.index.ProductSnapshot;
+import com.devops.pfe.repository.ProductChangeRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Journal des modifications du catalogue, en ajout seul, alimenté par les
+ * événements du service produit dans la transaction qui les produit.
+ *
+ * Les entrées sont écrites au commit, numérotées par le compteur du catalogue
+ * ({@link ChangeCounter#PRODUCTS}) sous le verrou de sa ligne : les séquences
+ * suivent l'ordre des commits de toutes les instances, et une entrée lisible
+ * n'est jamais suivie d'une entrée validée plus tard avec une séquence plus petite.
+ *
+ * Le compactage ne conserve que la dernière entrée de chaque produit au-delà
+ * de {@code catalog.changes.retention} et retire les suppressions au-delà de
+ * {@code catalog.changes.tombstone-retention} : un consommateur absent plus
+ * longtemps doit resynchroniser le catalogue complet.
+ */
+@Component
+@Slf4j
+public class ProductChangeLog {
+
+    private final ProductChangeRepository changeRepository;
+    private final ChangeCounter changeCounter;
+    private final Duration retention;
+    private final Duration tombstoneRetention;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ProductChangeLog(ProductChangeRepository changeRepository,
+                            ChangeCounter changeCounter,
+                            @Value("${catalog.changes.retention:P1D}") Duration retention,
+                            @Value("${catalog.changes.tombstone-retention:P7D}") Duration tombstoneRetention) {
+        this.changeRepository = changeRepository;
+        this.changeCounter = changeCounter;
+        this.retention = retention;
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        ProductChange change = toChange(event);
+        // Séquence attribuée, et entrée écrite, juste avant le commit de la transaction qui la produit
+        changeCounter.reserve(ChangeCounter.PRODUCTS, sequence -> {
+            change.setSequence(sequence);
+            entityManager.persist(change);
+        });
+    }
+
+    /**
+     * @return les entrées validées qui suivent {@code since}, par séquence croissante
+     */
+    public List<ProductChange> read(long since, int limit) {
+        return changeRepository.findPage(since, Limit.of(limit));
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.changes.compaction-interval:PT1H}",
+            initialDelayString = "${catalog.changes.compaction-interval:PT1H}")
+    @Transactional
+    public void compact() {
+        LocalDateTime now = LocalDateTime.now();
+        compact(now.minus(retention), now.minus(tombstoneRetention));
+    }
+
+    /**
+     * @return le nombre d'entrées supprimées
+     */
+    @Transactional
+    public int compact(LocalDateTime supersededBefore, LocalDateTime tombstonesBefore) {
+        int superseded = changeRepository.deleteSupersededBefore(supersededBefore);
+        int tombstones = changeRepository.deleteByTypeBefore(ProductChangeType.DELETED, tombstonesBefore);
+        log.info("Journal des modifications compacté: {} entrées remplacées, {} suppressions retirées", superseded, tombstones);
+        return superseded + tombstones;
+    }
+
+    private static ProductChange toChange(ProductChangedEvent event) {
+        ProductSnapshot product = event.product();
+        ProductChange.ProductChangeBuilder change = ProductChange.builder()
+                .type(event.type())
+                .productId(product.id())
+                .sku(product.sku())
+                .changedAt(LocalDateTime.now());
+        if (event.type() != ProductChangeType.DELETED) {
+            change.name(product.name())
+                    .description(product.description())
+                    .price(product.price())
+                    .stockQuantity(product.stockQuantity())
+                    .category(product.category())
+                    .active(product.active())
+                    .version(product.version());
+        }
+        return change.build();
+    }
+}
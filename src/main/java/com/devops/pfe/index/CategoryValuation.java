@@ -0,0 +1,9 @@
+package com.devops.pfe.index;
+
+import java.math.BigDecimal;
+
+/**
+ * Valeur du stock actif d'une catégorie (somme prix × quantité), calculée en base.
+ */
+public record CategoryValuation(String category, BigDecimal value) {
+}
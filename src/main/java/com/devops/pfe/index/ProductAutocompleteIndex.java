@@ -0,0 +1,379 @@
+package com.devops.pfe.index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Autocomplétion par préfixe sur le nom et le SKU des produits actifs.
+ *
+ * Arbre radix (arêtes compressées, enfants en tableau trié) dont chaque nœud
+ * conserve les {@value #MAX_SUGGESTIONS} meilleurs produits de son sous-arbre,
+ * par stock décroissant : une suggestion ne coûte que la descente du préfixe.
+ * Chaque mot significatif du nom ouvre aussi une clé, de sorte que « portable »
+ * propose « Ordinateur portable ».
+ */
+@Component
+public class ProductAutocompleteIndex implements ProductIndexListener {
+
+    public static final int MAX_SUGGESTIONS = 10;
+    private static final int MAX_KEYS_PER_PRODUCT = 8;
+
+    private static final char[] NO_LABEL = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final long[] NO_IDS = new long[0];
+    private static final int[] NO_WEIGHTS = new int[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> weights = new HashMap<>();
+    private Node root = new Node(NO_LABEL);
+
+    @Override
+    public void onChange(ProductSnapshot before, ProductSnapshot after) {
+        Entry previous = Entry.of(before);
+        Entry current = Entry.of(after);
+        if (Objects.equals(previous, current)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (previous != null) {
+                previous.keys().forEach(key -> remove(key, before.id()));
+                weights.remove(before.id());
+            }
+            if (current != null) {
+                weights.put(after.id(), current.weight());
+                current.keys().forEach(key -> insert(key, after.id(), current.weight()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            root = new Node(NO_LABEL);
+            weights.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return les identifiants des produits dont le nom ou le SKU commence par le préfixe, par stock décroissant
+     */
+    public List<Long> suggest(String prefix, int limit) {
+        String key = String.join(" ", TextAnalyzer.words(prefix));
+        if (key.isEmpty() || limit < 1) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int i = 0;
+            while (i < key.length()) {
+                int index = node.childIndex(key.charAt(i));
+                if (index < 0) {
+                    return List.of();
+                }
+                Node child = node.children[index];
+                int common = commonPrefix(child.label, key, i);
+                if (i + common < key.length() && common < child.label.length) {
+                    return List.of();
+                }
+                i += common;
+                node = child;
+            }
+            int size = Math.min(limit, node.topIds.length);
+            List<Long> result = new ArrayList<>(size);
+            for (int j = 0; j < size; j++) {
+                result.add(node.topIds[j]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return weights.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================== Arbre radix ====================
+
+    private void insert(String key, long id, int weight) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            int index = node.childIndex(key.charAt(i));
+            if (index < 0) {
+                Node leaf = new Node(key.substring(i).toCharArray());
+                node.insertChild(-index - 1, leaf);
+                path.add(leaf);
+                node = leaf;
+                break;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length) {
+                child = split(node, index, common);
+            }
+            path.add(child);
+            node = child;
+            i += common;
+        }
+        node.addId(id);
+
+        // Un produit absent du top d'un nœud ne peut pas entrer dans celui de ses ancêtres
+        for (int p = path.size() - 1; p >= 0; p--) {
+            if (!path.get(p).offer(id, weight)) {
+                break;
+            }
+        }
+    }
+
+    private void remove(String key, long id) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            int index = node.childIndex(key.charAt(i));
+            if (index < 0) {
+                return;
+            }
+            Node child = node.children[index];
+            if (commonPrefix(child.label, key, i) < child.label.length) {
+                return;
+            }
+            i += child.label.length;
+            node = child;
+            path.add(node);
+        }
+        if (!node.removeId(id)) {
+            return;
+        }
+
+        for (int p = path.size() - 1; p > 0; p--) {
+            Node current = path.get(p);
+            if (current.ids.length == 0 && current.children.length == 0) {
+                path.get(p - 1).removeChild(current);
+                continue;
+            }
+            if (current.ids.length == 0 && current.children.length == 1) {
+                current.absorbChild();
+            }
+            if (current.ranks(id)) {
+                current.recompute(weights);
+            }
+        }
+        if (root.ranks(id)) {
+            root.recompute(weights);
+        }
+    }
+
+    /**
+     * Coupe l'arête de l'enfant après {@code common} caractères et retourne le nœud intermédiaire.
+     */
+    private static Node split(Node parent, int index, int common) {
+        Node child = parent.children[index];
+        Node middle = new Node(Arrays.copyOf(child.label, common));
+        child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+        middle.children = new Node[] {child};
+        middle.topIds = child.topIds;
+        middle.topWeights = child.topWeights;
+        parent.children[index] = middle;
+        return middle;
+    }
+
+    private static int commonPrefix(char[] label, String key, int offset) {
+        int max = Math.min(label.length, key.length() - offset);
+        int i = 0;
+        while (i < max && label[i] == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Clés d'un produit actif : le nom, chaque fin du nom commençant par un mot significatif, et le SKU.
+     */
+    private record Entry(Set<String> keys, int weight) {
+
+        static Entry of(ProductSnapshot product) {
+            if (product == null || !product.isActive()) {
+                return null;
+            }
+            Set<String> keys = new LinkedHashSet<>();
+            List<String> words = TextAnalyzer.words(product.name());
+            for (int i = 0; i < words.size() && keys.size() < MAX_KEYS_PER_PRODUCT; i++) {
+                if (i == 0 || TextAnalyzer.isSignificant(words.get(i))) {
+                    keys.add(String.join(" ", words.subList(i, words.size())));
+                }
+            }
+            String sku = String.join(" ", TextAnalyzer.words(product.sku()));
+            if (!sku.isEmpty()) {
+                keys.add(sku);
+            }
+            return new Entry(keys, product.stock());
+        }
+    }
+
+    /**
+     * Nœud de l'arbre. Les tableaux du top sont remplacés, jamais modifiés sur place,
+     * ce qui permet de les partager lors d'un découpage d'arête.
+     */
+    private static final class Node {
+
+        private char[] label;
+        private Node[] children = NO_CHILDREN;
+        private long[] ids = NO_IDS;
+        private long[] topIds = NO_IDS;
+        private int[] topWeights = NO_WEIGHTS;
+
+        Node(char[] label) {
+            this.label = label;
+        }
+
+        int childIndex(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char c = children[mid].label[0];
+                if (c < first) {
+                    low = mid + 1;
+                } else if (c > first) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void insertChild(int position, Node child) {
+            Node[] updated = new Node[children.length + 1];
+            System.arraycopy(children, 0, updated, 0, position);
+            updated[position] = child;
+            System.arraycopy(children, position, updated, position + 1, children.length - position);
+            children = updated;
+        }
+
+        void removeChild(Node child) {
+            int position = childIndex(child.label[0]);
+            Node[] updated = new Node[children.length - 1];
+            System.arraycopy(children, 0, updated, 0, position);
+            System.arraycopy(children, position + 1, updated, position, updated.length - position);
+            children = updated;
+        }
+
+        void absorbChild() {
+            Node child = children[0];
+            char[] merged = Arrays.copyOf(label, label.length + child.label.length);
+            System.arraycopy(child.label, 0, merged, label.length, child.label.length);
+            label = merged;
+            children = child.children;
+            ids = child.ids;
+            topIds = child.topIds;
+            topWeights = child.topWeights;
+        }
+
+        void addId(long id) {
+            for (long existing : ids) {
+                if (existing == id) {
+                    return;
+                }
+            }
+            ids = Arrays.copyOf(ids, ids.length + 1);
+            ids[ids.length - 1] = id;
+        }
+
+        boolean removeId(long id) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    long[] updated = new long[ids.length - 1];
+                    System.arraycopy(ids, 0, updated, 0, i);
+                    System.arraycopy(ids, i + 1, updated, i, updated.length - i);
+                    ids = updated;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean ranks(long id) {
+            for (long topId : topIds) {
+                if (topId == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return true si le top a changé
+         */
+        boolean offer(long id, int weight) {
+            if (ranks(id)) {
+                return false;
+            }
+            int size = topIds.length;
+            int position = size;
+            while (position > 0 && outranks(weight, id, topWeights[position - 1], topIds[position - 1])) {
+                position--;
+            }
+            if (position >= MAX_SUGGESTIONS) {
+                return false;
+            }
+            int newSize = Math.min(size + 1, MAX_SUGGESTIONS);
+            long[] updatedIds = new long[newSize];
+            int[] updatedWeights = new int[newSize];
+            System.arraycopy(topIds, 0, updatedIds, 0, position);
+            System.arraycopy(topWeights, 0, updatedWeights, 0, position);
+            updatedIds[position] = id;
+            updatedWeights[position] = weight;
+            System.arraycopy(topIds, position, updatedIds, position + 1, newSize - position - 1);
+            System.arraycopy(topWeights, position, updatedWeights, position + 1, newSize - position - 1);
+            topIds = updatedIds;
+            topWeights = updatedWeights;
+            return true;
+        }
+
+        void recompute(Map<Long, Integer> weights) {
+            topIds = NO_IDS;
+            topWeights = NO_WEIGHTS;
+            for (long id : ids) {
+                offer(id, weights.getOrDefault(id, 0));
+            }
+            for (Node child : children) {
+                for (int j = 0; j < child.topIds.length; j++) {
+                    offer(child.topIds[j], child.topWeights[j]);
+                }
+            }
+        }
+
+        private static boolean outranks(int weight, long id, int otherWeight, long otherId) {
+            return weight > otherWeight || (weight == otherWeight && id < otherId);
+        }
+    }
+}
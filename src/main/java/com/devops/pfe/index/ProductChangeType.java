@@ -0,0 +1,9 @@
+package com.devops.pfe.index;
+
+public enum ProductChangeType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    STOCK_CHANGED,
+    ACTIVATION_CHANGED
+}
@@ -0,0 +1,8 @@
+package com.devops.pfe.index;
+
+/**
+ * Événement publié par le service produit après chaque mutation.
+ * Pour une suppression, {@code product} porte le dernier état connu.
+ */
+public record ProductChangedEvent(ProductChangeType type, ProductSnapshot product) {
+}
@@ -0,0 +1,160 @@
+package com.devops.pfe.index;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compteurs de facettes des produits actifs : catégorie × tranche de prix × disponibilité.
+ *
+ * Le cube ne contient qu'une cellule par combinaison présente ; un calcul de
+ * facettes le parcourt une seule fois, quel que soit le nombre de produits.
+ * Les comptes sont disjonctifs : ceux d'une dimension ignorent le filtre posé
+ * sur cette même dimension, pour afficher les alternatives.
+ */
+@Component
+public class ProductFacetIndex implements ProductIndexListener {
+
+    public static final List<String> PRICE_BUCKETS = List.of("0-10", "10-50", "50-100", "100-500", "500-1000", "1000+");
+    private static final BigDecimal[] PRICE_BOUNDS = {
+            new BigDecimal("10"), new BigDecimal("50"), new BigDecimal("100"), new BigDecimal("500"), new BigDecimal("1000")};
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Cell, Long> cells = new HashMap<>();
+
+    @Override
+    public void onChange(ProductSnapshot before, ProductSnapshot after) {
+        Cell previous = Cell.of(before);
+        Cell current = Cell.of(after);
+        if (previous == null ? current == null : previous.equals(current)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (previous != null) {
+                cells.computeIfPresent(previous, (cell, count) -> count > 1 ? count - 1 : null);
+            }
+            if (current != null) {
+                cells.merge(current, 1L, Long::sum);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            cells.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param category    filtre de catégorie, ou null
+     * @param priceBucket tranche de prix parmi {@link #PRICE_BUCKETS}, ou null
+     * @param inStock     filtre de disponibilité, ou null
+     */
+    public FacetCounts facets(String category, String priceBucket, Boolean inStock) {
+        int bucket = -1;
+        if (priceBucket != null) {
+            bucket = PRICE_BUCKETS.indexOf(priceBucket);
+            if (bucket < 0) {
+                throw new IllegalArgumentException("Tranche de prix inconnue: " + priceBucket + " (valeurs: " + PRICE_BUCKETS + ")");
+            }
+        }
+
+        long total = 0;
+        long inStockCount = 0;
+        long outOfStockCount = 0;
+        Map<String, Long> categories = new TreeMap<>();
+        long[] buckets = new long[PRICE_BUCKETS.size()];
+
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<Cell, Long> entry : cells.entrySet()) {
+                Cell cell = entry.getKey();
+                long count = entry.getValue();
+                boolean categoryMatches = category == null || category.equals(cell.category());
+                boolean bucketMatches = bucket < 0 || bucket == cell.priceBucket();
+                boolean stockMatches = inStock == null || inStock == cell.inStock();
+
+                if (categoryMatches && bucketMatches && stockMatches) {
+                    total += count;
+                }
+                if (bucketMatches && stockMatches) {
+                    categories.merge(cell.category(), count, Long::sum);
+                }
+                if (categoryMatches && stockMatches) {
+                    buckets[cell.priceBucket()] += count;
+                }
+                if (categoryMatches && bucketMatches) {
+                    if (cell.inStock()) {
+                        inStockCount += count;
+                    } else {
+                        outOfStockCount += count;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<String, Long> priceBuckets = new LinkedHashMap<>();
+        for (int i = 0; i < buckets.length; i++) {
+            priceBuckets.put(PRICE_BUCKETS.get(i), buckets[i]);
+        }
+        return new FacetCounts(total, categories, priceBuckets, inStockCount, outOfStockCount);
+    }
+
+    /**
+     * @return les catégories ayant au moins un produit actif, triées
+     */
+    public List<String> categories() {
+        lock.readLock().lock();
+        try {
+            return cells.keySet().stream()
+                    .map(Cell::category)
+                    .distinct()
+                    .sorted()
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static int priceBucketOf(BigDecimal price) {
+        int bucket = 0;
+        while (bucket < PRICE_BOUNDS.length && price.compareTo(PRICE_BOUNDS[bucket]) >= 0) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    public record FacetCounts(
+            long total,
+            Map<String, Long> categories,
+            Map<String, Long> priceBuckets,
+            long inStock,
+            long outOfStock) {
+    }
+
+    private record Cell(String category, int priceBucket, boolean inStock) {
+
+        static Cell of(ProductSnapshot product) {
+            if (product == null || !product.isActive()) {
+                return null;
+            }
+            return new Cell(product.category(), priceBucketOf(product.price()), product.stock() > 0);
+        }
+    }
+}
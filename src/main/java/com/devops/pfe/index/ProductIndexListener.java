@@ -0,0 +1,18 @@
+package com.devops.pfe.index;
+
+/**
+ * Index en mémoire alimenté par le {@link ProductIndexer}.
+ *
+ * Les appels sont sérialisés par l'indexeur ; l'implémentation doit seulement
+ * protéger ses lectures concurrentes.
+ */
+public interface ProductIndexListener {
+
+    /**
+     * @param before état précédent (null pour une création)
+     * @param after  nouvel état (null pour une suppression)
+     */
+    void onChange(ProductSnapshot before, ProductSnapshot after);
+
+    void clear();
+}
@@ -0,0 +1,198 @@
+package com.devops.pfe.index;
+
+import com.devops.pfe.cache.ChangeCounter;
+import com.devops.pfe.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Maintient l'état courant des produits en mémoire et alimente les index
+ * ({@link ProductIndexListener}) à partir des événements du service produit.
+ *
+ * Les changements sont visibles immédiatement, y compris dans la transaction
+ * qui les produit. En cas de rollback, les produits touchés sont rechargés
+ * depuis la base. Les index sont reconstruits entièrement au démarrage.
+ * Chaque changement fait avancer l'étiquette {@link #changeTag()} avec la transaction
+ * qui le produit, et le rechargement qui suit un rollback la fait avancer à nouveau.
+ *
+ * Les index sont propres à l'instance : ils ne voient que les changements
+ * passés par son service produit, ceux d'une autre instance n'y entrent qu'à
+ * la prochaine reconstruction. L'étiquette combine donc le compteur commun et
+ * une génération locale des index, précédée d'un identifiant d'instance : deux
+ * instances n'annoncent jamais la même étiquette pour des contenus différents.
+ * Les catégories touchées par une transaction encore ouverte sont signalées par
+ * {@link #pendingCategories()} jusqu'à sa fin, rechargement compris.
+ */
+@Component
+@Slf4j
+public class ProductIndexer {
+
+    private final ProductRepository productRepository;
+    private final List<ProductIndexListener> listeners;
+    private final TransactionTemplate readTemplate;
+    private final Map<Long, ProductSnapshot> snapshots = new ConcurrentHashMap<>();
+    // Nombre de transactions ouvertes ayant modifié un produit de la catégorie
+    private final Map<String, Integer> pendingCategories = new ConcurrentHashMap<>();
+    private final ChangeCounter changeCounter;
+    private final String instanceId = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong generation = new AtomicLong();
+
+    public ProductIndexer(ProductRepository productRepository,
+                          List<ProductIndexListener> listeners,
+                          ChangeCounter changeCounter,
+                          PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.listeners = listeners;
+        this.changeCounter = changeCounter;
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTemplate.setReadOnly(true);
+    }
+
+    public ProductSnapshot get(Long id) {
+        return snapshots.get(id);
+    }
+
+    /**
+     * Retourne les produits connus dans l'ordre des identifiants demandés.
+     */
+    public List<ProductSnapshot> getAll(Collection<Long> ids) {
+        List<ProductSnapshot> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ProductSnapshot snapshot = snapshots.get(id);
+            if (snapshot != null) {
+                result.add(snapshot);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return snapshots.size();
+    }
+
+    /**
+     * @return une étiquette qui change à chaque modification validée du catalogue et à chaque
+     *         changement des index de cette instance
+     */
+    public String changeTag() {
+        return changeCounter.tag(ChangeCounter.PRODUCTS) + "." + instanceId + "." + Long.toString(generation.get(), 36);
+    }
+
+    /**
+     * @return les catégories dont un changement appliqué aux index n'est pas encore validé ou annulé
+     */
+    public Set<String> pendingCategories() {
+        return Set.copyOf(pendingCategories.keySet());
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        ProductSnapshot product = event.product();
+        ProductSnapshot before = snapshots.get(product.id());
+        // Signalée avant d'être appliquée : un lecteur ne voit jamais le changement sans la transaction
+        reloadOnRollback(product.id(), before == null ? null : before.category(), product.category());
+        apply(product.id(), event.type() == ProductChangeType.DELETED ? null : product);
+        changeCounter.increment(ChangeCounter.PRODUCTS);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        snapshots.clear();
+        listeners.forEach(ProductIndexListener::clear);
+        generation.incrementAndGet();
+        readTemplate.executeWithoutResult(status -> {
+            try (Stream<ProductSnapshot> products = productRepository.streamSnapshots()) {
+                products.forEach(product -> apply(product.id(), product));
+            }
+        });
+        log.info("Index produits reconstruits: {} produits en {} ms", snapshots.size(), System.currentTimeMillis() - start);
+    }
+
+    private synchronized void apply(Long id, ProductSnapshot after) {
+        ProductSnapshot before = after == null ? snapshots.remove(id) : snapshots.put(id, after);
+        if (before == null && after == null) {
+            return;
+        }
+        generation.incrementAndGet();
+        for (ProductIndexListener listener : listeners) {
+            try {
+                listener.onChange(before, after);
+            } catch (RuntimeException e) {
+                log.error("Échec de mise à jour de l'index {} pour le produit {}", listener.getClass().getSimpleName(), id, e);
+            }
+        }
+    }
+
+    private void reloadOnRollback(Long id, String... categories) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        Touched touched = (Touched) TransactionSynchronizationManager.getResource(this);
+        if (touched == null) {
+            Touched current = new Touched();
+            TransactionSynchronizationManager.bindResource(this, current);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ProductIndexer.this);
+                    try {
+                        if (status != STATUS_COMMITTED) {
+                            reload(current.ids);
+                        }
+                    } finally {
+                        current.categories.forEach(category ->
+                                pendingCategories.computeIfPresent(category, (key, count) -> count == 1 ? null : count - 1));
+                    }
+                }
+            });
+            touched = current;
+        }
+        touched.ids.add(id);
+        for (String category : categories) {
+            if (category != null && touched.categories.add(category)) {
+                pendingCategories.merge(category, 1, Integer::sum);
+            }
+        }
+    }
+
+    private void reload(Set<Long> ids) {
+        try {
+            Map<Long, ProductSnapshot> current = readTemplate.execute(status ->
+                    productRepository.findSnapshotsByIdIn(ids).stream()
+                            .collect(Collectors.toMap(ProductSnapshot::id, Function.identity())));
+            ids.forEach(id -> apply(id, current.get(id)));
+            // Les lectures faites avant le rollback ont pu voir le changement annulé
+            changeCounter.increment(ChangeCounter.PRODUCTS);
+        } catch (RuntimeException e) {
+            log.error("Échec du rechargement des index après rollback pour les produits {}", ids, e);
+        }
+    }
+
+    private static final class Touched {
+        final Set<Long> ids = new LinkedHashSet<>();
+        final Set<String> categories = new LinkedHashSet<>();
+    }
+}
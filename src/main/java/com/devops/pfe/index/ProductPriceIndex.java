@@ -0,0 +1,104 @@
+package com.devops.pfe.index;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Index trié des produits actifs par prix (en centimes) puis par identifiant.
+ *
+ * Répond aux intervalles de prix, triés dans les deux sens et bornés, en
+ * O(log n + k) sans accès à la base. Les lectures ne prennent pas de verrou :
+ * pendant la mise à jour d'un prix, le produit peut manquer brièvement.
+ */
+@Component
+public class ProductPriceIndex implements ProductIndexListener {
+
+    private static final BigDecimal MAX_CENTS = BigDecimal.valueOf(Long.MAX_VALUE);
+    private static final BigDecimal MIN_CENTS = BigDecimal.valueOf(Long.MIN_VALUE);
+
+    private final ConcurrentSkipListSet<PriceEntry> entries = new ConcurrentSkipListSet<>();
+
+    @Override
+    public void onChange(ProductSnapshot before, ProductSnapshot after) {
+        PriceEntry previous = PriceEntry.of(before);
+        PriceEntry current = PriceEntry.of(after);
+        if (previous == null ? current == null : previous.equals(current)) {
+            return;
+        }
+        if (previous != null) {
+            entries.remove(previous);
+        }
+        if (current != null) {
+            entries.add(current);
+        }
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return les identifiants des produits actifs dont le prix est compris entre les bornes incluses ;
+     * une borne hors de la plage des centimes représentables vaut absence de borne
+     */
+    public List<Long> range(BigDecimal minPrice, BigDecimal maxPrice, boolean descending, int limit) {
+        long from = toBoundCents(minPrice, RoundingMode.CEILING);
+        long to = toBoundCents(maxPrice, RoundingMode.FLOOR);
+        if (from > to || limit < 1) {
+            return List.of();
+        }
+
+        NavigableSet<PriceEntry> range = entries.subSet(
+                new PriceEntry(from, Long.MIN_VALUE), true, new PriceEntry(to, Long.MAX_VALUE), true);
+        List<Long> result = new ArrayList<>(Math.min(limit, 64));
+        for (PriceEntry entry : descending ? range.descendingSet() : range) {
+            result.add(entry.productId());
+            if (result.size() == limit) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static long toBoundCents(BigDecimal price, RoundingMode rounding) {
+        BigDecimal cents = price.movePointRight(2).setScale(0, rounding);
+        if (cents.compareTo(MAX_CENTS) > 0) {
+            return Long.MAX_VALUE;
+        }
+        if (cents.compareTo(MIN_CENTS) < 0) {
+            return Long.MIN_VALUE;
+        }
+        return cents.longValueExact();
+    }
+
+    private static long toCents(BigDecimal price, RoundingMode rounding) {
+        return price.movePointRight(2).setScale(0, rounding).longValueExact();
+    }
+
+    private record PriceEntry(long cents, long productId) implements Comparable<PriceEntry> {
+
+        static PriceEntry of(ProductSnapshot product) {
+            if (product == null || !product.isActive() || product.price() == null) {
+                return null;
+            }
+            return new PriceEntry(toCents(product.price(), RoundingMode.HALF_UP), product.id());
+        }
+
+        @Override
+        public int compareTo(PriceEntry other) {
+            int byPrice = Long.compare(cents, other.cents);
+            return byPrice != 0 ? byPrice : Long.compare(productId, other.productId);
+        }
+    }
+}
@@ -0,0 +1,465 @@
+package com.devops.pfe.index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index inversé plein texte sur le nom, la description, la catégorie et le SKU
+ * des produits, avec classement BM25.
+ *
+ * Chaque terme de la requête doit correspondre (ET logique), soit exactement,
+ * soit comme sous-chaîne d'un terme indexé (à partir de 3 caractères, via un
+ * dictionnaire des suffixes), ce qui conserve la sémantique de l'ancienne
+ * recherche LIKE sans parcourir les produits. Un terme court peut être contenu
+ * dans beaucoup de termes indexés : seuls les {@value #MAX_EXPANSIONS} plus
+ * proches sont alors retenus.
+ *
+ * En mode approché, les termes proches d'un terme de requête (fautes de frappe)
+ * sont aussi retenus : candidats issus d'un index de trigrammes du vocabulaire,
+ * puis vérification par une distance d'édition bornée.
+ */
+@Component
+public class ProductSearchIndex implements ProductIndexListener {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double EXPANSION_WEIGHT = 0.5;
+    private static final int MIN_EXPANSION_LENGTH = 3;
+    private static final int MAX_EXPANSIONS = 64;
+    private static final double FUZZY_WEIGHT = 0.4;
+    private static final int MIN_FUZZY_LENGTH = 3;
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int SKU_WEIGHT = 2;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final NavigableMap<String, Set<String>> suffixes = new TreeMap<>();
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private long[] productIds = new long[1024];
+    private int[] docLengths = new int[1024];
+    private int nextOrdinal;
+    private long totalLength;
+
+    @Override
+    public void onChange(ProductSnapshot before, ProductSnapshot after) {
+        lock.writeLock().lock();
+        try {
+            if (before != null) {
+                removeDocument(before);
+            }
+            if (after != null) {
+                addDocument(after);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            suffixes.clear();
+            trigrams.clear();
+            ordinals.clear();
+            freeOrdinals.clear();
+            nextOrdinal = 0;
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Long> search(String query, int limit) {
+        return search(query, limit, false);
+    }
+
+    /**
+     * @param fuzzy tolère une ou deux fautes de frappe par terme selon sa longueur
+     * @return les identifiants des produits correspondants, du plus pertinent au moins pertinent
+     */
+    public List<Long> search(String query, int limit, boolean fuzzy) {
+        Set<String> queryTerms = new LinkedHashSet<>(TextAnalyzer.tokenize(query));
+        if (queryTerms.isEmpty() || limit < 1) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Integer, Double> scores = null;
+            for (String queryTerm : queryTerms) {
+                Map<String, Double> terms = expand(queryTerm);
+                if (fuzzy) {
+                    addFuzzyMatches(queryTerm, terms);
+                }
+                Map<Integer, Double> termScores = score(terms);
+                scores = scores == null ? termScores : intersect(scores, termScores);
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            return topProducts(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================== Indexation ====================
+
+    private void addDocument(ProductSnapshot product) {
+        Map<String, Integer> frequencies = termFrequencies(product);
+        int ordinal = allocateOrdinal(product.id());
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            PostingList postingList = postings.get(entry.getKey());
+            if (postingList == null) {
+                postingList = new PostingList();
+                postings.put(entry.getKey(), postingList);
+                addSuffixes(entry.getKey());
+                addTrigrams(entry.getKey());
+            }
+            postingList.add(ordinal, entry.getValue());
+            length += entry.getValue();
+        }
+        docLengths[ordinal] = length;
+        totalLength += length;
+    }
+
+    private void removeDocument(ProductSnapshot product) {
+        Integer ordinal = ordinals.remove(product.id());
+        if (ordinal == null) {
+            return;
+        }
+        for (String term : termFrequencies(product).keySet()) {
+            PostingList postingList = postings.get(term);
+            if (postingList != null) {
+                postingList.remove(ordinal);
+                if (postingList.size == 0) {
+                    postings.remove(term);
+                    removeSuffixes(term);
+                    removeTrigrams(term);
+                }
+            }
+        }
+        totalLength -= docLengths[ordinal];
+        docLengths[ordinal] = 0;
+        freeOrdinals.push(ordinal);
+    }
+
+    private int allocateOrdinal(Long productId) {
+        int ordinal;
+        if (!freeOrdinals.isEmpty()) {
+            ordinal = freeOrdinals.pop();
+        } else {
+            ordinal = nextOrdinal++;
+            if (ordinal == productIds.length) {
+                productIds = Arrays.copyOf(productIds, ordinal * 2);
+                docLengths = Arrays.copyOf(docLengths, ordinal * 2);
+            }
+        }
+        productIds[ordinal] = productId;
+        ordinals.put(productId, ordinal);
+        return ordinal;
+    }
+
+    private static Map<String, Integer> termFrequencies(ProductSnapshot product) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        addTerms(frequencies, product.name(), NAME_WEIGHT);
+        addTerms(frequencies, product.sku(), SKU_WEIGHT);
+        addTerms(frequencies, product.category(), CATEGORY_WEIGHT);
+        addTerms(frequencies, product.description(), DESCRIPTION_WEIGHT);
+        return frequencies;
+    }
+
+    private static void addTerms(Map<String, Integer> frequencies, String text, int weight) {
+        for (String token : TextAnalyzer.tokenize(text)) {
+            frequencies.merge(token, weight, Integer::sum);
+        }
+    }
+
+    private void addSuffixes(String term) {
+        for (int i = 0; i + MIN_EXPANSION_LENGTH <= term.length(); i++) {
+            suffixes.computeIfAbsent(term.substring(i), s -> new HashSet<>(2)).add(term);
+        }
+    }
+
+    private void removeSuffixes(String term) {
+        for (int i = 0; i + MIN_EXPANSION_LENGTH <= term.length(); i++) {
+            String suffix = term.substring(i);
+            Set<String> terms = suffixes.get(suffix);
+            if (terms != null && terms.remove(term) && terms.isEmpty()) {
+                suffixes.remove(suffix);
+            }
+        }
+    }
+
+    private void addTrigrams(String term) {
+        for (String trigram : trigramsOf(term)) {
+            trigrams.computeIfAbsent(trigram, t -> new HashSet<>(4)).add(term);
+        }
+    }
+
+    private void removeTrigrams(String term) {
+        for (String trigram : trigramsOf(term)) {
+            Set<String> terms = trigrams.get(trigram);
+            if (terms != null && terms.remove(term) && terms.isEmpty()) {
+                trigrams.remove(trigram);
+            }
+        }
+    }
+
+    /**
+     * Trigrammes du terme encadré par des marqueurs de début et de fin, pour que les bords comptent.
+     */
+    private static Set<String> trigramsOf(String term) {
+        String padded = "^" + term + "$";
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    // ==================== Recherche ====================
+
+    /**
+     * Termes indexés associés à un terme de requête, avec leur poids :
+     * correspondance exacte (1.0) puis termes le contenant ({@value #EXPANSION_WEIGHT}).
+     */
+    /**
+     * Au-delà de {@value #MAX_EXPANSIONS} termes contenant le terme de requête, seuls les plus proches
+     * sont retenus : les plus courts (le terme de requête en couvre la plus grande part), puis ceux
+     * présents dans le plus de produits. L'ordre alphabétique du dictionnaire n'en décide plus.
+     */
+    private Map<String, Double> expand(String queryTerm) {
+        Map<String, Double> terms = new LinkedHashMap<>();
+        if (postings.containsKey(queryTerm)) {
+            terms.put(queryTerm, 1.0);
+        }
+        if (queryTerm.length() < MIN_EXPANSION_LENGTH) {
+            return terms;
+        }
+        Comparator<String> closest = Comparator.comparingInt(String::length)
+                .thenComparing(term -> postings.get(term).size, Comparator.reverseOrder())
+                .thenComparing(Comparator.naturalOrder());
+        // Tas borné dont la tête est le candidat le moins proche retenu
+        PriorityQueue<String> kept = new PriorityQueue<>(closest.reversed());
+        Set<String> seen = new HashSet<>(terms.keySet());
+        for (Set<String> candidates : suffixes.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, true).values()) {
+            for (String candidate : candidates) {
+                if (seen.add(candidate)) {
+                    kept.add(candidate);
+                    if (kept.size() > MAX_EXPANSIONS) {
+                        kept.poll();
+                    }
+                }
+            }
+        }
+        kept.stream().sorted(closest).forEach(term -> terms.put(term, EXPANSION_WEIGHT));
+        return terms;
+    }
+
+    /**
+     * Ajoute les termes indexés à distance d'édition bornée du terme de requête.
+     * Une substitution, insertion ou suppression retire au plus 3 trigrammes communs, une transposition
+     * de lettres voisines jusqu'à 4 : une distance d en retire au plus 4d, d'où le seuil de filtrage des candidats.
+     */
+    private void addFuzzyMatches(String queryTerm, Map<String, Double> terms) {
+        if (queryTerm.length() < MIN_FUZZY_LENGTH) {
+            return;
+        }
+        int maxDistance = queryTerm.length() <= 4 ? 1 : 2;
+        Set<String> queryTrigrams = trigramsOf(queryTerm);
+        int minShared = Math.max(1, queryTrigrams.size() - 4 * maxDistance);
+
+        Map<String, Integer> shared = new HashMap<>();
+        for (String trigram : queryTrigrams) {
+            for (String candidate : trigrams.getOrDefault(trigram, Set.of())) {
+                shared.merge(candidate, 1, Integer::sum);
+            }
+        }
+
+        List<Map.Entry<String, Integer>> matches = new ArrayList<>();
+        for (Map.Entry<String, Integer> candidate : shared.entrySet()) {
+            String term = candidate.getKey();
+            if (candidate.getValue() < minShared || terms.containsKey(term)
+                    || Math.abs(term.length() - queryTerm.length()) > maxDistance) {
+                continue;
+            }
+            int distance = boundedDistance(queryTerm, term, maxDistance);
+            if (distance <= maxDistance) {
+                matches.add(Map.entry(term, distance));
+            }
+        }
+        matches.sort(Map.Entry.comparingByValue());
+        for (Map.Entry<String, Integer> match : matches) {
+            if (terms.size() >= MAX_EXPANSIONS) {
+                return;
+            }
+            terms.put(match.getKey(), FUZZY_WEIGHT / match.getValue());
+        }
+    }
+
+    /**
+     * Distance d'édition (insertion, suppression, substitution, transposition de deux lettres
+     * voisines), calculée dans une bande de largeur {@code max} ; retourne {@code max + 1} au-delà.
+     */
+    static int boundedDistance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) {
+            return max + 1;
+        }
+        int outside = max + 1;
+        int[] previous2 = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            Arrays.fill(current, outside);
+            current[0] = i;
+            int rowMin = current[0];
+            int from = Math.max(1, i - max);
+            int to = Math.min(m, i + max);
+            for (int j = from; j <= to; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = Math.min(value, outside);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return outside;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[m], outside);
+    }
+
+    private Map<Integer, Double> score(Map<String, Double> terms) {
+        Map<Integer, Double> scores = new HashMap<>();
+        int documentCount = ordinals.size();
+        double averageLength = documentCount == 0 ? 1.0 : (double) totalLength / documentCount;
+        for (Map.Entry<String, Double> term : terms.entrySet()) {
+            PostingList postingList = postings.get(term.getKey());
+            double idf = Math.log(1 + (documentCount - postingList.size + 0.5) / (postingList.size + 0.5));
+            for (int i = 0; i < postingList.size; i++) {
+                int ordinal = postingList.docs[i];
+                int tf = postingList.freqs[i];
+                double norm = K1 * (1 - B + B * docLengths[ordinal] / averageLength);
+                double value = term.getValue() * idf * tf * (K1 + 1) / (tf + norm);
+                scores.merge(ordinal, value, Double::sum);
+            }
+        }
+        return scores;
+    }
+
+    private static Map<Integer, Double> intersect(Map<Integer, Double> left, Map<Integer, Double> right) {
+        Map<Integer, Double> smaller = left.size() <= right.size() ? left : right;
+        Map<Integer, Double> larger = smaller == left ? right : left;
+        Map<Integer, Double> result = new HashMap<>();
+        for (Map.Entry<Integer, Double> entry : smaller.entrySet()) {
+            Double other = larger.get(entry.getKey());
+            if (other != null) {
+                result.put(entry.getKey(), entry.getValue() + other);
+            }
+        }
+        return result;
+    }
+
+    private List<Long> topProducts(Map<Integer, Double> scores, int limit) {
+        Comparator<Map.Entry<Integer, Double>> ranking = Map.Entry.<Integer, Double>comparingByValue()
+                .thenComparing(entry -> -productIds[entry.getKey()]);
+        PriorityQueue<Map.Entry<Integer, Double>> top = new PriorityQueue<>(ranking);
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            top.offer(entry);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Long> result = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            result.add(productIds[top.poll().getKey()]);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Liste triée (ordinal du document, fréquence pondérée) stockée en tableaux primitifs.
+     */
+    private static final class PostingList {
+
+        private int[] docs = new int[4];
+        private int[] freqs = new int[4];
+        private int size;
+
+        void add(int ordinal, int frequency) {
+            int index = Arrays.binarySearch(docs, 0, size, ordinal);
+            if (index >= 0) {
+                freqs[index] = frequency;
+                return;
+            }
+            int insertAt = -index - 1;
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size + (size >> 1) + 1);
+                freqs = Arrays.copyOf(freqs, docs.length);
+            }
+            System.arraycopy(docs, insertAt, docs, insertAt + 1, size - insertAt);
+            System.arraycopy(freqs, insertAt, freqs, insertAt + 1, size - insertAt);
+            docs[insertAt] = ordinal;
+            freqs[insertAt] = frequency;
+            size++;
+        }
+
+        void remove(int ordinal) {
+            int index = Arrays.binarySearch(docs, 0, size, ordinal);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(docs, index + 1, docs, index, size - index - 1);
+            System.arraycopy(freqs, index + 1, freqs, index, size - index - 1);
+            size--;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.devops.pfe.index;
+
+import com.devops.pfe.entity.Product;
+
+import java.math.BigDecimal;
+
+/**
+ * Vue immuable d'un produit, partagée par les index en mémoire.
+ */
+public record ProductSnapshot(
+        Long id,
+        String name,
+        String description,
+        BigDecimal price,
+        Integer stockQuantity,
+        String category,
+        String sku,
+        Boolean active,
+        Long version) {
+
+    public static ProductSnapshot of(Product product) {
+        return new ProductSnapshot(
+                product.getId(),
+                product.getName(),
+                product.getDescription(),
+                product.getPrice(),
+                product.getStockQuantity(),
+                product.getCategory(),
+                product.getSku(),
+                product.getActive(),
+                product.getVersion());
+    }
+
+    public int stock() {
+        return stockQuantity == null ? 0 : stockQuantity;
+    }
+
+    public boolean isActive() {
+        return Boolean.TRUE.equals(active);
+    }
+}
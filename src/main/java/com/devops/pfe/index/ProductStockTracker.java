@@ -0,0 +1,70 @@
+package com.devops.pfe.index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Produits actifs triés par quantité en stock puis par identifiant.
+ *
+ * Un seuil quelconque se résout en parcourant le début de l'ensemble : le coût
+ * est proportionnel au nombre de produits en stock bas, pas au catalogue.
+ */
+@Component
+public class ProductStockTracker implements ProductIndexListener {
+
+    private final ConcurrentSkipListSet<StockEntry> entries = new ConcurrentSkipListSet<>();
+
+    @Override
+    public void onChange(ProductSnapshot before, ProductSnapshot after) {
+        StockEntry previous = StockEntry.of(before);
+        StockEntry current = StockEntry.of(after);
+        if (previous == null ? current == null : previous.equals(current)) {
+            return;
+        }
+        if (previous != null) {
+            entries.remove(previous);
+        }
+        if (current != null) {
+            entries.add(current);
+        }
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return les identifiants des produits actifs dont le stock est strictement inférieur au seuil, stock croissant
+     */
+    public List<Long> below(int threshold) {
+        List<Long> result = new ArrayList<>();
+        for (StockEntry entry : entries.headSet(new StockEntry(threshold, Long.MIN_VALUE))) {
+            result.add(entry.productId());
+        }
+        return result;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private record StockEntry(int stock, long productId) implements Comparable<StockEntry> {
+
+        static StockEntry of(ProductSnapshot product) {
+            if (product == null || !product.isActive()) {
+                return null;
+            }
+            return new StockEntry(product.stock(), product.id());
+        }
+
+        @Override
+        public int compareTo(StockEntry other) {
+            int byStock = Integer.compare(stock, other.stock);
+            return byStock != 0 ? byStock : Long.compare(productId, other.productId);
+        }
+    }
+}
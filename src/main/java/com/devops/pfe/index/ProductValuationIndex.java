@@ -0,0 +1,112 @@
+package com.devops.pfe.index;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Valeur du stock des produits actifs (prix × quantité), totale et par catégorie,
+ * tenue à jour par différence à chaque changement de prix, de stock ou d'activation.
+ *
+ * Les montants sont cumulés en centimes ; les lectures ne prennent pas de verrou.
+ * Chaque catégorie porte un numéro de modification : une correction venue de la
+ * base n'est appliquée que si la catégorie n'a pas bougé depuis sa lecture.
+ */
+@Component
+public class ProductValuationIndex implements ProductIndexListener {
+
+    private final Map<String, Long> categoryCents = new ConcurrentHashMap<>();
+    private volatile long totalCents;
+    // Modifications par catégorie, et remises à zéro (qui invalident toutes les catégories)
+    private final Map<String, Long> categoryVersions = new HashMap<>();
+    private long epoch;
+
+    @Override
+    public synchronized void onChange(ProductSnapshot before, ProductSnapshot after) {
+        if (before != null && before.isActive()) {
+            touch(before.category());
+            add(before.category(), -valueInCents(before));
+        }
+        if (after != null && after.isActive()) {
+            touch(after.category());
+            add(after.category(), valueInCents(after));
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        categoryCents.clear();
+        totalCents = 0;
+        epoch++;
+    }
+
+    /**
+     * @return les valeurs par catégorie et leurs numéros de modification, lus ensemble
+     */
+    public synchronized State state() {
+        return new State(epoch, byCategory(), Map.copyOf(categoryVersions));
+    }
+
+    /**
+     * Remplace la valeur d'une catégorie par celle calculée en base (réconciliation),
+     * sauf si la catégorie a changé depuis la lecture {@code seen}.
+     *
+     * @return true si la correction a été appliquée
+     */
+    public synchronized boolean correct(String category, BigDecimal value, State seen) {
+        if (seen.epoch() != epoch || seen.version(category) != categoryVersions.getOrDefault(category, 0L)) {
+            return false;
+        }
+        touch(category);
+        add(category, toCents(value) - categoryCents.getOrDefault(category, 0L));
+        return true;
+    }
+
+    public BigDecimal total() {
+        return BigDecimal.valueOf(totalCents, 2);
+    }
+
+    /**
+     * @return la valeur par catégorie, triée par nom, sans les catégories vides
+     */
+    public Map<String, BigDecimal> byCategory() {
+        Map<String, BigDecimal> result = new TreeMap<>();
+        categoryCents.forEach((category, cents) -> result.put(category, BigDecimal.valueOf(cents, 2)));
+        return result;
+    }
+
+    private void touch(String category) {
+        categoryVersions.merge(category, 1L, Long::sum);
+    }
+
+    private void add(String category, long cents) {
+        if (cents == 0) {
+            return;
+        }
+        categoryCents.merge(category, cents, (current, delta) -> current + delta == 0 ? null : current + delta);
+        totalCents = Math.addExact(totalCents, cents);
+    }
+
+    private static long valueInCents(ProductSnapshot product) {
+        if (product.price() == null) {
+            return 0;
+        }
+        return Math.multiplyExact(toCents(product.price()), product.stock());
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public record State(long epoch, Map<String, BigDecimal> values, Map<String, Long> versions) {
+
+        long version(String category) {
+            return versions.getOrDefault(category, 0L);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.devops.pfe.index;
+
+import com.devops.pfe.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Vérifie périodiquement les agrégats de valorisation contre une somme calculée en base
+ * et les corrige en cas d'écart.
+ *
+ * Seules les catégories restées immobiles pendant la lecture en base sont
+ * comparées : une catégorie modifiée entre-temps, ou touchée par une transaction
+ * encore ouverte (dont l'indexeur a déjà appliqué le changement), attend le
+ * passage suivant. La correction est refusée si la catégorie a bougé depuis.
+ */
+@Component
+@Slf4j
+public class ProductValuationReconciler {
+
+    private final ProductRepository productRepository;
+    private final ProductValuationIndex valuationIndex;
+    private final ProductIndexer productIndexer;
+    private final Counter driftCounter;
+
+    public ProductValuationReconciler(ProductRepository productRepository,
+                                      ProductValuationIndex valuationIndex,
+                                      ProductIndexer productIndexer,
+                                      MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.valuationIndex = valuationIndex;
+        this.productIndexer = productIndexer;
+        this.driftCounter = Counter.builder("inventory.valuation.drift")
+                .description("Écarts détectés entre la valorisation en mémoire et la base")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return true si les agrégats étaient cohérents avec la base
+     */
+    @Scheduled(fixedDelayString = "${inventory.valuation.reconcile-interval:PT5M}",
+            initialDelayString = "${inventory.valuation.reconcile-interval:PT5M}")
+    public boolean reconcile() {
+        ProductValuationIndex.State before = valuationIndex.state();
+        Set<String> unsettled = new HashSet<>(productIndexer.pendingCategories());
+        Map<String, BigDecimal> expected = new TreeMap<>();
+        for (CategoryValuation valuation : productRepository.sumActiveValueByCategory()) {
+            if (valuation.value() != null && valuation.value().signum() != 0) {
+                expected.put(valuation.category(), valuation.value().setScale(2, RoundingMode.HALF_UP));
+            }
+        }
+        ProductValuationIndex.State after = valuationIndex.state();
+        if (before.epoch() != after.epoch()) {
+            log.debug("Index de valorisation reconstruit pendant le contrôle, vérification reportée");
+            return true;
+        }
+
+        Set<String> categories = new TreeSet<>(expected.keySet());
+        categories.addAll(after.values().keySet());
+        Map<String, BigDecimal> drifted = new TreeMap<>();
+        for (String category : categories) {
+            if (unsettled.contains(category) || before.version(category) != after.version(category)) {
+                continue;
+            }
+            BigDecimal value = expected.getOrDefault(category, BigDecimal.ZERO.setScale(2));
+            if (!value.equals(after.values().getOrDefault(category, BigDecimal.ZERO.setScale(2)))) {
+                drifted.put(category, value);
+            }
+        }
+        if (drifted.isEmpty()) {
+            log.debug("Valorisation du stock cohérente: {}", valuationIndex.total());
+            return true;
+        }
+
+        driftCounter.increment();
+        drifted.forEach((category, value) -> {
+            boolean corrected = valuationIndex.correct(category, value, after);
+            log.warn("Écart de valorisation pour la catégorie {} (mémoire: {}, base: {}){}", category,
+                    after.values().get(category), value, corrected ? ", corrigé" : ", modifiée depuis, correction reportée");
+        });
+        return false;
+    }
+}
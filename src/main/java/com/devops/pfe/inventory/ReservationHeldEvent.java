@@ -0,0 +1,9 @@
+package com.devops.pfe.inventory;
+
+import java.time.LocalDateTime;
+
+/**
+ * Réservation posée, publiée dans la transaction de pose.
+ */
+public record ReservationHeldEvent(Long reservationId, LocalDateTime expiresAt) {
+}
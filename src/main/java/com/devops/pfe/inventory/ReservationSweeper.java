@@ -0,0 +1,101 @@
+package com.devops.pfe.inventory;
+
+import com.devops.pfe.entity.ReservationStatus;
+import com.devops.pfe.repository.ReservationDeadline;
+import com.devops.pfe.repository.StockReservationRepository;
+import com.devops.pfe.service.ReservationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Expire les réservations échues, par lots.
+ *
+ * Chaque réservation validée est armée dans une {@link TimerWheel} dont le tick
+ * vaut {@code reservations.sweep-interval} : un balayage ne lit que les
+ * réservations échues, sans requête sur la table tant que rien n'arrive à
+ * échéance. La roue est réarmée depuis la base au démarrage. Un balayage en base,
+ * plus espacé, rattrape les réservations posées par d'autres instances ou dont
+ * l'expiration a échoué.
+ */
+@Component
+@Slf4j
+public class ReservationSweeper {
+
+    static final int SLOTS = 512;
+
+    private final ReservationService reservationService;
+    private final StockReservationRepository reservationRepository;
+    private final int batchSize;
+    private final TimerWheel<Long> wheel;
+
+    public ReservationSweeper(ReservationService reservationService,
+                              StockReservationRepository reservationRepository,
+                              @Value("${reservations.sweep-interval:PT1S}") Duration tick,
+                              @Value("${reservations.sweep-batch-size:500}") int batchSize) {
+        this.reservationService = reservationService;
+        this.reservationRepository = reservationRepository;
+        this.batchSize = batchSize;
+        this.wheel = new TimerWheel<>(tick, SLOTS, System.currentTimeMillis());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void arm() {
+        List<ReservationDeadline> deadlines = reservationRepository.findDeadlines(ReservationStatus.HELD);
+        deadlines.forEach(deadline -> wheel.schedule(deadline.id(), toMillis(deadline.expiresAt())));
+        log.info("{} réservations en cours armées", deadlines.size());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReservationHeld(ReservationHeldEvent event) {
+        wheel.schedule(event.reservationId(), toMillis(event.expiresAt()));
+    }
+
+    /**
+     * @return le nombre de réservations expirées
+     */
+    @Scheduled(fixedDelayString = "${reservations.sweep-interval:PT1S}")
+    public int sweep() {
+        List<Long> due = wheel.advance(System.currentTimeMillis());
+        int expired = 0;
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Long> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            try {
+                expired += reservationService.expireReservations(batch);
+            } catch (RuntimeException e) {
+                log.error("Échec de l'expiration de {} réservations, reprises au balayage en base: {}",
+                        batch.size(), e.getMessage());
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * @return le nombre de réservations expirées
+     */
+    @Scheduled(fixedDelayString = "${reservations.backstop-interval:PT1M}",
+            initialDelayString = "${reservations.backstop-interval:PT1M}")
+    public int sweepOverdue() {
+        int expired = 0;
+        int batch;
+        do {
+            batch = reservationService.expireOverdue(batchSize);
+            expired += batch;
+        } while (batch == batchSize);
+        return expired;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
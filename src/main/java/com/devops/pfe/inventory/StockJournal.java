@@ -0,0 +1,163 @@
+package com.devops.pfe.inventory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Journal local des mouvements de stock, en ajout seul, découpé en segments numérotés.
+ *
+ * Chaque enregistrement fait {@value #RECORD_SIZE} octets (identifiant produit, delta).
+ * Un segment est fermé à chaque report en base, puis supprimé une fois ce report
+ * validé. Un enregistrement écrit survit à l'arrêt brutal du processus ; il n'est
+ * garanti contre une panne du système qu'après la synchronisation du segment.
+ */
+class StockJournal implements AutoCloseable {
+
+    static final int RECORD_SIZE = Long.BYTES + Integer.BYTES;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("stock-ledger-(\\d+)\\.journal");
+
+    private final Path directory;
+    private FileChannel channel;
+    private long segment;
+
+    StockJournal(Path directory, long firstSegment) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Répertoire du journal de stock inaccessible: " + directory, e);
+        }
+        open(firstSegment);
+    }
+
+    /**
+     * Écrit un enregistrement. Sûr entre threads : le canal sérialise les écritures en ajout.
+     */
+    void append(long productId, int delta) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE).putLong(productId).putInt(delta).flip();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Écriture du journal de stock impossible", e);
+        }
+    }
+
+    /**
+     * Synchronise et ferme le segment courant, puis en ouvre un nouveau.
+     * L'appelant doit exclure toute écriture concurrente.
+     *
+     * @return le numéro du segment fermé
+     */
+    long rotate() {
+        long closed = segment;
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Fermeture du segment " + closed + " impossible", e);
+        }
+        open(closed + 1);
+        return closed;
+    }
+
+    /**
+     * Supprime les segments fermés jusqu'à {@code last} inclus.
+     */
+    void deleteThrough(long last) {
+        for (long number : segments(directory)) {
+            if (number <= last && number != segment) {
+                try {
+                    Files.deleteIfExists(path(number));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Suppression du segment " + number + " impossible", e);
+                }
+            }
+        }
+    }
+
+    long currentSegment() {
+        return segment;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Fermeture du journal de stock impossible", e);
+        }
+    }
+
+    /**
+     * @return les numéros des segments présents dans le répertoire, triés
+     */
+    static List<Long> segments(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> SEGMENT_NAME.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Long.parseLong(matcher.group(1)))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture du répertoire " + directory + " impossible", e);
+        }
+    }
+
+    /**
+     * Cumule par produit les deltas des segments postérieurs à {@code checkpoint}.
+     * Un enregistrement final tronqué (arrêt pendant l'écriture) est ignoré.
+     */
+    static Map<Long, Integer> replay(Path directory, long checkpoint) {
+        Map<Long, Integer> deltas = new HashMap<>();
+        for (long number : segments(directory)) {
+            if (number <= checkpoint) {
+                continue;
+            }
+            try {
+                ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(segmentPath(directory, number)));
+                while (content.remaining() >= RECORD_SIZE) {
+                    deltas.merge(content.getLong(), content.getInt(), Integer::sum);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Relecture du segment " + number + " impossible", e);
+            }
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+        return deltas;
+    }
+
+    private void open(long number) {
+        try {
+            channel = FileChannel.open(path(number),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            segment = number;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ouverture du segment " + number + " impossible", e);
+        }
+    }
+
+    private Path path(long number) {
+        return segmentPath(directory, number);
+    }
+
+    private static Path segmentPath(Path directory, long number) {
+        return directory.resolve(String.format("stock-ledger-%019d.journal", number));
+    }
+}
@@ -0,0 +1,433 @@
+package com.devops.pfe.inventory;
+
+import com.devops.pfe.cache.ProductCache;
+import com.devops.pfe.exception.InsufficientStockException;
+import com.devops.pfe.exception.ResourceNotFoundException;
+import com.devops.pfe.index.ProductChangeType;
+import com.devops.pfe.index.ProductChangedEvent;
+import com.devops.pfe.index.ProductSnapshot;
+import com.devops.pfe.repository.ProductRepository;
+import com.devops.pfe.repository.ProductStockRepository;
+import com.devops.pfe.repository.ProductStockRepository.Adjustment;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Files d'écriture du stock à écrivain unique ({@code inventory.lanes.enabled}).
+ *
+ * Chaque produit est rattaché par hachage de son identifiant à l'une des
+ * {@code inventory.lanes.count} files ; un thread par file traite ses mouvements
+ * dans l'ordre d'arrivée. Les mouvements en attente sont traités ensemble, au
+ * plus {@code inventory.lanes.max-batch} à la fois : le stock de chaque produit
+ * est lu une fois, les retraits sont admis ou refusés en mémoire, puis le delta
+ * net est écrit par un seul UPDATE conditionnel. Un produit très demandé
+ * n'occupe que sa file, les autres produits n'attendent pas derrière lui.
+ *
+ * Chaque file garde sa propre session Hibernate, et donc sa connexion, d'un lot
+ * à l'autre : l'appelant attend en gardant la sienne, les files ne doivent pas
+ * disputer le pool aux requêtes. Le démarrage échoue si le pool ne compte pas
+ * au moins une connexion de plus que de files. Après l'échec d'un lot, une
+ * connexion devenue invalide est rendue et la session rouverte ; tant qu'elle ne
+ * peut pas l'être, chaque lot emprunte une connexion au pool le temps de sa
+ * transaction. Le mouvement est validé dans la transaction de la file, avant
+ * celle de l'appelant ; si celle-ci est annulée, le mouvement inverse est
+ * soumis à la même file. L'appelant attend au plus {@code inventory.lanes.timeout}.
+ * Le registre de stock, s'il est activé, a la priorité sur les files.
+ *
+ * Un mouvement et la transaction de l'appelant ne sont donc pas atomiques :
+ * entre les deux validations, le stock reflète déjà le mouvement. Un mouvement
+ * inverse que la file n'a pas pu écrire est retenté {@value #COMPENSATION_ATTEMPTS}
+ * fois ; un mouvement inverse refusé (stock revendu entre-temps, produit
+ * supprimé) ne l'est pas. Dans les deux cas l'échec est journalisé et compté
+ * ({@code inventory.lanes.compensation.failures}) : le stock est à corriger.
+ */
+@Component
+@Slf4j
+public class StockLanes implements SmartInitializingSingleton, DisposableBean {
+
+    static final int COMPENSATION_ATTEMPTS = 3;
+    private static final long COMPENSATION_BACKOFF_MILLIS = 100;
+
+    private final boolean enabled;
+    private final int laneCount;
+    private final int maxBatch;
+    private final Duration timeout;
+    private final ProductStockRepository productStockRepository;
+    private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManagerFactory entityManagerFactory;
+    private final DataSource dataSource;
+    private final TransactionTemplate laneTemplate;
+    private final DistributionSummary batchSizes;
+    private final Counter compensationFailures;
+
+    private final List<Lane> lanes = new ArrayList<>();
+
+    public StockLanes(@Value("${inventory.lanes.enabled:false}") boolean enabled,
+                      @Value("${inventory.lanes.count:4}") int laneCount,
+                      @Value("${inventory.lanes.max-batch:256}") int maxBatch,
+                      @Value("${inventory.lanes.timeout:PT5S}") Duration timeout,
+                      ProductStockRepository productStockRepository,
+                      ProductRepository productRepository,
+                      ProductCache productCache,
+                      ApplicationEventPublisher eventPublisher,
+                      EntityManagerFactory entityManagerFactory,
+                      DataSource dataSource,
+                      PlatformTransactionManager transactionManager,
+                      MeterRegistry meterRegistry) {
+        if (laneCount < 1 || maxBatch < 1) {
+            throw new IllegalArgumentException("inventory.lanes.count et inventory.lanes.max-batch doivent être au moins 1");
+        }
+        this.enabled = enabled;
+        this.laneCount = laneCount;
+        this.maxBatch = maxBatch;
+        this.timeout = timeout;
+        this.productStockRepository = productStockRepository;
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+        this.eventPublisher = eventPublisher;
+        this.entityManagerFactory = entityManagerFactory;
+        this.dataSource = dataSource;
+        this.laneTemplate = new TransactionTemplate(transactionManager);
+        this.batchSizes = DistributionSummary.builder("inventory.lanes.batch.size")
+                .description("Mouvements de stock traités par écriture groupée")
+                .register(meterRegistry);
+        this.compensationFailures = Counter.builder("inventory.lanes.compensation.failures")
+                .description("Mouvements inverses de transactions annulées restés sans effet")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Vérifie la taille du pool et ouvre les sessions des files, connexion comprise,
+     * avant que l'application ne serve des requêtes.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        int poolSize = maximumPoolSize();
+        if (poolSize <= laneCount) {
+            throw new IllegalStateException(String.format(
+                    "spring.datasource.hikari.maximum-pool-size (%d) doit dépasser inventory.lanes.count (%d) : "
+                            + "chaque file garde une connexion", poolSize, laneCount));
+        }
+        for (int i = 0; i < laneCount; i++) {
+            Lane lane = new Lane("stock-lane-" + i, openSession());
+            lanes.add(lane);
+            lane.thread.start();
+        }
+        log.info("{} files d'écriture du stock démarrées ({} connexions restent aux requêtes)", laneCount, poolSize - laneCount);
+    }
+
+    private int maximumPoolSize() {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class)
+                    ? dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize()
+                    : Integer.MAX_VALUE;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Taille du pool de connexions illisible", e);
+        }
+    }
+
+    private Session openSession() {
+        return entityManagerFactory.unwrap(SessionFactory.class).withOptions()
+                .connectionHandlingMode(PhysicalConnectionHandlingMode.IMMEDIATE_ACQUISITION_AND_HOLD)
+                .openSession();
+    }
+
+    /**
+     * @return le stock du produit après le retrait
+     * @throws InsufficientStockException si le stock disponible est insuffisant
+     */
+    public int remove(Long productId, int quantity) {
+        return move(productId, -quantity);
+    }
+
+    /**
+     * @return le stock du produit après l'ajout
+     */
+    public int add(Long productId, int quantity) {
+        return move(productId, quantity);
+    }
+
+    private int move(Long productId, int delta) {
+        if (!enabled) {
+            throw new IllegalStateException("Les files d'écriture du stock ne sont pas activées");
+        }
+        CompletableFuture<Integer> result = submit(productId, delta);
+        compensateOnRollback(productId, delta, result);
+        try {
+            return result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new CannotAcquireLockException("Délai dépassé en attente de la file du produit " + productId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("Attente de la file du produit " + productId + " interrompue");
+        }
+    }
+
+    private CompletableFuture<Integer> submit(Long productId, int delta) {
+        StockMove move = new StockMove(productId, delta, new CompletableFuture<>());
+        lanes.get(Math.floorMod(Long.hashCode(productId), laneCount)).queue.add(move);
+        return move.result();
+    }
+
+    // Le mouvement inverse n'est soumis que si le mouvement a bien été appliqué, même après l'abandon de l'attente
+    private void compensateOnRollback(Long productId, int delta, CompletableFuture<Integer> result) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    result.thenRun(() -> compensate(productId, -delta, 1));
+                }
+            }
+        });
+    }
+
+    // Un échec de la file est retenté après une pause ; un refus ne changerait pas au prochain essai
+    private void compensate(Long productId, int delta, int attempt) {
+        submit(productId, delta).whenComplete((stock, error) -> {
+            if (error == null) {
+                return;
+            }
+            boolean refused = error instanceof InsufficientStockException || error instanceof ResourceNotFoundException;
+            if (!refused && attempt < COMPENSATION_ATTEMPTS) {
+                log.warn("Mouvement inverse de {} pour le produit {} non écrit (tentative {}): {}",
+                        delta, productId, attempt, error.getMessage());
+                CompletableFuture.delayedExecutor(COMPENSATION_BACKOFF_MILLIS * attempt, TimeUnit.MILLISECONDS)
+                        .execute(() -> compensate(productId, delta, attempt + 1));
+                return;
+            }
+            compensationFailures.increment();
+            log.error("Mouvement inverse de {} perdu pour le produit {} après {} tentative(s), stock à corriger: {}",
+                    delta, productId, attempt, error.getMessage());
+        });
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        for (Lane lane : lanes) {
+            lane.thread.interrupt();
+            lane.thread.join(timeout.toMillis());
+        }
+    }
+
+    /**
+     * @return false si la transaction du lot a échoué
+     */
+    private boolean process(List<StockMove> batch) {
+        batchSizes.record(batch.size());
+        Map<StockMove, Integer> stocks = new HashMap<>();
+        Map<StockMove, RuntimeException> rejections = new HashMap<>();
+        try {
+            laneTemplate.executeWithoutResult(status -> apply(batch, stocks, rejections));
+        } catch (RuntimeException e) {
+            log.error("Échec de l'écriture groupée de {} mouvements de stock: {}", batch.size(), e.getMessage());
+            batch.forEach(move -> move.result().completeExceptionally(e));
+            return false;
+        }
+        // Les appelants ne reprennent la main qu'une fois l'écriture validée
+        for (StockMove move : batch) {
+            RuntimeException rejection = rejections.get(move);
+            if (rejection != null) {
+                move.result().completeExceptionally(rejection);
+            } else {
+                move.result().complete(stocks.get(move));
+            }
+        }
+        return true;
+    }
+
+    private void apply(List<StockMove> batch, Map<StockMove, Integer> stocks, Map<StockMove, RuntimeException> rejections) {
+        // Par identifiant croissant, chaque produit gardant l'ordre d'arrivée de ses mouvements
+        Map<Long, List<StockMove>> byProduct = new TreeMap<>();
+        batch.forEach(move -> byProduct.computeIfAbsent(move.productId(), id -> new ArrayList<>()).add(move));
+        Map<Long, ProductSnapshot> current = productRepository.findSnapshotsByIdIn(byProduct.keySet()).stream()
+                .collect(Collectors.toMap(ProductSnapshot::id, Function.identity()));
+
+        Map<Long, List<StockMove>> accepted = new TreeMap<>();
+        List<Adjustment> writes = new ArrayList<>();
+        byProduct.forEach((productId, moves) -> {
+            ProductSnapshot product = current.get(productId);
+            if (product == null) {
+                moves.forEach(move -> rejections.put(move, new ResourceNotFoundException("Produit", productId)));
+                return;
+            }
+            int stock = product.stock();
+            for (StockMove move : moves) {
+                if (stock + move.delta() < 0) {
+                    rejections.put(move, new InsufficientStockException(product.name(), stock, -move.delta()));
+                } else {
+                    stock += move.delta();
+                    accepted.computeIfAbsent(productId, id -> new ArrayList<>()).add(move);
+                }
+            }
+            if (stock != product.stock()) {
+                writes.add(new Adjustment(productId, stock - product.stock(), false));
+            }
+        });
+        if (writes.isEmpty()) {
+            accepted.forEach((productId, moves) -> moves.forEach(move -> stocks.put(move, current.get(productId).stock())));
+            return;
+        }
+
+        // Un seul UPDATE conditionnel par produit, tous envoyés en un lot
+        boolean[] applied = productStockRepository.adjust(writes);
+        for (int i = 0; i < applied.length; i++) {
+            if (!applied[i]) {
+                // Stock modifié hors des files depuis la lecture : mouvements repris un à un
+                Long productId = writes.get(i).productId();
+                replay(current.get(productId), accepted.get(productId), rejections);
+            }
+        }
+
+        Map<Long, Integer> after = new HashMap<>();
+        for (ProductSnapshot snapshot : productRepository.findSnapshotsByIdIn(writes.stream().map(Adjustment::productId).toList())) {
+            after.put(snapshot.id(), snapshot.stock());
+            productCache.evict(snapshot.id(), snapshot.sku());
+            eventPublisher.publishEvent(new ProductChangedEvent(ProductChangeType.STOCK_CHANGED, snapshot));
+        }
+        accepted.forEach((productId, moves) -> moves.forEach(move ->
+                stocks.put(move, after.getOrDefault(productId, current.get(productId).stock()))));
+    }
+
+    private void replay(ProductSnapshot product, List<StockMove> moves, Map<StockMove, RuntimeException> rejections) {
+        for (StockMove move : moves) {
+            if (!productStockRepository.adjust(List.of(new Adjustment(product.id(), move.delta(), false)))[0]) {
+                Integer available = productStockRepository.findAvailable(product.id());
+                rejections.put(move, new InsufficientStockException(product.name(), available == null ? 0 : available, -move.delta()));
+            }
+        }
+    }
+
+    private final class Lane implements Runnable {
+
+        private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+        private final BlockingQueue<StockMove> queue = new LinkedBlockingQueue<>();
+        private final Thread thread;
+        // Null tant que la session n'a pas pu être rouverte : les lots empruntent alors une connexion au pool
+        private Session session;
+
+        private Lane(String name, Session session) {
+            this.session = session;
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            // Les transactions de la file reprennent cette session et sa connexion
+            TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(session));
+            List<StockMove> batch = new ArrayList<>(maxBatch);
+            try {
+                while (true) {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, maxBatch - 1);
+                    if (session == null) {
+                        reopen();
+                    }
+                    boolean written = process(batch);
+                    batch.clear();
+                    if (session != null && !written && !connected()) {
+                        log.warn("Connexion de la file {} invalide, session rouverte", thread.getName());
+                        release();
+                        reopen();
+                    } else if (session != null) {
+                        session.clear();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                release();
+            }
+            IllegalStateException stopped = new IllegalStateException("File d'écriture du stock arrêtée");
+            queue.drainTo(batch);
+            batch.forEach(move -> move.result().completeExceptionally(stopped));
+        }
+
+        private boolean connected() {
+            try {
+                return session.doReturningWork(connection -> connection.isValid(VALIDATION_TIMEOUT_SECONDS));
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+
+        private void reopen() {
+            try {
+                session = openSession();
+                TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(session));
+            } catch (RuntimeException e) {
+                session = null;
+                log.error("Réouverture de la session de la file {} impossible: {}", thread.getName(), e.getMessage());
+            }
+        }
+
+        private void release() {
+            if (session == null) {
+                return;
+            }
+            TransactionSynchronizationManager.unbindResourceIfPossible(entityManagerFactory);
+            try {
+                session.close();
+            } catch (RuntimeException e) {
+                log.debug("Fermeture de la session de la file {}: {}", thread.getName(), e.getMessage());
+            }
+            session = null;
+        }
+    }
+
+    private record StockMove(Long productId, int delta, CompletableFuture<Integer> result) {
+    }
+}
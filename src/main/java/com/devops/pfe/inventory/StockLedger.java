@@ -0,0 +1,348 @@
+package com.devops.pfe.inventory;
+
+import com.devops.pfe.cache.ProductCache;
+import com.devops.pfe.entity.StockLedgerCheckpoint;
+import com.devops.pfe.exception.ResourceNotFoundException;
+import com.devops.pfe.index.ProductChangeType;
+import com.devops.pfe.index.ProductChangedEvent;
+import com.devops.pfe.index.ProductSnapshot;
+import com.devops.pfe.repository.ProductRepository;
+import com.devops.pfe.repository.ProductStockRepository;
+import com.devops.pfe.repository.StockLedgerCheckpointRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Registre de stock en mémoire, en écriture différée ({@code inventory.ledger.enabled}).
+ *
+ * Le stock disponible d'un produit est chargé à son premier mouvement puis fait
+ * foi : un retrait est admis ou refusé par compare-and-set, sans aller-retour en
+ * base. Chaque mouvement est inscrit au {@link StockJournal} avant d'être
+ * acquitté ; les deltas nets sont reportés en base par lots toutes les
+ * {@code inventory.ledger.flush-interval}, avec le numéro du segment reporté.
+ * Au démarrage, les segments postérieurs au dernier report sont rejoués.
+ *
+ * Les lectures du catalogue voient le stock en base, en retard d'au plus un
+ * intervalle ; les index et le journal des modifications suivent au report.
+ * Un mouvement fait dans une transaction annulée est compensé après l'annulation,
+ * par le mouvement inverse : le compare-and-set n'attend pas le commit. Une écriture
+ * du stock hors registre (import, mise à jour du produit) recale l'entrée après commit.
+ *
+ * Réservé à une instance unique par base : le stock disponible n'est tenu que
+ * dans la mémoire de l'instance, deux instances admettraient chacune des retraits
+ * sur le même stock. Le registre ne voit les écritures d'une autre instance qu'au
+ * prochain recalage de l'entrée.
+ */
+@Component
+@Slf4j
+public class StockLedger implements SmartInitializingSingleton, DisposableBean {
+
+    private final boolean enabled;
+    private final Path directory;
+    private final ProductStockRepository productStockRepository;
+    private final StockLedgerCheckpointRepository checkpointRepository;
+    private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate flushTemplate;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    // Lecture : mouvements concurrents ; écriture : rotation du segment et relevé des deltas
+    private final ReadWriteLock journalLock = new ReentrantReadWriteLock();
+    private final Lock flushLock = new ReentrantLock();
+    private StockJournal journal;
+
+    public StockLedger(@Value("${inventory.ledger.enabled:false}") boolean enabled,
+                       @Value("${inventory.ledger.directory:data/stock-ledger}") Path directory,
+                       ProductStockRepository productStockRepository,
+                       StockLedgerCheckpointRepository checkpointRepository,
+                       ProductRepository productRepository,
+                       ProductCache productCache,
+                       ApplicationEventPublisher eventPublisher,
+                       PlatformTransactionManager transactionManager) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.productStockRepository = productStockRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+        this.eventPublisher = eventPublisher;
+        this.flushTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Rejoue les segments non reportés avant que l'application ne serve des requêtes.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        long checkpoint = flushTemplate.execute(status -> checkpointRepository.findById(StockLedgerCheckpoint.SINGLETON_ID)
+                .map(StockLedgerCheckpoint::getSegment)
+                .orElse(0L));
+        List<Long> segments = StockJournal.segments(directory);
+        long last = segments.isEmpty() ? checkpoint : Math.max(checkpoint, segments.get(segments.size() - 1));
+
+        Map<Long, Integer> deltas = StockJournal.replay(directory, checkpoint);
+        if (!deltas.isEmpty()) {
+            log.warn("Reprise du registre de stock: {} produits à reporter (segments {} à {})",
+                    deltas.size(), checkpoint + 1, last);
+            persist(last, deltas);
+        }
+        journal = new StockJournal(directory, last + 1);
+        journal.deleteThrough(last);
+    }
+
+    /**
+     * Retire du stock si la quantité est disponible.
+     *
+     * @return false si le stock disponible est insuffisant
+     */
+    public boolean tryRemove(Long productId, int quantity) {
+        Entry entry = entry(productId);
+        journalLock.readLock().lock();
+        try {
+            int current;
+            do {
+                current = entry.available.get();
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!entry.available.compareAndSet(current, current - quantity));
+            record(productId, entry, -quantity);
+        } finally {
+            journalLock.readLock().unlock();
+        }
+        compensateOnRollback(productId, quantity);
+        return true;
+    }
+
+    /**
+     * @return le stock disponible après l'ajout
+     */
+    public int add(Long productId, int quantity) {
+        Entry entry = entry(productId);
+        int available;
+        journalLock.readLock().lock();
+        try {
+            available = entry.available.addAndGet(quantity);
+            record(productId, entry, quantity);
+        } finally {
+            journalLock.readLock().unlock();
+        }
+        compensateOnRollback(productId, -quantity);
+        return available;
+    }
+
+    /**
+     * Fixe le stock disponible ; le report en base passe par le delta correspondant.
+     */
+    public void set(Long productId, int quantity) {
+        Entry entry = entry(productId);
+        journalLock.readLock().lock();
+        int delta;
+        try {
+            delta = quantity - entry.available.getAndSet(quantity);
+            if (delta != 0) {
+                record(productId, entry, delta);
+            }
+        } finally {
+            journalLock.readLock().unlock();
+        }
+        if (delta != 0) {
+            compensateOnRollback(productId, -delta);
+        }
+    }
+
+    public int available(Long productId) {
+        return entry(productId).available.get();
+    }
+
+    /**
+     * Reporte en base les deltas accumulés depuis le dernier report, en une transaction.
+     *
+     * @return le nombre de produits reportés
+     */
+    @Scheduled(fixedDelayString = "${inventory.ledger.flush-interval:PT1S}",
+            initialDelayString = "${inventory.ledger.flush-interval:PT1S}")
+    public int flush() {
+        if (!enabled) {
+            return 0;
+        }
+        flushLock.lock();
+        try {
+            long segment;
+            Map<Long, Integer> deltas = new HashMap<>();
+            journalLock.writeLock().lock();
+            try {
+                segment = journal.rotate();
+                entries.forEach((id, entry) -> {
+                    int delta = entry.pending.getAndSet(0);
+                    if (delta != 0) {
+                        deltas.put(id, delta);
+                    }
+                });
+            } finally {
+                journalLock.writeLock().unlock();
+            }
+
+            if (!deltas.isEmpty()) {
+                try {
+                    persist(segment, deltas);
+                } catch (RuntimeException e) {
+                    // Les deltas restent à reporter ; le segment fermé est conservé pour la reprise
+                    log.error("Échec du report du registre de stock (segment {}): {}", segment, e.getMessage());
+                    restore(deltas);
+                    return 0;
+                }
+            }
+            journal.deleteThrough(segment);
+            return deltas.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Recale l'entrée d'un produit dont le stock a été écrit hors du registre.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onProductChanged(ProductChangedEvent event) {
+        Long productId = event.product().id();
+        if (!enabled || event.type() == ProductChangeType.STOCK_CHANGED || !entries.containsKey(productId)) {
+            return;
+        }
+        // Aucun report en cours ni mouvement en vol : stock en base + deltas non reportés
+        flushLock.lock();
+        journalLock.writeLock().lock();
+        try {
+            Entry entry = entries.get(productId);
+            Integer stored = event.type() == ProductChangeType.DELETED ? null : productStockRepository.findStock(productId);
+            if (stored == null) {
+                entries.remove(productId);
+            } else if (entry != null) {
+                entry.available.set(stored + entry.pending.get());
+            }
+        } finally {
+            journalLock.writeLock().unlock();
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (enabled && journal != null) {
+            flush();
+            journal.close();
+        }
+    }
+
+    private Entry entry(Long productId) {
+        if (!enabled) {
+            throw new IllegalStateException("Le registre de stock n'est pas activé");
+        }
+        Entry entry = entries.get(productId);
+        if (entry != null) {
+            return entry;
+        }
+        return entries.computeIfAbsent(productId, id -> {
+            Integer stock = productStockRepository.findStock(id);
+            if (stock == null) {
+                throw new ResourceNotFoundException("Produit", id);
+            }
+            return new Entry(stock);
+        });
+    }
+
+    private void record(Long productId, Entry entry, int delta) {
+        journal.append(productId, delta);
+        entry.pending.addAndGet(delta);
+    }
+
+    private void compensateOnRollback(Long productId, int delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK && entries.containsKey(productId)) {
+                    add(productId, delta);
+                }
+            }
+        });
+    }
+
+    private void restore(Map<Long, Integer> deltas) {
+        journalLock.readLock().lock();
+        try {
+            deltas.forEach((id, delta) -> {
+                Entry entry = entries.get(id);
+                if (entry != null) {
+                    entry.pending.addAndGet(delta);
+                }
+            });
+        } finally {
+            journalLock.readLock().unlock();
+        }
+    }
+
+    private void persist(long segment, Map<Long, Integer> deltas) {
+        flushTemplate.executeWithoutResult(status -> {
+            productStockRepository.applyDeltas(deltas);
+            checkpointRepository.save(new StockLedgerCheckpoint(
+                    StockLedgerCheckpoint.SINGLETON_ID, segment, LocalDateTime.now()));
+            for (ProductSnapshot snapshot : productRepository.findSnapshotsByIdIn(deltas.keySet())) {
+                productCache.evict(snapshot.id(), snapshot.sku());
+                eventPublisher.publishEvent(new ProductChangedEvent(ProductChangeType.STOCK_CHANGED, snapshot));
+            }
+        });
+        log.debug("Registre de stock reporté: {} produits (segment {})", deltas.size(), segment);
+    }
+
+    Map<Long, Integer> pendingDeltas() {
+        Map<Long, Integer> pending = new HashMap<>();
+        entries.forEach((id, entry) -> pending.put(id, entry.pending.get()));
+        return Collections.unmodifiableMap(pending);
+    }
+
+    private static final class Entry {
+
+        private final AtomicInteger available;
+        // Delta net non encore reporté en base
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private Entry(int available) {
+            this.available = new AtomicInteger(available);
+        }
+    }
+}
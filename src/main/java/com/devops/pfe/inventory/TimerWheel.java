@@ -0,0 +1,92 @@
+package com.devops.pfe.inventory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Roue temporelle hachée : les échéances sont rangées dans des cases d'une durée
+ * d'un tick, une case recevant les échéances de tous les tours qui y tombent.
+ *
+ * Armer une échéance coûte O(1) ; avancer la roue ne parcourt que les cases
+ * écoulées, quel que soit le nombre d'échéances armées. Une échéance est rendue
+ * au plus un tick après son terme, jamais avant. L'annulation n'est pas gérée :
+ * l'appelant ignore les clés devenues sans objet.
+ */
+public class TimerWheel<K> {
+
+    private final long tickMillis;
+    private final List<List<Timeout<K>>> slots;
+    private final int mask;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param slots nombre de cases, puissance de deux
+     * @param startMillis instant de départ de la roue (epoch, en millisecondes)
+     */
+    public TimerWheel(Duration tick, int slots, long startMillis) {
+        if (tick.toMillis() < 1) {
+            throw new IllegalArgumentException("Le tick doit durer au moins une milliseconde");
+        }
+        if (slots < 1 || Integer.bitCount(slots) != 1) {
+            throw new IllegalArgumentException("Le nombre de cases doit être une puissance de deux");
+        }
+        this.tickMillis = tick.toMillis();
+        this.mask = slots - 1;
+        this.slots = new ArrayList<>(slots);
+        for (int i = 0; i < slots; i++) {
+            this.slots.add(new ArrayList<>());
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Arme une échéance ; un terme déjà passé est rendu à la prochaine avancée.
+     */
+    public synchronized void schedule(K key, long deadlineMillis) {
+        long deadlineTick = Math.max(ceilDiv(deadlineMillis, tickMillis), currentTick + 1);
+        slots.get((int) (deadlineTick & mask)).add(new Timeout<>(key, deadlineTick));
+        size++;
+    }
+
+    /**
+     * Avance la roue jusqu'à {@code nowMillis}.
+     *
+     * @return les clés arrivées à échéance, dans l'ordre des cases parcourues
+     */
+    public synchronized List<K> advance(long nowMillis) {
+        long nowTick = nowMillis / tickMillis;
+        List<K> due = new ArrayList<>();
+        if (nowTick <= currentTick) {
+            return due;
+        }
+        // Au-delà d'un tour complet, chaque case est parcourue une seule fois
+        long last = Math.min(nowTick, currentTick + slots.size());
+        for (long tick = currentTick + 1; tick <= last; tick++) {
+            Iterator<Timeout<K>> timeouts = slots.get((int) (tick & mask)).iterator();
+            while (timeouts.hasNext()) {
+                Timeout<K> timeout = timeouts.next();
+                if (timeout.deadlineTick() <= nowTick) {
+                    due.add(timeout.key());
+                    timeouts.remove();
+                }
+            }
+        }
+        currentTick = nowTick;
+        size -= due.size();
+        return due;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+
+    private record Timeout<K>(K key, long deadlineTick) {
+    }
+}
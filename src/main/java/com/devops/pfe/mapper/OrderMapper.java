@@ -4,8 +4,11 @@ import com.devops.pfe.dto.OrderDTO;
 import com.devops.pfe.dto.OrderItemDTO;
 import com.devops.pfe.entity.Order;
 import com.devops.pfe.entity.OrderItem;
+import com.devops.pfe.repository.OrderItemRow;
+import com.devops.pfe.repository.OrderRow;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -28,6 +31,7 @@ public class OrderMapper {
                 .customerEmail(order.getCustomerEmail())
                 .status(order.getStatus().name())
                 .items(itemDTOs)
+                .version(order.getVersion())
                 .build();
     }
 
@@ -45,4 +49,27 @@ public class OrderMapper {
                 .totalPrice(item.getTotalPrice())
                 .build();
     }
+
+    public OrderDTO toDTO(OrderRow order, List<OrderItemRow> items) {
+        return OrderDTO.builder()
+                .id(order.id())
+                .orderNumber(order.orderNumber())
+                .customerName(order.customerName())
+                .customerEmail(order.customerEmail())
+                .status(order.status().name())
+                .items(items.stream().map(this::toItemDTO).collect(Collectors.toList()))
+                .version(order.version())
+                .build();
+    }
+
+    public OrderItemDTO toItemDTO(OrderItemRow item) {
+        return OrderItemDTO.builder()
+                .id(item.id())
+                .productId(item.productId())
+                .productName(item.productName())
+                .quantity(item.quantity())
+                .unitPrice(item.unitPrice())
+                .totalPrice(item.unitPrice().multiply(BigDecimal.valueOf(item.quantity())))
+                .build();
+    }
 }
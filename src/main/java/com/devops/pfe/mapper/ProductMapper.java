@@ -1,7 +1,14 @@
 package com.devops.pfe.mapper;
 
+import com.devops.pfe.dto.ProductChangeDTO;
 import com.devops.pfe.dto.ProductDTO;
+import com.devops.pfe.dto.ProductFacetsDTO;
+import com.devops.pfe.dto.ProductSuggestionDTO;
 import com.devops.pfe.entity.Product;
+import com.devops.pfe.entity.ProductChange;
+import com.devops.pfe.index.ProductChangeType;
+import com.devops.pfe.index.ProductFacetIndex.FacetCounts;
+import com.devops.pfe.index.ProductSnapshot;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -21,6 +28,72 @@ public class ProductMapper {
                 .category(product.getCategory())
                 .sku(product.getSku())
                 .active(product.getActive())
+                .version(product.getVersion())
+                .build();
+    }
+
+    public ProductDTO toDTO(ProductSnapshot snapshot) {
+        if (snapshot == null) {
+            return null;
+        }
+        
+        return ProductDTO.builder()
+                .id(snapshot.id())
+                .name(snapshot.name())
+                .description(snapshot.description())
+                .price(snapshot.price())
+                .stockQuantity(snapshot.stockQuantity())
+                .category(snapshot.category())
+                .sku(snapshot.sku())
+                .active(snapshot.active())
+                .version(snapshot.version())
+                .build();
+    }
+
+    public ProductSuggestionDTO toSuggestionDTO(ProductSnapshot snapshot) {
+        if (snapshot == null) {
+            return null;
+        }
+        
+        return ProductSuggestionDTO.builder()
+                .id(snapshot.id())
+                .name(snapshot.name())
+                .sku(snapshot.sku())
+                .build();
+    }
+
+    public ProductFacetsDTO toFacetsDTO(FacetCounts counts) {
+        return ProductFacetsDTO.builder()
+                .total(counts.total())
+                .categories(counts.categories())
+                .priceBuckets(counts.priceBuckets())
+                .inStock(counts.inStock())
+                .outOfStock(counts.outOfStock())
+                .build();
+    }
+
+    public ProductChangeDTO toChangeDTO(ProductChange change) {
+        if (change == null) {
+            return null;
+        }
+        
+        ProductDTO product = change.getType() == ProductChangeType.DELETED ? null : ProductDTO.builder()
+                .id(change.getProductId())
+                .name(change.getName())
+                .description(change.getDescription())
+                .price(change.getPrice())
+                .stockQuantity(change.getStockQuantity())
+                .category(change.getCategory())
+                .sku(change.getSku())
+                .active(change.getActive())
+                .version(change.getVersion())
+                .build();
+        return ProductChangeDTO.builder()
+                .sequence(change.getSequence())
+                .type(change.getType().name())
+                .productId(change.getProductId())
+                .changedAt(change.getChangedAt())
+                .product(product)
                 .build();
     }
 
@@ -30,7 +103,6 @@ public class ProductMapper {
         }
         
         return Product.builder()
-                .id(dto.getId())
                 .name(dto.getName())
                 .description(dto.getDescription())
                 .price(dto.getPrice())
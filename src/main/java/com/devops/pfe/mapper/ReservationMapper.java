@@ -0,0 +1,38 @@
+package com.devops.pfe.mapper;
+
+import com.devops.pfe.dto.OrderItemDTO;
+import com.devops.pfe.dto.ReservationDTO;
+import com.devops.pfe.entity.StockReservation;
+import com.devops.pfe.repository.ReservationLine;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Component
+public class ReservationMapper {
+
+    public ReservationDTO toDTO(StockReservation reservation, List<ReservationLine> lines) {
+        if (reservation == null) {
+            return null;
+        }
+        
+        return ReservationDTO.builder()
+                .token(reservation.getToken())
+                .customerName(reservation.getCustomerName())
+                .customerEmail(reservation.getCustomerEmail())
+                .status(reservation.getStatus().name())
+                .expiresAt(reservation.getExpiresAt())
+                .items(lines.stream().map(this::toItemDTO).collect(Collectors.toList()))
+                .orderNumber(reservation.getOrderNumber())
+                .build();
+    }
+
+    public OrderItemDTO toItemDTO(ReservationLine line) {
+        return OrderItemDTO.builder()
+                .productId(line.productId())
+                .productName(line.productName())
+                .quantity(line.quantity())
+                .build();
+    }
+}
@@ -0,0 +1,247 @@
+package com.devops.pfe.notification;
+
+import com.devops.pfe.dto.StockAlertDTO;
+import com.devops.pfe.dto.StockAlertDTO.Direction;
+import com.devops.pfe.index.ProductChangeType;
+import com.devops.pfe.index.ProductChangedEvent;
+import com.devops.pfe.index.ProductIndexer;
+import com.devops.pfe.index.ProductSnapshot;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pousse aux abonnés SSE les franchissements de leur seuil de stock.
+ *
+ * Le franchissement est détecté avant que l'indexeur n'applique le changement
+ * (il détient encore l'état précédent) et n'est envoyé qu'après le commit ; un
+ * rollback n'émet donc rien. Les envois ne bloquent jamais la transaction.
+ *
+ * Chaque abonné a sa file d'alertes, bornée à {@code notifications.stock-alerts.queue-capacity},
+ * vidée par un seul thread à la fois : un client lent ne retarde que lui-même.
+ * Un abonné dont la file déborde, ou dont un envoi dure plus de
+ * {@code notifications.stock-alerts.send-timeout}, est déconnecté : à l'alerte
+ * suivante, ou au plus tard au balayage périodique des envois bloqués.
+ */
+@Component
+@Slf4j
+public class StockAlertNotifier {
+
+    public static final String EVENT_NAME = "stock-alert";
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    private final ProductIndexer productIndexer;
+    private final long sendTimeoutNanos;
+    private final int queueCapacity;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    // Un thread au plus par abonné en cours d'envoi
+    private final ExecutorService senders = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "stock-alerts");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public StockAlertNotifier(ProductIndexer productIndexer,
+                              @Value("${notifications.stock-alerts.send-timeout:PT10S}") Duration sendTimeout,
+                              @Value("${notifications.stock-alerts.queue-capacity:256}") int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("notifications.stock-alerts.queue-capacity doit être au moins 1");
+        }
+        this.productIndexer = productIndexer;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.queueCapacity = queueCapacity;
+    }
+
+    public SseEmitter subscribe(int threshold) {
+        return subscribe(new SseEmitter(EMITTER_TIMEOUT_MS), threshold);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, int threshold) {
+        Subscription subscription = new Subscription(emitter, threshold, queueCapacity);
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(() -> subscriptions.remove(subscription));
+        emitter.onError(e -> subscriptions.remove(subscription));
+        subscriptions.add(subscription);
+        log.debug("Nouvel abonné aux alertes de stock (seuil: {})", threshold);
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (subscriptions.isEmpty() || event.type() == ProductChangeType.DELETED) {
+            return;
+        }
+        ProductSnapshot before = productIndexer.get(event.product().id());
+        ProductSnapshot after = event.product();
+        if (before == null || !before.isActive() || !after.isActive() || before.stock() == after.stock()) {
+            return;
+        }
+
+        List<Runnable> sends = new ArrayList<>();
+        for (Subscription subscription : subscriptions) {
+            Direction direction = crossing(before.stock(), after.stock(), subscription.threshold);
+            if (direction != null) {
+                StockAlertDTO alert = StockAlertDTO.builder()
+                        .productId(after.id())
+                        .name(after.name())
+                        .sku(after.sku())
+                        .previousStock(before.stock())
+                        .stockQuantity(after.stock())
+                        .threshold(subscription.threshold)
+                        .direction(direction)
+                        .build();
+                sends.add(() -> enqueue(subscription, alert));
+            }
+        }
+        if (!sends.isEmpty()) {
+            afterCommit(() -> sends.forEach(Runnable::run));
+        }
+    }
+
+    /**
+     * Déconnecte les abonnés dont l'envoi en cours dépasse le délai, sans attendre une nouvelle alerte.
+     *
+     * @return le nombre d'abonnés déconnectés
+     */
+    @Scheduled(fixedDelayString = "${notifications.stock-alerts.send-timeout:PT10S}",
+            initialDelayString = "${notifications.stock-alerts.send-timeout:PT10S}")
+    public int dropStalled() {
+        long now = System.nanoTime();
+        int dropped = 0;
+        for (Subscription subscription : subscriptions) {
+            if (subscription.stalled(now, sendTimeoutNanos) && drop(subscription, "envoi bloqué depuis plus de "
+                    + Duration.ofNanos(sendTimeoutNanos))) {
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        subscriptions.forEach(subscription -> subscription.emitter.complete());
+    }
+
+    static Direction crossing(int previous, int current, int threshold) {
+        if (previous >= threshold && current < threshold) {
+            return Direction.BELOW;
+        }
+        if (previous < threshold && current >= threshold) {
+            return Direction.RECOVERED;
+        }
+        return null;
+    }
+
+    private void enqueue(Subscription subscription, StockAlertDTO alert) {
+        if (subscription.stalled(System.nanoTime(), sendTimeoutNanos)) {
+            drop(subscription, "envoi bloqué depuis plus de " + Duration.ofNanos(sendTimeoutNanos));
+            return;
+        }
+        if (!subscription.queue.offer(alert)) {
+            drop(subscription, "plus de " + queueCapacity + " alertes en attente");
+            return;
+        }
+        if (subscription.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscription));
+        }
+    }
+
+    private void drain(Subscription subscription) {
+        do {
+            StockAlertDTO alert;
+            while ((alert = subscription.queue.poll()) != null) {
+                if (!send(subscription, alert)) {
+                    return;
+                }
+            }
+            subscription.draining.set(false);
+            // Une alerte ajoutée entre le dernier poll et la remise à false n'a lancé aucun envoi
+        } while (!subscription.queue.isEmpty() && subscription.draining.compareAndSet(false, true));
+    }
+
+    private boolean send(Subscription subscription, StockAlertDTO alert) {
+        subscription.sendingSince = System.nanoTime();
+        try {
+            subscription.emitter.send(SseEmitter.event().name(EVENT_NAME).data(alert));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            drop(subscription, e.getMessage());
+            return false;
+        } finally {
+            subscription.sendingSince = 0;
+        }
+    }
+
+    private boolean drop(Subscription subscription, String reason) {
+        if (!subscriptions.remove(subscription)) {
+            return false;
+        }
+        log.debug("Abonné aux alertes de stock déconnecté: {}", reason);
+        subscription.queue.clear();
+        try {
+            subscription.emitter.complete();
+        } catch (IllegalStateException e) {
+            // Déjà terminé
+        }
+        return true;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static final class Subscription {
+
+        final SseEmitter emitter;
+        final int threshold;
+        final BlockingQueue<StockAlertDTO> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+        // Début de l'envoi en cours (System.nanoTime), 0 hors envoi
+        volatile long sendingSince;
+
+        Subscription(SseEmitter emitter, int threshold, int capacity) {
+            this.emitter = emitter;
+            this.threshold = threshold;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        boolean stalled(long now, long timeoutNanos) {
+            long since = sendingSince;
+            return since != 0 && now - since > timeoutNanos;
+        }
+    }
+}
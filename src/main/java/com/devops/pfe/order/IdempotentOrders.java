@@ -0,0 +1,179 @@
+package com.devops.pfe.order;
+
+import com.devops.pfe.dto.OrderDTO;
+import com.devops.pfe.entity.OrderIdempotencyKey;
+import com.devops.pfe.exception.BusinessException;
+import com.devops.pfe.repository.OrderIdempotencyKeyRepository;
+import com.devops.pfe.service.OrderService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Créations de commande rejouables sous une clé d'idempotence (en-tête {@code Idempotency-Key}).
+ *
+ * La première requête d'une clé exécute la création ; les suivantes reçoivent
+ * la même commande, avec l'en-tête {@code Idempotent-Replayed: true}, sans la
+ * recréer ni toucher au stock. Une clé réutilisée avec un autre contenu est refusée.
+ *
+ * La clé, l'empreinte SHA-256 du corps et l'identifiant de la commande sont
+ * écrits ({@link OrderIdempotencyKey}) dans la transaction qui crée la commande :
+ * un échec n'est pas retenu et le client peut réessayer. Toutes les instances
+ * voient les mêmes clés ; si deux instances créent la même clé en même temps,
+ * la clé primaire fait échouer la seconde insertion, dont la commande est
+ * annulée au profit de la première. Les clés sont purgées après {@code orders.idempotency.ttl}.
+ *
+ * Sur une instance, un doublon arrivé pendant l'exécution attend son résultat,
+ * au plus {@code orders.idempotency.wait}, au lieu de lancer une seconde création ;
+ * seules les créations en cours sont gardées en mémoire.
+ */
+@Component
+@Slf4j
+public class IdempotentOrders {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final ConcurrentMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final OrderIdempotencyKeyRepository keyRepository;
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Duration wait;
+
+    public IdempotentOrders(OrderIdempotencyKeyRepository keyRepository,
+                            OrderService orderService,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${orders.idempotency.ttl:PT24H}") Duration ttl,
+                            @Value("${orders.idempotency.wait:PT30S}") Duration wait) {
+        this.keyRepository = keyRepository;
+        this.orderService = orderService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.wait = wait;
+    }
+
+    /**
+     * @param create création exécutée seulement pour la première requête de la clé,
+     *               dans la transaction qui enregistre la clé
+     */
+    public Result execute(String key, OrderDTO request, Supplier<OrderDTO> create) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " doit contenir entre 1 et " + MAX_KEY_LENGTH + " caractères");
+        }
+        InFlight mine = new InFlight(fingerprint(request), new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            requireSameRequest(key, running.fingerprint(), mine.fingerprint());
+            log.debug("Commande en cours rejouée pour la clé d'idempotence {}", key);
+            return new Result(await(key, running.response()), true);
+        }
+        try {
+            Result result = run(key, mine.fingerprint(), create);
+            mine.response().complete(result.order());
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.response().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${orders.idempotency.purge-interval:PT1H}",
+            initialDelayString = "${orders.idempotency.purge-interval:PT1H}")
+    @Transactional
+    public int purge() {
+        int purged = keyRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+        log.info("{} clés d'idempotence expirées purgées", purged);
+        return purged;
+    }
+
+    private Result run(String key, String fingerprint, Supplier<OrderDTO> create) {
+        try {
+            return transactionTemplate.execute(status -> {
+                OrderIdempotencyKey recorded = keyRepository.findById(key).orElse(null);
+                if (recorded != null) {
+                    return replay(recorded, fingerprint);
+                }
+                OrderDTO created = create.get();
+                keyRepository.insert(key, fingerprint, created.getId(), LocalDateTime.now());
+                return new Result(created, false);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Une autre instance a pris la clé entre-temps : sa commande l'emporte, la nôtre est annulée
+            OrderIdempotencyKey recorded = keyRepository.findById(key).orElseThrow(() -> e);
+            return replay(recorded, fingerprint);
+        }
+    }
+
+    private Result replay(OrderIdempotencyKey recorded, String fingerprint) {
+        requireSameRequest(recorded.getIdempotencyKey(), recorded.getFingerprint(), fingerprint);
+        log.debug("Commande rejouée pour la clé d'idempotence {}", recorded.getIdempotencyKey());
+        return new Result(orderService.getOrderById(recorded.getOrderId()), true);
+    }
+
+    private static void requireSameRequest(String key, String recorded, String fingerprint) {
+        if (!recorded.equals(fingerprint)) {
+            throw new BusinessException("La clé d'idempotence '" + key + "' a déjà servi pour une autre commande",
+                    "IDEMPOTENCY_KEY_REUSED");
+        }
+    }
+
+    private String fingerprint(OrderDTO request) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Empreinte de la commande impossible à calculer", e);
+        }
+    }
+
+    private OrderDTO await(String key, CompletableFuture<OrderDTO> response) {
+        try {
+            return response.get(wait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new CannotAcquireLockException("Commande toujours en cours pour la clé d'idempotence '" + key + "'");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("Attente interrompue pour la clé d'idempotence '" + key + "'");
+        }
+    }
+
+    public record Result(OrderDTO order, boolean replayed) {
+    }
+
+    // Création en cours sur cette instance, attendue par ses doublons
+    private record InFlight(String fingerprint, CompletableFuture<OrderDTO> response) {
+    }
+}
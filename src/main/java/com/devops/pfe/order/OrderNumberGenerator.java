@@ -0,0 +1,13 @@
+package com.devops.pfe.order;
+
+/**
+ * Source des numéros de commande. Un bean déclaré {@code @Primary} remplace
+ * l'implémentation par défaut ({@link SnowflakeOrderNumberGenerator}).
+ */
+public interface OrderNumberGenerator {
+
+    /**
+     * Numéro unique, sans aller-retour en base ; appelable par plusieurs threads.
+     */
+    String next();
+}
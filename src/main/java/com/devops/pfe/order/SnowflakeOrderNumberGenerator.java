@@ -0,0 +1,80 @@
+package com.devops.pfe.order;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Numéros de commande ordonnés dans le temps, à la manière de Snowflake.
+ *
+ * Un identifiant de 63 bits assemble les millisecondes écoulées depuis le
+ * 1er janvier 2024 (41 bits, jusqu'en 2093), le numéro de l'instance
+ * ({@code orders.number.node-id}, 10 bits) et un compteur par milliseconde
+ * (12 bits). Il est écrit en base 32 de Crockford sur 13 caractères fixes,
+ * sans I, L, O ni U : {@code ORD-01HV3K9Q2M7XZ}. L'ordre alphabétique des
+ * numéros suit leur ordre de création, les insertions dans l'index unique se
+ * font en fin d'arbre.
+ *
+ * Le couple (instant, compteur) avance par compare-and-set, sans verrou. Au-delà
+ * de 4096 numéros dans la même milliseconde, ou si l'horloge recule, le
+ * générateur emprunte les millisecondes suivantes au lieu d'attendre : les
+ * numéros restent strictement croissants sur une instance. Deux instances
+ * doivent recevoir des {@code node-id} différents : il n'a pas de valeur par
+ * défaut et le démarrage échoue s'il manque.
+ */
+@Component
+@Slf4j
+public class SnowflakeOrderNumberGenerator implements OrderNumberGenerator {
+
+    static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final int MAX_NODE = (1 << NODE_BITS) - 1;
+    static final int LENGTH = 13;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final long node;
+    // Millisecondes depuis EPOCH décalées de SEQUENCE_BITS, plus le compteur
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeOrderNumberGenerator(@Value("${orders.number.node-id:#{null}}") Integer nodeId) {
+        if (nodeId == null) {
+            throw new IllegalStateException("orders.number.node-id est obligatoire : un numéro distinct (0-" + MAX_NODE + ") par instance");
+        }
+        if (nodeId > MAX_NODE || nodeId < 0) {
+            throw new IllegalArgumentException("orders.number.node-id doit être compris entre 0 et " + MAX_NODE);
+        }
+        this.node = nodeId;
+        log.info("Numéros de commande générés pour l'instance {}", node);
+    }
+
+    @Override
+    public String next() {
+        return "ORD-" + encode(nextId());
+    }
+
+    long nextId() {
+        long floor = (currentTimeMillis() - EPOCH) << SEQUENCE_BITS;
+        long next = state.updateAndGet(previous -> Math.max(previous + 1, floor));
+        return (next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS)
+                | node << SEQUENCE_BITS
+                | next & SEQUENCE_MASK;
+    }
+
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    static String encode(long id) {
+        char[] chars = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,21 @@
+package com.devops.pfe.repository;
+
+import com.devops.pfe.entity.CollectionVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CollectionVersionRepository extends JpaRepository<CollectionVersion, String> {
+
+    @Query("SELECT c.version FROM CollectionVersion c WHERE c.name = :name")
+    Optional<Long> findVersion(@Param("name") String name);
+
+    @Modifying
+    @Query("UPDATE CollectionVersion c SET c.version = c.version + :count WHERE c.name = :name")
+    int increment(@Param("name") String name, @Param("count") long count);
+}
@@ -0,0 +1,25 @@
+package com.devops.pfe.repository;
+
+import com.devops.pfe.entity.OrderIdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface OrderIdempotencyKeyRepository extends JpaRepository<OrderIdempotencyKey, String> {
+
+    // Insertion immédiate, jamais fusionnée avec une ligne existante : une clé déjà prise lève une violation d'unicité
+    @Modifying
+    @Query("INSERT INTO OrderIdempotencyKey (idempotencyKey, fingerprint, orderId, createdAt) "
+            + "VALUES (:key, :fingerprint, :orderId, :createdAt)")
+    int insert(@Param("key") String key, @Param("fingerprint") String fingerprint,
+               @Param("orderId") Long orderId, @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Query("DELETE FROM OrderIdempotencyKey k WHERE k.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
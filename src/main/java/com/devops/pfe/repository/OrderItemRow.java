@@ -0,0 +1,15 @@
+package com.devops.pfe.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Ligne de commande projetée avec le nom du produit, rattachée à sa commande par orderId.
+ */
+public record OrderItemRow(
+        Long orderId,
+        Long id,
+        Long productId,
+        String productName,
+        Integer quantity,
+        BigDecimal unitPrice) {
+}
@@ -14,6 +14,14 @@ import java.util.Optional;
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
+    // Projections des lectures : ni entité managée, ni chargement paresseux des lignes et produits
+    String ROW_PROJECTION = "SELECT new com.devops.pfe.repository.OrderRow(o.id, o.orderNumber, o.customerName, "
+            + "o.customerEmail, o.status, o.version) FROM Order o ";
+
+    // Les lignes d'une liste de commandes sont lues avec le même filtre que les en-têtes, en une requête
+    String ITEM_PROJECTION = "SELECT new com.devops.pfe.repository.OrderItemRow(o.id, i.id, p.id, p.name, "
+            + "i.quantity, i.unitPrice) FROM OrderItem i JOIN i.order o JOIN i.product p ";
+
     Optional<Order> findByOrderNumber(String orderNumber);
 
     List<Order> findByCustomerEmail(String customerEmail);
@@ -26,8 +34,47 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o WHERE o.customerName LIKE %:name%")
     List<Order> findByCustomerNameContaining(@Param("name") String name);
 
+    @Query(ROW_PROJECTION + "WHERE o.id = :id")
+    Optional<OrderRow> findRowById(@Param("id") Long id);
+
+    @Query(ROW_PROJECTION + "WHERE o.orderNumber = :orderNumber")
+    Optional<OrderRow> findRowByOrderNumber(@Param("orderNumber") String orderNumber);
+
+    @Query(ROW_PROJECTION + "ORDER BY o.id")
+    List<OrderRow> findAllRows();
+
+    @Query(ROW_PROJECTION + "WHERE o.customerEmail = :email ORDER BY o.id")
+    List<OrderRow> findRowsByCustomerEmail(@Param("email") String email);
+
+    @Query(ROW_PROJECTION + "WHERE o.status = :status ORDER BY o.id")
+    List<OrderRow> findRowsByStatus(@Param("status") OrderStatus status);
+
+    @Query(ROW_PROJECTION + "WHERE o.createdAt BETWEEN :startDate AND :endDate ORDER BY o.id")
+    List<OrderRow> findRowsByDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
+    @Query(ITEM_PROJECTION + "WHERE o.id = :id ORDER BY i.id")
+    List<OrderItemRow> findItemRowsByOrderId(@Param("id") Long id);
+
+    @Query(ITEM_PROJECTION + "ORDER BY i.id")
+    List<OrderItemRow> findAllItemRows();
+
+    @Query(ITEM_PROJECTION + "WHERE o.customerEmail = :email ORDER BY i.id")
+    List<OrderItemRow> findItemRowsByCustomerEmail(@Param("email") String email);
+
+    @Query(ITEM_PROJECTION + "WHERE o.status = :status ORDER BY i.id")
+    List<OrderItemRow> findItemRowsByStatus(@Param("status") OrderStatus status);
+
+    @Query(ITEM_PROJECTION + "WHERE o.createdAt BETWEEN :startDate AND :endDate ORDER BY i.id")
+    List<OrderItemRow> findItemRowsByDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
     boolean existsByOrderNumber(String orderNumber);
 
+    @Query("SELECT o.version FROM Order o WHERE o.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query("SELECT o.version FROM Order o WHERE o.orderNumber = :orderNumber")
+    Optional<Long> findVersionByOrderNumber(@Param("orderNumber") String orderNumber);
+
     @Query("SELECT COUNT(o) FROM Order o WHERE o.status = :status")
     Long countByStatus(@Param("status") OrderStatus status);
 }
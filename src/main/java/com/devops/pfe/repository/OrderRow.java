@@ -0,0 +1,15 @@
+package com.devops.pfe.repository;
+
+import com.devops.pfe.entity.OrderStatus;
+
+/**
+ * En-tête de commande projeté en lecture seule, sans ses lignes.
+ */
+public record OrderRow(
+        Long id,
+        String orderNumber,
+        String customerName,
+        String customerEmail,
+        OrderStatus status,
+        Long version) {
+}
@@ -0,0 +1,32 @@
+package com.devops.pfe.repository;
+
+import com.devops.pfe.entity.ProductChange;
+import com.devops.pfe.index.ProductChangeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ProductChangeRepository extends JpaRepository<ProductChange, Long> {
+
+    @Query("SELECT c FROM ProductChange c WHERE c.sequence > :since ORDER BY c.sequence")
+    List<ProductChange> findPage(@Param("since") long since, Limit limit);
+
+    /**
+     * Supprime les entrées remplacées par une entrée plus récente du même produit.
+     */
+    @Modifying
+    @Query("DELETE FROM ProductChange c WHERE c.changedAt < :before AND EXISTS ("
+            + "SELECT 1 FROM ProductChange n WHERE n.productId = c.productId AND n.sequence > c.sequence)")
+    int deleteSupersededBefore(@Param("before") LocalDateTime before);
+
+    @Modifying
+    @Query("DELETE FROM ProductChange c WHERE c.type = :type AND c.changedAt < :before")
+    int deleteByTypeBefore(@Param("type") ProductChangeType type, @Param("before") LocalDateTime before);
+}
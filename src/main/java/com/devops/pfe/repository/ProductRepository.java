@@ -1,37 +1,95 @@
 package com.devops.pfe.repository;
 
+import com.devops.pfe.dto.ProductDTO;
 import com.devops.pfe.entity.Product;
+import com.devops.pfe.index.CategoryValuation;
+import com.devops.pfe.index.ProductSnapshot;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
+    // Projection directe en DTO : aucune entité managée n'est hydratée
+    String DTO_PROJECTION = "SELECT new com.devops.pfe.dto.ProductDTO(p.id, p.name, p.description, p.price, "
+            + "p.stockQuantity, p.category, p.sku, p.active, p.version) FROM Product p ";
+
+    String SNAPSHOT_PROJECTION = "SELECT new com.devops.pfe.index.ProductSnapshot(p.id, p.name, p.description, "
+            + "p.price, p.stockQuantity, p.category, p.sku, p.active, p.version) FROM Product p ";
+
+    String LISTING_FILTER = "(:activeOnly = false OR p.active = true) "
+            + "AND (:category IS NULL OR p.category = :category) "
+            + "AND (:threshold IS NULL OR p.stockQuantity < :threshold) ";
+
+    // Résultats en cache de requêtes, invalidés par Hibernate à chaque écriture sur la table products
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Product> findBySku(String sku);
 
-    List<Product> findByCategory(String category);
+    @Query("SELECT DISTINCT p.category FROM Product p WHERE p.active = true")
+    List<String> findAllCategories();
 
-    List<Product> findByActiveTrue();
+    boolean existsBySku(String sku);
 
-    List<Product> findByActiveFalse();
+    @Query(DTO_PROJECTION + "WHERE p.id > :afterId AND " + LISTING_FILTER + "ORDER BY p.id")
+    List<ProductDTO> findListingPage(@Param("afterId") long afterId,
+                                     @Param("activeOnly") boolean activeOnly,
+                                     @Param("category") String category,
+                                     @Param("threshold") Integer threshold,
+                                     Limit limit);
 
-    @Query("SELECT p FROM Product p WHERE p.stockQuantity < :threshold AND p.active = true")
-    List<Product> findLowStockProducts(@Param("threshold") Integer threshold);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(DTO_PROJECTION + "WHERE " + LISTING_FILTER + "ORDER BY p.id")
+    Stream<ProductDTO> streamListing(@Param("activeOnly") boolean activeOnly,
+                                     @Param("category") String category,
+                                     @Param("threshold") Integer threshold);
 
-    @Query("SELECT p FROM Product p WHERE p.price BETWEEN :minPrice AND :maxPrice AND p.active = true")
-    List<Product> findByPriceRange(@Param("minPrice") BigDecimal minPrice, @Param("maxPrice") BigDecimal maxPrice);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SNAPSHOT_PROJECTION + "ORDER BY p.id")
+    Stream<ProductSnapshot> streamSnapshots();
 
-    @Query("SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    List<Product> searchByKeyword(@Param("keyword") String keyword);
+    @Query(DTO_PROJECTION + "ORDER BY p.id")
+    List<ProductDTO> findAllDTOs();
 
-    @Query("SELECT DISTINCT p.category FROM Product p WHERE p.active = true")
-    List<String> findAllCategories();
+    @Query(DTO_PROJECTION + "WHERE p.active = true ORDER BY p.id")
+    List<ProductDTO> findActiveDTOs();
 
-    boolean existsBySku(String sku);
+    @Query(DTO_PROJECTION + "WHERE p.category = :category ORDER BY p.id")
+    List<ProductDTO> findDTOsByCategory(@Param("category") String category);
+
+    @Query(DTO_PROJECTION + "WHERE p.id IN :ids")
+    List<ProductDTO> findDTOsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(DTO_PROJECTION + "WHERE p.sku IN :skus")
+    List<ProductDTO> findDTOsBySkuIn(@Param("skus") Collection<String> skus);
+
+    // Verrous de ligne pris par identifiant croissant : deux commandes concurrentes ne peuvent s'interbloquer
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Product> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Query(SNAPSHOT_PROJECTION + "WHERE p.id = :id")
+    Optional<ProductSnapshot> findSnapshotById(@Param("id") Long id);
+
+    @Query(SNAPSHOT_PROJECTION + "WHERE p.id IN :ids")
+    List<ProductSnapshot> findSnapshotsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SNAPSHOT_PROJECTION + "WHERE p.sku IN :skus")
+    List<ProductSnapshot> findSnapshotsBySkuIn(@Param("skus") Collection<String> skus);
+
+    @Query("SELECT new com.devops.pfe.index.CategoryValuation(p.category, SUM(p.price * p.stockQuantity)) "
+            + "FROM Product p WHERE p.active = true GROUP BY p.category")
+    List<CategoryValuation> sumActiveValueByCategory();
 }
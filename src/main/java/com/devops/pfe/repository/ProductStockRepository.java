@@ -0,0 +1,238 @@
+package com.devops.pfe.repository;
+
+import com.devops.pfe.entity.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mouvements de stock atomiques : une seule instruction UPDATE conditionnelle,
+ * dont le nombre de lignes modifiées indique le succès.
+ *
+ * Pas de lecture préalable ni de verrou tenu pendant un aller-retour applicatif :
+ * deux décréments concurrents ne peuvent ni se perdre ni rendre le stock négatif.
+ * L'UPDATE passe par JDBC plutôt que par une requête JPQL en masse, qui viderait
+ * toute la région de cache de second niveau des produits : seule l'entrée du
+ * produit modifié est évincée, aussitôt puis à la fin de la transaction. Une
+ * instance déjà chargée dans le contexte de persistance est rafraîchie.
+ *
+ * Le stock vendable est {@code stock_quantity - reserved_quantity} : les retraits
+ * n'entament pas les quantités bloquées par les réservations. Poser ou libérer une
+ * réservation ne modifie que {@code reserved_quantity}, sans changer la version
+ * du produit ; seule la conversion retire la quantité du stock.
+ */
+@Repository
+public class ProductStockRepository {
+
+    private static final String DECREMENT_SQL = """
+            UPDATE products SET stock_quantity = stock_quantity - ?, version = version + 1, updated_at = LOCALTIMESTAMP
+            WHERE id = ? AND stock_quantity - reserved_quantity >= ?
+            """;
+
+    private static final String INCREMENT_SQL = """
+            UPDATE products SET stock_quantity = stock_quantity + ?, version = version + 1, updated_at = LOCALTIMESTAMP
+            WHERE id = ?
+            """;
+
+    // Quantité absolue ou delta ; un delta n'est appliqué que s'il laisse les quantités réservées en stock
+    private static final String ADJUST_SQL = """
+            UPDATE products SET stock_quantity = CASE WHEN ? THEN ? ELSE stock_quantity + ? END,
+                version = version + 1, updated_at = LOCALTIMESTAMP
+            WHERE id = ? AND (? OR stock_quantity + ? >= reserved_quantity)
+            """;
+
+    private static final String HOLD_SQL = """
+            UPDATE products SET reserved_quantity = reserved_quantity + ?
+            WHERE id = ? AND stock_quantity - reserved_quantity >= ?
+            """;
+
+    private static final String RELEASE_SQL = """
+            UPDATE products SET reserved_quantity = reserved_quantity - ?
+            WHERE id = ? AND reserved_quantity >= ?
+            """;
+
+    private static final String COMMIT_HELD_SQL = """
+            UPDATE products SET stock_quantity = stock_quantity - ?, reserved_quantity = reserved_quantity - ?,
+                version = version + 1, updated_at = LOCALTIMESTAMP
+            WHERE id = ? AND reserved_quantity >= ?
+            """;
+
+    static final int ADJUST_BATCH_SIZE = 500;
+
+    private static final String STOCK_SQL = "SELECT stock_quantity FROM products WHERE id = ?";
+
+    private static final String AVAILABLE_SQL = "SELECT stock_quantity - reserved_quantity FROM products WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SessionFactory sessionFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ProductStockRepository(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    /**
+     * @return false si le produit n'existe pas ou si son stock est inférieur à la quantité
+     */
+    public boolean decrement(Long id, int quantity) {
+        return update(id, DECREMENT_SQL, quantity, id, quantity);
+    }
+
+    /**
+     * @return false si le produit n'existe pas
+     */
+    public boolean increment(Long id, int quantity) {
+        return update(id, INCREMENT_SQL, quantity, id);
+    }
+
+    /**
+     * Bloque une quantité pour une réservation, sans toucher au stock.
+     *
+     * @return false si le produit n'existe pas ou si son stock vendable est inférieur à la quantité
+     */
+    public boolean hold(Long id, int quantity) {
+        return update(id, HOLD_SQL, quantity, id, quantity);
+    }
+
+    /**
+     * Rend au stock vendable une quantité bloquée.
+     *
+     * @return false si le produit n'existe pas ou ne bloque pas cette quantité
+     */
+    public boolean release(Long id, int quantity) {
+        return update(id, RELEASE_SQL, quantity, id, quantity);
+    }
+
+    /**
+     * Retire du stock une quantité bloquée, à la conversion de sa réservation.
+     *
+     * @return false si le produit n'existe pas ou ne bloque pas cette quantité
+     */
+    public boolean commitHeld(Long id, int quantity) {
+        return update(id, COMMIT_HELD_SQL, quantity, quantity, id, quantity);
+    }
+
+    /**
+     * @return le stock vendable (hors réservations), ou null si le produit n'existe pas
+     */
+    public Integer findAvailable(Long id) {
+        List<Integer> available = jdbcTemplate.queryForList(AVAILABLE_SQL, Integer.class, id);
+        return available.isEmpty() ? null : available.get(0);
+    }
+
+    /**
+     * @return le stock en base, ou null si le produit n'existe pas
+     */
+    public Integer findStock(Long id) {
+        List<Integer> stock = jdbcTemplate.queryForList(STOCK_SQL, Integer.class, id);
+        return stock.isEmpty() ? null : stock.get(0);
+    }
+
+    /**
+     * Applique des deltas nets en un seul lot, sans condition sur le stock.
+     */
+    public void applyDeltas(Map<Long, Integer> deltas) {
+        List<Map.Entry<Long, Integer>> rows = List.copyOf(deltas.entrySet());
+        jdbcTemplate.batchUpdate(INCREMENT_SQL, rows, rows.size(), (statement, row) -> {
+            statement.setInt(1, row.getValue());
+            statement.setLong(2, row.getKey());
+        });
+        Set<Long> ids = Set.copyOf(deltas.keySet());
+        evict(ids);
+        evictAfterCompletion(ids);
+    }
+
+    /**
+     * Applique des ajustements par lots JDBC de {@value #ADJUST_BATCH_SIZE}, dans
+     * l'ordre de la liste : l'appelant les trie pour fixer l'ordre des verrous.
+     *
+     * @return pour chaque ajustement, false si le produit n'existe pas ou si le
+     *         delta rendrait son stock négatif
+     */
+    public boolean[] adjust(List<Adjustment> adjustments) {
+        entityManager.flush();
+        int[][] counts = jdbcTemplate.batchUpdate(ADJUST_SQL, adjustments, ADJUST_BATCH_SIZE, (statement, adjustment) -> {
+            statement.setBoolean(1, adjustment.absolute());
+            statement.setInt(2, adjustment.amount());
+            statement.setInt(3, adjustment.amount());
+            statement.setLong(4, adjustment.productId());
+            statement.setBoolean(5, adjustment.absolute());
+            statement.setInt(6, adjustment.amount());
+        });
+        boolean[] applied = new boolean[adjustments.size()];
+        Set<Long> ids = new HashSet<>();
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                applied[index] = count == 1;
+                if (applied[index]) {
+                    ids.add(adjustments.get(index).productId());
+                }
+                index++;
+            }
+        }
+        evict(ids);
+        ids.forEach(this::refreshIfLoaded);
+        evictAfterCompletion(ids);
+        return applied;
+    }
+
+    private boolean update(Long id, String sql, Object... args) {
+        // Les écritures en attente du contexte de persistance doivent précéder l'UPDATE
+        entityManager.flush();
+        boolean updated = jdbcTemplate.update(sql, args) == 1;
+        if (updated) {
+            evict(Set.of(id));
+            refreshIfLoaded(id);
+            evictAfterCompletion(Set.of(id));
+        }
+        return updated;
+    }
+
+    // getReference rend l'instance gérée si elle existe, sinon un proxy non initialisé, sans requête
+    private void refreshIfLoaded(Long id) {
+        Product loaded = entityManager.getReference(Product.class, id);
+        if (Hibernate.isInitialized(loaded)) {
+            entityManager.refresh(loaded);
+        }
+    }
+
+    private void evict(Collection<Long> ids) {
+        for (Long id : ids) {
+            sessionFactory.getCache().evictEntityData(Product.class, id);
+        }
+    }
+
+    private void evictAfterCompletion(Collection<Long> ids) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                evict(ids);
+            }
+        });
+    }
+
+    /**
+     * @param absolute true si {@code amount} est la nouvelle quantité, false s'il s'agit d'un delta
+     */
+    public record Adjustment(Long productId, int amount, boolean absolute) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.devops.pfe.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Échéance d'une réservation en cours, pour l'armement du balayeur.
+ */
+public record ReservationDeadline(Long id, LocalDateTime expiresAt) {
+}
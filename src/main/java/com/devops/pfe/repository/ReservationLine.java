@@ -0,0 +1,11 @@
+package com.devops.pfe.repository;
+
+/**
+ * Ligne de réservation projetée avec le nom du produit, rattachée à sa réservation par reservationId.
+ */
+public record ReservationLine(
+        Long reservationId,
+        Long productId,
+        String productName,
+        Integer quantity) {
+}
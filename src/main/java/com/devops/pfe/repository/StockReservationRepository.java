@@ -0,0 +1,53 @@
+package com.devops.pfe.repository;
+
+import com.devops.pfe.entity.ReservationStatus;
+import com.devops.pfe.entity.StockReservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    String LINE_PROJECTION = "SELECT new com.devops.pfe.repository.ReservationLine(r.id, p.id, p.name, i.quantity) "
+            + "FROM StockReservationItem i JOIN i.reservation r JOIN i.product p ";
+
+    Optional<StockReservation> findByToken(String token);
+
+    // Verrou de ligne : conversion, libération et expiration d'une même réservation s'excluent
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.token = :token")
+    Optional<StockReservation> findByTokenForUpdate(@Param("token") String token);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.id IN :ids AND r.status = :status AND r.expiresAt <= :now ORDER BY r.id")
+    List<StockReservation> findDueForUpdate(@Param("ids") Collection<Long> ids,
+                                            @Param("status") ReservationStatus status,
+                                            @Param("now") LocalDateTime now);
+
+    @Query("SELECT r.id FROM StockReservation r WHERE r.status = :status AND r.expiresAt <= :now ORDER BY r.expiresAt")
+    List<Long> findDueIds(@Param("status") ReservationStatus status, @Param("now") LocalDateTime now, Pageable pageable);
+
+    @Query("SELECT new com.devops.pfe.repository.ReservationDeadline(r.id, r.expiresAt) FROM StockReservation r "
+            + "WHERE r.status = :status")
+    List<ReservationDeadline> findDeadlines(@Param("status") ReservationStatus status);
+
+    @Query(LINE_PROJECTION + "WHERE r.id IN :ids ORDER BY p.id")
+    List<ReservationLine> findLinesByReservationIds(@Param("ids") Collection<Long> ids);
+
+    @Query(LINE_PROJECTION + "WHERE r.id = :id ORDER BY i.id")
+    List<ReservationLine> findLinesByReservationId(@Param("id") Long id);
+
+    @Query("SELECT COALESCE(SUM(i.quantity), 0) FROM StockReservationItem i "
+            + "WHERE i.product.id = :productId AND i.reservation.status = :status")
+    long sumQuantityByProductAndStatus(@Param("productId") Long productId, @Param("status") ReservationStatus status);
+}
@@ -0,0 +1,45 @@
+package com.devops.pfe.service;
+
+import java.util.Locale;
+
+/**
+ * Formats acceptés pour les échanges en masse.
+ */
+public enum BulkFormat {
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final String mediaType;
+
+    BulkFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+
+    public static BulkFormat fromMediaType(String contentType) {
+        if (contentType != null) {
+            for (BulkFormat format : values()) {
+                if (contentType.toLowerCase(Locale.ROOT).startsWith(format.mediaType)) {
+                    return format;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Format non supporté: " + contentType + " (attendu: text/csv ou application/x-ndjson)");
+    }
+
+    public static BulkFormat fromName(String name) {
+        for (BulkFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Format non supporté: " + name + " (attendu: csv ou ndjson)");
+    }
+
+    public String extension() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
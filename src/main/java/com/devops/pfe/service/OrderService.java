@@ -2,6 +2,8 @@ package com.devops.pfe.service;
 
 import com.devops.pfe.dto.OrderDTO;
 import com.devops.pfe.entity.OrderStatus;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -10,6 +12,8 @@ public interface OrderService {
     
     // CRUD Operations
     OrderDTO createOrder(OrderDTO orderDTO);
+    // Convertit une réservation en cours en commande, sans nouveau mouvement de stock
+    OrderDTO createOrderFromReservation(String token);
     OrderDTO getOrderById(Long id);
     OrderDTO getOrderByNumber(String orderNumber);
     List<OrderDTO> getAllOrders();
@@ -17,7 +21,8 @@ public interface OrderService {
     void cancelOrder(Long id);
     
     // Status Management
-    OrderDTO updateOrderStatus(Long id, OrderStatus status);
+    // expectedVersion : version lue par le client, comparée à celle de la commande
+    OrderDTO updateOrderStatus(Long id, OrderStatus status, Long expectedVersion);
     List<OrderDTO> getOrdersByStatus(OrderStatus status);
     
     // Business Logic
@@ -27,4 +32,12 @@ public interface OrderService {
     
     // Order Validation
     boolean validateOrder(OrderDTO orderDTO);
+
+    // Export en flux, une ligne par article commandé ; le flux de sortie n'est pas fermé
+    long exportOrders(OutputStream output, BulkFormat format) throws IOException;
+
+    // Requêtes conditionnelles (ETag)
+    Long getOrderVersion(Long id);
+    Long getOrderVersionByNumber(String orderNumber);
+    String getOrdersChangeTag();
 }
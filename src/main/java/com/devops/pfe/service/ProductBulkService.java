@@ -0,0 +1,43 @@
+package com.devops.pfe.service;
+
+import com.devops.pfe.dto.ImportReportDTO;
+import com.devops.pfe.dto.StockAdjustmentDTO;
+import com.devops.pfe.dto.StockAdjustmentReportDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Opérations en masse sur le catalogue produits.
+ */
+public interface ProductBulkService {
+
+    /**
+     * Importe un flux de produits, avec création ou mise à jour par SKU.
+     * Le flux est lu au fil de l'eau et écrit par lots, chaque lot dans sa propre transaction.
+     * @param input  Le flux CSV (avec ligne d'en-tête, champs entre guillemets éventuellement
+     *               sur plusieurs lignes) ou NDJSON (un produit JSON par ligne)
+     * @param format Le format du flux
+     * @return Le bilan de l'import, avec le détail des lignes rejetées
+     */
+    ImportReportDTO importProducts(InputStream input, BulkFormat format);
+
+    /**
+     * Ajuste le stock de plusieurs produits, par delta ou quantité absolue, en une transaction.
+     * Une ligne refusée (produit introuvable, stock insuffisant) n'empêche pas les autres.
+     * @param adjustments Les ajustements, identifiés par ID produit ou SKU
+     * @return Le résultat de chaque ligne, dans l'ordre de la requête
+     */
+    StockAdjustmentReportDTO adjustStock(List<StockAdjustmentDTO> adjustments);
+
+    /**
+     * Exporte tout le catalogue, dans un format relisible par {@link #importProducts}.
+     * Les lignes sont lues par curseur et écrites au fil de l'eau, sans être chargées en mémoire.
+     * @param output Le flux de sortie, qui n'est pas fermé
+     * @param format Le format de sortie
+     * @return Le nombre de produits exportés
+     */
+    long exportProducts(OutputStream output, BulkFormat format) throws IOException;
+}
@@ -1,8 +1,19 @@
 package com.devops.pfe.service;
 
+import com.devops.pfe.dto.ChangeFeedDTO;
+import com.devops.pfe.dto.CursorPageDTO;
+import com.devops.pfe.dto.ProductBatchDTO;
 import com.devops.pfe.dto.ProductDTO;
+import com.devops.pfe.dto.ProductFacetsDTO;
+import com.devops.pfe.dto.ProductSuggestionDTO;
+import org.springframework.data.domain.Sort;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface ProductService {
     
@@ -10,24 +21,48 @@ public interface ProductService {
     ProductDTO createProduct(ProductDTO productDTO);
     ProductDTO getProductById(Long id);
     ProductDTO getProductBySku(String sku);
+    ProductBatchDTO getProductsBatch(Collection<Long> ids, Collection<String> skus);
     List<ProductDTO> getAllProducts();
     List<ProductDTO> getActiveProducts();
     ProductDTO updateProduct(Long id, ProductDTO productDTO);
     void deleteProduct(Long id);
     
+    // Listing (pagination keyset et streaming)
+    CursorPageDTO<ProductDTO> getProductsPage(ProductFilter filter, String cursor, int limit);
+    void streamProducts(ProductFilter filter, Consumer<ProductDTO> consumer);
+    
     // Business Logic Operations
     List<ProductDTO> getProductsByCategory(String category);
     List<ProductDTO> searchProducts(String keyword);
+    List<ProductDTO> searchProducts(String keyword, int limit);
+    List<ProductDTO> searchProducts(String keyword, int limit, boolean fuzzy);
+    List<ProductSuggestionDTO> autocomplete(String prefix, int limit);
     List<ProductDTO> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice);
+    List<ProductDTO> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, Sort.Direction direction);
+    List<ProductDTO> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, Sort.Direction direction, int limit);
     List<ProductDTO> getLowStockProducts(Integer threshold);
+    SseEmitter subscribeToStockAlerts(int threshold);
     List<String> getAllCategories();
+    ProductFacetsDTO getFacets(String category, String priceBucket, Boolean inStock);
+    ChangeFeedDTO getChanges(long since, int limit);
     
     // Stock Management
     ProductDTO updateStock(Long id, Integer quantity);
     ProductDTO addStock(Long id, Integer quantity);
     ProductDTO removeStock(Long id, Integer quantity);
+    // Retrait groupé : produits lus et verrouillés en une requête, par identifiant croissant ;
+    // un produit inactif est refusé (PRODUCT_NOT_AVAILABLE) avant tout retrait
+    Map<Long, ProductDTO> removeStock(Map<Long, Integer> quantities);
     boolean checkStockAvailability(Long productId, Integer quantity);
     
+    // Réservations : la quantité bloquée reste en stock mais n'est plus vendable ;
+    // seule la conversion en commande la retire du stock
+    void holdStock(Long id, Integer quantity);
+    void releaseHeldStock(Long id, Integer quantity);
+    void commitHeldStock(Map<Long, Integer> quantities);
+    // Stock vendable : stock moins les quantités bloquées
+    int getAvailableStock(Long id);
+    
     // Product Status
     ProductDTO activateProduct(Long id);
     ProductDTO deactivateProduct(Long id);
@@ -35,4 +70,30 @@ public interface ProductService {
     // Business Calculations
     BigDecimal calculateDiscountedPrice(Long productId, BigDecimal discountPercentage);
     BigDecimal calculateTotalValue();
+    Map<String, BigDecimal> calculateValueByCategory();
+
+    // Requêtes conditionnelles (ETag des collections)
+    String getCatalogChangeTag();
+
+    /**
+     * Critères de listing des produits : tous, actifs, par catégorie ou en stock bas (actifs uniquement).
+     */
+    record ProductFilter(boolean activeOnly, String category, Integer lowStockThreshold) {
+
+        public static ProductFilter all() {
+            return new ProductFilter(false, null, null);
+        }
+
+        public static ProductFilter active() {
+            return new ProductFilter(true, null, null);
+        }
+
+        public static ProductFilter byCategory(String category) {
+            return new ProductFilter(false, category, null);
+        }
+
+        public static ProductFilter lowStock(Integer threshold) {
+            return new ProductFilter(true, null, threshold);
+        }
+    }
 }
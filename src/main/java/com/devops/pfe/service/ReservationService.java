@@ -0,0 +1,41 @@
+package com.devops.pfe.service;
+
+import com.devops.pfe.dto.ReservationDTO;
+import com.devops.pfe.dto.ReservationRequestDTO;
+import com.devops.pfe.dto.StockAvailabilityDTO;
+
+import java.util.Collection;
+
+/**
+ * Réservations de stock à durée limitée, posées avant le passage de commande.
+ * La conversion en commande est portée par {@link OrderService#createOrderFromReservation}.
+ */
+public interface ReservationService {
+
+    /**
+     * Retire les quantités du stock disponible et les bloque jusqu'à l'échéance.
+     * Tous les articles sont réservés, ou aucun.
+     */
+    ReservationDTO createReservation(ReservationRequestDTO request);
+
+    ReservationDTO getReservation(String token);
+
+    /**
+     * Rend au stock les quantités d'une réservation en cours, avant son échéance.
+     */
+    void releaseReservation(String token);
+
+    /**
+     * Expire, parmi {@code ids}, les réservations encore en cours et échues, en une transaction.
+     * @return Le nombre de réservations expirées
+     */
+    int expireReservations(Collection<Long> ids);
+
+    /**
+     * Expire un lot de réservations échues lues en base, quelle que soit l'instance qui les a posées.
+     * @return Le nombre de réservations expirées
+     */
+    int expireOverdue(int limit);
+
+    StockAvailabilityDTO getStockAvailability(Long productId);
+}
@@ -1,28 +1,47 @@
 package com.devops.pfe.service.impl;
 
+import com.devops.pfe.cache.ChangeCounter;
+import com.devops.pfe.concurrency.RetryOnConflict;
 import com.devops.pfe.dto.OrderDTO;
 import com.devops.pfe.dto.OrderItemDTO;
+import com.devops.pfe.dto.ProductDTO;
 import com.devops.pfe.entity.Order;
 import com.devops.pfe.entity.OrderItem;
 import com.devops.pfe.entity.OrderStatus;
-import com.devops.pfe.entity.Product;
+import com.devops.pfe.entity.ReservationStatus;
+import com.devops.pfe.entity.StockReservation;
+import com.devops.pfe.entity.StockReservationItem;
 import com.devops.pfe.exception.BusinessException;
-import com.devops.pfe.exception.InsufficientStockException;
 import com.devops.pfe.exception.ResourceNotFoundException;
+import com.devops.pfe.exception.StaleVersionException;
+import com.devops.pfe.index.ProductSnapshot;
 import com.devops.pfe.mapper.OrderMapper;
+import com.devops.pfe.order.OrderNumberGenerator;
+import com.devops.pfe.repository.OrderItemRow;
 import com.devops.pfe.repository.OrderRepository;
+import com.devops.pfe.repository.OrderRow;
 import com.devops.pfe.repository.ProductRepository;
+import com.devops.pfe.repository.StockReservationRepository;
+import com.devops.pfe.service.BulkFormat;
 import com.devops.pfe.service.OrderService;
 import com.devops.pfe.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -30,91 +49,141 @@ import java.util.UUID;
 @Transactional
 public class OrderServiceImpl implements OrderService {
 
+    private static final String EXPORT_ORDERS_SQL = """
+            SELECT o.order_number, o.status, o.customer_name, o.customer_email, o.created_at,
+                p.sku, i.product_id, i.quantity, i.unit_price
+            FROM orders o
+            JOIN order_items i ON i.order_id = o.id
+            JOIN products p ON p.id = i.product_id
+            ORDER BY o.id, i.id
+            """;
+
+    private static final List<String> ORDER_EXPORT_COLUMNS = List.of(
+            "orderNumber", "status", "customerName", "customerEmail", "createdAt",
+            "sku", "productId", "quantity", "unitPrice");
+
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
+    private final StockReservationRepository reservationRepository;
     private final ProductService productService;
     private final OrderMapper orderMapper;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final StreamingExporter streamingExporter;
+    private final ChangeCounter changeCounter;
 
     @Override
     public OrderDTO createOrder(OrderDTO orderDTO) {
         log.info("Création d'une nouvelle commande pour le client: {}", orderDTO.getCustomerEmail());
         
-        // Valider la commande
-        validateOrder(orderDTO);
+        // Quantités cumulées par produit, validées sans accès à la base
+        Map<Long, Integer> quantities = quantitiesByProduct(orderDTO);
+        
+        // Une requête pour tous les produits, verrouillés par identifiant croissant ; disponibilité et
+        // stock sont vérifiés avant tout décrément, écrit en une fois. InsufficientStockException ou
+        // PRODUCT_NOT_AVAILABLE annule toute la commande.
+        Map<Long, ProductDTO> products = productService.removeStock(quantities);
         
         // Créer l'entité Order
         Order order = Order.builder()
-                .orderNumber(generateOrderNumber())
+                .orderNumber(orderNumberGenerator.next())
                 .customerName(orderDTO.getCustomerName())
                 .customerEmail(orderDTO.getCustomerEmail())
                 .status(OrderStatus.PENDING)
                 .build();
         
-        // Traiter chaque article de la commande
+        // Les produits sont déjà dans le contexte de persistance : getReferenceById ne les relit pas
         for (OrderItemDTO itemDTO : orderDTO.getItems()) {
-            Product product = productRepository.findById(itemDTO.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Produit", itemDTO.getProductId()));
-            
-            // Vérifier la disponibilité du stock
-            if (!productService.checkStockAvailability(product.getId(), itemDTO.getQuantity())) {
-                throw new InsufficientStockException(product.getName(), product.getStockQuantity(), itemDTO.getQuantity());
-            }
-            
-            // Créer l'article de commande
-            OrderItem orderItem = OrderItem.builder()
-                    .product(product)
+            order.addItem(OrderItem.builder()
+                    .product(productRepository.getReferenceById(itemDTO.getProductId()))
                     .quantity(itemDTO.getQuantity())
-                    .unitPrice(product.getPrice())
-                    .build();
-            
-            order.addItem(orderItem);
-            
-            // Décrémenter le stock
-            productService.removeStock(product.getId(), itemDTO.getQuantity());
+                    .unitPrice(products.get(itemDTO.getProductId()).getPrice())
+                    .build());
         }
         
         Order savedOrder = orderRepository.save(order);
+        changeCounter.increment(ChangeCounter.ORDERS);
         log.info("Commande créée avec succès. Numéro: {}", savedOrder.getOrderNumber());
         
         return orderMapper.toDTO(savedOrder);
     }
 
+    @Override
+    public OrderDTO createOrderFromReservation(String token) {
+        log.info("Conversion de la réservation {} en commande", token);
+        
+        // Verrou de la réservation : une expiration ou une libération concurrente attend la fin de la conversion
+        StockReservation reservation = reservationRepository.findByTokenForUpdate(token)
+                .orElseThrow(() -> new ResourceNotFoundException("Réservation", "token", token));
+        if (reservation.getStatus() != ReservationStatus.HELD) {
+            throw new BusinessException("La réservation n'est plus en cours", "RESERVATION_NOT_ACTIVE");
+        }
+        if (reservation.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new BusinessException("La réservation a expiré", "RESERVATION_EXPIRED");
+        }
+        
+        Order order = Order.builder()
+                .orderNumber(orderNumberGenerator.next())
+                .customerName(reservation.getCustomerName())
+                .customerEmail(reservation.getCustomerEmail())
+                .status(OrderStatus.PENDING)
+                .build();
+        
+        // Les quantités bloquées à la pose quittent le stock maintenant, dans la transaction de la commande
+        Map<Long, Integer> held = new TreeMap<>();
+        for (StockReservationItem item : reservation.getItems()) {
+            held.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+            order.addItem(OrderItem.builder()
+                    .product(item.getProduct())
+                    .quantity(item.getQuantity())
+                    .unitPrice(item.getProduct().getPrice())
+                    .build());
+        }
+        productService.commitHeldStock(held);
+        
+        Order savedOrder = orderRepository.save(order);
+        reservation.setStatus(ReservationStatus.CONVERTED);
+        reservation.setOrderNumber(savedOrder.getOrderNumber());
+        changeCounter.increment(ChangeCounter.ORDERS);
+        log.info("Réservation {} convertie en commande {}", token, savedOrder.getOrderNumber());
+        
+        return orderMapper.toDTO(savedOrder);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public OrderDTO getOrderById(Long id) {
         log.debug("Recherche de la commande avec l'ID: {}", id);
-        Order order = findOrderById(id);
-        return orderMapper.toDTO(order);
+        OrderRow order = orderRepository.findRowById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Commande", id));
+        return orderMapper.toDTO(order, orderRepository.findItemRowsByOrderId(id));
     }
 
     @Override
     @Transactional(readOnly = true)
     public OrderDTO getOrderByNumber(String orderNumber) {
         log.debug("Recherche de la commande avec le numéro: {}", orderNumber);
-        Order order = orderRepository.findByOrderNumber(orderNumber)
+        OrderRow order = orderRepository.findRowByOrderNumber(orderNumber)
                 .orElseThrow(() -> new ResourceNotFoundException("Commande", "numéro", orderNumber));
-        return orderMapper.toDTO(order);
+        return orderMapper.toDTO(order, orderRepository.findItemRowsByOrderId(order.id()));
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<OrderDTO> getAllOrders() {
         log.debug("Récupération de toutes les commandes");
-        return orderRepository.findAll().stream()
-                .map(orderMapper::toDTO)
-                .toList();
+        return withItems(orderRepository.findAllRows(), orderRepository.findAllItemRows());
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<OrderDTO> getOrdersByCustomerEmail(String email) {
         log.debug("Recherche des commandes pour le client: {}", email);
-        return orderRepository.findByCustomerEmail(email).stream()
-                .map(orderMapper::toDTO)
-                .toList();
+        return withItems(orderRepository.findRowsByCustomerEmail(email),
+                orderRepository.findItemRowsByCustomerEmail(email));
     }
 
     @Override
+    @RetryOnConflict
     public void cancelOrder(Long id) {
         log.info("Annulation de la commande: {}", id);
         
@@ -129,28 +198,40 @@ public class OrderServiceImpl implements OrderService {
             throw new BusinessException("La commande est déjà annulée", "ORDER_ALREADY_CANCELLED");
         }
         
-        // Remettre le stock pour chaque article
+        // Remettre le stock pour chaque article. Avec les files d'écriture (inventory.lanes.enabled),
+        // chaque remise est validée par sa file avant cette transaction : une annulation en conflit
+        // est compensée après coup par un retrait, qui peut échouer si le stock a été revendu entre-temps
         for (OrderItem item : order.getItems()) {
             productService.addStock(item.getProduct().getId(), item.getQuantity());
         }
         
         order.setStatus(OrderStatus.CANCELLED);
         orderRepository.save(order);
+        changeCounter.increment(ChangeCounter.ORDERS);
         
         log.info("Commande {} annulée avec succès", id);
     }
 
+    // Version lue par le client vérifiée si elle est fournie (412 sans reprise) ; sans elle,
+    // la transition est validée sur la version courante, relue à chaque reprise
     @Override
-    public OrderDTO updateOrderStatus(Long id, OrderStatus status) {
+    @RetryOnConflict
+    public OrderDTO updateOrderStatus(Long id, OrderStatus status, Long expectedVersion) {
         log.info("Mise à jour du statut de la commande {} vers {}", id, status);
         
         Order order = findOrderById(id);
+        if (expectedVersion != null && !expectedVersion.equals(order.getVersion())) {
+            throw new StaleVersionException("Commande", id, expectedVersion, order.getVersion());
+        }
         
         // Valider la transition de statut
         validateStatusTransition(order.getStatus(), status);
         
         order.setStatus(status);
         Order updatedOrder = orderRepository.save(order);
+        // Flush pour renvoyer la version incrémentée
+        orderRepository.flush();
+        changeCounter.increment(ChangeCounter.ORDERS);
         
         log.info("Statut de la commande {} mis à jour vers {}", id, status);
         return orderMapper.toDTO(updatedOrder);
@@ -160,18 +241,15 @@ public class OrderServiceImpl implements OrderService {
     @Transactional(readOnly = true)
     public List<OrderDTO> getOrdersByStatus(OrderStatus status) {
         log.debug("Recherche des commandes avec le statut: {}", status);
-        return orderRepository.findByStatus(status).stream()
-                .map(orderMapper::toDTO)
-                .toList();
+        return withItems(orderRepository.findRowsByStatus(status), orderRepository.findItemRowsByStatus(status));
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<OrderDTO> getOrdersByDateRange(LocalDateTime start, LocalDateTime end) {
         log.debug("Recherche des commandes entre {} et {}", start, end);
-        return orderRepository.findByDateRange(start, end).stream()
-                .map(orderMapper::toDTO)
-                .toList();
+        return withItems(orderRepository.findRowsByDateRange(start, end),
+                orderRepository.findItemRowsByDateRange(start, end));
     }
 
     @Override
@@ -193,12 +271,31 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public boolean validateOrder(OrderDTO orderDTO) {
+        Map<Long, Integer> quantities = quantitiesByProduct(orderDTO);
+        
+        // Vérifier que les produits existent et sont actifs, en une requête
+        Map<Long, ProductSnapshot> products = productRepository.findSnapshotsByIdIn(quantities.keySet()).stream()
+                .collect(Collectors.toMap(ProductSnapshot::id, Function.identity()));
+        for (Long productId : quantities.keySet()) {
+            ProductSnapshot product = products.get(productId);
+            if (product == null) {
+                throw new ResourceNotFoundException("Produit", productId);
+            }
+            if (!product.isActive()) {
+                throw new BusinessException("Le produit '" + product.name() + "' n'est pas disponible", "PRODUCT_NOT_AVAILABLE");
+            }
+        }
+        
+        return true;
+    }
+    
+    private static Map<Long, Integer> quantitiesByProduct(OrderDTO orderDTO) {
         // Vérifier que la commande a au moins un article
         if (orderDTO.getItems() == null || orderDTO.getItems().isEmpty()) {
             throw new BusinessException("La commande doit contenir au moins un article", "ORDER_EMPTY");
         }
         
-        // Vérifier chaque article
+        Map<Long, Integer> quantities = new TreeMap<>();
         for (OrderItemDTO item : orderDTO.getItems()) {
             if (item.getProductId() == null) {
                 throw new BusinessException("L'ID du produit est obligatoire", "PRODUCT_ID_REQUIRED");
@@ -207,26 +304,63 @@ public class OrderServiceImpl implements OrderService {
             if (item.getQuantity() == null || item.getQuantity() < 1) {
                 throw new BusinessException("La quantité doit être au moins 1", "INVALID_QUANTITY");
             }
-            
-            // Vérifier que le produit existe et est actif
-            Product product = productRepository.findById(item.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Produit", item.getProductId()));
-            
-            if (!product.getActive()) {
-                throw new BusinessException("Le produit '" + product.getName() + "' n'est pas disponible", "PRODUCT_NOT_AVAILABLE");
-            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
         }
-        
-        return true;
+        return quantities;
     }
 
-    private Order findOrderById(Long id) {
-        return orderRepository.findById(id)
+    @Override
+    @Transactional(readOnly = true)
+    public Long getOrderVersion(Long id) {
+        return orderRepository.findVersionById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Commande", id));
     }
 
-    private String generateOrderNumber() {
-        return "ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    @Override
+    @Transactional(readOnly = true)
+    public Long getOrderVersionByNumber(String orderNumber) {
+        return orderRepository.findVersionByOrderNumber(orderNumber)
+                .orElseThrow(() -> new ResourceNotFoundException("Commande", "numéro", orderNumber));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public String getOrdersChangeTag() {
+        return changeCounter.tag(ChangeCounter.ORDERS);
+    }
+
+    // Deux requêtes par liste (en-têtes, lignes) au lieu d'un chargement paresseux par commande et par produit
+    private List<OrderDTO> withItems(List<OrderRow> orders, List<OrderItemRow> items) {
+        Map<Long, List<OrderItemRow>> itemsByOrder = new HashMap<>();
+        for (OrderItemRow item : items) {
+            itemsByOrder.computeIfAbsent(item.orderId(), key -> new ArrayList<>()).add(item);
+        }
+        return orders.stream()
+                .map(order -> orderMapper.toDTO(order, itemsByOrder.getOrDefault(order.id(), List.of())))
+                .toList();
+    }
+
+    // Lu par curseur dans la transaction en lecture seule de l'export, hors transaction de service
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long exportOrders(OutputStream output, BulkFormat format) throws IOException {
+        log.info("Export des commandes ({})", format);
+        return streamingExporter.export(EXPORT_ORDERS_SQL, ORDER_EXPORT_COLUMNS, rs -> new Object[] {
+                rs.getString("order_number"),
+                rs.getString("status"),
+                rs.getString("customer_name"),
+                rs.getString("customer_email"),
+                rs.getObject("created_at", LocalDateTime.class),
+                rs.getString("sku"),
+                rs.getLong("product_id"),
+                rs.getInt("quantity"),
+                rs.getBigDecimal("unit_price")
+        }, output, format);
+    }
+
+    private Order findOrderById(Long id) {
+        return orderRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Commande", id));
     }
 
     private void validateStatusTransition(OrderStatus currentStatus, OrderStatus newStatus) {
@@ -0,0 +1,616 @@
+package com.devops.pfe.service.impl;
+
+import com.devops.pfe.cache.ProductCache;
+import com.devops.pfe.dto.ImportReportDTO;
+import com.devops.pfe.dto.ImportReportDTO.RowError;
+import com.devops.pfe.dto.ProductDTO;
+import com.devops.pfe.dto.StockAdjustmentDTO;
+import com.devops.pfe.dto.StockAdjustmentReportDTO;
+import com.devops.pfe.dto.StockAdjustmentReportDTO.LineResult;
+import com.devops.pfe.dto.StockAdjustmentReportDTO.Outcome;
+import com.devops.pfe.entity.Product;
+import com.devops.pfe.index.ProductChangeType;
+import com.devops.pfe.index.ProductChangedEvent;
+import com.devops.pfe.index.ProductIndexer;
+import com.devops.pfe.index.ProductSnapshot;
+import com.devops.pfe.inventory.StockLedger;
+import com.devops.pfe.repository.ProductRepository;
+import com.devops.pfe.repository.ProductStockRepository;
+import com.devops.pfe.repository.ProductStockRepository.Adjustment;
+import com.devops.pfe.service.BulkFormat;
+import com.devops.pfe.service.ProductBulkService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Import en masse par lots JDBC : une instruction MERGE par ligne, envoyée par
+ * lots de {@value #BATCH_SIZE}, sans passer par le contexte de persistance
+ * (l'identité IDENTITY empêche le batching des insertions Hibernate).
+ *
+ * Chaque lot est validé dans sa propre transaction. Si un lot échoue en base,
+ * ses lignes sont rejouées une à une pour isoler les lignes fautives. Les index
+ * en mémoire et le cache sont mis à jour lot par lot.
+ *
+ * L'export passe par {@link StreamingExporter} : la mémoire consommée ne dépend
+ * pas de la taille du catalogue.
+ *
+ * Les ajustements de stock en masse sont appliqués dans une seule transaction,
+ * triés par identifiant produit : deux lots concurrents verrouillent les lignes
+ * dans le même ordre et ne peuvent pas s'interbloquer.
+ */
+@Service
+@Slf4j
+public class ProductBulkServiceImpl implements ProductBulkService {
+
+    static final int BATCH_SIZE = 1000;
+    static final int MAX_REPORTED_ERRORS = 1000;
+    static final int MAX_ADJUSTMENTS = 10_000;
+
+    private static final String UPSERT_SQL = """
+            MERGE INTO products p
+            USING (VALUES (?, ?, ?, ?, ?, ?, ?)) AS s(sku, name, description, price, stock_quantity, category, active)
+            ON p.sku = s.sku
+            WHEN MATCHED THEN UPDATE SET name = s.name, description = s.description, price = s.price,
+                stock_quantity = s.stock_quantity, category = s.category, active = s.active, updated_at = LOCALTIMESTAMP,
+                version = p.version + 1
+            WHEN NOT MATCHED THEN INSERT (sku, name, description, price, stock_quantity, category, active, created_at, updated_at)
+                VALUES (s.sku, s.name, s.description, s.price, s.stock_quantity, s.category, s.active, LOCALTIMESTAMP, LOCALTIMESTAMP)
+            """;
+
+    private static final String EXPORT_PRODUCTS_SQL = """
+            SELECT id, sku, name, description, price, stock_quantity, category, active
+            FROM products ORDER BY id
+            """;
+
+    private static final List<String> PRODUCT_EXPORT_COLUMNS = List.of(
+            "id", "sku", "name", "description", "price", "stockQuantity", "category", "active");
+
+    private static final Set<String> REQUIRED_CSV_COLUMNS = Set.of("sku", "name", "price", "stockquantity", "category");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+    private final ProductStockRepository productStockRepository;
+    private final StockLedger stockLedger;
+    private final ProductCache productCache;
+    private final ProductIndexer productIndexer;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final StreamingExporter streamingExporter;
+    private final TransactionTemplate batchTemplate;
+
+    public ProductBulkServiceImpl(JdbcTemplate jdbcTemplate,
+                                  ProductRepository productRepository,
+                                  ProductStockRepository productStockRepository,
+                                  StockLedger stockLedger,
+                                  ProductCache productCache,
+                                  ProductIndexer productIndexer,
+                                  ApplicationEventPublisher eventPublisher,
+                                  EntityManagerFactory entityManagerFactory,
+                                  ObjectMapper objectMapper,
+                                  Validator validator,
+                                  StreamingExporter streamingExporter,
+                                  PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productRepository = productRepository;
+        this.productStockRepository = productStockRepository;
+        this.stockLedger = stockLedger;
+        this.productCache = productCache;
+        this.productIndexer = productIndexer;
+        this.eventPublisher = eventPublisher;
+        this.entityManagerFactory = entityManagerFactory;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.streamingExporter = streamingExporter;
+        this.batchTemplate = new TransactionTemplate(transactionManager);
+        this.batchTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public ImportReportDTO importProducts(InputStream input, BulkFormat format) {
+        log.info("Import en masse de produits ({})", format);
+        long start = System.currentTimeMillis();
+        ImportProgress progress = new ImportProgress();
+        List<ImportRow> batch = new ArrayList<>(BATCH_SIZE);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            if (format == BulkFormat.CSV) {
+                CsvReader csv = new CsvReader(reader);
+                Map<String, Integer> columns = readCsvHeader(csv);
+                CsvRecord record;
+                while ((record = csv.next()) != null) {
+                    if (record.isBlank()) {
+                        continue;
+                    }
+                    progress.processed++;
+                    append(batch, parseCsvRow(record, columns, progress), progress);
+                }
+            } else {
+                long lineNumber = 0;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    progress.processed++;
+                    append(batch, parseJsonRow(line, lineNumber, progress), progress);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!batch.isEmpty()) {
+            flush(batch, progress);
+        }
+
+        long duration = System.currentTimeMillis() - start;
+        log.info("Import terminé: {} lignes, {} importées, {} rejetées en {} ms",
+                progress.processed, progress.imported, progress.failed, duration);
+        return ImportReportDTO.builder()
+                .processed(progress.processed)
+                .imported(progress.imported)
+                .failed(progress.failed)
+                .durationMs(duration)
+                .errors(progress.errors)
+                .errorsTruncated(progress.failed > progress.errors.size())
+                .build();
+    }
+
+    private void append(List<ImportRow> batch, ImportRow row, ImportProgress progress) {
+        if (row == null) {
+            return;
+        }
+        batch.add(row);
+        if (batch.size() == BATCH_SIZE) {
+            flush(batch, progress);
+            batch.clear();
+        }
+    }
+
+    // ==================== Lecture et validation ====================
+
+    private ImportRow parseJsonRow(String line, long lineNumber, ImportProgress progress) {
+        try {
+            return validate(objectMapper.readValue(line, ProductDTO.class), lineNumber, progress);
+        } catch (JsonProcessingException e) {
+            progress.reject(lineNumber, null, "JSON invalide: " + e.getOriginalMessage());
+            return null;
+        }
+    }
+
+    private ImportRow parseCsvRow(CsvRecord record, Map<String, Integer> columns, ImportProgress progress) {
+        if (record.error() != null) {
+            progress.reject(record.line(), null, record.error());
+            return null;
+        }
+        try {
+            return validate(fromCsv(record.values(), columns), record.line(), progress);
+        } catch (IllegalArgumentException e) {
+            progress.reject(record.line(), null, e.getMessage());
+            return null;
+        }
+    }
+
+    private ImportRow validate(ProductDTO product, long lineNumber, ImportProgress progress) {
+        if (product.getSku() == null || product.getSku().isBlank()) {
+            progress.reject(lineNumber, null, "Le SKU est obligatoire pour l'import");
+            return null;
+        }
+        Set<ConstraintViolation<ProductDTO>> violations = validator.validate(product);
+        if (!violations.isEmpty()) {
+            progress.reject(lineNumber, product.getSku(), violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+            return null;
+        }
+        return new ImportRow(lineNumber, product);
+    }
+
+    private static Map<String, Integer> readCsvHeader(CsvReader reader) throws IOException {
+        CsvRecord header = reader.next();
+        if (header == null) {
+            throw new IllegalArgumentException("Le fichier CSV est vide");
+        }
+        if (header.error() != null) {
+            throw new IllegalArgumentException("En-tête CSV invalide: " + header.error());
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = new ArrayList<>(header.values());
+        if (names.get(0).startsWith("\uFEFF")) {
+            names.set(0, names.get(0).substring(1));
+        }
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.keySet().containsAll(REQUIRED_CSV_COLUMNS)) {
+            throw new IllegalArgumentException("En-tête CSV incomplet, colonnes requises: sku, name, price, stockQuantity, category");
+        }
+        return columns;
+    }
+
+    private static ProductDTO fromCsv(List<String> values, Map<String, Integer> columns) {
+        String price = column(values, columns, "price");
+        String stock = column(values, columns, "stockquantity");
+        String active = column(values, columns, "active");
+        try {
+            return ProductDTO.builder()
+                    .sku(column(values, columns, "sku"))
+                    .name(column(values, columns, "name"))
+                    .description(column(values, columns, "description"))
+                    .price(price == null ? null : new BigDecimal(price))
+                    .stockQuantity(stock == null ? null : Integer.valueOf(stock))
+                    .category(column(values, columns, "category"))
+                    .active(active == null ? null : Boolean.valueOf(active))
+                    .build();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valeur numérique invalide (prix: " + price + ", stock: " + stock + ")");
+        }
+    }
+
+    private static String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Lecteur CSV, un enregistrement à la fois : séparateur virgule, champs entre
+     * guillemets avec "" pour échapper. Un champ entre guillemets peut contenir des
+     * virgules et des retours à la ligne, conservés tels quels ; hors guillemets,
+     * un enregistrement se termine par \n, \r\n ou \r.
+     */
+    static final class CsvReader {
+
+        private final Reader reader;
+        private long nextLine = 1;
+        private int pending = -2;
+
+        CsvReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * @return l'enregistrement suivant, ou null en fin de flux
+         */
+        CsvRecord next() throws IOException {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            long line = nextLine;
+            List<String> values = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            boolean quoted = false;
+            for (; c != -1; c = read()) {
+                if (quoted) {
+                    if (c != '"') {
+                        if (c == '\n') {
+                            nextLine++;
+                        }
+                        current.append((char) c);
+                        continue;
+                    }
+                    int following = read();
+                    if (following == '"') {
+                        current.append('"');
+                    } else {
+                        quoted = false;
+                        pending = following;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(current.toString());
+                    current.setLength(0);
+                } else if (c == '\n' || c == '\r') {
+                    if (c == '\r') {
+                        int following = read();
+                        if (following != '\n') {
+                            pending = following;
+                        }
+                    }
+                    nextLine++;
+                    values.add(current.toString());
+                    return new CsvRecord(line, values, null);
+                } else {
+                    current.append((char) c);
+                }
+            }
+            values.add(current.toString());
+            return new CsvRecord(line, values, quoted ? "Guillemet non fermé" : null);
+        }
+
+        private int read() throws IOException {
+            if (pending != -2) {
+                int c = pending;
+                pending = -2;
+                return c;
+            }
+            return reader.read();
+        }
+    }
+
+    /**
+     * @param line  ligne du flux où commence l'enregistrement
+     * @param error motif de rejet de l'enregistrement, ou null
+     */
+    record CsvRecord(long line, List<String> values, String error) {
+
+        boolean isBlank() {
+            return error == null && values.size() == 1 && values.get(0).isBlank();
+        }
+    }
+
+    // ==================== Écriture par lots ====================
+
+    private void flush(List<ImportRow> batch, ImportProgress progress) {
+        try {
+            evictSecondLevelCache(batchTemplate.execute(status -> write(batch)));
+            progress.imported += batch.size();
+        } catch (DataAccessException e) {
+            log.warn("Échec du lot de {} lignes, reprise ligne à ligne: {}", batch.size(), e.getMessage());
+            for (ImportRow row : batch) {
+                try {
+                    evictSecondLevelCache(batchTemplate.execute(status -> write(List.of(row))));
+                    progress.imported++;
+                } catch (DataAccessException rowError) {
+                    progress.reject(row.line(), row.product().getSku(),
+                            NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+                }
+            }
+        }
+    }
+
+    private List<Long> write(List<ImportRow> rows) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (statement, row) -> {
+            ProductDTO product = row.product();
+            statement.setString(1, product.getSku());
+            statement.setString(2, product.getName());
+            statement.setString(3, product.getDescription());
+            statement.setBigDecimal(4, product.getPrice());
+            statement.setInt(5, product.getStockQuantity());
+            statement.setString(6, product.getCategory());
+            statement.setBoolean(7, !Boolean.FALSE.equals(product.getActive()));
+        });
+
+        // Relecture du lot pour alimenter les index et invalider le cache
+        List<String> skus = rows.stream().map(row -> row.product().getSku()).distinct().toList();
+        List<Long> ids = new ArrayList<>(skus.size());
+        for (ProductSnapshot snapshot : productRepository.findSnapshotsBySkuIn(skus)) {
+            ProductChangeType type = productIndexer.get(snapshot.id()) == null
+                    ? ProductChangeType.CREATED : ProductChangeType.UPDATED;
+            productCache.evict(snapshot.id(), snapshot.sku());
+            eventPublisher.publishEvent(new ProductChangedEvent(type, snapshot));
+            ids.add(snapshot.id());
+        }
+        return ids;
+    }
+
+    // Le MERGE JDBC échappe à Hibernate : entités du lot et requêtes en cache sont invalidées après le commit
+    private void evictSecondLevelCache(List<Long> ids) {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        for (Long id : ids) {
+            sessionFactory.getCache().evictEntityData(Product.class, id);
+        }
+        sessionFactory.getCache().evictDefaultQueryRegion();
+    }
+
+    // ==================== Ajustements de stock ====================
+
+    @Override
+    public StockAdjustmentReportDTO adjustStock(List<StockAdjustmentDTO> adjustments) {
+        if (adjustments.size() > MAX_ADJUSTMENTS) {
+            throw new IllegalArgumentException("Au plus " + MAX_ADJUSTMENTS + " ajustements par requête");
+        }
+        log.info("Ajustement en masse du stock: {} lignes", adjustments.size());
+        long start = System.currentTimeMillis();
+        LineResult[] results = new LineResult[adjustments.size()];
+
+        batchTemplate.executeWithoutResult(status -> {
+            List<PendingAdjustment> pending = resolve(adjustments, results);
+            // Ordre des verrous : identifiant produit, puis ordre de la requête pour un même produit
+            pending.sort(Comparator.comparing((PendingAdjustment line) -> line.adjustment().productId())
+                    .thenComparingInt(PendingAdjustment::index));
+            applyAdjustments(pending, results);
+        });
+
+        long applied = Arrays.stream(results).filter(result -> result.getOutcome() == Outcome.APPLIED).count();
+        long duration = System.currentTimeMillis() - start;
+        log.info("Ajustement terminé: {} lignes, {} appliquées, {} refusées en {} ms",
+                results.length, applied, results.length - applied, duration);
+        return StockAdjustmentReportDTO.builder()
+                .processed(results.length)
+                .applied(applied)
+                .failed(results.length - applied)
+                .durationMs(duration)
+                .results(List.of(results))
+                .build();
+    }
+
+    // Valide les lignes et résout les SKU en identifiants, en deux requêtes pour tout le lot
+    private List<PendingAdjustment> resolve(List<StockAdjustmentDTO> adjustments, LineResult[] results) {
+        List<String> skus = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < adjustments.size(); i++) {
+            StockAdjustmentDTO line = adjustments.get(i);
+            String error = validate(line);
+            if (error != null) {
+                results[i] = new LineResult(i + 1, line.getProductId(), line.getSku(), Outcome.INVALID, null, error);
+            } else if (line.getProductId() != null) {
+                ids.add(line.getProductId());
+            } else {
+                skus.add(line.getSku());
+            }
+        }
+        Map<String, Long> idsBySku = skus.isEmpty() ? Map.of() : productRepository.findSnapshotsBySkuIn(skus).stream()
+                .collect(Collectors.toMap(ProductSnapshot::sku, ProductSnapshot::id));
+        Set<Long> existing = ids.isEmpty() ? Set.of() : productRepository.findSnapshotsByIdIn(ids).stream()
+                .map(ProductSnapshot::id)
+                .collect(Collectors.toSet());
+
+        List<PendingAdjustment> pending = new ArrayList<>();
+        for (int i = 0; i < adjustments.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            StockAdjustmentDTO line = adjustments.get(i);
+            Long productId = line.getProductId() != null
+                    ? (existing.contains(line.getProductId()) ? line.getProductId() : null)
+                    : idsBySku.get(line.getSku());
+            if (productId == null) {
+                results[i] = new LineResult(i + 1, line.getProductId(), line.getSku(), Outcome.NOT_FOUND, null, "Produit introuvable");
+                continue;
+            }
+            boolean absolute = line.getQuantity() != null;
+            pending.add(new PendingAdjustment(i, line.getSku(),
+                    new Adjustment(productId, absolute ? line.getQuantity() : line.getDelta(), absolute)));
+        }
+        return pending;
+    }
+
+    private static String validate(StockAdjustmentDTO line) {
+        if ((line.getProductId() == null) == (line.getSku() == null || line.getSku().isBlank())) {
+            return "Indiquer soit l'ID du produit, soit son SKU";
+        }
+        if ((line.getDelta() == null) == (line.getQuantity() == null)) {
+            return "Indiquer soit un delta, soit une quantité absolue";
+        }
+        if (line.getQuantity() != null && line.getQuantity() < 0) {
+            return "La quantité ne peut pas être négative";
+        }
+        return null;
+    }
+
+    private void applyAdjustments(List<PendingAdjustment> pending, LineResult[] results) {
+        boolean[] applied = stockLedger.isEnabled()
+                ? applyToLedger(pending)
+                : productStockRepository.adjust(pending.stream().map(PendingAdjustment::adjustment).toList());
+
+        // Stock final de chaque produit du lot, relu une fois toutes les lignes appliquées
+        Set<Long> productIds = pending.stream().map(line -> line.adjustment().productId()).collect(Collectors.toSet());
+        Set<Long> changed = new HashSet<>();
+        for (int i = 0; i < applied.length; i++) {
+            if (applied[i]) {
+                changed.add(pending.get(i).adjustment().productId());
+            }
+        }
+        Map<Long, Integer> stock = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            for (ProductSnapshot snapshot : productRepository.findSnapshotsByIdIn(productIds)) {
+                stock.put(snapshot.id(), snapshot.stockQuantity());
+                // Avec le registre, l'événement est publié au report en base
+                if (changed.contains(snapshot.id()) && !stockLedger.isEnabled()) {
+                    productCache.evict(snapshot.id(), snapshot.sku());
+                    eventPublisher.publishEvent(new ProductChangedEvent(ProductChangeType.STOCK_CHANGED, snapshot));
+                }
+            }
+        }
+        if (stockLedger.isEnabled()) {
+            productIds.forEach(id -> stock.put(id, stockLedger.available(id)));
+        }
+
+        for (int i = 0; i < pending.size(); i++) {
+            PendingAdjustment line = pending.get(i);
+            Long productId = line.adjustment().productId();
+            results[line.index()] = applied[i]
+                    ? new LineResult(line.index() + 1, productId, line.sku(), Outcome.APPLIED, stock.get(productId), null)
+                    : new LineResult(line.index() + 1, productId, line.sku(), Outcome.INSUFFICIENT_STOCK, stock.get(productId),
+                            "Stock insuffisant pour un retrait de " + -line.adjustment().amount());
+        }
+    }
+
+    // Chaque mouvement du registre est compensé si la transaction du lot est annulée
+    private boolean[] applyToLedger(List<PendingAdjustment> pending) {
+        boolean[] applied = new boolean[pending.size()];
+        for (int i = 0; i < pending.size(); i++) {
+            Adjustment adjustment = pending.get(i).adjustment();
+            if (adjustment.absolute()) {
+                stockLedger.set(adjustment.productId(), adjustment.amount());
+                applied[i] = true;
+            } else if (adjustment.amount() >= 0) {
+                stockLedger.add(adjustment.productId(), adjustment.amount());
+                applied[i] = true;
+            } else {
+                applied[i] = stockLedger.tryRemove(adjustment.productId(), -adjustment.amount());
+            }
+        }
+        return applied;
+    }
+
+    // ==================== Export ====================
+
+    @Override
+    public long exportProducts(OutputStream output, BulkFormat format) throws IOException {
+        log.info("Export du catalogue produits ({})", format);
+        return streamingExporter.export(EXPORT_PRODUCTS_SQL, PRODUCT_EXPORT_COLUMNS, rs -> new Object[] {
+                rs.getLong("id"),
+                rs.getString("sku"),
+                rs.getString("name"),
+                rs.getString("description"),
+                rs.getBigDecimal("price"),
+                rs.getInt("stock_quantity"),
+                rs.getString("category"),
+                rs.getBoolean("active")
+        }, output, format);
+    }
+
+    private record ImportRow(long line, ProductDTO product) {
+    }
+
+    private record PendingAdjustment(int index, String sku, Adjustment adjustment) {
+    }
+
+    private static final class ImportProgress {
+
+        private long processed;
+        private long imported;
+        private long failed;
+        private final List<RowError> errors = new ArrayList<>();
+
+        void reject(long line, String sku, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(line, sku, message));
+            }
+        }
+    }
+}
@@ -1,21 +1,67 @@
 package com.devops.pfe.service.impl;
 
+import com.devops.pfe.cache.ProductCache;
+import com.devops.pfe.concurrency.RetryOnConflict;
+import com.devops.pfe.dto.ChangeFeedDTO;
+import com.devops.pfe.dto.CursorPageDTO;
+import com.devops.pfe.dto.ProductBatchDTO;
+import com.devops.pfe.dto.ProductChangeDTO;
 import com.devops.pfe.dto.ProductDTO;
+import com.devops.pfe.dto.ProductFacetsDTO;
+import com.devops.pfe.dto.ProductSuggestionDTO;
 import com.devops.pfe.entity.Product;
+import com.devops.pfe.entity.ProductChange;
+import com.devops.pfe.exception.BusinessException;
 import com.devops.pfe.exception.DuplicateResourceException;
 import com.devops.pfe.exception.InsufficientStockException;
 import com.devops.pfe.exception.ResourceNotFoundException;
+import com.devops.pfe.exception.StaleVersionException;
+import com.devops.pfe.feed.ProductChangeLog;
+import com.devops.pfe.index.ProductAutocompleteIndex;
+import com.devops.pfe.index.ProductChangeType;
+import com.devops.pfe.index.ProductChangedEvent;
+import com.devops.pfe.index.ProductFacetIndex;
+import com.devops.pfe.index.ProductIndexer;
+import com.devops.pfe.index.ProductPriceIndex;
+import com.devops.pfe.index.ProductSearchIndex;
+import com.devops.pfe.index.ProductSnapshot;
+import com.devops.pfe.index.ProductStockTracker;
+import com.devops.pfe.index.ProductValuationIndex;
+import com.devops.pfe.inventory.StockLanes;
+import com.devops.pfe.inventory.StockLedger;
 import com.devops.pfe.mapper.ProductMapper;
+import com.devops.pfe.notification.StockAlertNotifier;
 import com.devops.pfe.repository.ProductRepository;
+import com.devops.pfe.repository.ProductStockRepository;
 import com.devops.pfe.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -23,8 +69,27 @@ import java.util.List;
 @Transactional
 public class ProductServiceImpl implements ProductService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int DEFAULT_SEARCH_LIMIT = 50;
+    static final int MAX_BATCH_KEYS = 5000;
+    static final int BATCH_CHUNK_SIZE = 500;
+
     private final ProductRepository productRepository;
+    private final ProductStockRepository productStockRepository;
+    private final StockLedger stockLedger;
+    private final StockLanes stockLanes;
     private final ProductMapper productMapper;
+    private final ProductCache productCache;
+    private final ProductIndexer productIndexer;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductAutocompleteIndex productAutocompleteIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductPriceIndex productPriceIndex;
+    private final ProductStockTracker productStockTracker;
+    private final ProductValuationIndex productValuationIndex;
+    private final StockAlertNotifier stockAlertNotifier;
+    private final ProductChangeLog productChangeLog;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public ProductDTO createProduct(ProductDTO productDTO) {
@@ -37,61 +102,146 @@ public class ProductServiceImpl implements ProductService {
         
         Product product = productMapper.toEntity(productDTO);
         Product savedProduct = productRepository.save(product);
+        publishChange(ProductChangeType.CREATED, savedProduct);
         
         log.info("Produit créé avec succès. ID: {}", savedProduct.getId());
         return productMapper.toDTO(savedProduct);
     }
 
+    // SUPPORTS : un hit de cache n'ouvre ni transaction ni connexion
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public ProductDTO getProductById(Long id) {
         log.debug("Recherche du produit avec l'ID: {}", id);
-        Product product = findProductById(id);
-        return productMapper.toDTO(product);
+        return productCache.getById(id, key -> productMapper.toDTO(findProductById(key)));
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public ProductDTO getProductBySku(String sku) {
         log.debug("Recherche du produit avec le SKU: {}", sku);
-        Product product = productRepository.findBySku(sku)
-                .orElseThrow(() -> new ResourceNotFoundException("Produit", "SKU", sku));
-        return productMapper.toDTO(product);
+        return productCache.getBySku(sku, key -> productMapper.toDTO(productRepository.findBySku(key)
+                .orElseThrow(() -> new ResourceNotFoundException("Produit", "SKU", key))));
+    }
+
+    // Cache d'abord, puis une requête IN par tranche de clés manquantes
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ProductBatchDTO getProductsBatch(Collection<Long> ids, Collection<String> skus) {
+        Set<Long> idKeys = distinctKeys(ids);
+        Set<String> skuKeys = distinctKeys(skus);
+        log.debug("Recherche groupée de {} produits par ID et {} par SKU", idKeys.size(), skuKeys.size());
+        
+        if (idKeys.isEmpty() && skuKeys.isEmpty()) {
+            throw new IllegalArgumentException("Au moins un identifiant ou un SKU est requis");
+        }
+        if (idKeys.size() + skuKeys.size() > MAX_BATCH_KEYS) {
+            throw new IllegalArgumentException("Une recherche groupée est limitée à " + MAX_BATCH_KEYS + " clés");
+        }
+        
+        Map<Long, ProductDTO> byId = lookup(idKeys, productCache::peekById,
+                productRepository::findDTOsByIdIn, ProductDTO::getId);
+        Map<String, ProductDTO> bySku = lookup(skuKeys, productCache::peekBySku,
+                productRepository::findDTOsBySkuIn, ProductDTO::getSku);
+        
+        // Ordre de la requête, un produit demandé par ID et par SKU n'apparaît qu'une fois
+        List<ProductDTO> products = new ArrayList<>(byId.size() + bySku.size());
+        Set<Long> returned = new HashSet<>();
+        List<Long> missingIds = new ArrayList<>();
+        List<String> missingSkus = new ArrayList<>();
+        for (Long id : idKeys) {
+            ProductDTO product = byId.get(id);
+            if (product == null) {
+                missingIds.add(id);
+            } else if (returned.add(product.getId())) {
+                products.add(product);
+            }
+        }
+        for (String sku : skuKeys) {
+            ProductDTO product = bySku.get(sku);
+            if (product == null) {
+                missingSkus.add(sku);
+            } else if (returned.add(product.getId())) {
+                products.add(product);
+            }
+        }
+        return new ProductBatchDTO(products, missingIds, missingSkus);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ProductDTO> getAllProducts() {
         log.debug("Récupération de tous les produits");
-        return productRepository.findAll().stream()
-                .map(productMapper::toDTO)
-                .toList();
+        return productRepository.findAllDTOs();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ProductDTO> getProductsPage(ProductFilter filter, String cursor, int limit) {
+        log.debug("Récupération d'une page de produits {} (curseur: {}, limite: {})", filter, cursor, limit);
+        
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("La limite doit être comprise entre 1 et " + MAX_PAGE_SIZE);
+        }
+        
+        // Une ligne de plus que demandé pour savoir s'il existe une page suivante
+        List<ProductDTO> rows = productRepository.findListingPage(decodeCursor(cursor),
+                filter.activeOnly(), filter.category(), filter.lowStockThreshold(), Limit.of(limit + 1));
+        if (rows.size() <= limit) {
+            return new CursorPageDTO<>(rows, null);
+        }
+        
+        List<ProductDTO> items = List.copyOf(rows.subList(0, limit));
+        return new CursorPageDTO<>(items, encodeCursor(items.get(limit - 1).getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamProducts(ProductFilter filter, Consumer<ProductDTO> consumer) {
+        log.debug("Streaming des produits {}", filter);
+        if (filter.lowStockThreshold() != null && filter.category() == null) {
+            productIndexer.getAll(productStockTracker.below(filter.lowStockThreshold())).stream()
+                    .map(productMapper::toDTO)
+                    .forEach(consumer);
+            return;
+        }
+        try (Stream<ProductDTO> products = productRepository.streamListing(
+                filter.activeOnly(), filter.category(), filter.lowStockThreshold())) {
+            products.forEach(consumer);
+        }
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ProductDTO> getActiveProducts() {
         log.debug("Récupération des produits actifs");
-        return productRepository.findByActiveTrue().stream()
-                .map(productMapper::toDTO)
-                .toList();
+        return productRepository.findActiveDTOs();
     }
 
+    // Version lue par le client vérifiée si elle est fournie (412 sans reprise) ; sans elle,
+    // la mise à jour s'applique à la version courante, relue à chaque reprise
     @Override
+    @RetryOnConflict
     public ProductDTO updateProduct(Long id, ProductDTO productDTO) {
         log.info("Mise à jour du produit avec l'ID: {}", id);
         
         Product existingProduct = findProductById(id);
+        if (productDTO.getVersion() != null && !productDTO.getVersion().equals(existingProduct.getVersion())) {
+            throw new StaleVersionException("Produit", id, productDTO.getVersion(), existingProduct.getVersion());
+        }
         
         // Vérifier si le nouveau SKU n'est pas déjà utilisé par un autre produit
         if (productDTO.getSku() != null && !productDTO.getSku().equals(existingProduct.getSku())) {
             if (productRepository.existsBySku(productDTO.getSku())) {
                 throw new DuplicateResourceException("Produit", "SKU", productDTO.getSku());
             }
+            productCache.evict(id, productDTO.getSku());
         }
         
+        productCache.evict(id, existingProduct.getSku());
         productMapper.updateEntityFromDTO(productDTO, existingProduct);
         Product updatedProduct = productRepository.save(existingProduct);
+        publishChange(ProductChangeType.UPDATED, updatedProduct);
         
         log.info("Produit mis à jour avec succès. ID: {}", id);
         return productMapper.toDTO(updatedProduct);
@@ -102,6 +252,8 @@ public class ProductServiceImpl implements ProductService {
         log.info("Suppression du produit avec l'ID: {}", id);
         Product product = findProductById(id);
         productRepository.delete(product);
+        productCache.evict(id, product.getSku());
+        publishChange(ProductChangeType.DELETED, product);
         log.info("Produit supprimé avec succès. ID: {}", id);
     }
 
@@ -109,46 +261,149 @@ public class ProductServiceImpl implements ProductService {
     @Transactional(readOnly = true)
     public List<ProductDTO> getProductsByCategory(String category) {
         log.debug("Recherche des produits par catégorie: {}", category);
-        return productRepository.findByCategory(category).stream()
-                .map(productMapper::toDTO)
-                .toList();
+        return productRepository.findDTOsByCategory(category);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<ProductDTO> searchProducts(String keyword) {
-        log.debug("Recherche de produits avec le mot-clé: {}", keyword);
-        return productRepository.searchByKeyword(keyword).stream()
+        return searchProducts(keyword, DEFAULT_SEARCH_LIMIT, false);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<ProductDTO> searchProducts(String keyword, int limit) {
+        return searchProducts(keyword, limit, false);
+    }
+
+    // Servie par l'index plein texte en mémoire : aucun accès à la base
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<ProductDTO> searchProducts(String keyword, int limit, boolean fuzzy) {
+        log.debug("Recherche de produits avec le mot-clé: {} (limite: {}, approchée: {})", keyword, limit, fuzzy);
+        
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("La limite doit être comprise entre 1 et " + MAX_PAGE_SIZE);
+        }
+        
+        return productIndexer.getAll(productSearchIndex.search(keyword, limit, fuzzy)).stream()
                 .map(productMapper::toDTO)
                 .toList();
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<ProductSuggestionDTO> autocomplete(String prefix, int limit) {
+        log.debug("Autocomplétion pour le préfixe: {} (limite: {})", prefix, limit);
+        
+        if (limit < 1 || limit > ProductAutocompleteIndex.MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("La limite doit être comprise entre 1 et " + ProductAutocompleteIndex.MAX_SUGGESTIONS);
+        }
+        
+        return productIndexer.getAll(productAutocompleteIndex.suggest(prefix, limit)).stream()
+                .map(productMapper::toSuggestionDTO)
+                .toList();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<ProductDTO> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        log.debug("Recherche des produits entre {} et {}", minPrice, maxPrice);
-        return productRepository.findByPriceRange(minPrice, maxPrice).stream()
+        return getProductsByPriceRange(minPrice, maxPrice, Sort.Direction.ASC);
+    }
+
+    // Toute la fourchette, sans limite : rien n'est tronqué en silence
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<ProductDTO> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, Sort.Direction direction) {
+        log.debug("Recherche des produits entre {} et {} (tri: {})", minPrice, maxPrice, direction);
+        return priceRange(minPrice, maxPrice, direction, Integer.MAX_VALUE);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<ProductDTO> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, Sort.Direction direction, int limit) {
+        log.debug("Recherche des produits entre {} et {} (tri: {}, limite: {})", minPrice, maxPrice, direction, limit);
+        
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("La limite doit être comprise entre 1 et " + MAX_PAGE_SIZE);
+        }
+        return priceRange(minPrice, maxPrice, direction, limit);
+    }
+
+    // Servie par l'index trié des prix : aucun accès à la base
+    private List<ProductDTO> priceRange(BigDecimal minPrice, BigDecimal maxPrice, Sort.Direction direction, int limit) {
+        if (minPrice.signum() < 0 || maxPrice.signum() < 0) {
+            throw new IllegalArgumentException("Les bornes de prix ne peuvent pas être négatives");
+        }
+        
+        List<Long> ids = productPriceIndex.range(minPrice, maxPrice, direction.isDescending(), limit);
+        return productIndexer.getAll(ids).stream()
                 .map(productMapper::toDTO)
                 .toList();
     }
 
+    // Servie par le suivi des stocks en mémoire, trié par quantité croissante
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<ProductDTO> getLowStockProducts(Integer threshold) {
         log.debug("Recherche des produits avec stock bas (seuil: {})", threshold);
-        return productRepository.findLowStockProducts(threshold).stream()
+        return productIndexer.getAll(productStockTracker.below(threshold)).stream()
                 .map(productMapper::toDTO)
                 .toList();
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public SseEmitter subscribeToStockAlerts(int threshold) {
+        log.info("Abonnement aux alertes de stock (seuil: {})", threshold);
+        
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Le seuil doit être positif");
+        }
+        
+        return stockAlertNotifier.subscribe(threshold);
+    }
+
+    // Catégories et facettes servies par le cube de compteurs en mémoire
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<String> getAllCategories() {
         log.debug("Récupération de toutes les catégories");
-        return productRepository.findAllCategories();
+        return productFacetIndex.categories();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ProductFacetsDTO getFacets(String category, String priceBucket, Boolean inStock) {
+        log.debug("Calcul des facettes (catégorie: {}, prix: {}, en stock: {})", category, priceBucket, inStock);
+        return productMapper.toFacetsDTO(productFacetIndex.facets(category, priceBucket, inStock));
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public ChangeFeedDTO getChanges(long since, int limit) {
+        log.debug("Lecture du journal des modifications après la séquence {} (limite: {})", since, limit);
+        
+        if (since < 0) {
+            throw new IllegalArgumentException("La position de départ ne peut pas être négative");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("La limite doit être comprise entre 1 et " + MAX_PAGE_SIZE);
+        }
+        
+        // Une entrée de plus que demandé pour savoir s'il en reste
+        List<ProductChange> rows = productChangeLog.read(since, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        List<ProductChangeDTO> changes = rows.stream()
+                .limit(limit)
+                .map(productMapper::toChangeDTO)
+                .toList();
+        long nextSince = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSequence();
+        return new ChangeFeedDTO(changes, nextSince, hasMore);
+    }
+
+    @Override
+    @RetryOnConflict
     public ProductDTO updateStock(Long id, Integer quantity) {
         log.info("Mise à jour du stock du produit {} à {}", id, quantity);
         
@@ -156,9 +411,16 @@ public class ProductServiceImpl implements ProductService {
             throw new IllegalArgumentException("La quantité ne peut pas être négative");
         }
         
+        if (stockLedger.isEnabled()) {
+            stockLedger.set(id, quantity);
+            return withStock(id, quantity);
+        }
+        
         Product product = findProductById(id);
         product.setStockQuantity(quantity);
+        productCache.evict(id, product.getSku());
         Product updatedProduct = productRepository.save(product);
+        publishChange(ProductChangeType.STOCK_CHANGED, updatedProduct);
         
         log.info("Stock mis à jour avec succès pour le produit {}", id);
         return productMapper.toDTO(updatedProduct);
@@ -172,12 +434,21 @@ public class ProductServiceImpl implements ProductService {
             throw new IllegalArgumentException("La quantité à ajouter doit être positive");
         }
         
-        Product product = findProductById(id);
-        product.setStockQuantity(product.getStockQuantity() + quantity);
-        Product updatedProduct = productRepository.save(product);
+        if (stockLedger.isEnabled()) {
+            return withStock(id, stockLedger.add(id, quantity));
+        }
         
-        log.info("Stock ajouté avec succès. Nouveau stock: {}", updatedProduct.getStockQuantity());
-        return productMapper.toDTO(updatedProduct);
+        if (stockLanes.isEnabled()) {
+            return withStock(id, stockLanes.add(id, quantity));
+        }
+        
+        if (!productStockRepository.increment(id, quantity)) {
+            throw new ResourceNotFoundException("Produit", id);
+        }
+        ProductSnapshot updated = publishStockChange(id);
+        
+        log.info("Stock ajouté avec succès. Nouveau stock: {}", updated.stockQuantity());
+        return productMapper.toDTO(updated);
     }
 
     @Override
@@ -188,42 +459,186 @@ public class ProductServiceImpl implements ProductService {
             throw new IllegalArgumentException("La quantité à retirer doit être positive");
         }
         
-        Product product = findProductById(id);
+        if (stockLedger.isEnabled()) {
+            if (!stockLedger.tryRemove(id, quantity)) {
+                throw new InsufficientStockException(findSnapshotById(id).name(), stockLedger.available(id), quantity);
+            }
+            return withStock(id, stockLedger.available(id));
+        }
         
-        if (product.getStockQuantity() < quantity) {
-            throw new InsufficientStockException(product.getName(), product.getStockQuantity(), quantity);
+        // Écrivain unique par produit : les retraits concurrents sont regroupés en une écriture
+        if (stockLanes.isEnabled()) {
+            return withStock(id, stockLanes.remove(id, quantity));
         }
         
-        product.setStockQuantity(product.getStockQuantity() - quantity);
-        Product updatedProduct = productRepository.save(product);
+        // Décrément conditionnel : la vérification du stock et l'écriture forment une seule instruction
+        if (!productStockRepository.decrement(id, quantity)) {
+            ProductSnapshot current = findSnapshotById(id);
+            throw new InsufficientStockException(current.name(), productStockRepository.findAvailable(id), quantity);
+        }
+        ProductSnapshot updated = publishStockChange(id);
         
-        log.info("Stock retiré avec succès. Nouveau stock: {}", updatedProduct.getStockQuantity());
-        return productMapper.toDTO(updatedProduct);
+        log.info("Stock retiré avec succès. Nouveau stock: {}", updated.stockQuantity());
+        return productMapper.toDTO(updated);
+    }
+
+    @Override
+    public Map<Long, ProductDTO> removeStock(Map<Long, Integer> quantities) {
+        log.info("Retrait groupé du stock de {} produits", quantities.size());
+        
+        if (quantities.values().stream().anyMatch(quantity -> quantity == null || quantity <= 0)) {
+            throw new IllegalArgumentException("La quantité à retirer doit être positive");
+        }
+        
+        Map<Long, ProductDTO> updated = new TreeMap<>();
+        if (stockLedger.isEnabled() || stockLanes.isEnabled()) {
+            // Pas de verrou de ligne : la file d'écriture attendrait la fin de cette transaction.
+            // Les fiches chargées en une requête servent ensuite au contexte de persistance.
+            // Tous les produits sont vérifiés avant le premier retrait, validé par le registre ou la file
+            Map<Long, Product> found = productRepository.findAllById(quantities.keySet()).stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+            for (Long id : new TreeMap<>(quantities).keySet()) {
+                Product product = found.get(id);
+                if (product == null) {
+                    throw new ResourceNotFoundException("Produit", id);
+                }
+                requireActive(product);
+            }
+            new TreeMap<>(quantities).forEach((id, quantity) -> updated.put(id, removeStock(id, quantity)));
+            return updated;
+        }
+        
+        Map<Long, Product> products = productRepository.findAllByIdForUpdate(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity(), (first, second) -> first, TreeMap::new));
+        new TreeMap<>(quantities).forEach((id, quantity) -> {
+            Product product = products.get(id);
+            if (product == null) {
+                throw new ResourceNotFoundException("Produit", id);
+            }
+            requireActive(product);
+            // Lignes verrouillées : vérification et décrément en mémoire, sans autre écrivain possible ;
+            // les quantités réservées restent en stock
+            int available = product.getStockQuantity() - product.getReservedQuantity();
+            if (available < quantity) {
+                throw new InsufficientStockException(product.getName(), available, quantity);
+            }
+            product.setStockQuantity(product.getStockQuantity() - quantity);
+        });
+        
+        // Une seule écriture : les UPDATE partent en un lot JDBC, versions incrémentées
+        productRepository.flush();
+        for (Product product : products.values()) {
+            productCache.evict(product.getId(), product.getSku());
+            eventPublisher.publishEvent(new ProductChangedEvent(ProductChangeType.STOCK_CHANGED, ProductSnapshot.of(product)));
+            updated.put(product.getId(), productMapper.toDTO(product));
+        }
+        return updated;
+    }
+
+    @Override
+    public void holdStock(Long id, Integer quantity) {
+        log.info("Blocage de {} unités du produit {}", quantity, id);
+        
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("La quantité à bloquer doit être positive");
+        }
+        
+        // Le registre fait foi pour le stock : la quantité bloquée lui est retirée, ses reports
+        // groupés compensent une pose et une libération rapprochées
+        if (stockLedger.isEnabled()) {
+            removeStock(id, quantity);
+            return;
+        }
+        
+        if (!productStockRepository.hold(id, quantity)) {
+            ProductSnapshot current = findSnapshotById(id);
+            throw new InsufficientStockException(current.name(), productStockRepository.findAvailable(id), quantity);
+        }
+    }
+
+    @Override
+    public void releaseHeldStock(Long id, Integer quantity) {
+        log.info("Libération de {} unités bloquées du produit {}", quantity, id);
+        
+        if (stockLedger.isEnabled()) {
+            addStock(id, quantity);
+            return;
+        }
+        
+        if (!productStockRepository.release(id, quantity)) {
+            log.warn("Produit {}: moins de {} unités bloquées, libération ignorée", id, quantity);
+        }
+    }
+
+    @Override
+    public void commitHeldStock(Map<Long, Integer> quantities) {
+        log.info("Retrait du stock bloqué de {} produits", quantities.size());
+        
+        // Avec le registre, le stock a été retiré à la pose
+        if (stockLedger.isEnabled()) {
+            return;
+        }
+        
+        new TreeMap<>(quantities).forEach((id, quantity) -> {
+            if (!productStockRepository.commitHeld(id, quantity)) {
+                throw new IllegalStateException("Le produit " + id + " ne bloque pas " + quantity + " unités");
+            }
+            publishStockChange(id);
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public int getAvailableStock(Long id) {
+        if (stockLedger.isEnabled()) {
+            return stockLedger.available(id);
+        }
+        Integer available = productStockRepository.findAvailable(id);
+        if (available == null) {
+            throw new ResourceNotFoundException("Produit", id);
+        }
+        return available;
+    }
+
+    private static void requireActive(Product product) {
+        if (!Boolean.TRUE.equals(product.getActive())) {
+            throw new BusinessException("Le produit '" + product.getName() + "' n'est pas disponible", "PRODUCT_NOT_AVAILABLE");
+        }
     }
 
     @Override
     @Transactional(readOnly = true)
     public boolean checkStockAvailability(Long productId, Integer quantity) {
         log.debug("Vérification de la disponibilité du stock pour le produit {} (quantité: {})", productId, quantity);
+        if (stockLedger.isEnabled()) {
+            return stockLedger.available(productId) >= quantity && Boolean.TRUE.equals(getProductById(productId).getActive());
+        }
         Product product = findProductById(productId);
-        return product.getStockQuantity() >= quantity && product.getActive();
+        return product.getStockQuantity() - product.getReservedQuantity() >= quantity
+                && Boolean.TRUE.equals(product.getActive());
     }
 
     @Override
+    @RetryOnConflict
     public ProductDTO activateProduct(Long id) {
         log.info("Activation du produit {}", id);
         Product product = findProductById(id);
         product.setActive(true);
+        productCache.evict(id, product.getSku());
         Product updatedProduct = productRepository.save(product);
+        publishChange(ProductChangeType.ACTIVATION_CHANGED, updatedProduct);
         return productMapper.toDTO(updatedProduct);
     }
 
     @Override
+    @RetryOnConflict
     public ProductDTO deactivateProduct(Long id) {
         log.info("Désactivation du produit {}", id);
         Product product = findProductById(id);
         product.setActive(false);
+        productCache.evict(id, product.getSku());
         Product updatedProduct = productRepository.save(product);
+        publishChange(ProductChangeType.ACTIVATION_CHANGED, updatedProduct);
         return productMapper.toDTO(updatedProduct);
     }
 
@@ -242,17 +657,108 @@ public class ProductServiceImpl implements ProductService {
         return product.getPrice().multiply(discountMultiplier).setScale(2, RoundingMode.HALF_UP);
     }
 
+    // Agrégats tenus à jour à chaque mutation, réconciliés périodiquement avec la base
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public BigDecimal calculateTotalValue() {
         log.debug("Calcul de la valeur totale du stock");
-        return productRepository.findByActiveTrue().stream()
-                .map(p -> p.getPrice().multiply(BigDecimal.valueOf(p.getStockQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return productValuationIndex.total();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Map<String, BigDecimal> calculateValueByCategory() {
+        log.debug("Calcul de la valeur du stock par catégorie");
+        return productValuationIndex.byCategory();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public String getCatalogChangeTag() {
+        return productIndexer.changeTag();
     }
 
     private Product findProductById(Long id) {
         return productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Produit", id));
     }
+
+    private ProductSnapshot findSnapshotById(Long id) {
+        return productRepository.findSnapshotById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Produit", id));
+    }
+
+    // Relecture de la ligne après un UPDATE conditionnel, pour le cache et les index
+    private ProductSnapshot publishStockChange(Long id) {
+        ProductSnapshot updated = findSnapshotById(id);
+        productCache.evict(id, updated.sku());
+        eventPublisher.publishEvent(new ProductChangedEvent(ProductChangeType.STOCK_CHANGED, updated));
+        return updated;
+    }
+
+    // Le registre ou la file fait foi pour le stock ; le reste de la fiche vient du cache
+    private ProductDTO withStock(Long id, int stock) {
+        return getProductById(id).toBuilder().stockQuantity(stock).build();
+    }
+
+    private <K> Map<K, ProductDTO> lookup(Set<K> keys,
+                                          Function<K, ProductDTO> cached,
+                                          Function<Collection<K>, List<ProductDTO>> loader,
+                                          Function<ProductDTO, K> keyOf) {
+        Map<K, ProductDTO> found = new HashMap<>();
+        // Relevé avant le chargement : une invalidation concurrente empêche la mise en cache
+        Map<K, Long> misses = new LinkedHashMap<>();
+        for (K key : keys) {
+            ProductDTO product = cached.apply(key);
+            if (product != null) {
+                found.put(key, product);
+            } else {
+                misses.put(key, productCache.evictionStamp(key));
+            }
+        }
+        List<K> missing = List.copyOf(misses.keySet());
+        for (int from = 0; from < missing.size(); from += BATCH_CHUNK_SIZE) {
+            List<K> chunk = missing.subList(from, Math.min(from + BATCH_CHUNK_SIZE, missing.size()));
+            for (ProductDTO product : loader.apply(chunk)) {
+                K key = keyOf.apply(product);
+                productCache.put(product, key, misses.getOrDefault(key, -1L));
+                found.put(key, product);
+            }
+        }
+        return found;
+    }
+
+    private static <K> Set<K> distinctKeys(Collection<K> keys) {
+        Set<K> distinct = new LinkedHashSet<>();
+        if (keys != null) {
+            for (K key : keys) {
+                if (key != null && !(key instanceof String text && text.isBlank())) {
+                    distinct.add(key);
+                }
+            }
+        }
+        return distinct;
+    }
+
+    private void publishChange(ProductChangeType type, Product product) {
+        // L'instantané publié doit porter la version incrémentée à l'écriture
+        productRepository.flush();
+        eventPublisher.publishEvent(new ProductChangedEvent(type, ProductSnapshot.of(product)));
+    }
+
+    private static String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide: " + cursor);
+        }
+    }
 }
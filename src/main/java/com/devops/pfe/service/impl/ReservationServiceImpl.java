@@ -0,0 +1,190 @@
+package com.devops.pfe.service.impl;
+
+import com.devops.pfe.dto.OrderItemDTO;
+import com.devops.pfe.dto.ReservationDTO;
+import com.devops.pfe.dto.ReservationRequestDTO;
+import com.devops.pfe.dto.StockAvailabilityDTO;
+import com.devops.pfe.entity.Product;
+import com.devops.pfe.entity.ReservationStatus;
+import com.devops.pfe.entity.StockReservation;
+import com.devops.pfe.entity.StockReservationItem;
+import com.devops.pfe.exception.BusinessException;
+import com.devops.pfe.exception.ResourceNotFoundException;
+import com.devops.pfe.inventory.ReservationHeldEvent;
+import com.devops.pfe.mapper.ReservationMapper;
+import com.devops.pfe.repository.ProductRepository;
+import com.devops.pfe.repository.ReservationLine;
+import com.devops.pfe.repository.StockReservationRepository;
+import com.devops.pfe.service.ProductService;
+import com.devops.pfe.service.ReservationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+@Transactional
+public class ReservationServiceImpl implements ReservationService {
+
+    private final StockReservationRepository reservationRepository;
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final ReservationMapper reservationMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+
+    public ReservationServiceImpl(StockReservationRepository reservationRepository,
+                                  ProductRepository productRepository,
+                                  ProductService productService,
+                                  ReservationMapper reservationMapper,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${reservations.default-ttl:PT15M}") Duration defaultTtl,
+                                  @Value("${reservations.max-ttl:PT1H}") Duration maxTtl) {
+        this.reservationRepository = reservationRepository;
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.reservationMapper = reservationMapper;
+        this.eventPublisher = eventPublisher;
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+    }
+
+    @Override
+    public ReservationDTO createReservation(ReservationRequestDTO request) {
+        log.info("Pose d'une réservation pour le client: {}", request.getCustomerEmail());
+
+        Duration ttl = request.getTtlSeconds() == null ? defaultTtl : Duration.ofSeconds(request.getTtlSeconds());
+        if (ttl.isNegative() || ttl.isZero() || ttl.compareTo(maxTtl) > 0) {
+            throw new IllegalArgumentException("La durée de validité doit être comprise entre 1 et "
+                    + maxTtl.toSeconds() + " secondes");
+        }
+
+        // Quantités cumulées par produit, par identifiant croissant : deux réservations
+        // concurrentes verrouillent les lignes produits dans le même ordre
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (OrderItemDTO item : request.getItems()) {
+            if (item.getProductId() == null) {
+                throw new BusinessException("L'ID du produit est obligatoire", "PRODUCT_ID_REQUIRED");
+            }
+            if (item.getQuantity() == null || item.getQuantity() < 1) {
+                throw new BusinessException("La quantité doit être au moins 1", "INVALID_QUANTITY");
+            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+
+        Map<Long, Product> products = productRepository.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        StockReservation reservation = StockReservation.builder()
+                .token(generateToken())
+                .customerName(request.getCustomerName())
+                .customerEmail(request.getCustomerEmail())
+                .status(ReservationStatus.HELD)
+                .expiresAt(LocalDateTime.now().plus(ttl))
+                .build();
+        quantities.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            if (product == null) {
+                throw new ResourceNotFoundException("Produit", productId);
+            }
+            if (!Boolean.TRUE.equals(product.getActive())) {
+                throw new BusinessException("Le produit '" + product.getName() + "' n'est pas disponible", "PRODUCT_NOT_AVAILABLE");
+            }
+            reservation.addItem(StockReservationItem.builder().product(product).quantity(quantity).build());
+            // Blocage conditionnel, stock inchangé : un article en rupture annule toute la réservation
+            productService.holdStock(productId, quantity);
+        });
+
+        StockReservation saved = reservationRepository.save(reservation);
+        eventPublisher.publishEvent(new ReservationHeldEvent(saved.getId(), saved.getExpiresAt()));
+        log.info("Réservation {} posée jusqu'au {}", saved.getToken(), saved.getExpiresAt());
+
+        List<ReservationLine> lines = saved.getItems().stream()
+                .map(item -> new ReservationLine(saved.getId(), item.getProduct().getId(),
+                        item.getProduct().getName(), item.getQuantity()))
+                .toList();
+        return reservationMapper.toDTO(saved, lines);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ReservationDTO getReservation(String token) {
+        log.debug("Recherche de la réservation: {}", token);
+        StockReservation reservation = reservationRepository.findByToken(token)
+                .orElseThrow(() -> new ResourceNotFoundException("Réservation", "token", token));
+        return reservationMapper.toDTO(reservation, reservationRepository.findLinesByReservationId(reservation.getId()));
+    }
+
+    @Override
+    public void releaseReservation(String token) {
+        log.info("Libération de la réservation: {}", token);
+
+        StockReservation reservation = reservationRepository.findByTokenForUpdate(token)
+                .orElseThrow(() -> new ResourceNotFoundException("Réservation", "token", token));
+        if (reservation.getStatus() != ReservationStatus.HELD) {
+            throw new BusinessException("La réservation n'est plus en cours", "RESERVATION_NOT_ACTIVE");
+        }
+
+        restock(List.of(reservation.getId()));
+        reservation.setStatus(ReservationStatus.RELEASED);
+    }
+
+    @Override
+    public int expireReservations(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        // Les réservations converties ou libérées entre-temps sont écartées sous verrou
+        List<StockReservation> due = reservationRepository.findDueForUpdate(ids, ReservationStatus.HELD, LocalDateTime.now());
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        restock(due.stream().map(StockReservation::getId).toList());
+        due.forEach(reservation -> reservation.setStatus(ReservationStatus.EXPIRED));
+
+        log.info("{} réservations expirées", due.size());
+        return due.size();
+    }
+
+    @Override
+    public int expireOverdue(int limit) {
+        List<Long> ids = reservationRepository.findDueIds(ReservationStatus.HELD, LocalDateTime.now(), PageRequest.of(0, limit));
+        return expireReservations(ids);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public StockAvailabilityDTO getStockAvailability(Long productId) {
+        log.debug("Disponibilité du stock du produit {}", productId);
+        int available = productService.getAvailableStock(productId);
+        long reserved = reservationRepository.sumQuantityByProductAndStatus(productId, ReservationStatus.HELD);
+        return new StockAvailabilityDTO(productId, available, reserved);
+    }
+
+    // Une libération par produit, quel que soit le nombre de réservations, par identifiant croissant
+    private void restock(Collection<Long> reservationIds) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (ReservationLine line : reservationRepository.findLinesByReservationIds(reservationIds)) {
+            quantities.merge(line.productId(), line.quantity(), Integer::sum);
+        }
+        quantities.forEach(productService::releaseHeldStock);
+    }
+
+    private String generateToken() {
+        return "RSV-" + UUID.randomUUID().toString().toUpperCase();
+    }
+}
@@ -0,0 +1,153 @@
+package com.devops.pfe.service.impl;
+
+import com.devops.pfe.service.BulkFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Export en flux d'une requête SQL, en CSV ou NDJSON, partagé par les services produit et commande.
+ *
+ * La base est lue par un curseur en avant seulement, {@value #EXPORT_FETCH_SIZE}
+ * lignes à la fois, et chaque ligne est écrite dès sa lecture : la mémoire
+ * consommée ne dépend pas du volume exporté.
+ */
+@Component
+@Slf4j
+class StreamingExporter {
+
+    static final int EXPORT_FETCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate exportTemplate;
+
+    StreamingExporter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        // Certains pilotes (PostgreSQL) ne respectent la taille de lot du curseur qu'hors auto-commit
+        this.exportTemplate = new TransactionTemplate(transactionManager);
+        this.exportTemplate.setReadOnly(true);
+    }
+
+    /**
+     * @param columns noms des colonnes (en-tête CSV, clés NDJSON), dans l'ordre des valeurs extraites
+     * @param output  flux de sortie, qui n'est pas fermé
+     * @return le nombre de lignes exportées
+     */
+    long export(String sql, List<String> columns, RowExtractor extractor,
+                        OutputStream output, BulkFormat format) throws IOException {
+        long start = System.currentTimeMillis();
+        ExportWriter writer = new ExportWriter(output, format, columns);
+        long[] count = {0};
+        try {
+            exportTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(EXPORT_FETCH_SIZE);
+                return statement;
+            }, (RowCallbackHandler) rs -> {
+                try {
+                    writer.write(extractor.extract(rs));
+                    if (++count[0] % EXPORT_FETCH_SIZE == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            // Client déconnecté en cours d'export : le curseur est déjà refermé
+            throw e.getCause();
+        }
+        writer.flush();
+        log.info("Export terminé: {} lignes en {} ms", count[0], System.currentTimeMillis() - start);
+        return count[0];
+    }
+
+    /**
+     * Formate CSV (valeurs entre guillemets si nécessaire) ou NDJSON (un objet par ligne).
+     * Le flux de sortie n'est jamais fermé.
+     */
+    private final class ExportWriter {
+
+        private final List<String> columns;
+        private final Writer writer;
+        private final JsonGenerator generator;
+
+        ExportWriter(OutputStream output, BulkFormat format, List<String> columns) throws IOException {
+            this.columns = columns;
+            this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            if (format == BulkFormat.CSV) {
+                this.generator = null;
+                writer.write(String.join(",", columns));
+                writer.write('\n');
+            } else {
+                this.generator = objectMapper.createGenerator(writer)
+                        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                this.generator.setRootValueSeparator(null);
+            }
+        }
+
+        void write(Object[] values) throws IOException {
+            if (generator != null) {
+                generator.writeStartObject();
+                for (int i = 0; i < values.length; i++) {
+                    generator.writeObjectField(columns.get(i), values[i]);
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                return;
+            }
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(csvValue(values[i]));
+            }
+            writer.write('\n');
+        }
+
+        void flush() throws IOException {
+            if (generator != null) {
+                generator.flush();
+            } else {
+                writer.flush();
+            }
+        }
+    }
+
+    static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    @FunctionalInterface
+    interface RowExtractor {
+        Object[] extract(ResultSet rs) throws SQLException;
+    }
+}
@@ -0,0 +1,164 @@
+package com.devops.pfe.benchmark;
+
+import com.devops.pfe.entity.Order;
+import com.devops.pfe.entity.OrderItem;
+import com.devops.pfe.entity.OrderStatus;
+import com.devops.pfe.entity.Product;
+import com.devops.pfe.index.ProductIndexer;
+import com.devops.pfe.mapper.OrderMapper;
+import com.devops.pfe.mapper.ProductMapper;
+import com.devops.pfe.repository.OrderRepository;
+import com.devops.pfe.repository.ProductRepository;
+import com.devops.pfe.service.OrderService;
+import com.devops.pfe.service.ProductService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compare les lectures par entités managées + mapper aux projections DTO.
+ *
+ * Hors de la suite par défaut : lancer avec {@code mvn test -Pbenchmark}.
+ * Mesure par opération le temps moyen et les octets alloués par le thread courant.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DisplayName("Read path benchmark")
+class ReadPathBenchmark {
+
+    private static final int PRODUCTS = 2_000;
+    private static final int ORDERS = 1_000;
+    private static final int ITEMS_PER_ORDER = 3;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private ProductIndexer productIndexer;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnly;
+
+    @BeforeAll
+    void seed() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(Product.builder()
+                    .name("Produit " + i)
+                    .description("Description du produit " + i)
+                    .price(new BigDecimal(10 + i % 500))
+                    .stockQuantity(1_000)
+                    .category("Catégorie " + i % 20)
+                    .sku("BENCH-" + i)
+                    .active(true)
+                    .build());
+        }
+        products = productRepository.saveAll(products);
+
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = Order.builder()
+                    .orderNumber("BENCH-ORD-" + i)
+                    .customerName("Client " + i)
+                    .customerEmail("client" + i % 100 + "@example.com")
+                    .status(OrderStatus.PENDING)
+                    .build();
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                Product product = products.get((i * ITEMS_PER_ORDER + j) % PRODUCTS);
+                order.addItem(OrderItem.builder().product(product).quantity(1 + j).unitPrice(product.getPrice()).build());
+            }
+            orders.add(order);
+        }
+        orderRepository.saveAll(orders);
+        productIndexer.rebuild();
+    }
+
+    @AfterAll
+    void cleanUp() {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        productIndexer.rebuild();
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/products: entity hydration vs DTO projection")
+    void products() {
+        Result entities = measure("products/entities", () -> readOnly.execute(status ->
+                productRepository.findAll().stream().map(productMapper::toDTO).toList()));
+        Result projection = measure("products/projection", productService::getAllProducts);
+
+        assertThat(projection.bytesPerOp()).isLessThan(entities.bytesPerOp());
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/orders: entity hydration vs DTO projection")
+    void orders() {
+        Result entities = measure("orders/entities", () -> readOnly.execute(status ->
+                orderRepository.findAll().stream().map(orderMapper::toDTO).toList()));
+        Result projection = measure("orders/projection", orderService::getAllOrders);
+
+        assertThat(projection.bytesPerOp()).isLessThan(entities.bytesPerOp());
+        assertThat(projection.nanosPerOp()).isLessThan(entities.nanosPerOp());
+    }
+
+    private Result measure(String name, Supplier<? extends List<?>> operation) {
+        for (int i = 0; i < WARMUP; i++) {
+            operation.get();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long bytesBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        int rows = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            rows = operation.get().size();
+        }
+        long nanos = (System.nanoTime() - start) / ITERATIONS;
+        long bytes = (threads.getThreadAllocatedBytes(thread) - bytesBefore) / ITERATIONS;
+
+        Result result = new Result(nanos, bytes);
+        System.out.printf("%-22s %6d lignes %10.2f ms/op %12d o/op%n", name, rows, nanos / 1e6, bytes);
+        return result;
+    }
+
+    private record Result(long nanosPerOp, long bytesPerOp) {
+    }
+}
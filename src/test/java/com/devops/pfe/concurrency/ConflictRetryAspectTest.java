@@ -0,0 +1,104 @@
+package com.devops.pfe.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ConflictRetryAspect Tests")
+class ConflictRetryAspectTest {
+
+    private static final String OPERATION = "ConflictingService.update";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ConflictingService target;
+    private ConflictingService proxy;
+
+    @BeforeEach
+    void setUp() {
+        target = new ConflictingService();
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new ConflictRetryAspect(3, Duration.ofMillis(1), Duration.ofMillis(5), meterRegistry));
+        proxy = factory.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    private double count(String name) {
+        return meterRegistry.counter(name, "operation", OPERATION).count();
+    }
+
+    @Test
+    @DisplayName("Should replay the method until the conflict clears")
+    void shouldReplayUntilConflictClears() {
+        target.conflicts = 2;
+
+        assertThat(proxy.update()).isEqualTo("ok");
+        assertThat(target.calls).isEqualTo(3);
+        assertThat(count("concurrency.conflicts")).isEqualTo(2);
+        assertThat(count("concurrency.retries")).isEqualTo(2);
+        assertThat(count("concurrency.retries.exhausted")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should give up after the maximum number of attempts")
+    void shouldGiveUpAfterMaxAttempts() {
+        target.conflicts = 10;
+
+        assertThatThrownBy(() -> proxy.update()).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(target.calls).isEqualTo(3);
+        assertThat(count("concurrency.conflicts")).isEqualTo(3);
+        assertThat(count("concurrency.retries.exhausted")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should leave conflicts to the caller owning the transaction")
+    void shouldNotReplayInsideCallerTransaction() {
+        target.conflicts = 1;
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        assertThatThrownBy(() -> proxy.update()).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(target.calls).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not replay other failures")
+    void shouldNotReplayOtherFailures() {
+        target.failure = new IllegalArgumentException("invalide");
+
+        assertThatThrownBy(() -> proxy.update()).isInstanceOf(IllegalArgumentException.class);
+        assertThat(target.calls).isEqualTo(1);
+    }
+
+    static class ConflictingService {
+
+        int conflicts;
+        int calls;
+        RuntimeException failure;
+
+        @RetryOnConflict
+        public String update() {
+            calls++;
+            if (failure != null) {
+                throw failure;
+            }
+            if (conflicts-- > 0) {
+                throw new ObjectOptimisticLockingFailureException(Object.class, 1L);
+            }
+            return "ok";
+        }
+    }
+}
@@ -2,7 +2,12 @@ package com.devops.pfe.controller;
 
 import com.devops.pfe.dto.OrderDTO;
 import com.devops.pfe.dto.OrderItemDTO;
+import com.devops.pfe.entity.Order;
 import com.devops.pfe.entity.OrderStatus;
+import com.devops.pfe.exception.BusinessException;
+import com.devops.pfe.exception.StaleVersionException;
+import com.devops.pfe.order.IdempotentOrders;
+import com.devops.pfe.service.BulkFormat;
 import com.devops.pfe.service.OrderService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,14 +18,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -38,6 +50,9 @@ class OrderControllerTest {
     @MockBean
     private OrderService orderService;
 
+    @MockBean
+    private IdempotentOrders idempotentOrders;
+
     private OrderDTO orderDTO;
     private OrderItemDTO orderItemDTO;
 
@@ -80,6 +95,36 @@ class OrderControllerTest {
                     .andExpect(jsonPath("$.customerEmail", is("john.doe@example.com")));
         }
 
+        @Test
+        @DisplayName("POST /api/v1/orders - Should replay the order created under the same Idempotency-Key")
+        void shouldReplayOrderForSameIdempotencyKey() throws Exception {
+            // Given
+            when(idempotentOrders.execute(eq("retry-1"), any(OrderDTO.class), any()))
+                    .thenReturn(new IdempotentOrders.Result(orderDTO, false))
+                    .thenReturn(new IdempotentOrders.Result(orderDTO, true))
+                    .thenThrow(new BusinessException("La clé d'idempotence 'retry-1' a déjà servi pour une autre commande",
+                            "IDEMPOTENCY_KEY_REUSED"));
+            String body = objectMapper.writeValueAsString(orderDTO);
+
+            // When/Then
+            mockMvc.perform(post("/api/v1/orders").header("Idempotency-Key", "retry-1")
+                            .contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isCreated())
+                    .andExpect(header().string("Idempotent-Replayed", "false"));
+            mockMvc.perform(post("/api/v1/orders").header("Idempotency-Key", "retry-1")
+                            .contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isCreated())
+                    .andExpect(header().string("Idempotent-Replayed", "true"))
+                    .andExpect(jsonPath("$.orderNumber", is("ORD-12345678")));
+
+            orderDTO.setCustomerName("Jane Doe");
+            mockMvc.perform(post("/api/v1/orders").header("Idempotency-Key", "retry-1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(orderDTO)))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.errorCode", is("IDEMPOTENCY_KEY_REUSED")));
+        }
+
         @Test
         @DisplayName("GET /api/v1/orders/{id} - Should get order by ID")
         void shouldGetOrderById() throws Exception {
@@ -93,6 +138,39 @@ class OrderControllerTest {
                     .andExpect(jsonPath("$.orderNumber", is("ORD-12345678")));
         }
 
+        @Test
+        @DisplayName("GET /api/v1/orders/{id} - Should answer 304 from the version alone")
+        void shouldAnswerNotModifiedFromVersion() throws Exception {
+            // Given
+            when(orderService.getOrderVersion(1L)).thenReturn(3L);
+
+            // When/Then
+            mockMvc.perform(get("/api/v1/orders/1").header("If-None-Match", "\"order-1-v3\""))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string("ETag", "\"order-1-v3\""))
+                    .andExpect(content().string(""));
+            verify(orderService, never()).getOrderById(any());
+        }
+
+        @Test
+        @DisplayName("GET /api/v1/orders - Should answer 304 while no order changed")
+        void shouldAnswerNotModifiedForUnchangedCollection() throws Exception {
+            // Given
+            when(orderService.getOrdersChangeTag()).thenReturn("abc-1", "abc-1", "abc-2");
+            when(orderService.getAllOrders()).thenReturn(List.of(orderDTO));
+
+            // When/Then
+            String eTag = mockMvc.perform(get("/api/v1/orders"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader("ETag");
+            mockMvc.perform(get("/api/v1/orders").header("If-None-Match", eTag))
+                    .andExpect(status().isNotModified());
+            mockMvc.perform(get("/api/v1/orders").header("If-None-Match", eTag))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", "\"orders-abc-2\""));
+            verify(orderService, times(2)).getAllOrders();
+        }
+
         @Test
         @DisplayName("GET /api/v1/orders/number/{orderNumber} - Should get order by number")
         void shouldGetOrderByNumber() throws Exception {
@@ -141,15 +219,46 @@ class OrderControllerTest {
         void shouldUpdateOrderStatus() throws Exception {
             // Given
             orderDTO.setStatus("CONFIRMED");
-            when(orderService.updateOrderStatus(1L, OrderStatus.CONFIRMED)).thenReturn(orderDTO);
+            when(orderService.updateOrderStatus(1L, OrderStatus.CONFIRMED, 0L)).thenReturn(orderDTO);
 
             // When/Then
             mockMvc.perform(patch("/api/v1/orders/1/status")
-                            .param("status", "CONFIRMED"))
+                            .param("status", "CONFIRMED")
+                            .param("version", "0"))
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.status", is("CONFIRMED")));
         }
 
+        @Test
+        @DisplayName("PATCH /api/v1/orders/{id}/status - Should answer 412 when the If-Match version is outdated")
+        void shouldAnswerPreconditionFailedOnStaleVersion() throws Exception {
+            // Given
+            when(orderService.updateOrderStatus(1L, OrderStatus.CONFIRMED, 2L))
+                    .thenThrow(new StaleVersionException("Commande", 1L, 2L, 3L));
+
+            // When/Then
+            mockMvc.perform(patch("/api/v1/orders/1/status")
+                            .param("status", "CONFIRMED")
+                            .header("If-Match", "\"order-1-v2\""))
+                    .andExpect(status().isPreconditionFailed())
+                    .andExpect(jsonPath("$.errorCode", is("VERSION_MISMATCH")));
+        }
+
+        @Test
+        @DisplayName("PATCH /api/v1/orders/{id}/status - Should answer 409 on persistent version conflict")
+        void shouldAnswerConflictOnConcurrentModification() throws Exception {
+            // Given
+            when(orderService.updateOrderStatus(1L, OrderStatus.CONFIRMED, 0L))
+                    .thenThrow(new ObjectOptimisticLockingFailureException(Order.class, 1L));
+
+            // When/Then
+            mockMvc.perform(patch("/api/v1/orders/1/status")
+                            .param("status", "CONFIRMED")
+                            .param("version", "0"))
+                    .andExpect(status().isConflict())
+                    .andExpect(jsonPath("$.errorCode", is("CONCURRENT_MODIFICATION")));
+        }
+
         @Test
         @DisplayName("GET /api/v1/orders/status/{status} - Should get orders by status")
         void shouldGetOrdersByStatus() throws Exception {
@@ -207,4 +316,35 @@ class OrderControllerTest {
                     .andExpect(jsonPath("$", hasSize(1)));
         }
     }
+
+    @Nested
+    @DisplayName("Order Export Endpoint Tests")
+    class OrderExportEndpointTests {
+
+        @Test
+        @DisplayName("GET /api/v1/orders/export - Should gzip when the client accepts it")
+        void shouldGzipExportWhenAccepted() throws Exception {
+            // Given
+            when(orderService.exportOrders(any(), eq(BulkFormat.NDJSON))).thenAnswer(invocation -> {
+                OutputStream output = invocation.getArgument(0);
+                output.write("{\"orderNumber\":\"CMD-1\"}\n".getBytes(StandardCharsets.UTF_8));
+                return 1L;
+            });
+
+            // When
+            var result = mockMvc.perform(get("/api/v1/orders/export").header("Accept-Encoding", "gzip, deflate"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            byte[] body = mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Content-Encoding", "gzip"))
+                    .andExpect(header().string("Vary", "Accept-Encoding"))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            // Then
+            try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                assertThat(new String(input.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("{\"orderNumber\":\"CMD-1\"}\n");
+            }
+        }
+    }
 }
@@ -0,0 +1,139 @@
+package com.devops.pfe.controller;
+
+import com.devops.pfe.dto.ImportReportDTO;
+import com.devops.pfe.dto.StockAdjustmentDTO;
+import com.devops.pfe.dto.StockAdjustmentReportDTO;
+import com.devops.pfe.dto.StockAdjustmentReportDTO.LineResult;
+import com.devops.pfe.dto.StockAdjustmentReportDTO.Outcome;
+import com.devops.pfe.service.BulkFormat;
+import com.devops.pfe.service.ProductBulkService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ProductBulkController.class)
+@DisplayName("ProductBulkController Tests")
+class ProductBulkControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ProductBulkService productBulkService;
+
+    @Test
+    @DisplayName("POST /api/v1/products/import - Should import CSV stream")
+    void shouldImportCsvStream() throws Exception {
+        // Given
+        ImportReportDTO report = ImportReportDTO.builder()
+                .processed(2)
+                .imported(2)
+                .errors(List.of())
+                .build();
+        when(productBulkService.importProducts(any(), eq(BulkFormat.CSV))).thenReturn(report);
+
+        // When/Then
+        mockMvc.perform(post("/api/v1/products/import")
+                        .contentType("text/csv")
+                        .content("sku,name,price,stockQuantity,category\nA-1,Produit,1.00,1,Test\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2));
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/products/import - Should import NDJSON stream")
+    void shouldImportNdjsonStream() throws Exception {
+        // Given
+        ImportReportDTO report = ImportReportDTO.builder()
+                .processed(1)
+                .imported(1)
+                .errors(List.of())
+                .build();
+        when(productBulkService.importProducts(any(), eq(BulkFormat.NDJSON))).thenReturn(report);
+
+        // When/Then
+        mockMvc.perform(post("/api/v1/products/import")
+                        .contentType("application/x-ndjson")
+                        .content("{\"sku\":\"A-1\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.processed").value(1));
+        verify(productBulkService).importProducts(any(), eq(BulkFormat.NDJSON));
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/products/stock/adjustments - Should return one result per line")
+    void shouldAdjustStock() throws Exception {
+        // Given
+        StockAdjustmentReportDTO report = StockAdjustmentReportDTO.builder()
+                .processed(2)
+                .applied(1)
+                .failed(1)
+                .results(List.of(
+                        new LineResult(1, 1L, "A-1", Outcome.APPLIED, 8, null),
+                        new LineResult(2, null, "A-2", Outcome.NOT_FOUND, null, "Produit introuvable")))
+                .build();
+        when(productBulkService.adjustStock(anyList())).thenReturn(report);
+
+        // When/Then
+        mockMvc.perform(post("/api/v1/products/stock/adjustments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"sku\":\"A-1\",\"delta\":-2},{\"sku\":\"A-2\",\"quantity\":5}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(1))
+                .andExpect(jsonPath("$.results[0].stockQuantity").value(8))
+                .andExpect(jsonPath("$.results[1].outcome").value("NOT_FOUND"));
+        verify(productBulkService).adjustStock(List.of(
+                StockAdjustmentDTO.builder().sku("A-1").delta(-2).build(),
+                StockAdjustmentDTO.builder().sku("A-2").quantity(5).build()));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/products/export - Should stream CSV as attachment")
+    void shouldStreamCsvExport() throws Exception {
+        // Given
+        when(productBulkService.exportProducts(any(), eq(BulkFormat.CSV))).thenAnswer(invocation -> {
+            OutputStream output = invocation.getArgument(0);
+            output.write("id,sku\n1,A-1\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        // When
+        var result = mockMvc.perform(get("/api/v1/products/export").param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"products.csv\""))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().string("id,sku\n1,A-1\n"));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/products/export - Should return 400 for unknown format")
+    void shouldRejectUnknownExportFormat() throws Exception {
+        mockMvc.perform(get("/api/v1/products/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(productBulkService);
+    }
+}
@@ -1,8 +1,14 @@
 package com.devops.pfe.controller;
 
+import com.devops.pfe.dto.CursorPageDTO;
+import com.devops.pfe.dto.ProductBatchDTO;
 import com.devops.pfe.dto.ProductDTO;
+import com.devops.pfe.dto.ProductFacetsDTO;
+import com.devops.pfe.dto.ProductSuggestionDTO;
 import com.devops.pfe.exception.ResourceNotFoundException;
+import com.devops.pfe.exception.StaleVersionException;
 import com.devops.pfe.service.ProductService;
+import com.devops.pfe.service.ProductService.ProductFilter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -11,12 +17,16 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -53,6 +63,14 @@ class ProductControllerTest {
                 .build();
     }
 
+    private void stubStream(ProductFilter filter, ProductDTO... products) {
+        doAnswer(invocation -> {
+            Consumer<ProductDTO> consumer = invocation.getArgument(1);
+            Arrays.asList(products).forEach(consumer);
+            return null;
+        }).when(productService).streamProducts(eq(filter), any());
+    }
+
     @Nested
     @DisplayName("CRUD Endpoints Tests")
     class CrudEndpointsTests {
@@ -120,16 +138,44 @@ class ProductControllerTest {
         @DisplayName("GET /api/v1/products - Should get all products")
         void shouldGetAllProducts() throws Exception {
             // Given
-            List<ProductDTO> products = Arrays.asList(productDTO);
-            when(productService.getAllProducts()).thenReturn(products);
+            stubStream(ProductFilter.all(), productDTO);
 
             // When/Then
             mockMvc.perform(get("/api/v1/products"))
                     .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
                     .andExpect(jsonPath("$", hasSize(1)))
                     .andExpect(jsonPath("$[0].name", is("Test Product")));
         }
 
+        @Test
+        @DisplayName("GET /api/v1/products - Should stream an empty array")
+        void shouldStreamEmptyArray() throws Exception {
+            // Given
+            stubStream(ProductFilter.all());
+
+            // When/Then
+            mockMvc.perform(get("/api/v1/products"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(0)));
+        }
+
+        @Test
+        @DisplayName("GET /api/v1/products?limit= - Should get a cursor page")
+        void shouldGetProductsPage() throws Exception {
+            // Given
+            when(productService.getProductsPage(ProductFilter.all(), "MQ", 1))
+                    .thenReturn(new CursorPageDTO<>(List.of(productDTO), "Mg"));
+
+            // When/Then
+            mockMvc.perform(get("/api/v1/products")
+                            .param("limit", "1")
+                            .param("cursor", "MQ"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items", hasSize(1)))
+                    .andExpect(jsonPath("$.nextCursor", is("Mg")));
+        }
+
         @Test
         @DisplayName("PUT /api/v1/products/{id} - Should update product")
         void shouldUpdateProduct() throws Exception {
@@ -144,6 +190,44 @@ class ProductControllerTest {
                     .andExpect(jsonPath("$.id", is(1)));
         }
 
+        @Test
+        @DisplayName("PUT /api/v1/products/{id} - Should take the expected version from If-Match")
+        void shouldTakeExpectedVersionFromIfMatch() throws Exception {
+            // Given
+            when(productService.updateProduct(eq(1L), any(ProductDTO.class))).thenReturn(productDTO);
+
+            // When
+            mockMvc.perform(put("/api/v1/products/1")
+                            .header("If-Match", "\"product-1-v7\"")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(productDTO)))
+                    .andExpect(status().isOk());
+
+            // Then
+            verify(productService).updateProduct(eq(1L), argThat(dto -> Long.valueOf(7L).equals(dto.getVersion())));
+        }
+
+        @Test
+        @DisplayName("PUT /api/v1/products/{id} - Should answer 412 on an outdated version and 400 on a foreign ETag")
+        void shouldRejectStaleOrForeignVersion() throws Exception {
+            // Given
+            when(productService.updateProduct(eq(1L), any(ProductDTO.class)))
+                    .thenThrow(new StaleVersionException("Produit", 1L, 7L, 8L));
+
+            // When/Then
+            mockMvc.perform(put("/api/v1/products/1")
+                            .header("If-Match", "\"product-1-v7\"")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(productDTO)))
+                    .andExpect(status().isPreconditionFailed())
+                    .andExpect(jsonPath("$.errorCode", is("VERSION_MISMATCH")));
+            mockMvc.perform(put("/api/v1/products/1")
+                            .header("If-Match", "\"product-2-v7\"")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(productDTO)))
+                    .andExpect(status().isBadRequest());
+        }
+
         @Test
         @DisplayName("DELETE /api/v1/products/{id} - Should delete product")
         void shouldDeleteProduct() throws Exception {
@@ -156,6 +240,23 @@ class ProductControllerTest {
 
             verify(productService).deleteProduct(1L);
         }
+
+        @Test
+        @DisplayName("POST /api/v1/products/batch - Should look up products by IDs and SKUs")
+        void shouldLookUpProductsInBatch() throws Exception {
+            // Given
+            ProductBatchDTO batch = new ProductBatchDTO(List.of(productDTO), List.of(99L), List.of("UNKNOWN"));
+            when(productService.getProductsBatch(List.of(1L, 99L), List.of("UNKNOWN"))).thenReturn(batch);
+
+            // When/Then
+            mockMvc.perform(post("/api/v1/products/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"ids\":[1,99],\"skus\":[\"UNKNOWN\"]}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.products", hasSize(1)))
+                    .andExpect(jsonPath("$.missingIds[0]").value(99))
+                    .andExpect(jsonPath("$.missingSkus[0]").value("UNKNOWN"));
+        }
     }
 
     @Nested
@@ -166,8 +267,7 @@ class ProductControllerTest {
         @DisplayName("GET /api/v1/products/category/{category} - Should get by category")
         void shouldGetProductsByCategory() throws Exception {
             // Given
-            when(productService.getProductsByCategory("Electronics"))
-                    .thenReturn(Arrays.asList(productDTO));
+            stubStream(ProductFilter.byCategory("Electronics"), productDTO);
 
             // When/Then
             mockMvc.perform(get("/api/v1/products/category/Electronics"))
@@ -179,7 +279,7 @@ class ProductControllerTest {
         @DisplayName("GET /api/v1/products/search - Should search products")
         void shouldSearchProducts() throws Exception {
             // Given
-            when(productService.searchProducts("Test"))
+            when(productService.searchProducts("Test", 50, false))
                     .thenReturn(Arrays.asList(productDTO));
 
             // When/Then
@@ -189,12 +289,77 @@ class ProductControllerTest {
                     .andExpect(jsonPath("$", hasSize(1)));
         }
 
+        @Test
+        @DisplayName("GET /api/v1/products/search?fuzzy=true - Should search with typo tolerance")
+        void shouldSearchProductsWithTypoTolerance() throws Exception {
+            // Given
+            when(productService.searchProducts("Tset", 20, true))
+                    .thenReturn(List.of(productDTO));
+
+            // When/Then
+            mockMvc.perform(get("/api/v1/products/search")
+                            .param("keyword", "Tset")
+                            .param("limit", "20")
+                            .param("fuzzy", "true"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)));
+        }
+
+        @Test
+        @DisplayName("GET /api/v1/products/autocomplete - Should suggest products")
+        void shouldSuggestProducts() throws Exception {
+            // Given
+            when(productService.autocomplete("Tes", 10))
+                    .thenReturn(List.of(new ProductSuggestionDTO(1L, "Test Product", "TEST-SKU-001")));
+
+            // When/Then
+            mockMvc.perform(get("/api/v1/products/autocomplete")
+                            .param("prefix", "Tes"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].sku").value("TEST-SKU-001"));
+        }
+
+        @Test
+        @DisplayName("GET /api/v1/products/facets - Should get facet counts")
+        void shouldGetFacets() throws Exception {
+            // Given
+            ProductFacetsDTO facets = ProductFacetsDTO.builder()
+                    .total(1)
+                    .categories(Map.of("Electronics", 1L))
+                    .inStock(1)
+                    .build();
+            when(productService.getFacets("Electronics", null, true)).thenReturn(facets);
+
+            // When/Then
+            mockMvc.perform(get("/api/v1/products/facets")
+                            .param("category", "Electronics")
+                            .param("inStock", "true"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.total").value(1))
+                    .andExpect(jsonPath("$.categories.Electronics").value(1));
+        }
+
+        @Test
+        @DisplayName("GET /api/v1/products/low-stock/stream - Should open stock alert stream")
+        void shouldOpenStockAlertStream() throws Exception {
+            // Given
+            when(productService.subscribeToStockAlerts(5)).thenReturn(new SseEmitter());
+
+            // When/Then
+            mockMvc.perform(get("/api/v1/products/low-stock/stream")
+                            .param("threshold", "5")
+                            .accept(MediaType.TEXT_EVENT_STREAM))
+                    .andExpect(request().asyncStarted());
+            verify(productService).subscribeToStockAlerts(5);
+        }
+
         @Test
         @DisplayName("GET /api/v1/products/price-range - Should get by price range")
         void shouldGetProductsByPriceRange() throws Exception {
             // Given
             when(productService.getProductsByPriceRange(
-                    new BigDecimal("50.00"), new BigDecimal("150.00")))
+                    new BigDecimal("50.00"), new BigDecimal("150.00"), Sort.Direction.ASC))
                     .thenReturn(Arrays.asList(productDTO));
 
             // When/Then
@@ -205,12 +370,29 @@ class ProductControllerTest {
                     .andExpect(jsonPath("$", hasSize(1)));
         }
 
+        @Test
+        @DisplayName("GET /api/v1/products/price-range?sort=desc&limit=5 - Should get most expensive first")
+        void shouldGetProductsByPriceRangeSortedAndLimited() throws Exception {
+            // Given
+            when(productService.getProductsByPriceRange(
+                    new BigDecimal("50.00"), new BigDecimal("150.00"), Sort.Direction.DESC, 5))
+                    .thenReturn(List.of(productDTO));
+
+            // When/Then
+            mockMvc.perform(get("/api/v1/products/price-range")
+                            .param("minPrice", "50.00")
+                            .param("maxPrice", "150.00")
+                            .param("sort", "desc")
+                            .param("limit", "5"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)));
+        }
+
         @Test
         @DisplayName("GET /api/v1/products/low-stock - Should get low stock products")
         void shouldGetLowStockProducts() throws Exception {
             // Given
-            when(productService.getLowStockProducts(10))
-                    .thenReturn(Arrays.asList(productDTO));
+            stubStream(ProductFilter.lowStock(10), productDTO);
 
             // When/Then
             mockMvc.perform(get("/api/v1/products/low-stock")
@@ -218,6 +400,22 @@ class ProductControllerTest {
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$", hasSize(1)));
         }
+
+        @Test
+        @DisplayName("GET /api/v1/products/low-stock?limit= - Should get a cursor page")
+        void shouldGetLowStockProductsPage() throws Exception {
+            // Given
+            when(productService.getProductsPage(ProductFilter.lowStock(10), null, 50))
+                    .thenReturn(new CursorPageDTO<>(List.of(productDTO), null));
+
+            // When/Then
+            mockMvc.perform(get("/api/v1/products/low-stock")
+                            .param("threshold", "10")
+                            .param("limit", "50"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items", hasSize(1)))
+                    .andExpect(jsonPath("$.nextCursor").doesNotExist());
+        }
     }
 
     @Nested
@@ -341,5 +539,18 @@ class ProductControllerTest {
                     .andExpect(status().isOk())
                     .andExpect(content().string("10000.00"));
         }
+
+        @Test
+        @DisplayName("GET /api/v1/products/total-value/by-category - Should calculate value by category")
+        void shouldCalculateValueByCategory() throws Exception {
+            // Given
+            when(productService.calculateValueByCategory())
+                    .thenReturn(Map.of("Electronics", new BigDecimal("10000.00")));
+
+            // When/Then
+            mockMvc.perform(get("/api/v1/products/total-value/by-category"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.Electronics").value(10000.00));
+        }
     }
 }
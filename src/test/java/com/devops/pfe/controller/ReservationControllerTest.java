@@ -0,0 +1,122 @@
+package com.devops.pfe.controller;
+
+import com.devops.pfe.dto.OrderDTO;
+import com.devops.pfe.dto.OrderItemDTO;
+import com.devops.pfe.dto.ReservationDTO;
+import com.devops.pfe.dto.ReservationRequestDTO;
+import com.devops.pfe.dto.StockAvailabilityDTO;
+import com.devops.pfe.exception.BusinessException;
+import com.devops.pfe.service.OrderService;
+import com.devops.pfe.service.ReservationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ReservationController.class)
+@DisplayName("ReservationController Tests")
+class ReservationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private ReservationService reservationService;
+
+    @MockBean
+    private OrderService orderService;
+
+    private ReservationRequestDTO request() {
+        return ReservationRequestDTO.builder()
+                .customerName("John Doe")
+                .customerEmail("john.doe@example.com")
+                .items(List.of(OrderItemDTO.builder().productId(1L).quantity(2).build()))
+                .ttlSeconds(300L)
+                .build();
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/reservations - Should place a hold")
+    void shouldPlaceHold() throws Exception {
+        // Given
+        ReservationDTO reservation = ReservationDTO.builder()
+                .token("RSV-1")
+                .status("HELD")
+                .expiresAt(LocalDateTime.now().plusMinutes(5))
+                .build();
+        when(reservationService.createReservation(any(ReservationRequestDTO.class))).thenReturn(reservation);
+
+        // When/Then
+        mockMvc.perform(post("/api/v1/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request())))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.token").value("RSV-1"))
+                .andExpect(jsonPath("$.status").value("HELD"));
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/reservations - Should reject a hold without items")
+    void shouldRejectHoldWithoutItems() throws Exception {
+        ReservationRequestDTO empty = request();
+        empty.setItems(List.of());
+
+        mockMvc.perform(post("/api/v1/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(empty)))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(reservationService);
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/reservations/{token}/order - Should convert the hold into an order")
+    void shouldConvertHoldIntoOrder() throws Exception {
+        // Given
+        when(orderService.createOrderFromReservation("RSV-1"))
+                .thenReturn(OrderDTO.builder().orderNumber("ORD-1").status("PENDING").build());
+        when(orderService.createOrderFromReservation("RSV-2"))
+                .thenThrow(new BusinessException("La réservation a expiré", "RESERVATION_EXPIRED"));
+
+        // When/Then
+        mockMvc.perform(post("/api/v1/reservations/RSV-1/order"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.orderNumber").value("ORD-1"));
+        mockMvc.perform(post("/api/v1/reservations/RSV-2/order"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value("RESERVATION_EXPIRED"));
+    }
+
+    @Test
+    @DisplayName("DELETE /api/v1/reservations/{token} - Should release the hold")
+    void shouldReleaseHold() throws Exception {
+        mockMvc.perform(delete("/api/v1/reservations/RSV-1"))
+                .andExpect(status().isNoContent());
+        verify(reservationService).releaseReservation("RSV-1");
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/reservations/products/{id} - Should expose available and reserved stock")
+    void shouldExposeAvailableAndReservedStock() throws Exception {
+        when(reservationService.getStockAvailability(1L)).thenReturn(new StockAvailabilityDTO(1L, 8, 2L));
+
+        mockMvc.perform(get("/api/v1/reservations/products/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.available").value(8))
+                .andExpect(jsonPath("$.reserved").value(2));
+    }
+}
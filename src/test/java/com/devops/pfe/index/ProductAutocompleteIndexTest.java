@@ -0,0 +1,97 @@
+package com.devops.pfe.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ProductAutocompleteIndex Tests")
+class ProductAutocompleteIndexTest {
+
+    private ProductAutocompleteIndex index;
+
+    private final ProductSnapshot laptop = product(1L, "Ordinateur portable", "LAPTOP-15", 20, true);
+    private final ProductSnapshot desktop = product(2L, "Ordinateur de bureau", "DESK-01", 50, true);
+    private final ProductSnapshot chair = product(3L, "Chaise de bureau", "CHAIR-01", 5, true);
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductAutocompleteIndex();
+        index.onChange(null, laptop);
+        index.onChange(null, desktop);
+        index.onChange(null, chair);
+    }
+
+    private static ProductSnapshot product(Long id, String name, String sku, int stock, boolean active) {
+        return new ProductSnapshot(id, name, null, new BigDecimal("10.00"), stock, "Divers", sku, active, 0L);
+    }
+
+    @Test
+    @DisplayName("Should suggest by name prefix ordered by stock")
+    void shouldSuggestByNamePrefixOrderedByStock() {
+        assertThat(index.suggest("ordi", 10)).containsExactly(2L, 1L);
+        assertThat(index.suggest("Ordinateur p", 10)).containsExactly(1L);
+        assertThat(index.suggest("ordinateur portable x", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should suggest by inner word and SKU prefix")
+    void shouldSuggestByInnerWordAndSkuPrefix() {
+        assertThat(index.suggest("bur", 10)).containsExactly(2L, 3L);
+        assertThat(index.suggest("laptop-1", 10)).containsExactly(1L);
+        assertThat(index.suggest("CHÂI", 10)).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Should honour limit")
+    void shouldHonourLimit() {
+        assertThat(index.suggest("o", 1)).containsExactly(2L);
+        assertThat(index.suggest("", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reorder when stock changes")
+    void shouldReorderWhenStockChanges() {
+        ProductSnapshot restocked = product(3L, "Chaise de bureau", "CHAIR-01", 100, true);
+
+        index.onChange(chair, restocked);
+
+        assertThat(index.suggest("bureau", 10)).containsExactly(3L, 2L);
+    }
+
+    @Test
+    @DisplayName("Should drop renamed, deactivated and deleted products")
+    void shouldDropRenamedDeactivatedAndDeletedProducts() {
+        ProductSnapshot renamed = product(1L, "Tablette", "TAB-01", 20, true);
+        ProductSnapshot inactive = product(2L, "Ordinateur de bureau", "DESK-01", 50, false);
+
+        index.onChange(laptop, renamed);
+        index.onChange(desktop, inactive);
+        index.onChange(chair, null);
+
+        assertThat(index.suggest("ordi", 10)).isEmpty();
+        assertThat(index.suggest("bureau", 10)).isEmpty();
+        assertThat(index.suggest("tab", 10)).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep the best products when a subtree exceeds the top size")
+    void shouldKeepBestProductsWhenSubtreeExceedsTopSize() {
+        index.clear();
+        for (long id = 1; id <= 30; id++) {
+            index.onChange(null, product(id, "Câble " + id, "CAB-" + id, (int) id, true));
+        }
+
+        assertThat(index.suggest("cable", 3)).containsExactly(30L, 29L, 28L);
+
+        for (long id = 30; id > 25; id--) {
+            index.onChange(product(id, "Câble " + id, "CAB-" + id, (int) id, true), null);
+        }
+        assertThat(index.suggest("cable", 3)).containsExactly(25L, 24L, 23L);
+        assertThat(index.suggest("cable 1", 20)).containsExactly(19L, 18L, 17L, 16L, 15L, 14L, 13L, 12L, 11L, 10L);
+    }
+}
@@ -0,0 +1,84 @@
+package com.devops.pfe.index;
+
+import com.devops.pfe.index.ProductFacetIndex.FacetCounts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+@DisplayName("ProductFacetIndex Tests")
+class ProductFacetIndexTest {
+
+    private ProductFacetIndex index;
+
+    private final ProductSnapshot laptop = product(1L, "Informatique", "899.00", 10, true);
+    private final ProductSnapshot mouse = product(2L, "Informatique", "25.00", 0, true);
+    private final ProductSnapshot chair = product(3L, "Mobilier", "149.00", 4, true);
+    private final ProductSnapshot lamp = product(4L, "Mobilier", "30.00", 2, false);
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductFacetIndex();
+        index.onChange(null, laptop);
+        index.onChange(null, mouse);
+        index.onChange(null, chair);
+        index.onChange(null, lamp);
+    }
+
+    private static ProductSnapshot product(Long id, String category, String price, int stock, boolean active) {
+        return new ProductSnapshot(id, "Produit " + id, null, new BigDecimal(price), stock, category, "SKU-" + id, active, 0L);
+    }
+
+    @Test
+    @DisplayName("Should count active products per facet")
+    void shouldCountActiveProductsPerFacet() {
+        FacetCounts counts = index.facets(null, null, null);
+
+        assertThat(counts.total()).isEqualTo(3);
+        assertThat(counts.categories()).containsExactly(entry("Informatique", 2L), entry("Mobilier", 1L));
+        assertThat(counts.priceBuckets()).containsEntry("10-50", 1L).containsEntry("100-500", 1L).containsEntry("500-1000", 1L);
+        assertThat(counts.inStock()).isEqualTo(2);
+        assertThat(counts.outOfStock()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should ignore a facet's own filter when counting it")
+    void shouldIgnoreFacetOwnFilterWhenCountingIt() {
+        FacetCounts counts = index.facets("Informatique", null, true);
+
+        assertThat(counts.total()).isEqualTo(1);
+        assertThat(counts.categories()).containsExactly(entry("Informatique", 1L), entry("Mobilier", 1L));
+        assertThat(counts.inStock()).isEqualTo(1);
+        assertThat(counts.outOfStock()).isEqualTo(1);
+        assertThat(counts.priceBuckets()).containsEntry("500-1000", 1L).containsEntry("10-50", 0L);
+    }
+
+    @Test
+    @DisplayName("Should follow updates incrementally")
+    void shouldFollowUpdatesIncrementally() {
+        index.onChange(mouse, product(2L, "Informatique", "25.00", 5, true));
+        index.onChange(chair, null);
+        index.onChange(lamp, product(4L, "Luminaire", "30.00", 2, true));
+
+        FacetCounts counts = index.facets(null, "10-50", null);
+
+        assertThat(counts.total()).isEqualTo(2);
+        assertThat(counts.outOfStock()).isZero();
+        assertThat(index.categories()).containsExactly("Informatique", "Luminaire");
+    }
+
+    @Test
+    @DisplayName("Should map prices to buckets and reject unknown buckets")
+    void shouldMapPricesToBucketsAndRejectUnknownBuckets() {
+        assertThat(ProductFacetIndex.priceBucketOf(new BigDecimal("9.99"))).isZero();
+        assertThat(ProductFacetIndex.priceBucketOf(new BigDecimal("10.00"))).isEqualTo(1);
+        assertThat(ProductFacetIndex.priceBucketOf(new BigDecimal("2500"))).isEqualTo(5);
+        assertThatThrownBy(() -> index.facets(null, "20-30", null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
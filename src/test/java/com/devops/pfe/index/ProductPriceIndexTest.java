@@ -0,0 +1,68 @@
+package com.devops.pfe.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ProductPriceIndex Tests")
+class ProductPriceIndexTest {
+
+    private ProductPriceIndex index;
+
+    private final ProductSnapshot mouse = product(1L, "25.00", true);
+    private final ProductSnapshot keyboard = product(2L, "49.99", true);
+    private final ProductSnapshot headset = product(3L, "49.99", true);
+    private final ProductSnapshot screen = product(4L, "189.00", true);
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductPriceIndex();
+        index.onChange(null, mouse);
+        index.onChange(null, keyboard);
+        index.onChange(null, headset);
+        index.onChange(null, screen);
+    }
+
+    private static ProductSnapshot product(Long id, String price, boolean active) {
+        return new ProductSnapshot(id, "Produit " + id, null, new BigDecimal(price), 1, "Informatique", "SKU-" + id, active, 0L);
+    }
+
+    private static BigDecimal price(String value) {
+        return new BigDecimal(value);
+    }
+
+    @Test
+    @DisplayName("Should return range sorted by price with inclusive bounds")
+    void shouldReturnRangeSortedByPriceWithInclusiveBounds() {
+        assertThat(index.range(price("25"), price("49.99"), false, 10)).containsExactly(1L, 2L, 3L);
+        assertThat(index.range(price("25.001"), price("200"), true, 10)).containsExactly(4L, 3L, 2L);
+    }
+
+    @Test
+    @DisplayName("Should return cheapest N in range")
+    void shouldReturnCheapestNInRange() {
+        assertThat(index.range(price("0"), price("1000"), false, 2)).containsExactly(1L, 2L);
+        assertThat(index.range(price("100"), price("50"), false, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should treat bounds beyond representable cents as open")
+    void shouldTreatHugeBoundsAsOpen() {
+        assertThat(index.range(price("-1e30"), price("1e30"), false, 10)).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(index.range(price("1e30"), price("1e31"), false, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should follow price changes and deactivation")
+    void shouldFollowPriceChangesAndDeactivation() {
+        index.onChange(screen, product(4L, "19.90", true));
+        index.onChange(mouse, product(1L, "25.00", false));
+
+        assertThat(index.range(price("0"), price("1000"), false, 10)).containsExactly(4L, 2L, 3L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,139 @@
+package com.devops.pfe.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ProductSearchIndex Tests")
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    private final ProductSnapshot laptop = product(1L, "Ordinateur portable", "Écran 15 pouces, 16 Go de mémoire", "Informatique", "LAPTOP-15");
+    private final ProductSnapshot phone = product(2L, "Smartphone", "Téléphone dernière génération", "Téléphonie", "PHONE-001");
+    private final ProductSnapshot chair = product(3L, "Chaise de bureau", "Chaise ergonomique pour le bureau", "Mobilier", "CHAIR-01");
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.onChange(null, laptop);
+        index.onChange(null, phone);
+        index.onChange(null, chair);
+    }
+
+    private static ProductSnapshot product(Long id, String name, String description, String category, String sku) {
+        return new ProductSnapshot(id, name, description, new BigDecimal("10.00"), 5, category, sku, true, 0L);
+    }
+
+    @Test
+    @DisplayName("Should ignore accents and case")
+    void shouldIgnoreAccentsAndCase() {
+        assertThat(index.search("ECRAN", 10)).containsExactly(1L);
+        assertThat(index.search("memoire", 10)).containsExactly(1L);
+        assertThat(index.search("téléphonie", 10)).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Should match substrings of indexed terms")
+    void shouldMatchSubstringsOfIndexedTerms() {
+        assertThat(index.search("phone", 10)).containsExactly(2L);
+        assertThat(index.search("ergo", 10)).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Should keep the closest substring matches when there are too many")
+    void shouldKeepClosestSubstringMatches() {
+        // Soixante-dix termes plus longs, classés avant « cables » dans l'ordre alphabétique
+        for (int i = 0; i < 70; i++) {
+            String term = "cablea" + (char) ('a' + i / 26) + (char) ('a' + i % 26);
+            index.onChange(null, product(10L + i, term, null, "Câblage", "CBL-" + i));
+        }
+        index.onChange(null, product(100L, "Cables", null, "Câblage", "CBL-100"));
+
+        assertThat(index.search("cable", 100)).contains(100L).hasSize(64);
+    }
+
+    @Test
+    @DisplayName("Should require every query term to match")
+    void shouldRequireEveryQueryTermToMatch() {
+        assertThat(index.search("chaise bureau", 10)).containsExactly(3L);
+        assertThat(index.search("chaise portable", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should rank name matches above description matches")
+    void shouldRankNameMatchesAboveDescriptionMatches() {
+        ProductSnapshot lamp = product(4L, "Lampe LED", "Éclairage de bureau orientable", "Mobilier", "LAMP-01");
+        index.onChange(null, lamp);
+
+        assertThat(index.search("bureau", 10)).containsExactly(3L, 4L);
+    }
+
+    @Test
+    @DisplayName("Should search by SKU and category")
+    void shouldSearchBySkuAndCategory() {
+        assertThat(index.search("LAPTOP-15", 10)).containsExactly(1L);
+        assertThat(index.search("mobilier", 10)).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Should apply updates and deletions incrementally")
+    void shouldApplyUpdatesAndDeletionsIncrementally() {
+        ProductSnapshot renamed = product(2L, "Tablette", "Tablette tactile", "Téléphonie", "TAB-001");
+
+        index.onChange(phone, renamed);
+        assertThat(index.search("smartphone", 10)).isEmpty();
+        assertThat(index.search("tablette", 10)).containsExactly(2L);
+
+        index.onChange(renamed, null);
+        assertThat(index.search("tablette", 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should honour result limit and ignore stop words")
+    void shouldHonourResultLimitAndIgnoreStopWords() {
+        index.onChange(null, product(4L, "Chaise pliante", null, "Mobilier", "CHAIR-02"));
+
+        assertThat(index.search("chaise", 1)).hasSize(1);
+        assertThat(index.search("de la", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should tolerate typos only in fuzzy mode")
+    void shouldTolerateTyposOnlyInFuzzyMode() {
+        assertThat(index.search("ordinatuer", 10)).isEmpty();
+        assertThat(index.search("ordinatuer", 10, true)).containsExactly(1L);
+        assertThat(index.search("chiase burau", 10, true)).containsExactly(3L);
+        assertThat(index.search("smrtphone", 10, true)).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Should keep candidates with two transpositions despite losing 4 trigrams each")
+    void shouldKeepCandidatesWithTwoTranspositions() {
+        // « rodinatuer » ne partage que 3 des 10 trigrammes de « ordinateur »
+        assertThat(index.search("rodinatuer", 10, true)).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Should rank exact matches above fuzzy matches")
+    void shouldRankExactMatchesAboveFuzzyMatches() {
+        index.onChange(null, product(4L, "Chaises empilables", null, "Mobilier", "CHAIR-02"));
+
+        assertThat(index.search("chaise", 10, true)).startsWith(3L);
+        assertThat(index.search("xyzxyz", 10, true)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should bound edit distance")
+    void shouldBoundEditDistance() {
+        assertThat(ProductSearchIndex.boundedDistance("bureau", "bureau", 2)).isZero();
+        assertThat(ProductSearchIndex.boundedDistance("bureau", "buraeu", 2)).isEqualTo(1);
+        assertThat(ProductSearchIndex.boundedDistance("bureau", "bureaux", 2)).isEqualTo(1);
+        assertThat(ProductSearchIndex.boundedDistance("bureau", "tableau", 2)).isEqualTo(3);
+    }
+}
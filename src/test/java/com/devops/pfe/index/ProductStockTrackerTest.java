@@ -0,0 +1,53 @@
+package com.devops.pfe.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ProductStockTracker Tests")
+class ProductStockTrackerTest {
+
+    private ProductStockTracker tracker;
+
+    private final ProductSnapshot desk = product(1L, 3, true);
+    private final ProductSnapshot chair = product(2L, 12, true);
+    private final ProductSnapshot lamp = product(3L, 0, true);
+    private final ProductSnapshot shelf = product(4L, 1, false);
+
+    @BeforeEach
+    void setUp() {
+        tracker = new ProductStockTracker();
+        tracker.onChange(null, desk);
+        tracker.onChange(null, chair);
+        tracker.onChange(null, lamp);
+        tracker.onChange(null, shelf);
+    }
+
+    private static ProductSnapshot product(Long id, int stock, boolean active) {
+        return new ProductSnapshot(id, "Produit " + id, null, new BigDecimal("10.00"), stock, "Mobilier", "SKU-" + id, active, 0L);
+    }
+
+    @Test
+    @DisplayName("Should return active products below threshold by ascending stock")
+    void shouldReturnActiveProductsBelowThresholdByAscendingStock() {
+        assertThat(tracker.below(10)).containsExactly(3L, 1L);
+        assertThat(tracker.below(3)).containsExactly(3L);
+        assertThat(tracker.below(0)).isEmpty();
+        assertThat(tracker.below(100)).containsExactly(3L, 1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Should follow stock changes, activation and deletion")
+    void shouldFollowStockChangesActivationAndDeletion() {
+        tracker.onChange(chair, product(2L, 2, true));
+        tracker.onChange(shelf, product(4L, 1, true));
+        tracker.onChange(lamp, null);
+
+        assertThat(tracker.below(10)).containsExactly(4L, 2L, 1L);
+        assertThat(tracker.size()).isEqualTo(3);
+    }
+}
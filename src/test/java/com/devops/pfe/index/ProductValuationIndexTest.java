@@ -0,0 +1,80 @@
+package com.devops.pfe.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+@DisplayName("ProductValuationIndex Tests")
+class ProductValuationIndexTest {
+
+    private ProductValuationIndex index;
+
+    private final ProductSnapshot laptop = product(1L, "Informatique", "899.99", 10, true);
+    private final ProductSnapshot mouse = product(2L, "Informatique", "25.50", 4, true);
+    private final ProductSnapshot chair = product(3L, "Mobilier", "149.00", 2, true);
+    private final ProductSnapshot lamp = product(4L, "Mobilier", "30.00", 5, false);
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductValuationIndex();
+        index.onChange(null, laptop);
+        index.onChange(null, mouse);
+        index.onChange(null, chair);
+        index.onChange(null, lamp);
+    }
+
+    private static ProductSnapshot product(Long id, String category, String price, int stock, boolean active) {
+        return new ProductSnapshot(id, "Produit " + id, null, new BigDecimal(price), stock, category, "SKU-" + id, active, 0L);
+    }
+
+    @Test
+    @DisplayName("Should aggregate active stock value")
+    void shouldAggregateActiveStockValue() {
+        assertThat(index.total()).isEqualByComparingTo("9399.90");
+        assertThat(index.byCategory()).containsExactly(
+                entry("Informatique", new BigDecimal("9101.90")),
+                entry("Mobilier", new BigDecimal("298.00")));
+    }
+
+    @Test
+    @DisplayName("Should adjust on price, stock, activation and deletion")
+    void shouldAdjustOnPriceStockActivationAndDeletion() {
+        index.onChange(laptop, product(1L, "Informatique", "799.99", 10, true));
+        index.onChange(mouse, product(2L, "Informatique", "25.50", 0, true));
+        index.onChange(lamp, product(4L, "Mobilier", "30.00", 5, true));
+        index.onChange(chair, null);
+
+        assertThat(index.total()).isEqualByComparingTo("8149.90");
+        assertThat(index.byCategory()).containsExactly(
+                entry("Informatique", new BigDecimal("7999.90")),
+                entry("Mobilier", new BigDecimal("150.00")));
+    }
+
+    @Test
+    @DisplayName("Should drop empty categories and correct them from reference values")
+    void shouldDropEmptyCategoriesAndCorrect() {
+        index.onChange(chair, null);
+        assertThat(index.byCategory()).containsOnlyKeys("Informatique");
+
+        BigDecimal computers = index.byCategory().get("Informatique");
+        assertThat(index.correct("Mobilier", new BigDecimal("10.00"), index.state())).isTrue();
+        assertThat(index.total()).isEqualByComparingTo(computers.add(new BigDecimal("10.00")));
+        assertThat(index.byCategory()).containsOnlyKeys("Informatique", "Mobilier");
+    }
+
+    @Test
+    @DisplayName("Should refuse a correction for a category changed since it was read")
+    void shouldRefuseCorrectionOfChangedCategory() {
+        ProductValuationIndex.State seen = index.state();
+        index.onChange(null, chair);
+
+        assertThat(index.correct("Mobilier", BigDecimal.ZERO, seen)).isFalse();
+        assertThat(index.correct("Informatique", BigDecimal.ZERO, seen)).isTrue();
+        assertThat(index.byCategory()).containsOnlyKeys("Mobilier");
+    }
+}
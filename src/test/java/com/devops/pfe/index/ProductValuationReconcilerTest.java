@@ -0,0 +1,82 @@
+package com.devops.pfe.index;
+
+import com.devops.pfe.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("ProductValuationReconciler Tests")
+class ProductValuationReconcilerTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductIndexer productIndexer = mock(ProductIndexer.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ProductValuationIndex valuationIndex;
+    private ProductValuationReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        valuationIndex = new ProductValuationIndex();
+        valuationIndex.onChange(null, chair(4));
+        reconciler = new ProductValuationReconciler(productRepository, valuationIndex, productIndexer, meterRegistry);
+    }
+
+    private static ProductSnapshot chair(int stock) {
+        return new ProductSnapshot(1L, "Chaise", null, new BigDecimal("50.00"), stock, "Mobilier", "CHAIR-01", true, 0L);
+    }
+
+    @Test
+    @DisplayName("Should accept aggregates matching the database")
+    void shouldAcceptMatchingAggregates() {
+        when(productRepository.sumActiveValueByCategory())
+                .thenReturn(List.of(new CategoryValuation("Mobilier", new BigDecimal("200.0000"))));
+
+        assertThat(reconciler.reconcile()).isTrue();
+        assertThat(meterRegistry.counter("inventory.valuation.drift").count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should correct drifted aggregates from the database")
+    void shouldCorrectDriftedAggregates() {
+        when(productRepository.sumActiveValueByCategory()).thenReturn(List.of(
+                new CategoryValuation("Mobilier", new BigDecimal("150.00")),
+                new CategoryValuation("Informatique", new BigDecimal("99.99"))));
+
+        assertThat(reconciler.reconcile()).isFalse();
+        assertThat(valuationIndex.total()).isEqualByComparingTo("249.99");
+        assertThat(meterRegistry.counter("inventory.valuation.drift").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should leave categories with uncommitted changes alone")
+    void shouldSkipCategoriesWithPendingTransactions() {
+        when(productIndexer.pendingCategories()).thenReturn(Set.of("Mobilier"));
+        when(productRepository.sumActiveValueByCategory())
+                .thenReturn(List.of(new CategoryValuation("Mobilier", new BigDecimal("150.00"))));
+
+        assertThat(reconciler.reconcile()).isTrue();
+        assertThat(valuationIndex.total()).isEqualByComparingTo("200.00");
+    }
+
+    @Test
+    @DisplayName("Should not overwrite a change applied while the database was read")
+    void shouldKeepChangesAppliedDuringTheRead() {
+        when(productRepository.sumActiveValueByCategory()).thenAnswer(invocation -> {
+            valuationIndex.onChange(chair(4), chair(3));
+            return List.of(new CategoryValuation("Mobilier", new BigDecimal("200.00")));
+        });
+
+        assertThat(reconciler.reconcile()).isTrue();
+        assertThat(valuationIndex.total()).isEqualByComparingTo("150.00");
+        assertThat(meterRegistry.counter("inventory.valuation.drift").count()).isZero();
+    }
+}
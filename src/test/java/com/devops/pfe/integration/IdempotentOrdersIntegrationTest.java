@@ -0,0 +1,128 @@
+package com.devops.pfe.integration;
+
+import com.devops.pfe.dto.OrderDTO;
+import com.devops.pfe.dto.OrderItemDTO;
+import com.devops.pfe.entity.Product;
+import com.devops.pfe.index.ProductIndexer;
+import com.devops.pfe.order.IdempotentOrders;
+import com.devops.pfe.repository.OrderIdempotencyKeyRepository;
+import com.devops.pfe.repository.OrderRepository;
+import com.devops.pfe.repository.ProductRepository;
+import com.devops.pfe.service.OrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Clés d'idempotence partagées par les instances : une seconde instance est
+ * construite sur la même base que celle du contexte.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Idempotent Orders Integration Tests")
+class IdempotentOrdersIntegrationTest {
+
+    @Autowired
+    private IdempotentOrders idempotentOrders;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderIdempotencyKeyRepository keyRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductIndexer productIndexer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private IdempotentOrders otherInstance;
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        otherInstance = new IdempotentOrders(keyRepository, orderService, objectMapper, transactionManager,
+                Duration.ofHours(1), Duration.ofSeconds(5));
+        productId = productRepository.save(Product.builder()
+                .name("Produit idempotent")
+                .price(new BigDecimal("10.00"))
+                .stockQuantity(10)
+                .category("Commande")
+                .sku("IDEM-1")
+                .active(true)
+                .build()).getId();
+        productIndexer.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        keyRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        productIndexer.rebuild();
+    }
+
+    private OrderDTO order() {
+        return OrderDTO.builder()
+                .customerName("John Doe")
+                .customerEmail("john.doe@example.com")
+                .items(List.of(OrderItemDTO.builder().productId(productId).quantity(2).build()))
+                .build();
+    }
+
+    private int stock() {
+        return productRepository.findById(productId).orElseThrow().getStockQuantity();
+    }
+
+    @Test
+    @DisplayName("Should replay on another instance the order recorded under the key")
+    void shouldReplayOrderAcrossInstances() {
+        IdempotentOrders.Result first = idempotentOrders.execute("idem-1", order(), () -> orderService.createOrder(order()));
+        IdempotentOrders.Result replay = otherInstance.execute("idem-1", order(), () -> orderService.createOrder(order()));
+
+        assertThat(first.replayed()).isFalse();
+        assertThat(replay.replayed()).isTrue();
+        assertThat(replay.order().getId()).isEqualTo(first.order().getId());
+        assertThat(orderRepository.count()).isEqualTo(1);
+        assertThat(stock()).isEqualTo(8);
+    }
+
+    @Test
+    @DisplayName("Should roll back the order of the instance that lost the key")
+    void shouldRollBackOrderThatLostTheKey() {
+        // L'autre instance valide la même clé après notre lecture de la clé, avant notre insertion
+        IdempotentOrders.Result result = idempotentOrders.execute("idem-2", order(), () -> {
+            CompletableFuture.runAsync(() -> otherInstance.execute("idem-2", order(), () -> orderService.createOrder(order())))
+                    .join();
+            return orderService.createOrder(order());
+        });
+
+        assertThat(result.replayed()).isTrue();
+        assertThat(orderRepository.count()).isEqualTo(1);
+        assertThat(orderRepository.findAll().get(0).getId()).isEqualTo(result.order().getId());
+        assertThat(stock()).isEqualTo(8);
+    }
+}
@@ -0,0 +1,140 @@
+package com.devops.pfe.integration;
+
+import com.devops.pfe.dto.OrderDTO;
+import com.devops.pfe.dto.OrderItemDTO;
+import com.devops.pfe.entity.OrderItem;
+import com.devops.pfe.entity.Product;
+import com.devops.pfe.exception.InsufficientStockException;
+import com.devops.pfe.index.ProductIndexer;
+import com.devops.pfe.repository.OrderRepository;
+import com.devops.pfe.repository.ProductRepository;
+import com.devops.pfe.service.OrderService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Création de commandes validées pour de bon, instructions SQL comptées par les
+ * statistiques Hibernate ; la base et les index sont remis à zéro après chaque test.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Order Creation Integration Tests")
+class OrderCreationIntegrationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductIndexer productIndexer;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        productIndexer.rebuild();
+    }
+
+    private List<Long> createProducts(String prefix, int count, int stock) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(productRepository.save(Product.builder()
+                    .name("Produit " + prefix + i)
+                    .price(new BigDecimal("10.00"))
+                    .stockQuantity(stock)
+                    .category("Commande")
+                    .sku(prefix + "-" + i)
+                    .active(true)
+                    .build()).getId());
+        }
+        productIndexer.rebuild();
+        return ids;
+    }
+
+    private static OrderDTO order(List<Long> productIds, int quantity) {
+        return OrderDTO.builder()
+                .customerName("John Doe")
+                .customerEmail("john.doe@example.com")
+                .items(productIds.stream()
+                        .map(id -> OrderItemDTO.builder().productId(id).quantity(quantity).build())
+                        .toList())
+                .build();
+    }
+
+    // Instructions préparées pour une commande ; les articles, identifiés par séquence, partent en un lot
+    private long statementsPerOrder(List<Long> productIds) {
+        statistics.clear();
+        orderService.createOrder(order(productIds, 1));
+        assertThat(statistics.getEntityStatistics(OrderItem.class.getName()).getInsertCount()).isEqualTo(productIds.size());
+        assertThat(statistics.getEntityStatistics(Product.class.getName()).getFetchCount()).isZero();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    @DisplayName("Should issue as many statements for one line as for eight")
+    void shouldIssueConstantStatementsPerOrderLine() {
+        List<Long> ids = createProducts("ORD-STMT", 9, 10);
+        // La première commande ouvre le bloc d'identifiants des articles
+        statementsPerOrder(ids.subList(8, 9));
+        long oneLine = statementsPerOrder(ids.subList(8, 9));
+        long eightLines = statementsPerOrder(ids.subList(0, 8));
+
+        // Lecture verrouillée, lot d'UPDATE, commande, lot des articles, compteurs commandes et
+        // produits, lecture du compteur produits (séquences du journal), lot du journal
+        assertThat(eightLines).isEqualTo(oneLine);
+        assertThat(eightLines).isLessThanOrEqualTo(8);
+        // Lecture verrouillée des produits et lecture du compteur produits
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(2);
+        assertThat(productRepository.findAllById(ids.subList(0, 8)))
+                .allSatisfy(product -> assertThat(product.getStockQuantity()).isEqualTo(9));
+    }
+
+    @Test
+    @DisplayName("Should leave every product untouched when one line lacks stock")
+    void shouldRollBackEveryLineOnInsufficientStock() {
+        List<Long> ids = createProducts("ORD-LOCK", 3, 2);
+        List<OrderItemDTO> items = new ArrayList<>(order(ids, 1).getItems());
+        items.add(OrderItemDTO.builder().productId(ids.get(2)).quantity(2).build());
+        OrderDTO order = OrderDTO.builder()
+                .customerName("John Doe")
+                .customerEmail("john.doe@example.com")
+                .items(items)
+                .build();
+
+        assertThatThrownBy(() -> orderService.createOrder(order)).isInstanceOf(InsufficientStockException.class);
+
+        assertThat(productRepository.findAllById(ids))
+                .allSatisfy(product -> assertThat(product.getStockQuantity()).isEqualTo(2));
+        assertThat(orderRepository.count()).isZero();
+    }
+}
@@ -0,0 +1,164 @@
+package com.devops.pfe.integration;
+
+import com.devops.pfe.dto.ChangeFeedDTO;
+import com.devops.pfe.dto.ProductChangeDTO;
+import com.devops.pfe.dto.ProductDTO;
+import com.devops.pfe.feed.ProductChangeLog;
+import com.devops.pfe.index.ProductIndexer;
+import com.devops.pfe.repository.ProductChangeRepository;
+import com.devops.pfe.repository.ProductRepository;
+import com.devops.pfe.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Le journal n'expose que des entrées validées : pas de rollback automatique ici,
+ * la base et les index sont remis à zéro après chaque test.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Product Change Feed Integration Tests")
+class ProductChangeFeedIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductChangeRepository changeRepository;
+
+    @Autowired
+    private ProductChangeLog changeLog;
+
+    @Autowired
+    private ProductIndexer productIndexer;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        tearDown();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        changeRepository.deleteAll();
+        productIndexer.rebuild();
+    }
+
+    private ProductDTO product(String sku) {
+        return ProductDTO.builder()
+                .name("Produit " + sku)
+                .price(new BigDecimal("10.00"))
+                .stockQuantity(5)
+                .category("Flux")
+                .sku(sku)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should list every mutation in order and page from the last position")
+    void shouldListMutationsInOrderAndPage() throws Exception {
+        ProductDTO created = productService.createProduct(product("FEED-001"));
+        productService.addStock(created.getId(), 3);
+        productService.deactivateProduct(created.getId());
+        productService.deleteProduct(created.getId());
+
+        mockMvc.perform(get("/api/v1/products/changes").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes[*].type", contains("CREATED", "STOCK_CHANGED", "ACTIVATION_CHANGED")))
+                .andExpect(jsonPath("$.changes[1].product.stockQuantity", is(8)))
+                .andExpect(jsonPath("$.hasMore", is(true)));
+
+        ChangeFeedDTO first = productService.getChanges(0, 3);
+        ChangeFeedDTO rest = productService.getChanges(first.getNextSince(), 3);
+        assertThat(rest.getChanges()).singleElement().satisfies(change -> {
+            assertThat(change.getType()).isEqualTo("DELETED");
+            assertThat(change.getProductId()).isEqualTo(created.getId());
+            assertThat(change.getProduct()).isNull();
+        });
+        assertThat(rest.isHasMore()).isFalse();
+        assertThat(productService.getChanges(rest.getNextSince(), 3).getChanges()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should number changes in commit order so a consumer never skips a late commit")
+    void shouldNumberChangesInCommitOrder() throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        ChangeFeedDTO during = transaction.execute(status -> {
+            productService.createProduct(product("FEED-SLOW"));
+            // Une transaction concurrente, commencée plus tard, valide avant celle-ci
+            CompletableFuture.runAsync(() -> productService.createProduct(product("FEED-FAST"))).join();
+
+            return CompletableFuture.supplyAsync(() -> productService.getChanges(0, 10)).join();
+        });
+
+        assertThat(during.getChanges())
+                .extracting(change -> change.getProduct().getSku())
+                .containsExactly("FEED-FAST");
+        assertThat(productService.getChanges(during.getNextSince(), 10).getChanges())
+                .extracting(change -> change.getProduct().getSku())
+                .containsExactly("FEED-SLOW");
+        assertThat(productService.getChanges(0, 10).getChanges())
+                .extracting(change -> change.getProduct().getSku())
+                .containsExactly("FEED-FAST", "FEED-SLOW");
+    }
+
+    @Test
+    @DisplayName("Should keep only the latest change per product and drop old deletions when compacting")
+    void shouldCompactSupersededChangesAndOldDeletions() {
+        ProductDTO kept = productService.createProduct(product("FEED-010"));
+        productService.updateStock(kept.getId(), 1);
+        productService.updateStock(kept.getId(), 2);
+        ProductDTO deleted = productService.createProduct(product("FEED-011"));
+        productService.deleteProduct(deleted.getId());
+
+        LocalDateTime later = LocalDateTime.now().plusMinutes(1);
+        assertThat(changeLog.compact(later, LocalDateTime.now().minusDays(1))).isEqualTo(3);
+        assertThat(productService.getChanges(0, 10).getChanges())
+                .extracting(ProductChangeDTO::getType, ProductChangeDTO::getProductId)
+                .containsExactly(
+                        tuple("STOCK_CHANGED", kept.getId()),
+                        tuple("DELETED", deleted.getId()));
+
+        assertThat(changeLog.compact(later, later)).isEqualTo(1);
+        assertThat(productService.getChanges(0, 10).getChanges())
+                .singleElement()
+                .extracting(change -> change.getProduct().getStockQuantity())
+                .isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should reject a negative position")
+    void shouldRejectNegativePosition() throws Exception {
+        mockMvc.perform(get("/api/v1/products/changes").param("since", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+}
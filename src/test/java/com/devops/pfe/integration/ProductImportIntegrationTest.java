@@ -0,0 +1,355 @@
+package com.devops.pfe.integration;
+
+import com.devops.pfe.entity.Order;
+import com.devops.pfe.entity.OrderItem;
+import com.devops.pfe.entity.OrderStatus;
+import com.devops.pfe.entity.Product;
+import com.devops.pfe.index.ProductIndexer;
+import com.devops.pfe.repository.OrderRepository;
+import com.devops.pfe.repository.ProductRepository;
+import com.devops.pfe.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * L'import valide ses lots dans leurs propres transactions : pas de rollback
+ * automatique ici, la base et les index sont remis à zéro après chaque test.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Product Import Integration Tests")
+class ProductImportIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductIndexer productIndexer;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        productIndexer.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        productIndexer.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should import CSV with upsert by SKU and report invalid rows")
+    void shouldImportCsvWithUpsertBySku() throws Exception {
+        productRepository.save(Product.builder()
+                .name("Ancien nom")
+                .price(new BigDecimal("5.00"))
+                .stockQuantity(1)
+                .category("Import")
+                .sku("IMP-001")
+                .active(true)
+                .build());
+        String csv = """
+                sku,name,description,price,stockQuantity,category,active
+                IMP-001,Clavier mécanique,"Switches rouges, rétroéclairé",89.90,15,Import,true
+                IMP-002,Souris sans fil,,24.50,40,Import,
+                IMP-003,X,,-1,3,Import,true
+                IMP-004,Écran,,abc,3,Import,true
+                """;
+
+        mockMvc.perform(post("/api/v1/products/import")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.processed", is(4)))
+                .andExpect(jsonPath("$.imported", is(2)))
+                .andExpect(jsonPath("$.failed", is(2)))
+                .andExpect(jsonPath("$.errors[*].line", contains(4, 5)))
+                .andExpect(jsonPath("$.errors[0].sku", is("IMP-003")));
+
+        assertThat(productRepository.count()).isEqualTo(2);
+        Product updated = productRepository.findBySku("IMP-001").orElseThrow();
+        assertThat(updated.getName()).isEqualTo("Clavier mécanique");
+        assertThat(updated.getDescription()).isEqualTo("Switches rouges, rétroéclairé");
+        assertThat(updated.getCreatedAt()).isNotNull();
+
+        // Index en mémoire alimentés par l'import
+        assertThat(productService.searchProducts("souris")).extracting("sku").containsExactly("IMP-002");
+        assertThat(productService.calculateTotalValue()).isEqualByComparingTo("2328.50");
+    }
+
+    @Test
+    @DisplayName("Should invalidate second-level and query caches after a JDBC import")
+    void shouldInvalidateSecondLevelCachesAfterImport() throws Exception {
+        Long id = productRepository.save(Product.builder()
+                .name("Ancien nom")
+                .price(new BigDecimal("5.00"))
+                .stockQuantity(1)
+                .category("Import")
+                .sku("IMP-001")
+                .active(true)
+                .build()).getId();
+        // Régions chaudes : entité par ID, résultat (vide ou non) des recherches par SKU
+        productRepository.findById(id);
+        productRepository.findBySku("IMP-001");
+        assertThat(productRepository.findBySku("IMP-002")).isEmpty();
+
+        mockMvc.perform(post("/api/v1/products/import")
+                        .contentType("text/csv")
+                        .content("""
+                                sku,name,price,stockQuantity,category
+                                IMP-001,Clavier mécanique,89.90,15,Import
+                                IMP-002,Souris sans fil,24.50,40,Import
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(2)));
+
+        assertThat(productRepository.findById(id)).get().extracting(Product::getName).isEqualTo("Clavier mécanique");
+        assertThat(productRepository.findBySku("IMP-001")).get().extracting(Product::getStockQuantity).isEqualTo(15);
+        assertThat(productRepository.findBySku("IMP-002")).isPresent();
+        // Seconde lecture servie par la région de l'entité
+        assertThat(productRepository.findById(id)).isPresent();
+
+        mockMvc.perform(get("/actuator/metrics/hibernate.second.level.cache.requests")
+                        .param("tag", "region:com.devops.pfe.entity.Product")
+                        .param("tag", "result:hit"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value", greaterThan(0.0)));
+        mockMvc.perform(get("/actuator/metrics/hibernate.cache.query.requests"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Should import NDJSON and reject malformed lines without aborting")
+    void shouldImportNdjsonAndRejectMalformedLines() throws Exception {
+        String ndjson = """
+                {"sku":"NDJ-001","name":"Lampe","price":19.99,"stockQuantity":7,"category":"Import"}
+                {"sku":"NDJ-002","name":
+                {"name":"Sans SKU","price":9.99,"stockQuantity":1,"category":"Import"}
+                {"sku":"NDJ-003","name":"Bureau","price":249.00,"stockQuantity":2,"category":"Import","active":false}
+                """;
+
+        mockMvc.perform(post("/api/v1/products/import")
+                        .contentType("application/x-ndjson")
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(2)))
+                .andExpect(jsonPath("$.failed", is(2)))
+                .andExpect(jsonPath("$.errors[*].line", contains(2, 3)));
+
+        assertThat(productRepository.findBySku("NDJ-003")).get()
+                .extracting(Product::getActive).isEqualTo(false);
+    }
+
+    @Test
+    @DisplayName("Should export the catalogue as CSV that imports back unchanged")
+    void shouldExportCatalogueAsReimportableCsv() throws Exception {
+        productRepository.save(Product.builder()
+                .name("Clavier")
+                .description("Switches rouges, \"silencieux\"")
+                .price(new BigDecimal("89.90"))
+                .stockQuantity(15)
+                .category("Export")
+                .sku("EXP-001")
+                .active(true)
+                .build());
+        productRepository.save(Product.builder()
+                .name("Souris")
+                .price(new BigDecimal("24.50"))
+                .stockQuantity(0)
+                .category("Export")
+                .sku("EXP-002")
+                .active(false)
+                .build());
+
+        var result = mockMvc.perform(get("/api/v1/products/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String csv = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(csv.lines()).hasSize(3);
+        assertThat(csv.lines().findFirst()).hasValue("id,sku,name,description,price,stockQuantity,category,active");
+        assertThat(csv).contains(",EXP-001,Clavier,\"Switches rouges, \"\"silencieux\"\"\",89.90,15,Export,true\n");
+        assertThat(csv).contains(",EXP-002,Souris,,24.50,0,Export,false\n");
+
+        productRepository.deleteAll();
+        productIndexer.rebuild();
+        mockMvc.perform(post("/api/v1/products/import")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(2)))
+                .andExpect(jsonPath("$.failed", is(0)));
+        assertThat(productRepository.findBySku("EXP-001")).get()
+                .extracting(Product::getDescription).isEqualTo("Switches rouges, \"silencieux\"");
+        assertThat(productRepository.findBySku("EXP-002")).get()
+                .extracting(Product::getActive).isEqualTo(false);
+    }
+
+    @Test
+    @DisplayName("Should import back exported descriptions that span several lines")
+    void shouldRoundTripMultiLineDescriptions() throws Exception {
+        String description = "Switches rouges\r\nRétroéclairage \"RGB\", USB-C\nGaranti 2 ans";
+        productRepository.save(Product.builder()
+                .name("Clavier")
+                .description(description)
+                .price(new BigDecimal("89.90"))
+                .stockQuantity(15)
+                .category("Export")
+                .sku("EXP-003")
+                .active(true)
+                .build());
+
+        var result = mockMvc.perform(get("/api/v1/products/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String csv = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        productRepository.deleteAll();
+        productIndexer.rebuild();
+        // Enregistrement sur trois lignes, suivi d'une ligne invalide numérotée d'après le flux
+        mockMvc.perform(post("/api/v1/products/import")
+                        .contentType("text/csv")
+                        .content(csv + ",EXP-004,Souris,,abc,1,Export,true\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(1)))
+                .andExpect(jsonPath("$.failed", is(1)))
+                .andExpect(jsonPath("$.errors[0].line", is(5)));
+        assertThat(productRepository.findBySku("EXP-003")).get()
+                .extracting(Product::getDescription).isEqualTo(description);
+    }
+
+    @Test
+    @DisplayName("Should export the catalogue as NDJSON, one product per line")
+    void shouldExportCatalogueAsNdjson() throws Exception {
+        productRepository.save(Product.builder()
+                .name("Lampe")
+                .price(new BigDecimal("19.99"))
+                .stockQuantity(7)
+                .category("Export")
+                .sku("EXP-010")
+                .active(true)
+                .build());
+
+        var result = mockMvc.perform(get("/api/v1/products/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String ndjson = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(ndjson).endsWith("\n");
+        assertThat(ndjson.lines()).singleElement().asString()
+                .contains("\"sku\":\"EXP-010\"", "\"price\":19.99", "\"stockQuantity\":7", "\"active\":true");
+    }
+
+    @Test
+    @DisplayName("Should export orders as CSV, one line per item")
+    void shouldExportOrdersOneLinePerItem() throws Exception {
+        Product product = productRepository.save(Product.builder()
+                .name("Câble")
+                .price(new BigDecimal("9.90"))
+                .stockQuantity(100)
+                .category("Export")
+                .sku("EXP-020")
+                .active(true)
+                .build());
+        Order order = Order.builder()
+                .orderNumber("CMD-EXP-1")
+                .customerName("Dupont, Jean")
+                .customerEmail("jean@example.com")
+                .status(OrderStatus.CONFIRMED)
+                .build();
+        order.addItem(OrderItem.builder().product(product).quantity(2).unitPrice(new BigDecimal("9.90")).build());
+        order.addItem(OrderItem.builder().product(product).quantity(1).unitPrice(new BigDecimal("8.50")).build());
+        orderRepository.save(order);
+
+        var result = mockMvc.perform(get("/api/v1/orders/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String csv = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(csv.lines()).hasSize(3);
+        assertThat(csv.lines().skip(1)).allSatisfy(line -> assertThat(line)
+                .startsWith("CMD-EXP-1,CONFIRMED,\"Dupont, Jean\",jean@example.com,")
+                .contains(",EXP-020," + product.getId() + ","));
+        assertThat(csv).contains(",2,9.90\n", ",1,8.50\n");
+    }
+
+    @Test
+    @DisplayName("Should apply stock adjustments in one transaction with one result per line")
+    void shouldAdjustStockWithPerLineResults() throws Exception {
+        Long first = productRepository.save(Product.builder()
+                .name("Clavier").price(new BigDecimal("10.00")).stockQuantity(10)
+                .category("Stock").sku("ADJ-001").active(true).build()).getId();
+        Long second = productRepository.save(Product.builder()
+                .name("Souris").price(new BigDecimal("5.00")).stockQuantity(3)
+                .category("Stock").sku("ADJ-002").active(true).build()).getId();
+        productIndexer.rebuild();
+        // Entrée chaude dans le cache, qui doit être invalidée
+        assertThat(productService.getProductById(first).getStockQuantity()).isEqualTo(10);
+
+        mockMvc.perform(post("/api/v1/products/stock/adjustments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [
+                                  {"sku": "ADJ-001", "delta": -4},
+                                  {"productId": %d, "delta": -5},
+                                  {"productId": %d, "quantity": 20},
+                                  {"sku": "ADJ-999", "delta": 1},
+                                  {"sku": "ADJ-001", "delta": 1, "quantity": 2},
+                                  {"productId": %d, "delta": 2}
+                                ]
+                                """.formatted(second, second, first)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.processed", is(6)))
+                .andExpect(jsonPath("$.applied", is(3)))
+                .andExpect(jsonPath("$.failed", is(3)))
+                .andExpect(jsonPath("$.results[*].outcome",
+                        contains("APPLIED", "INSUFFICIENT_STOCK", "APPLIED", "NOT_FOUND", "INVALID", "APPLIED")))
+                .andExpect(jsonPath("$.results[0].productId", is(first.intValue())))
+                .andExpect(jsonPath("$.results[0].stockQuantity", is(8)))
+                .andExpect(jsonPath("$.results[1].stockQuantity", is(20)))
+                .andExpect(jsonPath("$.results[2].stockQuantity", is(20)));
+
+        assertThat(productRepository.findById(first)).get().extracting(Product::getStockQuantity).isEqualTo(8);
+        assertThat(productRepository.findById(second)).get().extracting(Product::getStockQuantity).isEqualTo(20);
+        assertThat(productService.getProductById(first).getStockQuantity()).isEqualTo(8);
+    }
+}
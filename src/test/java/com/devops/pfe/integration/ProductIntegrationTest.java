@@ -2,7 +2,10 @@ package com.devops.pfe.integration;
 
 import com.devops.pfe.dto.ProductDTO;
 import com.devops.pfe.entity.Product;
+import com.devops.pfe.index.ProductIndexer;
+import com.devops.pfe.mapper.ProductMapper;
 import com.devops.pfe.repository.ProductRepository;
+import com.devops.pfe.service.ProductService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -11,8 +14,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -38,6 +43,18 @@ class ProductIntegrationTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ProductIndexer productIndexer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private ProductDTO productDTO;
 
     @BeforeEach
@@ -101,6 +118,7 @@ class ProductIntegrationTest {
                 .category("Updated")
                 .sku("ORIG-001")
                 .active(true)
+                .version(saved.getVersion())
                 .build();
 
         mockMvc.perform(put("/api/v1/products/" + saved.getId())
@@ -113,6 +131,15 @@ class ProductIntegrationTest {
         Product updated = productRepository.findById(saved.getId()).orElseThrow();
         assertThat(updated.getName()).isEqualTo("Updated Product");
         assertThat(updated.getPrice()).isEqualByComparingTo(new BigDecimal("150.00"));
+
+        // Une seconde mise à jour fondée sur la même version lue est refusée
+        productRepository.flush();
+        mockMvc.perform(put("/api/v1/products/" + saved.getId())
+                        .header("If-Match", "\"product-" + saved.getId() + "-v" + updateDTO.getVersion() + "\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateDTO.toBuilder().name("Lost Update").build())))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.errorCode", is("VERSION_MISMATCH")));
     }
 
     @Test
@@ -180,9 +207,10 @@ class ProductIntegrationTest {
                 .active(true)
                 .build();
 
-        productRepository.save(electronics1);
-        productRepository.save(electronics2);
-        productRepository.save(furniture);
+        // Créés via le service pour alimenter les index en mémoire (recherche)
+        productService.createProduct(productMapper.toDTO(electronics1));
+        productService.createProduct(productMapper.toDTO(electronics2));
+        productService.createProduct(productMapper.toDTO(furniture));
 
         // Search by category
         mockMvc.perform(get("/api/v1/products/category/Electronics"))
@@ -242,4 +270,83 @@ class ProductIntegrationTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.validationErrors").exists());
     }
+
+    @Test
+    @DisplayName("Should answer 304 until the product version changes")
+    void shouldAnswerNotModifiedUntilProductVersionChanges() throws Exception {
+        ProductDTO created = productService.createProduct(productDTO);
+        String url = "/api/v1/products/" + created.getId();
+
+        String eTag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version", is(0)))
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(eTag).isEqualTo("\"product-" + created.getId() + "-v0\"");
+
+        mockMvc.perform(get(url).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        productService.addStock(created.getId(), 5);
+
+        mockMvc.perform(get(url).header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"product-" + created.getId() + "-v1\""))
+                .andExpect(jsonPath("$.stockQuantity", is(80)));
+    }
+
+    @Test
+    @DisplayName("Should answer 304 on collections until the catalogue changes")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldAnswerNotModifiedOnCollectionsUntilCatalogueChanges() throws Exception {
+        try {
+            productService.createProduct(productDTO);
+
+            String eTag = mockMvc.perform(get("/api/v1/products/search").param("keyword", "integration"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andReturn().getResponse().getHeader("ETag");
+
+            mockMvc.perform(get("/api/v1/products/search").param("keyword", "integration").header("If-None-Match", eTag))
+                    .andExpect(status().isNotModified());
+            mockMvc.perform(get("/api/v1/products").header("If-None-Match", eTag))
+                    .andExpect(status().isNotModified());
+
+            productService.createProduct(ProductDTO.builder()
+                    .name("Second Integration Product")
+                    .price(new BigDecimal("9.99"))
+                    .stockQuantity(1)
+                    .category("Testing")
+                    .sku("INT-TEST-002")
+                    .build());
+
+            mockMvc.perform(get("/api/v1/products/search").param("keyword", "integration").header("If-None-Match", eTag))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(2)));
+        } finally {
+            cleanUpCommitted();
+        }
+    }
+
+    @Test
+    @DisplayName("Should change the collection ETag when another instance commits a change")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldChangeCollectionETagWhenAnotherInstanceCommits() throws Exception {
+        String eTag = mockMvc.perform(get("/api/v1/products"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Écriture validée par une autre instance : le compteur est celui de la base
+        jdbcTemplate.update("UPDATE collection_versions SET version = version + 1 WHERE name = 'products'");
+
+        mockMvc.perform(get("/api/v1/products").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(eTag)));
+    }
+
+    // Les écritures d'un test hors transaction sont validées : la base et les index sont remis à zéro
+    private void cleanUpCommitted() {
+        productRepository.deleteAll();
+        productIndexer.rebuild();
+    }
 }
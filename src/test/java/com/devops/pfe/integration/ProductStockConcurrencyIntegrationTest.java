@@ -0,0 +1,103 @@
+package com.devops.pfe.integration;
+
+import com.devops.pfe.entity.Product;
+import com.devops.pfe.exception.InsufficientStockException;
+import com.devops.pfe.index.ProductIndexer;
+import com.devops.pfe.repository.ProductRepository;
+import com.devops.pfe.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Décréments concurrents réels : chaque appel valide sa propre transaction,
+ * la base et les index sont remis à zéro après le test.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Product Stock Concurrency Integration Tests")
+class ProductStockConcurrencyIntegrationTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 20;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductIndexer productIndexer;
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        productIndexer.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should neither lose decrements nor oversell under contention")
+    void shouldNeitherLoseDecrementsNorOversell() throws Exception {
+        Long id = productRepository.save(Product.builder()
+                .name("Produit disputé")
+                .price(new BigDecimal("10.00"))
+                .stockQuantity(100)
+                .category("Stock")
+                .sku("HOT-001")
+                .active(true)
+                .build()).getId();
+        productIndexer.rebuild();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                Callable<Integer> worker = () -> {
+                    start.await();
+                    int succeeded = 0;
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        try {
+                            productService.removeStock(id, 1);
+                            succeeded++;
+                        } catch (InsufficientStockException e) {
+                            // Stock épuisé : refus attendu une fois les 100 unités vendues
+                        }
+                    }
+                    return succeeded;
+                };
+                results.add(executor.submit(worker));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            for (Future<Integer> result : results) {
+                succeeded += result.get(60, TimeUnit.SECONDS);
+            }
+
+            assertThat(succeeded).isEqualTo(100);
+            Product product = productRepository.findById(id).orElseThrow();
+            assertThat(product.getStockQuantity()).isZero();
+            assertThat(product.getVersion()).isEqualTo(100L);
+            assertThat(productIndexer.get(id).stockQuantity()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
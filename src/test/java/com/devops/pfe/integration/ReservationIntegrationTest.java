@@ -0,0 +1,219 @@
+package com.devops.pfe.integration;
+
+import com.devops.pfe.dto.OrderDTO;
+import com.devops.pfe.dto.OrderItemDTO;
+import com.devops.pfe.dto.ReservationDTO;
+import com.devops.pfe.dto.ReservationRequestDTO;
+import com.devops.pfe.dto.StockAvailabilityDTO;
+import com.devops.pfe.entity.Product;
+import com.devops.pfe.entity.ReservationStatus;
+import com.devops.pfe.entity.StockReservation;
+import com.devops.pfe.exception.BusinessException;
+import com.devops.pfe.exception.InsufficientStockException;
+import com.devops.pfe.index.ProductIndexer;
+import com.devops.pfe.inventory.ReservationSweeper;
+import com.devops.pfe.repository.OrderRepository;
+import com.devops.pfe.repository.ProductRepository;
+import com.devops.pfe.repository.StockReservationRepository;
+import com.devops.pfe.service.OrderService;
+import com.devops.pfe.service.ReservationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Réservations validées pour de bon : chaque appel de service a sa propre
+ * transaction, les tables sont vidées après chaque test.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Reservation Integration Tests")
+class ReservationIntegrationTest {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ReservationSweeper reservationSweeper;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductIndexer productIndexer;
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        reservationRepository.deleteAll();
+        productRepository.deleteAll();
+        productIndexer.rebuild();
+    }
+
+    private Long createProduct(String sku, int stock) {
+        Long id = productRepository.save(Product.builder()
+                .name("Produit " + sku)
+                .price(new BigDecimal("10.00"))
+                .stockQuantity(stock)
+                .category("Stock")
+                .sku(sku)
+                .active(true)
+                .build()).getId();
+        productIndexer.rebuild();
+        return id;
+    }
+
+    private ReservationRequestDTO request(Long ttlSeconds, OrderItemDTO... items) {
+        return ReservationRequestDTO.builder()
+                .customerName("John Doe")
+                .customerEmail("john.doe@example.com")
+                .items(List.of(items))
+                .ttlSeconds(ttlSeconds)
+                .build();
+    }
+
+    private static OrderItemDTO item(Long productId, int quantity) {
+        return OrderItemDTO.builder().productId(productId).quantity(quantity).build();
+    }
+
+    private int stockOf(Long productId) {
+        return productRepository.findById(productId).orElseThrow().getStockQuantity();
+    }
+
+    private int reservedOf(Long productId) {
+        return productRepository.findById(productId).orElseThrow().getReservedQuantity();
+    }
+
+    private ReservationStatus statusOf(String token) {
+        return reservationRepository.findByToken(token).orElseThrow().getStatus();
+    }
+
+    @Test
+    @DisplayName("Should hold stock and take it from the stock only when converting the hold into an order")
+    void shouldHoldAndConvertIntoOrder() {
+        Long id = createProduct("RSV-001", 10);
+
+        ReservationDTO reservation = reservationService.createReservation(request(null, item(id, 2), item(id, 1)));
+
+        assertThat(reservation.getItems()).singleElement().satisfies(line -> assertThat(line.getQuantity()).isEqualTo(3));
+        assertThat(stockOf(id)).isEqualTo(10);
+        StockAvailabilityDTO held = reservationService.getStockAvailability(id);
+        assertThat(held.getAvailable()).isEqualTo(7);
+        assertThat(held.getReserved()).isEqualTo(3);
+
+        OrderDTO order = orderService.createOrderFromReservation(reservation.getToken());
+
+        assertThat(order.getItems()).singleElement().satisfies(line -> assertThat(line.getQuantity()).isEqualTo(3));
+        assertThat(stockOf(id)).isEqualTo(7);
+        assertThat(reservedOf(id)).isZero();
+        assertThat(reservationService.getStockAvailability(id).getAvailable()).isEqualTo(7);
+        assertThat(reservationService.getStockAvailability(id).getReserved()).isZero();
+        assertThat(reservationService.getReservation(reservation.getToken()).getOrderNumber()).isEqualTo(order.getOrderNumber());
+        assertThatThrownBy(() -> orderService.createOrderFromReservation(reservation.getToken()))
+                .isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    @DisplayName("Should keep held stock out of reach of orders")
+    void shouldKeepHeldStockFromOrders() {
+        Long id = createProduct("RSV-007", 5);
+        String token = reservationService.createReservation(request(null, item(id, 4))).getToken();
+        OrderDTO order = OrderDTO.builder()
+                .customerName("Jane Doe")
+                .customerEmail("jane.doe@example.com")
+                .items(List.of(item(id, 2)))
+                .build();
+
+        assertThatThrownBy(() -> orderService.createOrder(order)).isInstanceOf(InsufficientStockException.class);
+        assertThatThrownBy(() -> reservationService.createReservation(request(null, item(id, 2))))
+                .isInstanceOf(InsufficientStockException.class);
+        assertThat(stockOf(id)).isEqualTo(5);
+
+        reservationService.releaseReservation(token);
+        orderService.createOrder(order);
+
+        assertThat(stockOf(id)).isEqualTo(3);
+        assertThat(reservedOf(id)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should hold every item or none")
+    void shouldHoldEveryItemOrNone() {
+        Long available = createProduct("RSV-002", 10);
+        Long scarce = createProduct("RSV-003", 5);
+
+        assertThatThrownBy(() -> reservationService.createReservation(request(null, item(available, 2), item(scarce, 6))))
+                .isInstanceOf(InsufficientStockException.class);
+
+        assertThat(stockOf(available)).isEqualTo(10);
+        assertThat(stockOf(scarce)).isEqualTo(5);
+        assertThat(reservationRepository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should return released holds to stock once")
+    void shouldReturnReleasedHoldsToStock() {
+        Long id = createProduct("RSV-004", 10);
+        String token = reservationService.createReservation(request(null, item(id, 4))).getToken();
+
+        reservationService.releaseReservation(token);
+
+        assertThat(stockOf(id)).isEqualTo(10);
+        assertThat(reservedOf(id)).isZero();
+        assertThat(statusOf(token)).isEqualTo(ReservationStatus.RELEASED);
+        assertThatThrownBy(() -> reservationService.releaseReservation(token)).isInstanceOf(BusinessException.class);
+        assertThat(stockOf(id)).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Should expire holds armed in the timer wheel")
+    void shouldExpireHoldsArmedInTimerWheel() throws InterruptedException {
+        Long id = createProduct("RSV-005", 10);
+        String token = reservationService.createReservation(request(1L, item(id, 3))).getToken();
+
+        // Échéance d'une seconde, rendue au plus un tick plus tard
+        for (int i = 0; i < 50 && statusOf(token) == ReservationStatus.HELD; i++) {
+            Thread.sleep(100);
+            reservationSweeper.sweep();
+        }
+
+        assertThat(statusOf(token)).isEqualTo(ReservationStatus.EXPIRED);
+        assertThat(stockOf(id)).isEqualTo(10);
+        assertThatThrownBy(() -> orderService.createOrderFromReservation(token)).isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    @DisplayName("Should expire overdue holds found in the database")
+    void shouldExpireOverdueHoldsFromDatabase() {
+        Long id = createProduct("RSV-006", 10);
+        String token = reservationService.createReservation(request(300L, item(id, 3))).getToken();
+        // Réservation échue qu'aucune roue de cette instance n'attend encore
+        StockReservation reservation = reservationRepository.findByToken(token).orElseThrow();
+        reservation.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        reservationRepository.save(reservation);
+
+        reservationSweeper.sweepOverdue();
+
+        assertThat(statusOf(token)).isEqualTo(ReservationStatus.EXPIRED);
+        assertThat(stockOf(id)).isEqualTo(10);
+    }
+}
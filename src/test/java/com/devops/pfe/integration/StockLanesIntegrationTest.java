@@ -0,0 +1,196 @@
+package com.devops.pfe.integration;
+
+import com.devops.pfe.dto.OrderDTO;
+import com.devops.pfe.dto.OrderItemDTO;
+import com.devops.pfe.entity.Product;
+import com.devops.pfe.exception.InsufficientStockException;
+import com.devops.pfe.index.ProductIndexer;
+import com.devops.pfe.repository.OrderRepository;
+import com.devops.pfe.repository.ProductRepository;
+import com.devops.pfe.service.OrderService;
+import com.devops.pfe.service.ProductService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Files d'écriture du stock activées, sur une base et un cache de second niveau
+ * dédiés : la fermeture de ce contexte ne touche pas celui des autres tests.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:lanesdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.properties.hibernate.javax.cache.uri=application.conf",
+        "inventory.lanes.enabled=true",
+        "inventory.lanes.count=2"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+@DisplayName("Stock Lanes Integration Tests")
+class StockLanesIntegrationTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 20;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductIndexer productIndexer;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        productIndexer.rebuild();
+    }
+
+    private Long createProduct(String sku, int stock) {
+        Long id = productRepository.save(Product.builder()
+                .name("Produit " + sku)
+                .price(new BigDecimal("10.00"))
+                .stockQuantity(stock)
+                .category("Stock")
+                .sku(sku)
+                .active(true)
+                .build()).getId();
+        productIndexer.rebuild();
+        return id;
+    }
+
+    private int stockOf(Long id) {
+        return productRepository.findById(id).orElseThrow().getStockQuantity();
+    }
+
+    @Test
+    @DisplayName("Should neither lose nor oversell decrements grouped by the lane")
+    void shouldGroupDecrementsWithoutOverselling() throws Exception {
+        Long id = createProduct("LANE-001", 100);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                Callable<Integer> worker = () -> {
+                    start.await();
+                    int succeeded = 0;
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        try {
+                            productService.removeStock(id, 1);
+                            succeeded++;
+                        } catch (InsufficientStockException e) {
+                            // Stock épuisé : refus attendu une fois les 100 unités vendues
+                        }
+                    }
+                    return succeeded;
+                };
+                results.add(executor.submit(worker));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            for (Future<Integer> result : results) {
+                succeeded += result.get(60, TimeUnit.SECONDS);
+            }
+            assertThat(succeeded).isEqualTo(100);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Product product = productRepository.findById(id).orElseThrow();
+        assertThat(product.getStockQuantity()).isZero();
+        // Une écriture par lot de la file, au plus une par retrait
+        assertThat(product.getVersion()).isBetween(1L, 100L);
+        assertThat(productIndexer.get(id).stockQuantity()).isZero();
+        assertThat(productService.getProductById(id).getStockQuantity()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should return stock taken by a rolled back order")
+    void shouldCompensateRolledBackOrder() throws InterruptedException {
+        Long available = createProduct("LANE-002", 10);
+        Long scarce = createProduct("LANE-003", 1);
+        OrderDTO order = OrderDTO.builder()
+                .customerName("John Doe")
+                .customerEmail("john.doe@example.com")
+                .items(List.of(
+                        OrderItemDTO.builder().productId(available).quantity(4).build(),
+                        OrderItemDTO.builder().productId(scarce).quantity(2).build()))
+                .build();
+
+        assertThatThrownBy(() -> orderService.createOrder(order)).isInstanceOf(InsufficientStockException.class);
+
+        // La remise en stock passe par la file du produit, après l'annulation
+        for (int i = 0; i < 50 && stockOf(available) != 10; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(stockOf(available)).isEqualTo(10);
+        assertThat(stockOf(scarce)).isEqualTo(1);
+        assertThat(orderRepository.count()).isZero();
+        assertThat(productService.addStock(available, 5).getStockQuantity()).isEqualTo(15);
+    }
+
+    @Test
+    @DisplayName("Should count a compensation refused because the stock was sold meanwhile")
+    void shouldCountRefusedCompensation() throws Exception {
+        Long id = createProduct("LANE-004", 0);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertThatThrownBy(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                productService.addStock(id, 5);
+                // Le stock ajouté est déjà visible et vendu avant l'annulation de cette transaction
+                try {
+                    executor.submit(() -> productService.removeStock(id, 5)).get(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                throw new IllegalStateException("annulation");
+            })).hasMessage("annulation");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Counter failures = meterRegistry.get("inventory.lanes.compensation.failures").counter();
+        for (int i = 0; i < 50 && failures.count() == 0; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(failures.count()).isEqualTo(1);
+        assertThat(stockOf(id)).isZero();
+    }
+}
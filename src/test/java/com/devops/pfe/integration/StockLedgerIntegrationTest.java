@@ -0,0 +1,207 @@
+package com.devops.pfe.integration;
+
+import com.devops.pfe.dto.StockAdjustmentDTO;
+import com.devops.pfe.entity.Product;
+import com.devops.pfe.exception.InsufficientStockException;
+import com.devops.pfe.index.ProductIndexer;
+import com.devops.pfe.inventory.StockLedger;
+import com.devops.pfe.repository.ProductRepository;
+import com.devops.pfe.repository.StockLedgerCheckpointRepository;
+import com.devops.pfe.service.ProductBulkService;
+import com.devops.pfe.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Registre de stock activé, sur une base, un cache de second niveau et un journal
+ * dédiés : la fermeture de ce contexte ne touche pas celui des autres tests.
+ * Le report périodique est espacé : les tests le déclenchent eux-mêmes.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ledgerdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.properties.hibernate.javax.cache.uri=application.conf",
+        "inventory.ledger.enabled=true",
+        "inventory.ledger.directory=target/stock-ledger-it",
+        "inventory.ledger.flush-interval=PT1H"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+@DisplayName("Stock Ledger Integration Tests")
+class StockLedgerIntegrationTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 20;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @SpyBean
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductBulkService productBulkService;
+
+    @Autowired
+    private StockLedgerCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private ProductIndexer productIndexer;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    static void clearJournal() {
+        FileSystemUtils.deleteRecursively(Path.of("target/stock-ledger-it").toFile());
+    }
+
+    @AfterEach
+    void tearDown() {
+        stockLedger.flush();
+        productRepository.deleteAll();
+        productIndexer.rebuild();
+    }
+
+    private Long createProduct(String sku, int stock) {
+        Long id = productRepository.save(Product.builder()
+                .name("Produit " + sku)
+                .price(new BigDecimal("10.00"))
+                .stockQuantity(stock)
+                .category("Stock")
+                .sku(sku)
+                .active(true)
+                .build()).getId();
+        productIndexer.rebuild();
+        return id;
+    }
+
+    @Test
+    @DisplayName("Should admit decrements in memory and report them in a single write")
+    void shouldAdmitInMemoryAndReportInSingleWrite() throws Exception {
+        Long id = createProduct("LEDGER-001", 100);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                Callable<Integer> worker = () -> {
+                    start.await();
+                    int succeeded = 0;
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        try {
+                            productService.removeStock(id, 1);
+                            succeeded++;
+                        } catch (InsufficientStockException e) {
+                            // Stock épuisé : refus attendu une fois les 100 unités vendues
+                        }
+                    }
+                    return succeeded;
+                };
+                results.add(executor.submit(worker));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            for (Future<Integer> result : results) {
+                succeeded += result.get(60, TimeUnit.SECONDS);
+            }
+            assertThat(succeeded).isEqualTo(100);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(stockLedger.available(id)).isZero();
+        assertThat(productRepository.findById(id).orElseThrow().getStockQuantity()).isEqualTo(100);
+
+        assertThat(stockLedger.flush()).isEqualTo(1);
+
+        Product product = productRepository.findById(id).orElseThrow();
+        assertThat(product.getStockQuantity()).isZero();
+        assertThat(product.getVersion()).isEqualTo(1L);
+        assertThat(productIndexer.get(id).stockQuantity()).isZero();
+        assertThat(checkpointRepository.findAll()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should report only the net delta and answer with the ledger stock")
+    void shouldReportOnlyNetDelta() {
+        Long id = createProduct("LEDGER-002", 10);
+
+        assertThat(productService.removeStock(id, 3).getStockQuantity()).isEqualTo(7);
+        assertThat(productService.addStock(id, 5).getStockQuantity()).isEqualTo(12);
+        assertThat(productService.checkStockAvailability(id, 12)).isTrue();
+        assertThat(productService.checkStockAvailability(id, 13)).isFalse();
+
+        stockLedger.flush();
+
+        assertThat(productRepository.findById(id).orElseThrow().getStockQuantity()).isEqualTo(12);
+        assertThat(productService.getProductById(id).getStockQuantity()).isEqualTo(12);
+    }
+
+    @Test
+    @DisplayName("Should compensate movements of a rolled back transaction")
+    void shouldCompensateRolledBackMovements() {
+        Long id = createProduct("LEDGER-003", 10);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            productService.removeStock(id, 4);
+            assertThat(stockLedger.available(id)).isEqualTo(6);
+            status.setRollbackOnly();
+        });
+
+        assertThat(stockLedger.available(id)).isEqualTo(10);
+        stockLedger.flush();
+        assertThat(productRepository.findById(id).orElseThrow().getVersion()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should undo ledger adjustments of a bulk batch that rolls back")
+    void shouldUndoAdjustmentsOfRolledBackBatch() {
+        Long id = createProduct("LEDGER-004", 10);
+        Long other = createProduct("LEDGER-005", 10);
+        // Lignes par SKU : la relecture des stocks, une fois les lignes appliquées au registre, tombe en panne
+        doThrow(new DataAccessResourceFailureException("panne")).when(productRepository).findSnapshotsByIdIn(any());
+
+        assertThatThrownBy(() -> productBulkService.adjustStock(List.of(
+                StockAdjustmentDTO.builder().sku("LEDGER-004").delta(-4).build(),
+                StockAdjustmentDTO.builder().sku("LEDGER-005").quantity(25).build())))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+
+        assertThat(stockLedger.available(id)).isEqualTo(10);
+        assertThat(stockLedger.available(other)).isEqualTo(10);
+        stockLedger.flush();
+        assertThat(productRepository.findById(id).orElseThrow().getVersion()).isZero();
+        assertThat(productRepository.findById(other).orElseThrow().getVersion()).isZero();
+    }
+}
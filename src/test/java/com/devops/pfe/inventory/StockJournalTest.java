@@ -0,0 +1,67 @@
+package com.devops.pfe.inventory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("StockJournal Tests")
+class StockJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should replay net deltas of segments after the checkpoint")
+    void shouldReplayNetDeltasAfterCheckpoint() {
+        try (StockJournal journal = new StockJournal(directory, 1)) {
+            journal.append(1L, -3);
+            journal.append(2L, 5);
+            assertThat(journal.rotate()).isEqualTo(1L);
+
+            journal.append(1L, -2);
+            journal.append(2L, -5);
+            journal.append(3L, 7);
+        }
+
+        assertThat(StockJournal.segments(directory)).containsExactly(1L, 2L);
+        assertThat(StockJournal.replay(directory, 0)).isEqualTo(Map.of(1L, -5, 3L, 7));
+        assertThat(StockJournal.replay(directory, 1)).isEqualTo(Map.of(1L, -2, 2L, -5, 3L, 7));
+        assertThat(StockJournal.replay(directory, 2)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should ignore a truncated trailing record")
+    void shouldIgnoreTruncatedTrailingRecord() throws IOException {
+        try (StockJournal journal = new StockJournal(directory, 1)) {
+            journal.append(1L, -4);
+        }
+        Path segment = directory.resolve("stock-ledger-0000000000000000001.journal");
+        Files.write(segment, new byte[] {0, 0, 0, 0, 0}, StandardOpenOption.APPEND);
+
+        assertThat(StockJournal.replay(directory, 0)).isEqualTo(Map.of(1L, -4));
+    }
+
+    @Test
+    @DisplayName("Should delete closed segments but keep the current one")
+    void shouldDeleteClosedSegmentsButKeepCurrent() {
+        try (StockJournal journal = new StockJournal(directory, 1)) {
+            journal.append(1L, 1);
+            journal.rotate();
+            journal.append(1L, 1);
+            journal.rotate();
+
+            journal.deleteThrough(journal.currentSegment());
+
+            assertThat(StockJournal.segments(directory)).containsExactly(3L);
+            assertThat(StockJournal.replay(directory, 0)).isEmpty();
+        }
+    }
+}
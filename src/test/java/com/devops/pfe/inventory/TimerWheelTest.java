@@ -0,0 +1,66 @@
+package com.devops.pfe.inventory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("TimerWheel Tests")
+class TimerWheelTest {
+
+    private final TimerWheel<String> wheel = new TimerWheel<>(Duration.ofMillis(100), 8, 0);
+
+    @Test
+    @DisplayName("Should release timeouts at their tick, never before")
+    void shouldReleaseTimeoutsAtTheirTick() {
+        wheel.schedule("a", 250);
+        wheel.schedule("b", 300);
+
+        assertThat(wheel.advance(299)).isEmpty();
+        assertThat(wheel.advance(300)).containsExactlyInAnyOrder("a", "b");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep timeouts of later rounds in their slot")
+    void shouldKeepTimeoutsOfLaterRounds() {
+        // 8 cases de 100 ms : 300 et 1100 tombent dans la même case
+        wheel.schedule("near", 300);
+        wheel.schedule("far", 1100);
+
+        assertThat(wheel.advance(300)).containsExactly("near");
+        assertThat(wheel.advance(1099)).isEmpty();
+        assertThat(wheel.advance(1100)).containsExactly("far");
+    }
+
+    @Test
+    @DisplayName("Should release overdue timeouts on the next advance")
+    void shouldReleaseOverdueTimeoutsOnNextAdvance() {
+        wheel.advance(500);
+        wheel.schedule("late", 100);
+
+        assertThat(wheel.advance(599)).isEmpty();
+        assertThat(wheel.advance(600)).containsExactly("late");
+    }
+
+    @Test
+    @DisplayName("Should release everything due after a pause longer than a round")
+    void shouldCatchUpAfterLongPause() {
+        for (int i = 1; i <= 20; i++) {
+            wheel.schedule("t" + i, i * 100L);
+        }
+
+        assertThat(wheel.advance(5_000)).hasSize(20);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should require a power-of-two number of slots")
+    void shouldRequirePowerOfTwoSlots() {
+        assertThatThrownBy(() -> new TimerWheel<String>(Duration.ofSeconds(1), 100, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,149 @@
+package com.devops.pfe.notification;
+
+import com.devops.pfe.dto.StockAlertDTO.Direction;
+import com.devops.pfe.index.ProductChangeType;
+import com.devops.pfe.index.ProductChangedEvent;
+import com.devops.pfe.index.ProductIndexer;
+import com.devops.pfe.index.ProductSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("StockAlertNotifier Tests")
+class StockAlertNotifierTest {
+
+    private final ProductIndexer productIndexer = mock(ProductIndexer.class);
+    private StockAlertNotifier notifier;
+
+    @BeforeEach
+    void setUp() {
+        notifier = new StockAlertNotifier(productIndexer, Duration.ofMillis(200), 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        notifier.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static ProductSnapshot product(int stock) {
+        return new ProductSnapshot(1L, "Chaise", null, new BigDecimal("10.00"), stock, "Mobilier", "CHAIR-01", true, 0L);
+    }
+
+    // Émetteur qui enregistre les envois, ou reste bloqué jusqu'à la libération du verrou
+    private static class RecordingEmitter extends SseEmitter {
+        final List<Object> sent = new CopyOnWriteArrayList<>();
+        final CountDownLatch release;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sent.add(builder);
+        }
+    }
+
+    private void crossBelow() {
+        when(productIndexer.get(1L)).thenReturn(product(12));
+        notifier.onProductChanged(new ProductChangedEvent(ProductChangeType.STOCK_CHANGED, product(4)));
+    }
+
+    @Test
+    @DisplayName("Should detect threshold crossings in both directions")
+    void shouldDetectThresholdCrossings() {
+        assertThat(StockAlertNotifier.crossing(10, 9, 10)).isEqualTo(Direction.BELOW);
+        assertThat(StockAlertNotifier.crossing(2, 15, 10)).isEqualTo(Direction.RECOVERED);
+        assertThat(StockAlertNotifier.crossing(8, 3, 10)).isNull();
+        assertThat(StockAlertNotifier.crossing(20, 10, 10)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should defer alerts until transaction commit")
+    void shouldDeferAlertsUntilCommit() {
+        notifier.subscribe(10);
+        when(productIndexer.get(1L)).thenReturn(product(12));
+        TransactionSynchronizationManager.initSynchronization();
+
+        notifier.onProductChanged(new ProductChangedEvent(ProductChangeType.STOCK_CHANGED, product(4)));
+
+        assertThat(TransactionSynchronizationManager.getSynchronizations()).hasSize(1);
+        assertThat(notifier.subscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should ignore changes that do not cross any threshold")
+    void shouldIgnoreChangesWithoutCrossing() {
+        notifier.subscribe(10);
+        when(productIndexer.get(1L)).thenReturn(product(30));
+        TransactionSynchronizationManager.initSynchronization();
+
+        notifier.onProductChanged(new ProductChangedEvent(ProductChangeType.STOCK_CHANGED, product(25)));
+
+        assertThat(TransactionSynchronizationManager.getSynchronizations()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should keep alerting other subscribers while one is stalled, then drop the stalled one")
+    void shouldIsolateAndDropStalledSubscribers() throws InterruptedException {
+        CountDownLatch stall = new CountDownLatch(1);
+        RecordingEmitter stalled = new RecordingEmitter(stall);
+        RecordingEmitter healthy = new RecordingEmitter(new CountDownLatch(0));
+        notifier.subscribe(stalled, 10);
+        notifier.subscribe(healthy, 10);
+
+        crossBelow();
+        for (int i = 0; i < 50 && healthy.sent.isEmpty(); i++) {
+            Thread.sleep(20);
+        }
+        assertThat(healthy.sent).hasSize(1);
+        assertThat(stalled.sent).isEmpty();
+
+        // Au-delà du délai d'envoi, l'alerte suivante déconnecte l'abonné bloqué
+        Thread.sleep(300);
+        crossBelow();
+        stall.countDown();
+
+        assertThat(notifier.subscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should drop a stalled subscriber without waiting for another alert")
+    void shouldSweepStalledSubscribers() throws InterruptedException {
+        CountDownLatch stall = new CountDownLatch(1);
+        notifier.subscribe(new RecordingEmitter(stall), 10);
+
+        crossBelow();
+        assertThat(notifier.dropStalled()).isZero();
+
+        Thread.sleep(300);
+        assertThat(notifier.dropStalled()).isEqualTo(1);
+        stall.countDown();
+
+        assertThat(notifier.subscriberCount()).isZero();
+    }
+}
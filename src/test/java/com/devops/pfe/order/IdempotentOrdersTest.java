@@ -0,0 +1,187 @@
+package com.devops.pfe.order;
+
+import com.devops.pfe.dto.OrderDTO;
+import com.devops.pfe.entity.OrderIdempotencyKey;
+import com.devops.pfe.exception.BusinessException;
+import com.devops.pfe.exception.InsufficientStockException;
+import com.devops.pfe.repository.OrderIdempotencyKeyRepository;
+import com.devops.pfe.service.OrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IdempotentOrders Tests")
+class IdempotentOrdersTest {
+
+    @Mock
+    private OrderIdempotencyKeyRepository keyRepository;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private IdempotentOrders idempotentOrders;
+
+    private final OrderDTO request = OrderDTO.builder()
+            .customerName("John Doe")
+            .customerEmail("john.doe@example.com")
+            .build();
+
+    private final OrderDTO created = OrderDTO.builder().id(1L).orderNumber("ORD-0000000000001").build();
+
+    @BeforeEach
+    void setUp() {
+        idempotentOrders = new IdempotentOrders(keyRepository, orderService, new ObjectMapper().findAndRegisterModules(),
+                transactionManager, Duration.ofMinutes(5), Duration.ofSeconds(5));
+    }
+
+    // Empreinte enregistrée par une première création sous la clé
+    private String recordedFingerprint(String key) {
+        idempotentOrders.execute(key, request, () -> created);
+        ArgumentCaptor<String> fingerprint = ArgumentCaptor.forClass(String.class);
+        verify(keyRepository).insert(eq(key), fingerprint.capture(), eq(1L), any(LocalDateTime.class));
+        return fingerprint.getValue();
+    }
+
+    @Test
+    @DisplayName("Should run concurrent duplicates once and hand them the same order")
+    void shouldCoalesceConcurrentDuplicates() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<IdempotentOrders.Result>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> idempotentOrders.execute("key-1", request, () -> {
+                executions.incrementAndGet();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return created;
+            })));
+        }
+        // Les doublons arrivent pendant que la première création est bloquée
+        Thread.sleep(200);
+        release.countDown();
+
+        List<IdempotentOrders.Result> outcomes = new ArrayList<>();
+        for (Future<IdempotentOrders.Result> result : results) {
+            outcomes.add(result.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertThat(executions).hasValue(1);
+        assertThat(outcomes).extracting(IdempotentOrders.Result::order).containsOnly(created);
+        assertThat(outcomes).filteredOn(IdempotentOrders.Result::replayed).hasSize(7);
+        verify(keyRepository, times(1)).insert(eq("key-1"), anyString(), eq(1L), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("Should forget failed attempts so that the client can retry")
+    void shouldForgetFailedAttempts() {
+        assertThatThrownBy(() -> idempotentOrders.execute("key-2", request, () -> {
+            throw new InsufficientStockException("Produit", 0, 1);
+        })).isInstanceOf(InsufficientStockException.class);
+        verify(keyRepository, never()).insert(anyString(), anyString(), anyLong(), any(LocalDateTime.class));
+
+        IdempotentOrders.Result retry = idempotentOrders.execute("key-2", request, () -> created);
+
+        assertThat(retry.replayed()).isFalse();
+        assertThat(retry.order()).isEqualTo(created);
+    }
+
+    @Test
+    @DisplayName("Should replay the order recorded under the key by any instance")
+    void shouldReplayRecordedOrder() {
+        String fingerprint = recordedFingerprint("key-3");
+        when(keyRepository.findById("key-3"))
+                .thenReturn(Optional.of(new OrderIdempotencyKey("key-3", fingerprint, 1L, LocalDateTime.now())));
+        when(orderService.getOrderById(1L)).thenReturn(created);
+
+        IdempotentOrders.Result replay = idempotentOrders.execute("key-3", request, () -> {
+            throw new AssertionError("Commande recréée");
+        });
+
+        assertThat(replay.replayed()).isTrue();
+        assertThat(replay.order()).isEqualTo(created);
+    }
+
+    @Test
+    @DisplayName("Should reject a key reused with another body")
+    void shouldRejectReusedKey() {
+        String fingerprint = recordedFingerprint("key-4");
+        when(keyRepository.findById("key-4"))
+                .thenReturn(Optional.of(new OrderIdempotencyKey("key-4", fingerprint, 1L, LocalDateTime.now())));
+        OrderDTO other = OrderDTO.builder()
+                .customerName("Jane Doe")
+                .customerEmail("john.doe@example.com")
+                .build();
+
+        assertThatThrownBy(() -> idempotentOrders.execute("key-4", other, () -> created))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("a déjà servi");
+    }
+
+    @Test
+    @DisplayName("Should replay the other instance's order when it took the key first")
+    void shouldReplayWinnerOfConcurrentInsert() {
+        String fingerprint = recordedFingerprint("key-5");
+        OrderDTO winner = OrderDTO.builder().id(2L).orderNumber("ORD-0000000000002").build();
+        when(keyRepository.insert(eq("key-5"), anyString(), eq(3L), any(LocalDateTime.class)))
+                .thenThrow(new DataIntegrityViolationException("clé déjà prise"));
+        when(keyRepository.findById("key-5"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(new OrderIdempotencyKey("key-5", fingerprint, 2L, LocalDateTime.now())));
+        when(orderService.getOrderById(2L)).thenReturn(winner);
+
+        IdempotentOrders.Result result = idempotentOrders.execute("key-5", request,
+                () -> OrderDTO.builder().id(3L).build());
+
+        assertThat(result.replayed()).isTrue();
+        assertThat(result.order()).isEqualTo(winner);
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    @DisplayName("Should reject blank or oversized keys")
+    void shouldRejectInvalidKeys() {
+        assertThatThrownBy(() -> idempotentOrders.execute(" ", request, () -> created))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> idempotentOrders.execute("k".repeat(256), request, () -> created))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
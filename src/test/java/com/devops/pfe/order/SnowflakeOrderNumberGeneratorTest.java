@@ -0,0 +1,110 @@
+package com.devops.pfe.order;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("SnowflakeOrderNumberGenerator Tests")
+class SnowflakeOrderNumberGeneratorTest {
+
+    // Horloge réglée à la main
+    private static class FixedClockGenerator extends SnowflakeOrderNumberGenerator {
+        long now = SnowflakeOrderNumberGenerator.EPOCH + 1_000;
+
+        FixedClockGenerator(int nodeId) {
+            super(nodeId);
+        }
+
+        @Override
+        long currentTimeMillis() {
+            return now;
+        }
+    }
+
+    @Test
+    @DisplayName("Should produce fixed-width numbers in Crockford base 32")
+    void shouldProduceFixedWidthNumbers() {
+        String number = new SnowflakeOrderNumberGenerator(7).next();
+
+        assertThat(number).matches("ORD-[0-9A-HJKMNP-TV-Z]{13}");
+        assertThat(SnowflakeOrderNumberGenerator.encode(0)).isEqualTo("0000000000000");
+        assertThat(SnowflakeOrderNumberGenerator.encode(Long.MAX_VALUE)).isEqualTo("7ZZZZZZZZZZZZ");
+    }
+
+    @Test
+    @DisplayName("Should sort numbers in creation order, past 4096 per millisecond and when the clock goes back")
+    void shouldSortNumbersInCreationOrder() {
+        FixedClockGenerator generator = new FixedClockGenerator(1);
+        List<String> numbers = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            numbers.add(generator.next());
+        }
+        generator.now -= 500;
+        numbers.add(generator.next());
+        generator.now += 10_000;
+        numbers.add(generator.next());
+
+        List<String> sorted = new ArrayList<>(numbers);
+        Collections.sort(sorted);
+        assertThat(numbers).doesNotHaveDuplicates().isEqualTo(sorted);
+    }
+
+    @Test
+    @DisplayName("Should keep instances apart within the same millisecond")
+    void shouldKeepInstancesApart() {
+        FixedClockGenerator first = new FixedClockGenerator(1);
+        FixedClockGenerator second = new FixedClockGenerator(2);
+
+        long a = first.nextId();
+        long b = second.nextId();
+
+        assertThat(a).isNotEqualTo(b);
+        assertThat(a >>> 22).isEqualTo(b >>> 22);
+    }
+
+    @Test
+    @DisplayName("Should hand out distinct numbers to concurrent callers")
+    void shouldHandOutDistinctNumbersConcurrently() throws InterruptedException {
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(3);
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    numbers.add(generator.next());
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(numbers).hasSize(80_000);
+    }
+
+    @Test
+    @DisplayName("Should reject node ids beyond 10 bits")
+    void shouldRejectNodeIdsBeyondTenBits() {
+        assertThatThrownBy(() -> new SnowflakeOrderNumberGenerator(1024)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SnowflakeOrderNumberGenerator(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(new SnowflakeOrderNumberGenerator(1023).next()).startsWith("ORD-");
+    }
+
+    @Test
+    @DisplayName("Should require an explicit node id")
+    void shouldRequireExplicitNodeId() {
+        assertThatThrownBy(() -> new SnowflakeOrderNumberGenerator(null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("orders.number.node-id");
+    }
+}
@@ -0,0 +1,90 @@
+package com.devops.pfe.repository;
+
+import com.devops.pfe.entity.Order;
+import com.devops.pfe.entity.OrderItem;
+import com.devops.pfe.entity.OrderStatus;
+import com.devops.pfe.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@DisplayName("OrderRepository Tests")
+class OrderRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private Order pending;
+    private Order shipped;
+
+    @BeforeEach
+    void setUp() {
+        Product laptop = entityManager.persist(Product.builder()
+                .name("Laptop").price(new BigDecimal("1200.00")).stockQuantity(10)
+                .category("Electronics").sku("LAPTOP-001").active(true).build());
+        Product mouse = entityManager.persist(Product.builder()
+                .name("Mouse").price(new BigDecimal("25.00")).stockQuantity(100)
+                .category("Electronics").sku("MOUSE-001").active(true).build());
+
+        pending = Order.builder().orderNumber("ORD-00000001").customerName("John Doe")
+                .customerEmail("john.doe@example.com").status(OrderStatus.PENDING).build();
+        pending.addItem(OrderItem.builder().product(laptop).quantity(1).unitPrice(laptop.getPrice()).build());
+        pending.addItem(OrderItem.builder().product(mouse).quantity(2).unitPrice(mouse.getPrice()).build());
+
+        shipped = Order.builder().orderNumber("ORD-00000002").customerName("Jane Doe")
+                .customerEmail("jane.doe@example.com").status(OrderStatus.SHIPPED).build();
+        shipped.addItem(OrderItem.builder().product(mouse).quantity(3).unitPrice(mouse.getPrice()).build());
+
+        entityManager.persist(pending);
+        entityManager.persist(shipped);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Should project order headers")
+    void shouldProjectOrderHeaders() {
+        Optional<OrderRow> byNumber = orderRepository.findRowByOrderNumber("ORD-00000002");
+
+        assertThat(byNumber).isPresent();
+        assertThat(byNumber.get().status()).isEqualTo(OrderStatus.SHIPPED);
+        assertThat(byNumber.get().version()).isZero();
+        assertThat(orderRepository.findAllRows()).extracting(OrderRow::orderNumber)
+                .containsExactly("ORD-00000001", "ORD-00000002");
+        assertThat(orderRepository.findRowsByStatus(OrderStatus.PENDING)).extracting(OrderRow::id)
+                .containsExactly(pending.getId());
+        assertThat(orderRepository.findRowsByCustomerEmail("jane.doe@example.com")).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should project items with product names using the header filters")
+    void shouldProjectItemsUsingHeaderFilters() {
+        List<OrderItemRow> all = orderRepository.findAllItemRows();
+        List<OrderItemRow> shippedItems = orderRepository.findItemRowsByStatus(OrderStatus.SHIPPED);
+
+        assertThat(all).extracting(OrderItemRow::orderId)
+                .containsExactly(pending.getId(), pending.getId(), shipped.getId());
+        assertThat(all).extracting(OrderItemRow::productName).containsExactly("Laptop", "Mouse", "Mouse");
+        assertThat(shippedItems).singleElement().satisfies(item -> {
+            assertThat(item.orderId()).isEqualTo(shipped.getId());
+            assertThat(item.quantity()).isEqualTo(3);
+        });
+        assertThat(orderRepository.findItemRowsByOrderId(pending.getId())).hasSize(2);
+        assertThat(orderRepository.findItemRowsByCustomerEmail("jane.doe@example.com")).hasSize(1);
+    }
+}
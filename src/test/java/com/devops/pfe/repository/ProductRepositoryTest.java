@@ -1,17 +1,21 @@
 package com.devops.pfe.repository;
 
+import com.devops.pfe.dto.ProductDTO;
 import com.devops.pfe.entity.Product;
+import com.devops.pfe.index.CategoryValuation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -98,69 +102,14 @@ class ProductRepositoryTest {
     }
 
     @Test
-    @DisplayName("Should find products by category")
-    void shouldFindProductsByCategory() {
-        List<Product> electronics = productRepository.findByCategory("Electronics");
-
-        assertThat(electronics).hasSize(2);
-        assertThat(electronics).extracting(Product::getName)
-                .containsExactlyInAnyOrder("Laptop", "Mouse");
-    }
-
-    @Test
-    @DisplayName("Should find only active products")
-    void shouldFindOnlyActiveProducts() {
-        List<Product> activeProducts = productRepository.findByActiveTrue();
-
-        assertThat(activeProducts).hasSize(3);
-        assertThat(activeProducts).allMatch(Product::getActive);
-    }
-
-    @Test
-    @DisplayName("Should find only inactive products")
-    void shouldFindOnlyInactiveProducts() {
-        List<Product> inactiveProducts = productRepository.findByActiveFalse();
-
-        assertThat(inactiveProducts).hasSize(1);
-        assertThat(inactiveProducts.get(0).getName()).isEqualTo("Old Chair");
-    }
-
-    @Test
-    @DisplayName("Should find low stock products")
-    void shouldFindLowStockProducts() {
-        List<Product> lowStock = productRepository.findLowStockProducts(10);
-
-        assertThat(lowStock).hasSize(1);
-        assertThat(lowStock.get(0).getName()).isEqualTo("Desk");
-    }
-
-    @Test
-    @DisplayName("Should find products by price range")
-    void shouldFindProductsByPriceRange() {
-        List<Product> products = productRepository.findByPriceRange(
-                new BigDecimal("20.00"),
-                new BigDecimal("500.00")
-        );
-
-        assertThat(products).hasSize(2); // Mouse (25.00) and Desk (300.00) are active and in range
-    }
-
-    @Test
-    @DisplayName("Should search products by keyword in name")
-    void shouldSearchProductsByKeywordInName() {
-        List<Product> products = productRepository.searchByKeyword("Laptop");
-
-        assertThat(products).hasSize(1);
-        assertThat(products.get(0).getName()).isEqualTo("Laptop");
-    }
-
-    @Test
-    @DisplayName("Should search products by keyword in description")
-    void shouldSearchProductsByKeywordInDescription() {
-        List<Product> products = productRepository.searchByKeyword("wireless");
-
-        assertThat(products).hasSize(1);
-        assertThat(products.get(0).getName()).isEqualTo("Mouse");
+    @DisplayName("Should project active and category listings without entities")
+    void shouldProjectListingsWithoutEntities() {
+        List<ProductDTO> active = productRepository.findActiveDTOs();
+        List<ProductDTO> furniture = productRepository.findDTOsByCategory("Furniture");
+
+        assertThat(active).extracting(ProductDTO::getSku).containsExactly("LAPTOP-001", "MOUSE-001", "DESK-001");
+        assertThat(furniture).extracting(ProductDTO::getSku).containsExactly("DESK-001", "CHAIR-OLD");
+        assertThat(productRepository.findAllDTOs()).hasSize(4);
     }
 
     @Test
@@ -173,6 +122,18 @@ class ProductRepositoryTest {
                 .containsExactlyInAnyOrder("Electronics", "Furniture");
     }
 
+    @Test
+    @DisplayName("Should sum active stock value by category")
+    void shouldSumActiveStockValueByCategory() {
+        List<CategoryValuation> valuations = productRepository.sumActiveValueByCategory();
+
+        assertThat(valuations).hasSize(2);
+        assertThat(valuations).filteredOn(v -> v.category().equals("Electronics"))
+                .singleElement().satisfies(v -> assertThat(v.value()).isEqualByComparingTo("65000.00"));
+        assertThat(valuations).filteredOn(v -> v.category().equals("Furniture"))
+                .singleElement().satisfies(v -> assertThat(v.value()).isEqualByComparingTo("1500.00"));
+    }
+
     @Test
     @DisplayName("Should check if SKU exists")
     void shouldCheckIfSkuExists() {
@@ -182,4 +143,35 @@ class ProductRepositoryTest {
         assertThat(exists).isTrue();
         assertThat(notExists).isFalse();
     }
+
+    @Test
+    @DisplayName("Should page products by id keyset")
+    void shouldPageProductsByIdKeyset() {
+        List<ProductDTO> firstPage = productRepository.findListingPage(0L, false, null, null, Limit.of(2));
+        List<ProductDTO> secondPage = productRepository.findListingPage(
+                firstPage.get(1).getId(), false, null, null, Limit.of(2));
+
+        assertThat(firstPage).extracting(ProductDTO::getName).containsExactly("Laptop", "Mouse");
+        assertThat(secondPage).extracting(ProductDTO::getName).containsExactly("Desk", "Old Chair");
+    }
+
+    @Test
+    @DisplayName("Should apply listing filters to keyset pages")
+    void shouldApplyListingFiltersToKeysetPages() {
+        List<ProductDTO> furniture = productRepository.findListingPage(0L, false, "Furniture", null, Limit.of(10));
+        List<ProductDTO> active = productRepository.findListingPage(0L, true, null, null, Limit.of(10));
+        List<ProductDTO> lowStock = productRepository.findListingPage(0L, true, null, 10, Limit.of(10));
+
+        assertThat(furniture).extracting(ProductDTO::getName).containsExactly("Desk", "Old Chair");
+        assertThat(active).hasSize(3).allMatch(ProductDTO::getActive);
+        assertThat(lowStock).extracting(ProductDTO::getName).containsExactly("Desk");
+    }
+
+    @Test
+    @DisplayName("Should stream filtered listing ordered by id")
+    void shouldStreamFilteredListing() {
+        try (Stream<ProductDTO> stream = productRepository.streamListing(false, "Electronics", null)) {
+            assertThat(stream.map(ProductDTO::getName)).containsExactly("Laptop", "Mouse");
+        }
+    }
 }
@@ -1,14 +1,22 @@
 package com.devops.pfe.service;
 
+import com.devops.pfe.cache.ChangeCounter;
 import com.devops.pfe.dto.OrderDTO;
 import com.devops.pfe.dto.OrderItemDTO;
+import com.devops.pfe.dto.ProductDTO;
 import com.devops.pfe.entity.*;
 import com.devops.pfe.exception.BusinessException;
 import com.devops.pfe.exception.InsufficientStockException;
 import com.devops.pfe.exception.ResourceNotFoundException;
+import com.devops.pfe.exception.StaleVersionException;
+import com.devops.pfe.index.ProductSnapshot;
 import com.devops.pfe.mapper.OrderMapper;
+import com.devops.pfe.order.OrderNumberGenerator;
+import com.devops.pfe.repository.OrderItemRow;
 import com.devops.pfe.repository.OrderRepository;
+import com.devops.pfe.repository.OrderRow;
 import com.devops.pfe.repository.ProductRepository;
+import com.devops.pfe.repository.StockReservationRepository;
 import com.devops.pfe.service.impl.OrderServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -20,12 +28,16 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,16 +50,27 @@ class OrderServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private StockReservationRepository reservationRepository;
+
     @Mock
     private ProductService productService;
 
     @Mock
     private OrderMapper orderMapper;
 
+    @Mock
+    private OrderNumberGenerator orderNumberGenerator;
+
+    @Mock
+    private ChangeCounter changeCounter;
+
     @InjectMocks
     private OrderServiceImpl orderService;
 
     private Order order;
+    private OrderRow orderRow;
+    private OrderItemRow orderItemRow;
     private OrderDTO orderDTO;
     private Product product;
     private OrderItemDTO orderItemDTO;
@@ -90,18 +113,32 @@ class OrderServiceTest {
                 .status(OrderStatus.PENDING)
                 .items(Arrays.asList(orderItem))
                 .build();
+
+        orderRow = new OrderRow(1L, "ORD-12345678", "John Doe", "john.doe@example.com", OrderStatus.PENDING, 0L);
+        orderItemRow = new OrderItemRow(1L, 1L, 1L, "Test Product", 2, new BigDecimal("99.99"));
     }
 
     @Nested
     @DisplayName("Order Creation Tests")
     class OrderCreationTests {
 
+        private ProductDTO productAfterRemoval() {
+            return ProductDTO.builder()
+                    .id(1L)
+                    .name("Test Product")
+                    .price(new BigDecimal("99.99"))
+                    .stockQuantity(98)
+                    .active(true)
+                    .build();
+        }
+
         @Test
         @DisplayName("Should create order successfully")
         void shouldCreateOrderSuccessfully() {
             // Given
-            when(productRepository.findById(1L)).thenReturn(Optional.of(product));
-            when(productService.checkStockAvailability(1L, 2)).thenReturn(true);
+            when(productService.removeStock(Map.of(1L, 2))).thenReturn(Map.of(1L, productAfterRemoval()));
+            when(productRepository.getReferenceById(1L)).thenReturn(product);
+            when(orderNumberGenerator.next()).thenReturn("ORD-0000000000001");
             when(orderRepository.save(any(Order.class))).thenReturn(order);
             when(orderMapper.toDTO(any(Order.class))).thenReturn(orderDTO);
 
@@ -111,30 +148,69 @@ class OrderServiceTest {
             // Then
             assertThat(result).isNotNull();
             assertThat(result.getCustomerEmail()).isEqualTo("john.doe@example.com");
-            verify(productService).removeStock(1L, 2);
+            verify(productService).removeStock(Map.of(1L, 2));
+            verify(orderRepository).save(argThat(saved -> "ORD-0000000000001".equals(saved.getOrderNumber())));
+        }
+
+        @Test
+        @DisplayName("Should remove stock once per product, without loading products line by line")
+        void shouldRemoveStockOncePerProduct() {
+            // Given
+            OrderDTO twoLines = OrderDTO.builder()
+                    .customerName("John Doe")
+                    .customerEmail("john.doe@example.com")
+                    .items(List.of(orderItemDTO, OrderItemDTO.builder().productId(1L).quantity(3).build()))
+                    .build();
+            when(productService.removeStock(Map.of(1L, 5))).thenReturn(Map.of(1L, productAfterRemoval()));
+            when(productRepository.getReferenceById(1L)).thenReturn(product);
+            when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // When
+            orderService.createOrder(twoLines);
+
+            // Then
+            verify(productService).removeStock(Map.of(1L, 5));
+            verify(productService, never()).removeStock(anyLong(), anyInt());
+            verify(productRepository, never()).findById(any());
         }
 
         @Test
         @DisplayName("Should throw exception when product not found")
         void shouldThrowExceptionWhenProductNotFound() {
             // Given
-            when(productRepository.findById(1L)).thenReturn(Optional.empty());
+            when(productService.removeStock(Map.of(1L, 2))).thenThrow(new ResourceNotFoundException("Produit", 1L));
 
             // When/Then
             assertThatThrownBy(() -> orderService.createOrder(orderDTO))
                     .isInstanceOf(ResourceNotFoundException.class);
+            verify(orderRepository, never()).save(any());
         }
 
         @Test
         @DisplayName("Should throw exception when insufficient stock")
         void shouldThrowExceptionWhenInsufficientStock() {
             // Given
-            when(productRepository.findById(1L)).thenReturn(Optional.of(product));
-            when(productService.checkStockAvailability(1L, 2)).thenReturn(false);
+            when(productService.removeStock(Map.of(1L, 2))).thenThrow(new InsufficientStockException("Test Product", 1, 2));
 
             // When/Then
             assertThatThrownBy(() -> orderService.createOrder(orderDTO))
                     .isInstanceOf(InsufficientStockException.class);
+            verify(orderRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Should reject inactive products")
+        void shouldRejectInactiveProducts() {
+            // Given
+            when(productService.removeStock(Map.of(1L, 2)))
+                    .thenThrow(new BusinessException("Le produit 'Test Product' n'est pas disponible", "PRODUCT_NOT_AVAILABLE"));
+
+            // When/Then
+            assertThatThrownBy(() -> orderService.createOrder(orderDTO))
+                    .isInstanceOf(BusinessException.class)
+                    .hasMessageContaining("n'est pas disponible");
+            verify(orderRepository, never()).save(any());
+            verifyNoInteractions(orderNumberGenerator);
         }
 
         @Test
@@ -154,6 +230,63 @@ class OrderServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Reservation Conversion Tests")
+    class ReservationConversionTests {
+
+        private StockReservation reservation(ReservationStatus status, LocalDateTime expiresAt) {
+            StockReservation reservation = StockReservation.builder()
+                    .id(1L)
+                    .token("RSV-1")
+                    .customerName("John Doe")
+                    .customerEmail("john.doe@example.com")
+                    .status(status)
+                    .expiresAt(expiresAt)
+                    .build();
+            reservation.addItem(StockReservationItem.builder().product(product).quantity(2).build());
+            return reservation;
+        }
+
+        @Test
+        @DisplayName("Should convert a held reservation and take its held stock")
+        void shouldConvertHeldReservation() {
+            // Given
+            StockReservation reservation = reservation(ReservationStatus.HELD, LocalDateTime.now().plusMinutes(5));
+            when(reservationRepository.findByTokenForUpdate("RSV-1")).thenReturn(Optional.of(reservation));
+            when(orderRepository.save(any(Order.class))).thenReturn(order);
+            when(orderMapper.toDTO(order)).thenReturn(orderDTO);
+
+            // When
+            OrderDTO result = orderService.createOrderFromReservation("RSV-1");
+
+            // Then
+            assertThat(result).isSameAs(orderDTO);
+            assertThat(reservation.getStatus()).isEqualTo(ReservationStatus.CONVERTED);
+            assertThat(reservation.getOrderNumber()).isEqualTo("ORD-12345678");
+            verify(productService).commitHeldStock(Map.of(product.getId(), 2));
+            verifyNoMoreInteractions(productService);
+        }
+
+        @Test
+        @DisplayName("Should reject expired or already converted reservations")
+        void shouldRejectInactiveReservations() {
+            // Given
+            when(reservationRepository.findByTokenForUpdate("RSV-1"))
+                    .thenReturn(Optional.of(reservation(ReservationStatus.HELD, LocalDateTime.now().minusSeconds(1))));
+            when(reservationRepository.findByTokenForUpdate("RSV-2"))
+                    .thenReturn(Optional.of(reservation(ReservationStatus.CONVERTED, LocalDateTime.now().plusMinutes(5))));
+
+            // When/Then
+            assertThatThrownBy(() -> orderService.createOrderFromReservation("RSV-1"))
+                    .isInstanceOf(BusinessException.class)
+                    .hasMessageContaining("expiré");
+            assertThatThrownBy(() -> orderService.createOrderFromReservation("RSV-2"))
+                    .isInstanceOf(BusinessException.class)
+                    .hasMessageContaining("plus en cours");
+            verify(orderRepository, never()).save(any());
+        }
+    }
+
     @Nested
     @DisplayName("Order Retrieval Tests")
     class OrderRetrievalTests {
@@ -162,8 +295,9 @@ class OrderServiceTest {
         @DisplayName("Should get order by ID")
         void shouldGetOrderById() {
             // Given
-            when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
-            when(orderMapper.toDTO(order)).thenReturn(orderDTO);
+            when(orderRepository.findRowById(1L)).thenReturn(Optional.of(orderRow));
+            when(orderRepository.findItemRowsByOrderId(1L)).thenReturn(List.of(orderItemRow));
+            when(orderMapper.toDTO(orderRow, List.of(orderItemRow))).thenReturn(orderDTO);
 
             // When
             OrderDTO result = orderService.getOrderById(1L);
@@ -177,7 +311,7 @@ class OrderServiceTest {
         @DisplayName("Should throw exception when order not found")
         void shouldThrowExceptionWhenOrderNotFound() {
             // Given
-            when(orderRepository.findById(999L)).thenReturn(Optional.empty());
+            when(orderRepository.findRowById(999L)).thenReturn(Optional.empty());
 
             // When/Then
             assertThatThrownBy(() -> orderService.getOrderById(999L))
@@ -188,8 +322,9 @@ class OrderServiceTest {
         @DisplayName("Should get order by order number")
         void shouldGetOrderByNumber() {
             // Given
-            when(orderRepository.findByOrderNumber("ORD-12345678")).thenReturn(Optional.of(order));
-            when(orderMapper.toDTO(order)).thenReturn(orderDTO);
+            when(orderRepository.findRowByOrderNumber("ORD-12345678")).thenReturn(Optional.of(orderRow));
+            when(orderRepository.findItemRowsByOrderId(1L)).thenReturn(List.of(orderItemRow));
+            when(orderMapper.toDTO(orderRow, List.of(orderItemRow))).thenReturn(orderDTO);
 
             // When
             OrderDTO result = orderService.getOrderByNumber("ORD-12345678");
@@ -202,8 +337,9 @@ class OrderServiceTest {
         @DisplayName("Should get all orders")
         void shouldGetAllOrders() {
             // Given
-            when(orderRepository.findAll()).thenReturn(Arrays.asList(order));
-            when(orderMapper.toDTO(order)).thenReturn(orderDTO);
+            when(orderRepository.findAllRows()).thenReturn(List.of(orderRow));
+            when(orderRepository.findAllItemRows()).thenReturn(List.of(orderItemRow));
+            when(orderMapper.toDTO(orderRow, List.of(orderItemRow))).thenReturn(orderDTO);
 
             // When
             List<OrderDTO> result = orderService.getAllOrders();
@@ -216,9 +352,10 @@ class OrderServiceTest {
         @DisplayName("Should get orders by customer email")
         void shouldGetOrdersByCustomerEmail() {
             // Given
-            when(orderRepository.findByCustomerEmail("john.doe@example.com"))
-                    .thenReturn(Arrays.asList(order));
-            when(orderMapper.toDTO(order)).thenReturn(orderDTO);
+            when(orderRepository.findRowsByCustomerEmail("john.doe@example.com"))
+                    .thenReturn(List.of(orderRow));
+            when(orderRepository.findItemRowsByCustomerEmail("john.doe@example.com")).thenReturn(List.of(orderItemRow));
+            when(orderMapper.toDTO(orderRow, List.of(orderItemRow))).thenReturn(orderDTO);
 
             // When
             List<OrderDTO> result = orderService.getOrdersByCustomerEmail("john.doe@example.com");
@@ -226,6 +363,25 @@ class OrderServiceTest {
             // Then
             assertThat(result).hasSize(1);
         }
+
+        @Test
+        @DisplayName("Should load items of all listed orders in a single query")
+        void shouldLoadItemsOfAllOrdersInSingleQuery() {
+            // Given
+            OrderRow other = new OrderRow(2L, "ORD-87654321", "Jane Doe", "jane.doe@example.com", OrderStatus.SHIPPED, 3L);
+            OrderItemRow otherItem = new OrderItemRow(2L, 5L, 1L, "Test Product", 1, new BigDecimal("99.99"));
+            when(orderRepository.findAllRows()).thenReturn(List.of(orderRow, other));
+            when(orderRepository.findAllItemRows()).thenReturn(List.of(orderItemRow, otherItem));
+
+            // When
+            orderService.getAllOrders();
+
+            // Then
+            verify(orderRepository, never()).findItemRowsByOrderId(any());
+            verify(orderMapper).toDTO(orderRow, List.of(orderItemRow));
+            verify(orderMapper).toDTO(other, List.of(otherItem));
+            verify(orderRepository, never()).findAll();
+        }
     }
 
     @Nested
@@ -284,26 +440,60 @@ class OrderServiceTest {
         void shouldUpdateStatusFromPendingToConfirmed() {
             // Given
             order.setStatus(OrderStatus.PENDING);
+            order.setVersion(0L);
             when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
             when(orderRepository.save(order)).thenReturn(order);
             when(orderMapper.toDTO(order)).thenReturn(orderDTO);
 
             // When
-            orderService.updateOrderStatus(1L, OrderStatus.CONFIRMED);
+            orderService.updateOrderStatus(1L, OrderStatus.CONFIRMED, 0L);
 
             // Then
             assertThat(order.getStatus()).isEqualTo(OrderStatus.CONFIRMED);
         }
 
+        @Test
+        @DisplayName("Should change the status of the current version when the client sends none")
+        void shouldUpdateStatusWithoutExpectedVersion() {
+            // Given
+            order.setStatus(OrderStatus.PENDING);
+            order.setVersion(4L);
+            when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+            when(orderRepository.save(order)).thenReturn(order);
+            when(orderMapper.toDTO(order)).thenReturn(orderDTO);
+
+            // When
+            orderService.updateOrderStatus(1L, OrderStatus.CONFIRMED, null);
+
+            // Then
+            assertThat(order.getStatus()).isEqualTo(OrderStatus.CONFIRMED);
+        }
+
+        @Test
+        @DisplayName("Should refuse a status change based on an outdated version")
+        void shouldRefuseStatusChangeOnStaleVersion() {
+            // Given
+            order.setStatus(OrderStatus.PENDING);
+            order.setVersion(1L);
+            when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+
+            // When/Then
+            assertThatThrownBy(() -> orderService.updateOrderStatus(1L, OrderStatus.CONFIRMED, 0L))
+                    .isInstanceOf(StaleVersionException.class);
+            assertThat(order.getStatus()).isEqualTo(OrderStatus.PENDING);
+            verify(orderRepository, never()).save(any());
+        }
+
         @Test
         @DisplayName("Should throw exception for invalid status transition")
         void shouldThrowExceptionForInvalidStatusTransition() {
             // Given
             order.setStatus(OrderStatus.PENDING);
+            order.setVersion(0L);
             when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
 
             // When/Then - cannot go from PENDING to SHIPPED directly
-            assertThatThrownBy(() -> orderService.updateOrderStatus(1L, OrderStatus.SHIPPED))
+            assertThatThrownBy(() -> orderService.updateOrderStatus(1L, OrderStatus.SHIPPED, 0L))
                     .isInstanceOf(BusinessException.class)
                     .hasMessageContaining("Transition de statut invalide");
         }
@@ -312,9 +502,10 @@ class OrderServiceTest {
         @DisplayName("Should get orders by status")
         void shouldGetOrdersByStatus() {
             // Given
-            when(orderRepository.findByStatus(OrderStatus.PENDING))
-                    .thenReturn(Arrays.asList(order));
-            when(orderMapper.toDTO(order)).thenReturn(orderDTO);
+            when(orderRepository.findRowsByStatus(OrderStatus.PENDING))
+                    .thenReturn(List.of(orderRow));
+            when(orderRepository.findItemRowsByStatus(OrderStatus.PENDING)).thenReturn(List.of(orderItemRow));
+            when(orderMapper.toDTO(orderRow, List.of(orderItemRow))).thenReturn(orderDTO);
 
             // When
             List<OrderDTO> result = orderService.getOrdersByStatus(OrderStatus.PENDING);
@@ -368,7 +559,7 @@ class OrderServiceTest {
         @DisplayName("Should validate order successfully")
         void shouldValidateOrderSuccessfully() {
             // Given
-            when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+            when(productRepository.findSnapshotsByIdIn(any())).thenReturn(List.of(ProductSnapshot.of(product)));
 
             // When
             boolean result = orderService.validateOrder(orderDTO);
@@ -382,7 +573,7 @@ class OrderServiceTest {
         void shouldThrowExceptionForInactiveProduct() {
             // Given
             product.setActive(false);
-            when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+            when(productRepository.findSnapshotsByIdIn(any())).thenReturn(List.of(ProductSnapshot.of(product)));
 
             // When/Then
             assertThatThrownBy(() -> orderService.validateOrder(orderDTO))
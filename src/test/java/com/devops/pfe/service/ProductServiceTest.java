@@ -1,29 +1,62 @@
 package com.devops.pfe.service;
 
+import com.devops.pfe.cache.ProductCache;
+import com.devops.pfe.dto.CursorPageDTO;
+import com.devops.pfe.dto.ProductBatchDTO;
 import com.devops.pfe.dto.ProductDTO;
+import com.devops.pfe.dto.ProductSuggestionDTO;
 import com.devops.pfe.entity.Product;
+import com.devops.pfe.exception.BusinessException;
 import com.devops.pfe.exception.DuplicateResourceException;
 import com.devops.pfe.exception.InsufficientStockException;
 import com.devops.pfe.exception.ResourceNotFoundException;
+import com.devops.pfe.exception.StaleVersionException;
+import com.devops.pfe.feed.ProductChangeLog;
+import com.devops.pfe.index.ProductAutocompleteIndex;
+import com.devops.pfe.index.ProductChangeType;
+import com.devops.pfe.index.ProductChangedEvent;
+import com.devops.pfe.index.ProductFacetIndex;
+import com.devops.pfe.index.ProductIndexer;
+import com.devops.pfe.index.ProductPriceIndex;
+import com.devops.pfe.index.ProductSearchIndex;
+import com.devops.pfe.index.ProductSnapshot;
+import com.devops.pfe.index.ProductStockTracker;
+import com.devops.pfe.index.ProductValuationIndex;
+import com.devops.pfe.inventory.StockLanes;
+import com.devops.pfe.inventory.StockLedger;
 import com.devops.pfe.mapper.ProductMapper;
+import com.devops.pfe.notification.StockAlertNotifier;
 import com.devops.pfe.repository.ProductRepository;
+import com.devops.pfe.repository.ProductStockRepository;
 import com.devops.pfe.service.impl.ProductServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,9 +66,52 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ProductStockRepository productStockRepository;
+
+    @Mock
+    private StockLedger stockLedger;
+
+    @Mock
+    private StockLanes stockLanes;
+
     @Mock
     private ProductMapper productMapper;
 
+    @Spy
+    private ProductCache productCache = new ProductCache(
+            new ConcurrentMapCacheManager(ProductCache.BY_ID, ProductCache.BY_SKU));
+
+    @Mock
+    private ProductIndexer productIndexer;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private ProductAutocompleteIndex productAutocompleteIndex;
+
+    @Mock
+    private ProductFacetIndex productFacetIndex;
+
+    @Mock
+    private ProductPriceIndex productPriceIndex;
+
+    @Mock
+    private ProductStockTracker productStockTracker;
+
+    @Mock
+    private ProductValuationIndex productValuationIndex;
+
+    @Mock
+    private StockAlertNotifier stockAlertNotifier;
+
+    @Mock
+    private ProductChangeLog productChangeLog;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ProductServiceImpl productService;
 
@@ -88,6 +164,7 @@ class ProductServiceTest {
             assertThat(result.getName()).isEqualTo("Test Product");
             assertThat(result.getSku()).isEqualTo("TEST-SKU-001");
             verify(productRepository).save(product);
+            verify(eventPublisher).publishEvent(new ProductChangedEvent(ProductChangeType.CREATED, ProductSnapshot.of(product)));
         }
 
         @Test
@@ -132,9 +209,7 @@ class ProductServiceTest {
         @DisplayName("Should get all products")
         void shouldGetAllProducts() {
             // Given
-            List<Product> products = Arrays.asList(product, product);
-            when(productRepository.findAll()).thenReturn(products);
-            when(productMapper.toDTO(any(Product.class))).thenReturn(productDTO);
+            when(productRepository.findAllDTOs()).thenReturn(Arrays.asList(productDTO, productDTO));
 
             // When
             List<ProductDTO> result = productService.getAllProducts();
@@ -147,6 +222,8 @@ class ProductServiceTest {
         @DisplayName("Should update product successfully")
         void shouldUpdateProductSuccessfully() {
             // Given
+            product.setVersion(2L);
+            productDTO.setVersion(2L);
             when(productRepository.findById(1L)).thenReturn(Optional.of(product));
             when(productRepository.save(product)).thenReturn(product);
             when(productMapper.toDTO(product)).thenReturn(productDTO);
@@ -160,6 +237,40 @@ class ProductServiceTest {
             verify(productRepository).save(product);
         }
 
+        @Test
+        @DisplayName("Should refuse an update based on an outdated version")
+        void shouldRefuseUpdateOnStaleVersion() {
+            // Given
+            product.setVersion(3L);
+            productDTO.setVersion(2L);
+            when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+
+            // When/Then
+            assertThatThrownBy(() -> productService.updateProduct(1L, productDTO))
+                    .isInstanceOf(StaleVersionException.class)
+                    .hasMessageContaining("Version attendue: 2, actuelle: 3");
+            verify(productMapper, never()).updateEntityFromDTO(any(), any());
+            verify(productRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Should update the current version when the client sends none")
+        void shouldUpdateCurrentVersionWithoutExpectedVersion() {
+            // Given
+            product.setVersion(3L);
+            productDTO.setVersion(null);
+            when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+            when(productRepository.save(product)).thenReturn(product);
+            when(productMapper.toDTO(product)).thenReturn(productDTO);
+
+            // When
+            productService.updateProduct(1L, productDTO);
+
+            // Then
+            verify(productMapper).updateEntityFromDTO(productDTO, product);
+            verify(productRepository).save(product);
+        }
+
         @Test
         @DisplayName("Should delete product successfully")
         void shouldDeleteProductSuccessfully() {
@@ -171,6 +282,250 @@ class ProductServiceTest {
 
             // Then
             verify(productRepository).delete(product);
+            ArgumentCaptor<ProductChangedEvent> event = ArgumentCaptor.forClass(ProductChangedEvent.class);
+            verify(eventPublisher).publishEvent(event.capture());
+            assertThat(event.getValue().type()).isEqualTo(ProductChangeType.DELETED);
+            assertThat(event.getValue().product().id()).isEqualTo(1L);
+        }
+    }
+
+    @Nested
+    @DisplayName("Listing Pagination Tests")
+    class ListingPaginationTests {
+
+        private ProductDTO productWithId(long id) {
+            return ProductDTO.builder().id(id).name("Product " + id).build();
+        }
+
+        @Test
+        @DisplayName("Should return next cursor when more rows exist")
+        void shouldReturnNextCursorWhenMoreRowsExist() {
+            // Given
+            when(productRepository.findListingPage(0L, false, null, null, Limit.of(3)))
+                    .thenReturn(List.of(productWithId(1), productWithId(2), productWithId(3)));
+            when(productRepository.findListingPage(2L, false, null, null, Limit.of(3)))
+                    .thenReturn(List.of(productWithId(3)));
+
+            // When
+            CursorPageDTO<ProductDTO> first = productService.getProductsPage(ProductService.ProductFilter.all(), null, 2);
+            CursorPageDTO<ProductDTO> second = productService.getProductsPage(
+                    ProductService.ProductFilter.all(), first.getNextCursor(), 2);
+
+            // Then
+            assertThat(first.getItems()).extracting(ProductDTO::getId).containsExactly(1L, 2L);
+            assertThat(first.getNextCursor()).isNotNull();
+            assertThat(second.getItems()).extracting(ProductDTO::getId).containsExactly(3L);
+            assertThat(second.getNextCursor()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should reject invalid cursor and limit")
+        void shouldRejectInvalidCursorAndLimit() {
+            // When/Then
+            assertThatThrownBy(() -> productService.getProductsPage(ProductService.ProductFilter.all(), "%%%", 10))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Curseur");
+            assertThatThrownBy(() -> productService.getProductsPage(ProductService.ProductFilter.all(), null, 0))
+                    .isInstanceOf(IllegalArgumentException.class);
+            verify(productRepository, never()).findListingPage(anyLong(), anyBoolean(), any(), any(), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Batch Lookup Tests")
+    class BatchLookupTests {
+
+        private ProductDTO productWithId(long id) {
+            return ProductDTO.builder().id(id).sku("SKU-" + id).name("Product " + id).build();
+        }
+
+        @Test
+        @DisplayName("Should keep request order, report missing keys and return each product once")
+        void shouldKeepRequestOrderAndReportMissingKeys() {
+            // Given
+            when(productRepository.findDTOsByIdIn(List.of(3L, 1L, 7L)))
+                    .thenReturn(List.of(productWithId(1L), productWithId(3L)));
+            when(productRepository.findDTOsBySkuIn(List.of("SKU-2", "NOPE")))
+                    .thenReturn(List.of(productWithId(2L)));
+
+            // When
+            ProductBatchDTO result = productService.getProductsBatch(
+                    List.of(3L, 1L, 3L, 7L), Arrays.asList("SKU-2", "SKU-1", "NOPE", " ", null));
+
+            // Then
+            assertThat(result.getProducts()).extracting(ProductDTO::getId).containsExactly(3L, 1L, 2L);
+            assertThat(result.getMissingIds()).containsExactly(7L);
+            assertThat(result.getMissingSkus()).containsExactly("NOPE");
+        }
+
+        @Test
+        @DisplayName("Should serve warm entries from cache and query only the misses")
+        void shouldServeWarmEntriesFromCache() {
+            // Given
+            productCache.getById(1L, id -> productWithId(id));
+            when(productRepository.findDTOsByIdIn(List.of(2L))).thenReturn(List.of(productWithId(2L)));
+
+            // When
+            productService.getProductsBatch(List.of(1L, 2L), null);
+            ProductBatchDTO result = productService.getProductsBatch(List.of(1L, 2L), List.of("SKU-2"));
+
+            // Then
+            assertThat(result.getProducts()).extracting(ProductDTO::getId).containsExactly(1L, 2L);
+            verify(productRepository, times(1)).findDTOsByIdIn(any());
+            verify(productRepository, never()).findDTOsBySkuIn(any());
+        }
+
+        @Test
+        @DisplayName("Should split misses into bounded IN queries")
+        void shouldSplitMissesIntoChunks() {
+            // Given
+            List<Long> ids = new ArrayList<>();
+            for (long id = 1; id <= 1200; id++) {
+                ids.add(id);
+            }
+            when(productRepository.findDTOsByIdIn(any())).thenReturn(List.of());
+
+            // When
+            ProductBatchDTO result = productService.getProductsBatch(ids, null);
+
+            // Then
+            assertThat(result.getMissingIds()).hasSize(1200);
+            ArgumentCaptor<Collection<Long>> chunks = ArgumentCaptor.forClass(Collection.class);
+            verify(productRepository, times(3)).findDTOsByIdIn(chunks.capture());
+            assertThat(chunks.getAllValues()).extracting(Collection::size).containsExactly(500, 500, 200);
+        }
+
+        @Test
+        @DisplayName("Should reject empty and oversized requests")
+        void shouldRejectEmptyAndOversizedRequests() {
+            List<Long> tooMany = new ArrayList<>();
+            for (long id = 1; id <= 5001; id++) {
+                tooMany.add(id);
+            }
+
+            assertThatThrownBy(() -> productService.getProductsBatch(List.of(), null))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> productService.getProductsBatch(tooMany, null))
+                    .isInstanceOf(IllegalArgumentException.class);
+            verifyNoInteractions(productRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("Product Cache Tests")
+    class ProductCacheTests {
+
+        @Test
+        @DisplayName("Should serve repeated lookups by ID from cache")
+        void shouldServeRepeatedLookupsByIdFromCache() {
+            // Given
+            when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+            when(productMapper.toDTO(product)).thenReturn(productDTO);
+
+            // When
+            productService.getProductById(1L);
+            ProductDTO result = productService.getProductById(1L);
+
+            // Then
+            assertThat(result.getId()).isEqualTo(1L);
+            verify(productRepository, times(1)).findById(1L);
+        }
+
+        @Test
+        @DisplayName("Should serve lookups by SKU from cache populated by ID")
+        void shouldServeLookupsBySkuFromCache() {
+            // Given
+            when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+            when(productMapper.toDTO(product)).thenReturn(productDTO);
+
+            // When
+            productService.getProductById(1L);
+            ProductDTO result = productService.getProductBySku("TEST-SKU-001");
+
+            // Then
+            assertThat(result.getId()).isEqualTo(1L);
+            verify(productRepository, never()).findBySku(any());
+        }
+
+        @Test
+        @DisplayName("Should not cache a product loaded before a concurrent eviction")
+        void shouldNotCacheProductLoadedBeforeEviction() {
+            // When : un écrivain invalide le produit pendant son chargement
+            productCache.getById(1L, id -> {
+                productCache.evict(1L, "TEST-SKU-001");
+                return productDTO;
+            });
+
+            // Then
+            assertThat(productCache.peekById(1L)).isNull();
+            assertThat(productCache.peekBySku("TEST-SKU-001")).isNull();
+        }
+
+        @Test
+        @DisplayName("Should hand out copies that do not alter the cached entry")
+        void shouldHandOutCopiesOfCachedEntries() {
+            // Given
+            when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+            when(productMapper.toDTO(product)).thenReturn(productDTO);
+            Integer stock = productDTO.getStockQuantity();
+
+            // When
+            productService.getProductById(1L).setStockQuantity(0);
+            productDTO.setStockQuantity(0);
+
+            // Then
+            assertThat(productService.getProductById(1L).getStockQuantity()).isEqualTo(stock);
+        }
+
+        @Test
+        @DisplayName("Should not cache missing products")
+        void shouldNotCacheMissingProducts() {
+            // Given
+            when(productRepository.findById(999L)).thenReturn(Optional.empty());
+
+            // When/Then
+            assertThatThrownBy(() -> productService.getProductById(999L))
+                    .isInstanceOf(ResourceNotFoundException.class);
+            assertThatThrownBy(() -> productService.getProductById(999L))
+                    .isInstanceOf(ResourceNotFoundException.class);
+            verify(productRepository, times(2)).findById(999L);
+        }
+
+        @Test
+        @DisplayName("Should evict cached product on stock mutation")
+        void shouldEvictCachedProductOnStockMutation() {
+            // Given
+            when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+            when(productMapper.toDTO(product)).thenReturn(productDTO);
+            when(productStockRepository.increment(1L, 5)).thenReturn(true);
+            when(productRepository.findSnapshotById(1L)).thenReturn(Optional.of(ProductSnapshot.of(product)));
+            productService.getProductById(1L);
+
+            // When
+            productService.addStock(1L, 5);
+            productService.getProductById(1L);
+
+            // Then
+            verify(productCache).evict(1L, "TEST-SKU-001");
+            verify(productRepository, times(2)).findById(1L);
+        }
+
+        @Test
+        @DisplayName("Should evict old and new SKU when SKU changes")
+        void shouldEvictOldAndNewSkuWhenSkuChanges() {
+            // Given
+            product.setVersion(0L);
+            ProductDTO update = ProductDTO.builder().sku("NEW-SKU").version(0L).build();
+            when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+            when(productRepository.existsBySku("NEW-SKU")).thenReturn(false);
+            when(productRepository.save(product)).thenReturn(product);
+
+            // When
+            productService.updateProduct(1L, update);
+
+            // Then
+            verify(productCache).evict(1L, "TEST-SKU-001");
+            verify(productCache).evict(1L, "NEW-SKU");
         }
     }
 
@@ -207,32 +562,38 @@ class ProductServiceTest {
         @DisplayName("Should add stock successfully")
         void shouldAddStockSuccessfully() {
             // Given
-            product.setStockQuantity(100);
-            when(productRepository.findById(1L)).thenReturn(Optional.of(product));
-            when(productRepository.save(product)).thenReturn(product);
-            when(productMapper.toDTO(product)).thenReturn(productDTO);
+            product.setStockQuantity(150);
+            ProductSnapshot updated = ProductSnapshot.of(product);
+            when(productStockRepository.increment(1L, 50)).thenReturn(true);
+            when(productRepository.findSnapshotById(1L)).thenReturn(Optional.of(updated));
+            when(productMapper.toDTO(updated)).thenReturn(productDTO);
 
             // When
-            productService.addStock(1L, 50);
+            ProductDTO result = productService.addStock(1L, 50);
 
             // Then
-            assertThat(product.getStockQuantity()).isEqualTo(150);
+            assertThat(result).isSameAs(productDTO);
+            verify(eventPublisher).publishEvent(new ProductChangedEvent(ProductChangeType.STOCK_CHANGED, updated));
+            verify(productRepository, never()).save(any());
         }
 
         @Test
         @DisplayName("Should remove stock successfully")
         void shouldRemoveStockSuccessfully() {
             // Given
-            product.setStockQuantity(100);
-            when(productRepository.findById(1L)).thenReturn(Optional.of(product));
-            when(productRepository.save(product)).thenReturn(product);
-            when(productMapper.toDTO(product)).thenReturn(productDTO);
+            product.setStockQuantity(70);
+            ProductSnapshot updated = ProductSnapshot.of(product);
+            when(productStockRepository.decrement(1L, 30)).thenReturn(true);
+            when(productRepository.findSnapshotById(1L)).thenReturn(Optional.of(updated));
+            when(productMapper.toDTO(updated)).thenReturn(productDTO);
 
             // When
-            productService.removeStock(1L, 30);
+            ProductDTO result = productService.removeStock(1L, 30);
 
             // Then
-            assertThat(product.getStockQuantity()).isEqualTo(70);
+            assertThat(result).isSameAs(productDTO);
+            verify(eventPublisher).publishEvent(new ProductChangedEvent(ProductChangeType.STOCK_CHANGED, updated));
+            verify(productRepository, never()).save(any());
         }
 
         @Test
@@ -240,11 +601,129 @@ class ProductServiceTest {
         void shouldThrowExceptionWhenInsufficientStock() {
             // Given
             product.setStockQuantity(10);
-            when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+            when(productStockRepository.decrement(1L, 50)).thenReturn(false);
+            when(productRepository.findSnapshotById(1L)).thenReturn(Optional.of(ProductSnapshot.of(product)));
+            when(productStockRepository.findAvailable(1L)).thenReturn(10);
 
             // When/Then
             assertThatThrownBy(() -> productService.removeStock(1L, 50))
+                    .isInstanceOf(InsufficientStockException.class)
+                    .hasMessageContaining("Disponible: 10");
+            verifyNoInteractions(eventPublisher);
+        }
+
+        @Test
+        @DisplayName("Should report missing product when conditional update matches no row")
+        void shouldReportMissingProductOnStockMutation() {
+            // Given
+            when(productStockRepository.increment(999L, 5)).thenReturn(false);
+            when(productStockRepository.decrement(999L, 5)).thenReturn(false);
+            when(productRepository.findSnapshotById(999L)).thenReturn(Optional.empty());
+
+            // When/Then
+            assertThatThrownBy(() -> productService.addStock(999L, 5))
+                    .isInstanceOf(ResourceNotFoundException.class);
+            assertThatThrownBy(() -> productService.removeStock(999L, 5))
+                    .isInstanceOf(ResourceNotFoundException.class);
+        }
+
+        @Test
+        @DisplayName("Should admit removal through the ledger without writing the row")
+        void shouldAdmitRemovalThroughLedger() {
+            // Given
+            productCache.getById(1L, id -> productDTO);
+            when(stockLedger.isEnabled()).thenReturn(true);
+            when(stockLedger.tryRemove(1L, 30)).thenReturn(true);
+            when(stockLedger.available(1L)).thenReturn(70);
+
+            // When
+            ProductDTO result = productService.removeStock(1L, 30);
+
+            // Then
+            assertThat(result.getStockQuantity()).isEqualTo(70);
+            assertThat(productDTO.getStockQuantity()).isEqualTo(100);
+            verifyNoInteractions(productStockRepository, eventPublisher);
+        }
+
+        @Test
+        @DisplayName("Should lock, decrement in memory and flush once for a grouped removal")
+        void shouldRemoveStockOfSeveralProductsInOneWrite() {
+            // Given
+            Product other = Product.builder().id(2L).name("Other").sku("OTH-001").stockQuantity(5).active(true).build();
+            when(productRepository.findAllByIdForUpdate(Set.of(1L, 2L))).thenReturn(List.of(product, other));
+            when(productMapper.toDTO(any(Product.class))).thenReturn(productDTO);
+
+            // When
+            Map<Long, ProductDTO> result = productService.removeStock(Map.of(1L, 30, 2L, 5));
+
+            // Then
+            assertThat(result).containsOnlyKeys(1L, 2L);
+            assertThat(product.getStockQuantity()).isEqualTo(70);
+            assertThat(other.getStockQuantity()).isZero();
+            verify(productRepository).flush();
+            verify(eventPublisher, times(2)).publishEvent(any(ProductChangedEvent.class));
+            verifyNoInteractions(productStockRepository);
+        }
+
+        @Test
+        @DisplayName("Should refuse a grouped removal when one product lacks stock")
+        void shouldRefuseGroupedRemovalOnInsufficientStock() {
+            // Given
+            when(productRepository.findAllByIdForUpdate(Set.of(1L))).thenReturn(List.of(product));
+
+            // When/Then
+            assertThatThrownBy(() -> productService.removeStock(Map.of(1L, 101)))
                     .isInstanceOf(InsufficientStockException.class);
+            verify(productRepository, never()).flush();
+            verifyNoInteractions(eventPublisher);
+        }
+
+        @Test
+        @DisplayName("Should refuse a grouped removal of an inactive product before decrementing")
+        void shouldRefuseGroupedRemovalOfInactiveProduct() {
+            // Given
+            Product other = Product.builder().id(2L).name("Other").sku("OTH-001").stockQuantity(5).active(false).build();
+            when(productRepository.findAllByIdForUpdate(Set.of(1L, 2L))).thenReturn(List.of(product, other));
+
+            // When/Then
+            assertThatThrownBy(() -> productService.removeStock(Map.of(1L, 30, 2L, 5)))
+                    .isInstanceOf(BusinessException.class)
+                    .hasMessageContaining("n'est pas disponible");
+            assertThat(other.getStockQuantity()).isEqualTo(5);
+            verify(productRepository, never()).flush();
+            verifyNoInteractions(eventPublisher);
+        }
+
+        @Test
+        @DisplayName("Should not hand an inactive product's removal to its write lane")
+        void shouldRefuseInactiveProductBeforeLane() {
+            // Given
+            product.setActive(false);
+            when(stockLanes.isEnabled()).thenReturn(true);
+            when(productRepository.findAllById(Set.of(1L))).thenReturn(List.of(product));
+
+            // When/Then
+            assertThatThrownBy(() -> productService.removeStock(Map.of(1L, 30)))
+                    .isInstanceOf(BusinessException.class)
+                    .hasMessageContaining("n'est pas disponible");
+            verify(stockLanes, never()).remove(any(), anyInt());
+        }
+
+        @Test
+        @DisplayName("Should hand removal to the product's write lane")
+        void shouldRemoveStockThroughLane() {
+            // Given
+            productCache.getById(1L, id -> productDTO);
+            when(stockLanes.isEnabled()).thenReturn(true);
+            when(stockLanes.remove(1L, 30)).thenReturn(70);
+
+            // When
+            ProductDTO result = productService.removeStock(1L, 30);
+
+            // Then
+            assertThat(result.getStockQuantity()).isEqualTo(70);
+            verify(stockLanes).remove(1L, 30);
+            verifyNoInteractions(productStockRepository, eventPublisher);
         }
 
         @Test
@@ -262,6 +741,20 @@ class ProductServiceTest {
             assertThat(result).isTrue();
         }
 
+        @Test
+        @DisplayName("Should not count held stock as available")
+        void shouldNotCountHeldStockAsAvailable() {
+            // Given
+            product.setStockQuantity(100);
+            product.setReservedQuantity(60);
+            product.setActive(true);
+            when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+
+            // When/Then
+            assertThat(productService.checkStockAvailability(1L, 40)).isTrue();
+            assertThat(productService.checkStockAvailability(1L, 50)).isFalse();
+        }
+
         @Test
         @DisplayName("Should return false when product inactive")
         void shouldReturnFalseWhenProductInactive() {
@@ -308,24 +801,14 @@ class ProductServiceTest {
         @DisplayName("Should calculate total stock value")
         void shouldCalculateTotalStockValue() {
             // Given
-            Product product1 = Product.builder()
-                    .price(new BigDecimal("10.00"))
-                    .stockQuantity(100)
-                    .active(true)
-                    .build();
-            Product product2 = Product.builder()
-                    .price(new BigDecimal("20.00"))
-                    .stockQuantity(50)
-                    .active(true)
-                    .build();
-
-            when(productRepository.findByActiveTrue()).thenReturn(Arrays.asList(product1, product2));
+            when(productValuationIndex.total()).thenReturn(new BigDecimal("2000.00"));
 
             // When
             BigDecimal result = productService.calculateTotalValue();
 
             // Then
-            assertThat(result).isEqualByComparingTo(new BigDecimal("2000.00")); // (10*100) + (20*50)
+            assertThat(result).isEqualByComparingTo(new BigDecimal("2000.00"));
+            verifyNoInteractions(productRepository);
         }
     }
 
@@ -375,8 +858,7 @@ class ProductServiceTest {
         @DisplayName("Should get products by category")
         void shouldGetProductsByCategory() {
             // Given
-            when(productRepository.findByCategory("Electronics")).thenReturn(Arrays.asList(product));
-            when(productMapper.toDTO(product)).thenReturn(productDTO);
+            when(productRepository.findDTOsByCategory("Electronics")).thenReturn(List.of(productDTO));
 
             // When
             List<ProductDTO> result = productService.getProductsByCategory("Electronics");
@@ -390,14 +872,65 @@ class ProductServiceTest {
         @DisplayName("Should search products by keyword")
         void shouldSearchProductsByKeyword() {
             // Given
-            when(productRepository.searchByKeyword("Test")).thenReturn(Arrays.asList(product));
-            when(productMapper.toDTO(product)).thenReturn(productDTO);
+            ProductSnapshot snapshot = ProductSnapshot.of(product);
+            when(productSearchIndex.search("Test", 50, false)).thenReturn(List.of(1L));
+            when(productIndexer.getAll(List.of(1L))).thenReturn(List.of(snapshot));
+            when(productMapper.toDTO(snapshot)).thenReturn(productDTO);
 
             // When
             List<ProductDTO> result = productService.searchProducts("Test");
 
             // Then
             assertThat(result).hasSize(1);
+            verifyNoInteractions(productRepository);
+        }
+
+        @Test
+        @DisplayName("Should reject out of range search limit")
+        void shouldRejectOutOfRangeSearchLimit() {
+            // When/Then
+            assertThatThrownBy(() -> productService.searchProducts("Test", 0))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("Should suggest products by prefix")
+        void shouldSuggestProductsByPrefix() {
+            // Given
+            ProductSnapshot snapshot = ProductSnapshot.of(product);
+            ProductSuggestionDTO suggestion = new ProductSuggestionDTO(1L, "Test Product", "TEST-SKU-001");
+            when(productAutocompleteIndex.suggest("tes", 5)).thenReturn(List.of(1L));
+            when(productIndexer.getAll(List.of(1L))).thenReturn(List.of(snapshot));
+            when(productMapper.toSuggestionDTO(snapshot)).thenReturn(suggestion);
+
+            // When
+            List<ProductSuggestionDTO> result = productService.autocomplete("tes", 5);
+
+            // Then
+            assertThat(result).containsExactly(suggestion);
+            verifyNoInteractions(productRepository);
+        }
+
+        @Test
+        @DisplayName("Should reject out of range autocomplete limit")
+        void shouldRejectOutOfRangeAutocompleteLimit() {
+            // When/Then
+            assertThatThrownBy(() -> productService.autocomplete("tes", ProductAutocompleteIndex.MAX_SUGGESTIONS + 1))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("Should get categories from facet index")
+        void shouldGetCategoriesFromFacetIndex() {
+            // Given
+            when(productFacetIndex.categories()).thenReturn(List.of("Electronics", "Furniture"));
+
+            // When
+            List<String> result = productService.getAllCategories();
+
+            // Then
+            assertThat(result).containsExactly("Electronics", "Furniture");
+            verifyNoInteractions(productRepository);
         }
 
         @Test
@@ -406,14 +939,37 @@ class ProductServiceTest {
             // Given
             BigDecimal minPrice = new BigDecimal("50.00");
             BigDecimal maxPrice = new BigDecimal("150.00");
-            when(productRepository.findByPriceRange(minPrice, maxPrice)).thenReturn(Arrays.asList(product));
-            when(productMapper.toDTO(product)).thenReturn(productDTO);
+            ProductSnapshot snapshot = ProductSnapshot.of(product);
+            when(productPriceIndex.range(minPrice, maxPrice, false, Integer.MAX_VALUE)).thenReturn(List.of(1L));
+            when(productIndexer.getAll(List.of(1L))).thenReturn(List.of(snapshot));
+            when(productMapper.toDTO(snapshot)).thenReturn(productDTO);
 
             // When
             List<ProductDTO> result = productService.getProductsByPriceRange(minPrice, maxPrice);
 
             // Then
             assertThat(result).hasSize(1);
+            verifyNoInteractions(productRepository);
+        }
+
+        @Test
+        @DisplayName("Should sort and limit price range")
+        void shouldSortAndLimitPriceRange() {
+            // Given
+            BigDecimal minPrice = new BigDecimal("50.00");
+            BigDecimal maxPrice = new BigDecimal("150.00");
+            when(productPriceIndex.range(minPrice, maxPrice, true, 5)).thenReturn(List.of());
+
+            // When
+            List<ProductDTO> result = productService.getProductsByPriceRange(minPrice, maxPrice, Sort.Direction.DESC, 5);
+
+            // Then
+            assertThat(result).isEmpty();
+            verify(productPriceIndex).range(minPrice, maxPrice, true, 5);
+            assertThatThrownBy(() -> productService.getProductsByPriceRange(minPrice, maxPrice, Sort.Direction.ASC, 0))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> productService.getProductsByPriceRange(new BigDecimal("-1"), maxPrice, Sort.Direction.ASC, 5))
+                    .isInstanceOf(IllegalArgumentException.class);
         }
 
         @Test
@@ -421,14 +977,44 @@ class ProductServiceTest {
         void shouldGetLowStockProducts() {
             // Given
             product.setStockQuantity(5);
-            when(productRepository.findLowStockProducts(10)).thenReturn(Arrays.asList(product));
-            when(productMapper.toDTO(product)).thenReturn(productDTO);
+            ProductSnapshot snapshot = ProductSnapshot.of(product);
+            when(productStockTracker.below(10)).thenReturn(List.of(1L));
+            when(productIndexer.getAll(List.of(1L))).thenReturn(List.of(snapshot));
+            when(productMapper.toDTO(snapshot)).thenReturn(productDTO);
 
             // When
             List<ProductDTO> result = productService.getLowStockProducts(10);
 
             // Then
             assertThat(result).hasSize(1);
+            verifyNoInteractions(productRepository);
+        }
+
+        @Test
+        @DisplayName("Should stream low stock products from tracker")
+        void shouldStreamLowStockProductsFromTracker() {
+            // Given
+            ProductSnapshot snapshot = ProductSnapshot.of(product);
+            when(productStockTracker.below(10)).thenReturn(List.of(1L));
+            when(productIndexer.getAll(List.of(1L))).thenReturn(List.of(snapshot));
+            when(productMapper.toDTO(snapshot)).thenReturn(productDTO);
+            List<ProductDTO> streamed = new ArrayList<>();
+
+            // When
+            productService.streamProducts(ProductService.ProductFilter.lowStock(10), streamed::add);
+
+            // Then
+            assertThat(streamed).containsExactly(productDTO);
+            verifyNoInteractions(productRepository);
+        }
+
+        @Test
+        @DisplayName("Should reject non positive stock alert threshold")
+        void shouldRejectNonPositiveStockAlertThreshold() {
+            // When/Then
+            assertThatThrownBy(() -> productService.subscribeToStockAlerts(0))
+                    .isInstanceOf(IllegalArgumentException.class);
+            verifyNoInteractions(stockAlertNotifier);
         }
     }
 }